@@ -56,7 +56,7 @@ public class LoginCheckAspect {
         String requestURI = request.getRequestURI();
         
         // 检查是否来自Docker内部网络
-        boolean isInternalNetwork = DockerNetworkUtil.isInDockerNetwork(clientIp);
+        boolean isInternalNetwork = DockerNetworkUtil.isInDockerNetwork(IpUtil.getClientAddress(request));
         
         // 如果是内部网络请求且带有正确的标识头，直接通过
         if (isInternalNetwork && "true".equals(adminFlag) && StringUtils.hasText(internalService)) {
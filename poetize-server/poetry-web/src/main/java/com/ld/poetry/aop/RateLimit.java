@@ -0,0 +1,57 @@
+package com.ld.poetry.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流，标注在类上时对该类的所有接口生效（方法上的标注优先）
+ * 超过限制时抛出 PoetryRuntimeException，返回 message
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 限流器名称，默认使用“类名.方法名”
+     */
+    String name() default "";
+
+    /**
+     * 每个周期内允许的次数
+     */
+    int limit();
+
+    /**
+     * 周期（秒）
+     */
+    long period() default 60;
+
+    /**
+     * 限流维度
+     */
+    Scope scope() default Scope.IP;
+
+    /**
+     * 只在本实例内限流，不访问Redis
+     */
+    boolean local() default false;
+
+    String message() default "请求过于频繁，请稍后再试！";
+
+    enum Scope {
+        /**
+         * 按客户端IP
+         */
+        IP,
+        /**
+         * 按登录用户，未登录时按IP
+         */
+        USER,
+        /**
+         * 所有请求共用
+         */
+        GLOBAL
+    }
+}
@@ -0,0 +1,70 @@
+package com.ld.poetry.aop;
+
+import com.ld.poetry.handle.PoetryRuntimeException;
+import com.ld.poetry.service.RateLimiterService;
+import com.ld.poetry.utils.PoetryUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口限流切面，先于登录校验执行，超限请求不再做后续校验
+ */
+@Aspect
+@Component
+@Order(-1)
+@Slf4j
+public class RateLimitAspect {
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Around("@annotation(com.ld.poetry.aop.RateLimit) || @within(com.ld.poetry.aop.RateLimit)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(method, RateLimit.class);
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        if (rateLimit == null) {
+            rateLimit = AnnotatedElementUtils.findMergedAnnotation(targetClass, RateLimit.class);
+        }
+        if (rateLimit == null) {
+            return joinPoint.proceed();
+        }
+
+        String name = rateLimit.name().isEmpty()
+                ? targetClass.getSimpleName() + "." + method.getName()
+                : rateLimit.name();
+        String subject = resolveSubject(rateLimit.scope());
+
+        boolean allowed = rateLimit.local()
+                ? rateLimiterService.tryAcquireLocal(name, subject, rateLimit.limit(), rateLimit.period(), TimeUnit.SECONDS)
+                : rateLimiterService.tryAcquire(name, subject, rateLimit.limit(), rateLimit.period(), TimeUnit.SECONDS).isAllowed();
+        if (!allowed) {
+            log.info("请求被限流 - 限流器: {}, 对象: {}", name, subject);
+            throw new PoetryRuntimeException(rateLimit.message());
+        }
+        return joinPoint.proceed();
+    }
+
+    private String resolveSubject(RateLimit.Scope scope) {
+        if (scope == RateLimit.Scope.GLOBAL) {
+            return "global";
+        }
+        if (scope == RateLimit.Scope.USER) {
+            Integer userId = PoetryUtil.getUserId();
+            if (userId != null) {
+                return "user:" + userId;
+            }
+        }
+        return PoetryUtil.getIpAddr(PoetryUtil.getRequest());
+    }
+}
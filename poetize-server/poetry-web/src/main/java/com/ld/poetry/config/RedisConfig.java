@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ld.poetry.utils.cache.CompactRedisSerializer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +17,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -43,6 +45,12 @@ public class RedisConfig {
     @Value("${spring.redis.database:0}")
     private int redisDatabase;
 
+    @Value("${spring.redis.serializer.format:binary}")
+    private String serializerFormat;
+
+    @Value("${spring.redis.serializer.compress-threshold:2048}")
+    private int compressThreshold;
+
     /**
      * 自定义Redis连接工厂
      * 解决Spring Boot自动配置的认证问题
@@ -75,7 +83,7 @@ public class RedisConfig {
 
     /**
      * 配置RedisTemplate
-     * 使用Jackson2JsonRedisSerializer进行序列化
+     * 值使用紧凑二进制序列化，旧的Jackson2JsonRedisSerializer数据仍可读取
      */
     @Bean
     @Primary
@@ -99,6 +107,10 @@ public class RedisConfig {
 
         jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
 
+        // 二进制序列化器，不带格式头的旧JSON数据交给Jackson读取
+        boolean writeBinary = !"json".equalsIgnoreCase(serializerFormat);
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(jackson2JsonRedisSerializer, writeBinary, compressThreshold);
+
         // 使用StringRedisSerializer来序列化和反序列化redis的key值
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
@@ -106,14 +118,14 @@ public class RedisConfig {
         template.setKeySerializer(stringRedisSerializer);
         // hash的key也采用String的序列化方式
         template.setHashKeySerializer(stringRedisSerializer);
-        // value序列化方式采用jackson
-        template.setValueSerializer(jackson2JsonRedisSerializer);
-        // hash的value序列化方式采用jackson
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        // value序列化方式采用紧凑二进制
+        template.setValueSerializer(valueSerializer);
+        // hash的value序列化方式采用紧凑二进制
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         
-        log.info("Redis模板配置完成");
+        log.info("Redis模板配置完成 - 值序列化格式: {}, 压缩阈值: {}字节", writeBinary ? "binary" : "json", compressThreshold);
         return template;
     }
 
@@ -129,5 +141,17 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * 配置Redis消息监听容器
+     * 用于接收本地缓存失效通知等发布/订阅消息
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        log.info("Redis消息监听容器配置完成");
+        return container;
+    }
+
     // 注意：项目现在完全使用Redis缓存，不再使用Spring Cache框架
 }
@@ -1,23 +1,29 @@
 package com.ld.poetry.config;
 
 import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.service.IpBlacklistService;
+import com.ld.poetry.service.RateLimiterService;
+import com.ld.poetry.service.SecurityRuleService;
 import com.ld.poetry.utils.IpUtil;
 import com.ld.poetry.utils.RedisUtil;
+import com.ld.poetry.utils.ip.CidrTrie;
+import com.ld.poetry.utils.security.PathRuleMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 安全过滤器 - 拦截常见的恶意扫描请求并实现IP拉黑
@@ -30,6 +36,21 @@ public class SecurityFilter extends OncePerRequestFilter {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private IpBlacklistService ipBlacklistService;
+
+    @Autowired
+    private SecurityRuleService securityRuleService;
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    // 按网段拉黑的地址范围，逗号分隔的CIDR
+    @Value("${poetize.security.blocked-networks:}")
+    private String blockedNetworks;
+
+    private CidrTrie blockedNetworkTrie = new CidrTrie();
+
     // 攻击次数阈值 - 超过此次数将被拉黑
     private static final int ATTACK_THRESHOLD = 3;
 
@@ -44,50 +65,24 @@ public class SecurityFilter extends OncePerRequestFilter {
         "poetize-nginx"
     );
 
-    // 常见的恶意扫描路径 - 只包含明确的恶意路径，避免误拦截正常请求
-    private static final Set<String> MALICIOUS_PATHS = Set.of(
-        "/.env",                    // 环境变量文件
-        "/.env.local",
-        "/.env.production", 
-        "/.git",                    // Git版本控制目录
-        "/.git/config",
-        "/phpmyadmin",              // 数据库管理工具
-        "/pma",
-        "/wp-admin",                // WordPress管理后台
-        "/wp-login.php",
-        "/wp-config.php",
-        "/config.php",              // PHP配置文件
-        "/database.php",
-        "/xmlrpc.php",              // WordPress XML-RPC
-        "/.aws",                    // AWS配置
-        "/.docker",                 // Docker配置
-        "/docker-compose.yml",
-        "/Dockerfile",
-        "/.DS_Store",               // macOS系统文件
-        "/admin.php",               // PHP管理页面（而不是/admin）
-        "/admin/login.php",
-        "/administrator.php",
-        "/manager.php",
-        "/console.php",
-        "/debug.php",
-        "/test.php",
-        "/info.php",
-        "/phpinfo.php",
-        "/sql.php",
-        "/backup.sql",
-        "/database.sql",
-        "/.htaccess",               // Apache配置文件
-        "/.htpasswd",
-        "/web.config",              // IIS配置文件
-        "/server.xml",              // Tomcat配置
-        "/application.properties",  // Spring配置文件（如果在根目录就是恶意扫描）
-        "/application.yml",
-        "/build.sh",                // 构建脚本，常被扫描利用
-        "/index.html",              // 根目录index.html探测
-        "/translation/test-summary", // 翻译模型测试探测
-        "/translation/definite_notexist_path", // 翻译模型路径扫描
-        "/definite_notexist_path"  // 通用路径探测
-    );
+    @PostConstruct
+    public void initBlockedNetworks() {
+        CidrTrie trie = new CidrTrie();
+        for (String cidr : blockedNetworks.split(",")) {
+            if (cidr.isBlank()) {
+                continue;
+            }
+            try {
+                trie.add(cidr.trim());
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略无效的拉黑网段: {}", cidr);
+            }
+        }
+        blockedNetworkTrie = trie;
+        if (!trie.isEmpty()) {
+            log.info("已加载{}个拉黑网段", trie.size());
+        }
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -105,8 +100,8 @@ public class SecurityFilter extends OncePerRequestFilter {
         // 清理过期的拉黑记录和攻击计数
         cleanupExpiredRecords();
         
-        // 检查IP是否被拉黑
-        if (isIPBlacklisted(clientIP)) {
+        // 检查IP是否被拉黑（先按网段前缀树匹配，再查Redis中的单IP拉黑记录）
+        if (blockedNetworkTrie.contains(IpUtil.getClientAddress(request)) || isIPBlacklisted(clientIP)) {
             log.warn("拒绝已拉黑IP的访问: {} from IP: {}", requestURI, clientIP);
             response.setStatus(HttpServletResponse.SC_FORBIDDEN);
             response.getWriter().write("403 Forbidden - IP Blacklisted");
@@ -116,15 +111,12 @@ public class SecurityFilter extends OncePerRequestFilter {
         boolean isMaliciousRequest = false;
         String attackType = "";
         
-        // 检查是否为恶意扫描路径
-        if (MALICIOUS_PATHS.contains(requestURI)) {
-            isMaliciousRequest = true;
-            attackType = "恶意路径扫描";
-        }
-        // 检查是否包含恶意扫描特征
-        else if (containsMaliciousPattern(requestURI)) {
+        // 检查是否命中恶意路径或可疑特征规则（规范化后的路径单次扫描匹配全部规则）
+        PathRuleMatcher.Rule rule = securityRuleService.match(requestURI);
+        if (rule != null) {
             isMaliciousRequest = true;
-            attackType = "可疑请求特征";
+            attackType = rule.getCategory();
+            log.debug("请求命中安全规则: {}, URI: {}", rule.getName(), requestURI);
         }
         // 检查无参数的敏感API调用
         else if (isInvalidApiCall(request)) {
@@ -152,87 +144,6 @@ public class SecurityFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
-    /**
-     * 检查是否包含恶意模式
-     */
-    private boolean containsMaliciousPattern(String requestURI) {
-        try {
-            // URL解码，防止编码绕过
-            String decodedURI = URLDecoder.decode(requestURI, StandardCharsets.UTF_8);
-            String lowerURI = decodedURI.toLowerCase();
-            
-            // 路径遍历攻击
-            if (decodedURI.contains("..") || decodedURI.contains("./")) {
-                return true;
-            }
-            
-            // 敏感文件扩展名
-            if (decodedURI.endsWith(".sql") || decodedURI.endsWith(".bak") || 
-                decodedURI.endsWith(".backup") || decodedURI.endsWith(".old") || 
-                decodedURI.endsWith(".tmp") || decodedURI.endsWith(".log")) {
-                return true;
-            }
-            
-            // PHP相关恶意路径（WordPress、PHPMyAdmin等）
-            if (lowerURI.contains("/wp-") || lowerURI.contains(".php.") ||
-                lowerURI.contains("admin.php") || lowerURI.contains("login.php") ||
-                lowerURI.contains("config.php") || lowerURI.contains("phpinfo")) {
-                return true;
-            }
-            
-            // 只拦截已知的恶意翻译路径扫描，不拦截合法翻译服务请求
-            if (lowerURI.equals("/translation/test-summary") || lowerURI.equals("/translation/definite_notexist_path")) {
-                return true;
-            }
-            
-            // 检测明显的恶意探测模式
-            if (lowerURI.contains("notexist") || 
-                lowerURI.contains("test-") || 
-                lowerURI.contains("scanner") || 
-                lowerURI.contains("scan") ||
-                lowerURI.contains("probe")) {
-                return true;
-            }
-            
-            // 检测常见的CMS路径扫描
-            Set<String> commonCmsPatterns = Set.of(
-                "/wp-", "/wordpress", "/drupal", "/joomla", "/magento",
-                "/administrator", "/admin/login", "/phpmyadmin", "/xmlrpc", 
-                "/blog/wp-", "/cms/", "/old/", "/new/", "/backup/", "/bak/", 
-                "/beta/", "/temp/", "/dev/"
-            );
-            
-            for (String pattern : commonCmsPatterns) {
-                if (lowerURI.contains(pattern)) {
-                    return true;
-                }
-            }
-            
-            // XSS和脚本注入检测
-            if (lowerURI.contains("<script") || lowerURI.contains("javascript:") ||
-                lowerURI.contains("eval(") || lowerURI.contains("base64_decode")) {
-                return true;
-            }
-            
-            // SQL注入检测（大小写不敏感）
-            if (lowerURI.contains("union") && lowerURI.contains("select") ||
-                lowerURI.contains("drop") && lowerURI.contains("table") ||
-                lowerURI.contains("insert") && lowerURI.contains("into") ||
-                lowerURI.contains("delete") && lowerURI.contains("from") ||
-                lowerURI.contains("update") && lowerURI.contains("set") ||
-                lowerURI.contains("select") && lowerURI.contains("from")) {
-                return true;
-            }
-            
-            return false;
-            
-        } catch (Exception e) {
-            // URL解码失败，可能是恶意构造的URL
-            log.warn("URL解码失败，可能为恶意请求: {}", requestURI);
-            return true;
-        }
-    }
-    
     /**
      * 检查是否为内部服务请求
      */
@@ -270,11 +181,10 @@ public class SecurityFilter extends OncePerRequestFilter {
     }
     
     /**
-     * 检查IP是否被拉黑
+     * 检查IP是否被拉黑（本地布隆过滤器判断不在黑名单时不访问Redis）
      */
     private boolean isIPBlacklisted(String ip) {
-        String blacklistKey = CacheConstants.buildIpBlacklistKey(ip);
-        return redisUtil.hasKey(blacklistKey);
+        return ipBlacklistService.isBlacklisted(ip);
     }
     
     /**
@@ -287,8 +197,7 @@ public class SecurityFilter extends OncePerRequestFilter {
                      attackType, requestURI);
 
             // 对unknown_ip立即拉黑，防止绕过检测
-            String blacklistKey = CacheConstants.buildIpBlacklistKey(ip);
-            redisUtil.set(blacklistKey, LocalDateTime.now().toString(), CacheConstants.IP_BLACKLIST_EXPIRE_TIME);
+            ipBlacklistService.blacklist(ip, CacheConstants.IP_BLACKLIST_EXPIRE_TIME);
 
             log.error("未知IP因恶意攻击被立即拉黑{}小时，拉黑时间: {}",
                      BLACKLIST_DURATION_HOURS,
@@ -296,28 +205,25 @@ public class SecurityFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 正常IP的处理逻辑 - 使用Redis计数器
-        String attackKey = CacheConstants.buildIpAttackKey(ip);
-        long currentCount = redisUtil.incr(attackKey, 1);
-
-        // 设置攻击计数的过期时间
-        if (currentCount == 1) {
-            redisUtil.expire(attackKey, CacheConstants.IP_ATTACK_EXPIRE_TIME);
-        }
+        // 正常IP的处理逻辑 - 攻击计数窗口内超过阈值即拉黑（限流器脚本一次往返完成计数和判断）
+        RateLimiterService.Result result = rateLimiterService.tryAcquire(CacheConstants.IP_ATTACK_LIMITER, ip,
+                ATTACK_THRESHOLD - 1, CacheConstants.IP_ATTACK_EXPIRE_TIME, TimeUnit.SECONDS);
+        long currentCount = result.isAllowed() && result.getRemaining() >= 0
+                ? ATTACK_THRESHOLD - 1 - result.getRemaining()
+                : ATTACK_THRESHOLD;
 
         log.warn("拦截{}攻击: {} from IP: {} (攻击次数: {})", attackType, requestURI, ip, currentCount);
 
         // 检查是否达到拉黑阈值
-        if (currentCount >= ATTACK_THRESHOLD) {
-            String blacklistKey = CacheConstants.buildIpBlacklistKey(ip);
-            redisUtil.set(blacklistKey, LocalDateTime.now().toString(), CacheConstants.IP_BLACKLIST_EXPIRE_TIME);
+        if (!result.isAllowed()) {
+            ipBlacklistService.blacklist(ip, CacheConstants.IP_BLACKLIST_EXPIRE_TIME);
 
             log.error("IP {} 因连续{}次恶意攻击被拉黑{}小时，拉黑时间: {}",
                      ip, currentCount, BLACKLIST_DURATION_HOURS,
                      LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
             // 重置攻击计数
-            redisUtil.del(attackKey);
+            rateLimiterService.reset(CacheConstants.IP_ATTACK_LIMITER, ip);
         }
     }
     
@@ -52,13 +52,23 @@ public class CacheConstants {
      * 热门文章缓存键
      */
     public static final String HOT_ARTICLES_KEY = CACHE_PREFIX + "article:hot";
-    
+
     /**
-     * 文章浏览量缓存键前缀
-     * 格式: poetize:article:view:{articleId}
+     * 热门文章排行榜键（有序集合，成员为文章ID，分值为热度分数）
      */
-    public static final String ARTICLE_VIEW_PREFIX = CACHE_PREFIX + "article:view:";
+    public static final String HOT_ARTICLE_RANK_KEY = CACHE_PREFIX + "article:hot:rank";
 
+    /**
+     * 热门文章排行榜为空的标记键
+     * 说明：没有可见文章时有序集合不存在，用该标记避免每次读取都重建
+     */
+    public static final String HOT_ARTICLE_RANK_EMPTY_KEY = CACHE_PREFIX + "article:hot:rank:empty";
+
+    /**
+     * 热门文章排行榜为空标记的过期时间（秒）- 5分钟
+     */
+    public static final long HOT_ARTICLE_RANK_EMPTY_EXPIRE_TIME = 300;
+    
     /**
      * 用户文章列表缓存键前缀
      * 格式: poetize:user:article:list:{userId}
@@ -133,10 +143,15 @@ public class CacheConstants {
     // ================================ 安全相关缓存 ================================
     
     /**
-     * IP攻击次数缓存键前缀
-     * 格式: poetize:security:attack:{ip}
+     * 限流器状态缓存键前缀（GCRA理论到达时间）
+     * 格式: poetize:ratelimit:{限流器名称}:{限流对象}
+     */
+    public static final String RATE_LIMIT_PREFIX = CACHE_PREFIX + "ratelimit:";
+    
+    /**
+     * IP攻击次数限流器名称，窗口内超过次数后拉黑
      */
-    public static final String IP_ATTACK_PREFIX = CACHE_PREFIX + "security:attack:";
+    public static final String IP_ATTACK_LIMITER = "ipAttack";
     
     /**
      * IP黑名单缓存键前缀
@@ -237,11 +252,29 @@ public class CacheConstants {
     public static final String TODAY_VISIT_COUNT_PREFIX = CACHE_PREFIX + "visit:count:today:";
     
     /**
-     * 每日访问记录缓存键前缀（Redis中存储当天的访问记录）
+     * 每日访问记录缓存键前缀（旧格式：当天访问记录的JSON列表，仅用于迁移到访问日志）
      * 格式: poetize:visit:records:{date}
      */
     public static final String DAILY_VISIT_RECORDS_PREFIX = CACHE_PREFIX + "visit:records:";
+
+    /**
+     * 访问日志Redis Stream（每个条目为一批定长二进制访问记录）
+     * 格式: poetize:visit:log
+     */
+    public static final String VISIT_LOG_STREAM_KEY = CACHE_PREFIX + "visit:log";
     
+    /**
+     * 访问独立IP计数（Redis HyperLogLog）键前缀
+     * 格式: poetize:visit:uv:{date}、poetize:visit:uv:{date}:h:{hour}、poetize:visit:uv:{date}:p:{province}
+     */
+    public static final String VISIT_UV_PREFIX = CACHE_PREFIX + "visit:uv:";
+
+    /**
+     * 访问次数计数（Hash：pv、h:{hour}、p:{province}、u:{userId}）键前缀
+     * 格式: poetize:visit:counter:{date}
+     */
+    public static final String VISIT_COUNTER_PREFIX = CACHE_PREFIX + "visit:counter:";
+
     /**
      * IP今日访问标记缓存键前缀
      * 格式: poetize:visit:ip:today:{date}:{ip}_{userId}
@@ -299,6 +332,24 @@ public class CacheConstants {
      */
     public static final long SEARCH_ENGINE_PING_RESULT_EXPIRE_TIME = 21600;
     
+    // ================================ 聊天相关缓存 ================================
+
+    /**
+     * 聊天未读数缓存键前缀（Hash）
+     * 格式: poetize:im:unread:{userId}，字段为 f:{好友ID} 或 g:{群ID}，值为未读消息数
+     */
+    public static final String IM_UNREAD_PREFIX = CACHE_PREFIX + "im:unread:";
+
+    /**
+     * 聊天未读数过期时间（秒）- 7天，读取时续期，过期后从数据库重建
+     */
+    public static final long IM_UNREAD_EXPIRE_TIME = 604800;
+
+    /**
+     * 群成员ID本地缓存存活时间（毫秒）- 30秒，用于群消息未读数扇出
+     */
+    public static final long LOCAL_IM_GROUP_MEMBERS_TTL = 30_000;
+
     // ================================ 二维码相关缓存 ================================
     
     /**
@@ -314,6 +365,82 @@ public class CacheConstants {
      */
     public static final long QRCODE_EXPIRE_TIME = 0;
 
+    // ================================ 本地缓存（L1）相关 ================================
+
+    /**
+     * 本地缓存失效通知频道
+     * 说明：任一实例修改或删除本地缓存覆盖的Redis键后发布该键，其他实例收到后清除本地副本
+     */
+    public static final String LOCAL_CACHE_INVALIDATE_CHANNEL = CACHE_PREFIX + "local:invalidate";
+
+    /**
+     * 用户信息本地缓存存活时间（毫秒）- 1分钟
+     */
+    public static final long LOCAL_USER_TTL = 60_000;
+
+    /**
+     * 用户信息本地缓存最大条目数
+     */
+    public static final int LOCAL_USER_MAX_SIZE = 10_000;
+
+    /**
+     * 网站信息本地缓存存活时间（毫秒）- 5分钟
+     */
+    public static final long LOCAL_WEB_INFO_TTL = 300_000;
+
+    /**
+     * 系统配置本地缓存存活时间（毫秒）- 5分钟
+     */
+    public static final long LOCAL_SYS_CONFIG_TTL = 300_000;
+
+    /**
+     * 系统配置本地缓存最大条目数
+     */
+    public static final int LOCAL_SYS_CONFIG_MAX_SIZE = 1024;
+
+    /**
+     * 评论数量本地缓存存活时间（毫秒）- 10秒
+     */
+    public static final long LOCAL_COMMENT_COUNT_TTL = 10_000;
+
+    /**
+     * 评论数量本地缓存最大条目数
+     */
+    public static final int LOCAL_COMMENT_COUNT_MAX_SIZE = 10_000;
+
+    /**
+     * 分类文章列表本地缓存存活时间（毫秒）- 1分钟
+     */
+    public static final long LOCAL_SORT_ARTICLE_LIST_TTL = 60_000;
+
+    /**
+     * IP黑名单同步频道
+     * 说明：任一实例拉黑或解除拉黑IP后发布，其他实例收到后更新本地布隆过滤器
+     */
+    public static final String IP_BLACKLIST_SYNC_CHANNEL = CACHE_PREFIX + "local:blacklist";
+
+    /**
+     * IP黑名单未命中结果本地缓存存活时间（毫秒）- 10秒
+     * 说明：只缓存布隆过滤器误判或已过期的IP，真正拉黑的IP仍以Redis为准
+     */
+    public static final long LOCAL_BLACKLIST_NEGATIVE_TTL = 10_000;
+
+    /**
+     * IP黑名单未命中结果本地缓存最大条目数
+     */
+    public static final int LOCAL_BLACKLIST_NEGATIVE_MAX_SIZE = 10_000;
+
+    /**
+     * 本地令牌桶最大数量，超过后新的限流对象只检查Redis
+     */
+    public static final int LOCAL_RATE_LIMIT_MAX_BUCKETS = 100_000;
+
+    /**
+     * 限流状态重置频道
+     * 说明：任一实例清除限流状态后发布，其他实例收到后删除对应的本地令牌桶
+     */
+    public static final String RATE_LIMIT_RESET_CHANNEL = CACHE_PREFIX + "local:ratelimit-reset";
+
     // ================================ 缓存过期时间常量 ================================
     
     /**
@@ -415,12 +542,13 @@ public class CacheConstants {
     }
     
     /**
-     * 构建IP攻击缓存键
-     * @param ip IP地址
+     * 构建限流器缓存键
+     * @param name 限流器名称
+     * @param subject 限流对象（IP、用户ID等）
      * @return 缓存键
      */
-    public static String buildIpAttackKey(String ip) {
-        return IP_ATTACK_PREFIX + ip;
+    public static String buildRateLimitKey(String name, String subject) {
+        return RATE_LIMIT_PREFIX + name + ":" + subject;
     }
     
     /**
@@ -590,6 +718,44 @@ public class CacheConstants {
         return DAILY_VISIT_RECORDS_PREFIX + date;
     }
     
+    /**
+     * 构建每日独立IP计数键
+     * @param date 日期（格式：yyyy-MM-dd）
+     * @return 缓存键
+     */
+    public static String buildVisitUvKey(String date) {
+        return VISIT_UV_PREFIX + date;
+    }
+
+    /**
+     * 构建每小时独立IP计数键
+     * @param date 日期（格式：yyyy-MM-dd）
+     * @param hour 小时（0-23）
+     * @return 缓存键
+     */
+    public static String buildHourlyVisitUvKey(String date, int hour) {
+        return VISIT_UV_PREFIX + date + ":h:" + hour;
+    }
+
+    /**
+     * 构建省份每日独立IP计数键
+     * @param date 日期（格式：yyyy-MM-dd）
+     * @param province 省份
+     * @return 缓存键
+     */
+    public static String buildProvinceVisitUvKey(String date, String province) {
+        return VISIT_UV_PREFIX + date + ":p:" + province;
+    }
+
+    /**
+     * 构建每日访问次数计数键
+     * @param date 日期（格式：yyyy-MM-dd）
+     * @return 缓存键
+     */
+    public static String buildVisitCounterKey(String date) {
+        return VISIT_COUNTER_PREFIX + date;
+    }
+
     /**
      * 构建IP今日访问标记缓存键
      * @param date 日期（格式：yyyy-MM-dd）
@@ -602,6 +768,17 @@ public class CacheConstants {
         return IP_TODAY_VISIT_PREFIX + date + ":" + ip + userSuffix;
     }
     
+    // ================================ 聊天缓存键构建方法 ================================
+
+    /**
+     * 构建聊天未读数缓存键
+     * @param userId 用户ID
+     * @return 缓存键
+     */
+    public static String buildImUnreadKey(Integer userId) {
+        return IM_UNREAD_PREFIX + userId;
+    }
+
     // ================================ 二维码缓存键构建方法 ================================
     
     /**
@@ -48,6 +48,7 @@ public class CommonConst {
     public static final String IP_HISTORY_IP = "ip_history_ip";
     public static final String IP_HISTORY_HOUR = "ip_history_hour";
     public static final String IP_HISTORY_COUNT = "ip_history_count";
+    public static final String IP_HISTORY_YESTERDAY_COUNT = "ip_history_yesterday_count";
 
     /**
      * Token过期时间：7天（统一与SESSION_EXPIRE_TIME保持一致）
@@ -6,6 +6,7 @@ import com.ld.poetry.aop.LoginCheck;
 import com.ld.poetry.config.PoetryResult;
 import com.ld.poetry.entity.*;
 import com.ld.poetry.service.ArticleService;
+import com.ld.poetry.service.HotArticleRankService;
 import com.ld.poetry.service.SummaryService;
 import com.ld.poetry.service.TranslationService;
 import com.ld.poetry.utils.PoetryUtil;
@@ -46,6 +47,9 @@ public class AdminArticleController {
     @Autowired
     private com.ld.poetry.service.SitemapService sitemapService;
 
+    @Autowired
+    private HotArticleRankService hotArticleRankService;
+
     /**
      * 用户查询文章
      */
@@ -86,6 +90,9 @@ public class AdminArticleController {
             updateChainWrapper.set(Article::getRecommendStatus, recommendStatus);
         }
         updateChainWrapper.update();
+
+        // 推荐、可见、评论状态都会影响热度排行
+        hotArticleRankService.refreshArticle(articleId);
         
         // 如果修改了文章可见性，需要更新sitemap
         if (viewStatus != null) {
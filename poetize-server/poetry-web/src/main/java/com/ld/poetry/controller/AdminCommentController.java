@@ -7,7 +7,9 @@ import com.ld.poetry.entity.Article;
 import com.ld.poetry.entity.Comment;
 import com.ld.poetry.enums.CommentTypeEnum;
 import com.ld.poetry.service.ArticleService;
+import com.ld.poetry.service.CacheService;
 import com.ld.poetry.service.CommentService;
+import com.ld.poetry.service.HotArticleRankService;
 import com.ld.poetry.utils.PoetryUtil;
 import com.ld.poetry.vo.BaseRequestVO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,12 @@ public class AdminCommentController {
     @Autowired
     private CommentService commentService;
 
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private HotArticleRankService hotArticleRankService;
+
     /**
      * 作者删除评论
      */
@@ -49,6 +57,7 @@ public class AdminCommentController {
             return PoetryResult.fail("权限不足！");
         }
         commentService.removeById(id);
+        afterCommentRemoved(comment);
         return PoetryResult.success();
     }
 
@@ -58,10 +67,25 @@ public class AdminCommentController {
     @GetMapping("/comment/boss/deleteComment")
     @LoginCheck(1)
     public PoetryResult bossDeleteComment(@RequestParam("id") Integer id) {
+        Comment comment = commentService.lambdaQuery().select(Comment::getSource, Comment::getType).eq(Comment::getId, id).one();
         commentService.removeById(id);
+        afterCommentRemoved(comment);
         return PoetryResult.success();
     }
 
+    /**
+     * 评论删除后清理评论缓存并更新文章热度
+     */
+    private void afterCommentRemoved(Comment comment) {
+        if (comment == null) {
+            return;
+        }
+        cacheService.evictCommentRelatedCache(comment.getSource(), comment.getType());
+        if (CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode().equals(comment.getType())) {
+            hotArticleRankService.refreshArticle(comment.getSource());
+        }
+    }
+
     /**
      * 用户查询评论
      */
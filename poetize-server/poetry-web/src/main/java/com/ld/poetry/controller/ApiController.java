@@ -3,6 +3,7 @@ package com.ld.poetry.controller;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.ld.poetry.aop.RateLimit;
 import com.ld.poetry.config.PoetryResult;
 import com.ld.poetry.constants.CommonConst;
 import com.ld.poetry.dao.LabelMapper;
@@ -14,6 +15,7 @@ import com.ld.poetry.entity.User;
 import com.ld.poetry.entity.WebInfo;
 import com.ld.poetry.handle.PoetryRuntimeException;
 import com.ld.poetry.service.ArticleService;
+import com.ld.poetry.service.ArticleViewCounter;
 import com.ld.poetry.service.CacheService;
 import com.ld.poetry.service.LabelService;
 import com.ld.poetry.service.SeoService;
@@ -43,6 +45,7 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/api")
+@RateLimit(name = "api", limit = 120, period = 60, message = "API请求过于频繁，请稍后再试")
 @Slf4j
 public class ApiController {
 
@@ -64,6 +67,8 @@ public class ApiController {
 
     private final WebInfoService webInfoService;
 
+    private final ArticleViewCounter articleViewCounter;
+
     public ApiController(ArticleService articleService,
                         LabelMapper labelMapper,
                         SortMapper sortMapper,
@@ -72,7 +77,8 @@ public class ApiController {
                         SeoService seoService,
                         TranslationService translationService,
                         CacheService cacheService,
-                        WebInfoService webInfoService) {
+                        WebInfoService webInfoService,
+                        ArticleViewCounter articleViewCounter) {
         this.articleService = articleService;
         this.labelMapper = labelMapper;
         this.sortMapper = sortMapper;
@@ -82,6 +88,7 @@ public class ApiController {
         this.translationService = translationService;
         this.cacheService = cacheService;
         this.webInfoService = webInfoService;
+        this.articleViewCounter = articleViewCounter;
     }
 
     /**
@@ -369,7 +376,7 @@ public class ApiController {
             articleVO.setArticleCover(article.getArticleCover());
             articleVO.setSortId(article.getSortId());
             articleVO.setLabelId(article.getLabelId());
-            articleVO.setViewCount(article.getViewCount());
+            articleVO.setViewCount(articleViewCounter.merge(article.getId(), article.getViewCount()));
             articleVO.setCommentStatus(article.getCommentStatus());
             articleVO.setRecommendStatus(article.getRecommendStatus());
             articleVO.setViewStatus(article.getViewStatus());
@@ -378,7 +385,7 @@ public class ApiController {
             
             // 获取分类和标签信息
             if (article.getSortId() != null) {
-                Sort sort = sortService.getById(article.getSortId());
+                Sort sort = sortService.getCachedById(article.getSortId());
                 if (sort != null) {
                     articleVO.setSort(sort);
                     articleVO.setSortName(sort.getSortName());
@@ -386,7 +393,7 @@ public class ApiController {
             }
             
             if (article.getLabelId() != null) {
-                Label label = labelService.getById(article.getLabelId());
+                Label label = labelService.getCachedById(article.getLabelId());
                 if (label != null) {
                     articleVO.setLabel(label);
                     articleVO.setLabelName(label.getLabelName());
@@ -413,7 +420,7 @@ public class ApiController {
             validateApiKey(request);
             
             // 查询所有分类
-            List<Sort> sortList = sortService.list();
+            List<Sort> sortList = sortService.listCached();
             
             return PoetryResult.success(sortList);
         } catch (PoetryRuntimeException e) {
@@ -435,7 +442,7 @@ public class ApiController {
             validateApiKey(request);
             
             // 查询所有标签
-            List<Label> labelList = labelService.list();
+            List<Label> labelList = labelService.listCached();
             
             return PoetryResult.success(labelList);
         } catch (PoetryRuntimeException e) {
@@ -3,7 +3,6 @@ package com.ld.poetry.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.ld.poetry.aop.LoginCheck;
 import com.ld.poetry.config.PoetryResult;
-import com.ld.poetry.constants.CacheConstants;
 import com.ld.poetry.service.ArticleService;
 import com.ld.poetry.service.CacheService;
 import com.ld.poetry.utils.PoetryUtil;
@@ -114,14 +113,8 @@ public class ArticleController {
                 articleVO.setUserId(currentUserId);
             }
             
-            // 使用Redis缓存清理替换PoetryCache
-            if (articleVO.getUserId() != null) {
-                // 清理用户文章列表缓存
-                String userArticleKey = CacheConstants.buildUserArticleListKey(articleVO.getUserId());
-                cacheService.deleteKey(userArticleKey);
-            }
-            // 清理文章相关缓存
-            cacheService.evictSortArticleList();
+            // 清理用户文章列表与分类文章列表缓存（一次删除）
+            cacheService.evictArticleListCaches(articleVO.getUserId());
             
             // 准备暂存翻译数据（需要在调用saveArticle之前准备）
             Map<String, String> pendingTranslation = null;
@@ -215,14 +208,8 @@ public class ArticleController {
             // 调用异步保存服务
             PoetryResult<String> result = articleService.saveArticleAsync(articleVO, skipAiTranslation, pendingTranslation);
             
-            // 使用Redis缓存清理替换PoetryCache
-            if (articleVO.getUserId() != null) {
-                // 清理用户文章列表缓存
-                String userArticleKey = CacheConstants.buildUserArticleListKey(articleVO.getUserId());
-                cacheService.deleteKey(userArticleKey);
-            }
-            // 清理文章相关缓存
-            cacheService.evictSortArticleList();
+            // 清理用户文章列表与分类文章列表缓存（一次删除）
+            cacheService.evictArticleListCaches(articleVO.getUserId());
             
             return result;
         } catch (Exception e) {
@@ -269,14 +256,8 @@ public class ArticleController {
             log.warn("删除文章前获取分类ID失败，将影响分类页面预渲染: 文章ID={}, 错误={}", id, e.getMessage());
         }
         
-        // 使用Redis缓存清理替换PoetryCache
-        Integer userId = PoetryUtil.getUserId();
-        if (userId != null) {
-            String userArticleKey = CacheConstants.buildUserArticleListKey(userId);
-            cacheService.deleteKey(userArticleKey);
-        }
-        // 清理文章相关缓存
-        cacheService.evictSortArticleList();
+        // 清理用户文章列表与分类文章列表缓存（一次删除）
+        cacheService.evictArticleListCaches(PoetryUtil.getUserId());
         
         // 删除文章翻译（仅删除，不重新翻译）
         try {
@@ -314,14 +295,8 @@ public class ArticleController {
                                      @RequestParam(value = "pendingTranslationTitle", required = false) String pendingTranslationTitle,
                                      @RequestParam(value = "pendingTranslationContent", required = false) String pendingTranslationContent,
                                      @RequestParam(value = "pendingTranslationLanguage", required = false) String pendingTranslationLanguage) {
-        // 使用Redis缓存清理替换PoetryCache
-        Integer userId = PoetryUtil.getUserId();
-        if (userId != null) {
-            String userArticleKey = CacheConstants.buildUserArticleListKey(userId);
-            cacheService.deleteKey(userArticleKey);
-        }
-        // 清理文章相关缓存
-        cacheService.evictSortArticleList();
+        // 清理用户文章列表与分类文章列表缓存（一次删除）
+        cacheService.evictArticleListCaches(PoetryUtil.getUserId());
         
         // 准备暂存翻译数据（需要在调用updateArticle之前准备）
         Map<String, String> pendingTranslation = null;
@@ -777,13 +752,8 @@ public class ArticleController {
             // 调用异步更新服务
             PoetryResult<String> result = articleService.updateArticleAsync(articleVO, skipAiTranslation, pendingTranslation);
             
-            // 使用Redis缓存清理替换PoetryCache
-            if (articleVO.getUserId() != null) {
-                String userArticleKey = CacheConstants.buildUserArticleListKey(articleVO.getUserId());
-                cacheService.deleteKey(userArticleKey);
-            }
-            // 清理文章相关缓存
-            cacheService.evictSortArticleList();
+            // 清理用户文章列表与分类文章列表缓存（一次删除）
+            cacheService.evictArticleListCaches(articleVO.getUserId());
             
             return result;
         } catch (Exception e) {
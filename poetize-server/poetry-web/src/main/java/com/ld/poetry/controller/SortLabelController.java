@@ -8,6 +8,7 @@ import com.ld.poetry.dao.LabelMapper;
 import com.ld.poetry.dao.SortMapper;
 import com.ld.poetry.entity.Label;
 import com.ld.poetry.entity.Sort;
+import com.ld.poetry.service.TaxonomyService;
 import com.ld.poetry.utils.CommonQuery;
 import com.ld.poetry.utils.PrerenderClient;
 import lombok.extern.slf4j.Slf4j;
@@ -47,6 +48,9 @@ public class SortLabelController {
     @Autowired
     private com.ld.poetry.service.SitemapService sitemapService;
 
+    @Autowired
+    private TaxonomyService taxonomyService;
+
     /**
      * 获取分类标签信息
      */
@@ -89,6 +93,7 @@ public class SortLabelController {
         sort.setSortDescription(filteredSortDescription);
         
         sortMapper.insert(sort);
+        taxonomyService.invalidate();
         log.info("分类新增成功，分类名称: {}", sort.getSortName());
 
         // 分类新增后，清除sitemap缓存并重新渲染首页和分类索引页面
@@ -118,6 +123,7 @@ public class SortLabelController {
     @LoginCheck(0)
     public PoetryResult deleteSort(@RequestParam("id") Integer id) {
         sortMapper.deleteById(id);
+        taxonomyService.invalidate();
         log.info("分类删除成功，分类ID: {}", id);
 
         // 分类删除后，清除sitemap缓存，删除对应分类页面的预渲染文件，并重新渲染首页和分类索引页面
@@ -172,6 +178,7 @@ public class SortLabelController {
         sort.setSortDescription(filteredSortDescription);
         
         sortMapper.updateById(sort);
+        taxonomyService.invalidate();
         log.info("分类更新成功，分类ID: {}", sort.getId());
 
         // 分类更新后，清除sitemap缓存并重新渲染对应分类页面、首页和分类索引页面
@@ -233,6 +240,7 @@ public class SortLabelController {
         label.setLabelDescription(filteredLabelDescription);
         
         labelMapper.insert(label);
+        taxonomyService.invalidate();
         log.info("标签新增成功，标签名称: {}", label.getLabelName());
 
         // 标签新增后，清除sitemap缓存并重新渲染对应分类页面
@@ -264,6 +272,7 @@ public class SortLabelController {
         Label label = labelMapper.selectById(id);
         
         labelMapper.deleteById(id);
+        taxonomyService.invalidate();
         log.info("标签删除成功，标签ID: {}", id);
 
         // 标签删除后，清除sitemap缓存并重新渲染对应分类页面
@@ -315,6 +324,7 @@ public class SortLabelController {
         label.setLabelDescription(filteredLabelDescription);
         
         labelMapper.updateById(label);
+        taxonomyService.invalidate();
         log.info("标签更新成功，标签ID: {}", label.getId());
 
         // 标签更新后，清除sitemap缓存并重新渲染对应分类页面
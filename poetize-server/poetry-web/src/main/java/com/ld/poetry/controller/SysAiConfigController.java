@@ -5,6 +5,7 @@ import com.ld.poetry.config.PoetryResult;
 import com.ld.poetry.entity.SysAiConfig;
 import com.ld.poetry.service.SysAiConfigService;
 import com.ld.poetry.utils.DockerNetworkUtil;
+import com.ld.poetry.utils.IpUtil;
 import com.ld.poetry.utils.PoetryUtil;
 import jakarta.servlet.http.HttpServletRequest;
 // Swagger注解已禁用，改为普通注释
@@ -81,7 +82,7 @@ public class SysAiConfigController {
         
         // 1. 验证IP是否在允许范围（Docker内网 + 本地环回）
         boolean isLocalhost = "127.0.0.1".equals(clientIp) || "localhost".equals(clientIp) || "::1".equals(clientIp);
-        boolean isInDockerNetwork = DockerNetworkUtil.isInDockerNetwork(clientIp);
+        boolean isInDockerNetwork = DockerNetworkUtil.isInDockerNetwork(IpUtil.getClientAddress(request));
         
         if (!isLocalhost && !isInDockerNetwork) {
             log.warn("拒绝非内部网络的getInternal请求，IP: {}", clientIp);
@@ -193,7 +194,7 @@ public class SysAiConfigController {
         
         // 1. 验证IP是否在允许范围（Docker内网 + 本地环回）
         boolean isLocalhost = "127.0.0.1".equals(clientIp) || "localhost".equals(clientIp) || "::1".equals(clientIp);
-        boolean isInDockerNetwork = DockerNetworkUtil.isInDockerNetwork(clientIp);
+        boolean isInDockerNetwork = DockerNetworkUtil.isInDockerNetwork(IpUtil.getClientAddress(request));
         
         if (!isLocalhost && !isInDockerNetwork) {
             log.warn("拒绝非内部网络的getInternal请求，IP: {}", clientIp);
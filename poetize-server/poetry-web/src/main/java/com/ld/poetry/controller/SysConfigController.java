@@ -7,6 +7,7 @@ import com.ld.poetry.config.PoetryResult;
 import com.ld.poetry.entity.SysConfig;
 import com.ld.poetry.enums.PoetryEnum;
 import com.ld.poetry.service.CacheService;
+import com.ld.poetry.service.SecurityRuleService;
 import com.ld.poetry.service.SysConfigService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
@@ -42,6 +43,9 @@ public class SysConfigController {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private SecurityRuleService securityRuleService;
+
     /**
      * 查询系统参数
      */
@@ -104,6 +108,11 @@ public class SysConfigController {
         
         boolean success = sysConfigService.saveOrUpdate(sysConfig);
         
+        // 自定义安全规则变更后立即重新编译
+        if (success && SecurityRuleService.RULES_CONFIG_KEY.equals(sysConfig.getConfigKey())) {
+            securityRuleService.reload();
+        }
+        
         // 检查是否是影响sitemap的关键配置
         if (success && isConfigAffectingSitemap(sysConfig.getConfigKey(), oldValue, sysConfig.getConfigValue())) {
             try {
@@ -138,6 +147,10 @@ public class SysConfigController {
         if (config != null) {
             boolean success = sysConfigService.removeById(id);
             
+            if (success && SecurityRuleService.RULES_CONFIG_KEY.equals(config.getConfigKey())) {
+                securityRuleService.reload();
+            }
+            
             // 检查删除的配置是否影响sitemap
             if (success && isConfigAffectingSitemap(config.getConfigKey(), config.getConfigValue(), null)) {
                 try {
@@ -169,6 +182,15 @@ public class SysConfigController {
         return PoetryResult.success(new LambdaQueryChainWrapper<>(sysConfigService.getBaseMapper()).list());
     }
     
+    /**
+     * 查询安全规则命中统计
+     */
+    @GetMapping("/getSecurityRuleStats")
+    @LoginCheck(0)
+    public PoetryResult<Map<String, Object>> getSecurityRuleStats() {
+        return PoetryResult.success(securityRuleService.getRuleStats());
+    }
+    
     /**
      * 判断配置变更是否影响sitemap生成
      * @param configKey 配置键
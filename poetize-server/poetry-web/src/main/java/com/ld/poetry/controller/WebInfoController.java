@@ -1,22 +1,24 @@
 package com.ld.poetry.controller;
 
-import com.alibaba.fastjson.JSON;
 import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.ld.poetry.aop.LoginCheck;
 import com.ld.poetry.config.PoetryResult;
 import com.ld.poetry.constants.CommonConst;
-import com.ld.poetry.constants.CacheConstants;
 import com.ld.poetry.dao.*;
 import com.ld.poetry.entity.*;
 import com.ld.poetry.service.CacheService;
 import com.ld.poetry.service.WebInfoService;
 import com.ld.poetry.service.ThirdPartyOauthConfigService;
+import com.ld.poetry.service.VisitLogService;
+import com.ld.poetry.service.VisitRollupService;
+import com.ld.poetry.service.VisitCounterService;
+import com.ld.poetry.service.VisitRetentionService;
 import com.ld.poetry.dao.WebInfoMapper;
 import com.ld.poetry.utils.*;
+import com.ld.poetry.vo.VisitRetentionReport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -47,7 +49,13 @@ public class WebInfoController {
     private WebInfoService webInfoService;
 
     @Autowired
-    private HistoryInfoMapper historyInfoMapper;
+    private VisitRollupService visitRollupService;
+
+    @Autowired
+    private VisitCounterService visitCounterService;
+
+    @Autowired
+    private VisitRetentionService visitRetentionService;
 
     @Autowired
     private WebInfoMapper webInfoMapper;
@@ -77,7 +85,7 @@ public class WebInfoController {
     private CacheService cacheService;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private VisitLogService visitLogService;
 
     @Autowired
     private com.ld.poetry.service.SitemapService sitemapService;
@@ -429,12 +437,12 @@ public class WebInfoController {
                 log.warn("总访问量数据为空，使用默认值0");
             }
 
-            // 获取今日访问量（从数据库获取）
+            // 获取今日访问量（实时独立IP计数）
             try {
-                Long todayVisitCount = historyInfoMapper.getTodayHistoryCount();
-                result.setHistoryDayCount(String.valueOf(todayVisitCount != null ? todayVisitCount : 0));
+                long todayVisitCount = visitCounterService.getTodayUniqueVisitors();
+                result.setHistoryDayCount(String.valueOf(todayVisitCount));
             } catch (Exception e) {
-                log.warn("获取数据库今日访问量失败，使用默认值0", e);
+                log.warn("获取今日访问量失败，使用默认值0", e);
                 result.setHistoryDayCount("0");
             }
 
@@ -503,11 +511,7 @@ public class WebInfoController {
                 log.info("检测到缓存需要刷新，主动刷新统计数据");
                 try {
                     // 主动刷新缓存
-                    Map<String, Object> refreshedHistory = new HashMap<>();
-                    refreshedHistory.put(CommonConst.IP_HISTORY_PROVINCE, historyInfoMapper.getHistoryByProvince());
-                    refreshedHistory.put(CommonConst.IP_HISTORY_IP, historyInfoMapper.getHistoryByIp());
-                    refreshedHistory.put(CommonConst.IP_HISTORY_HOUR, historyInfoMapper.getHistoryByYesterday());
-                    refreshedHistory.put(CommonConst.IP_HISTORY_COUNT, historyInfoMapper.getHistoryCount());
+                    Map<String, Object> refreshedHistory = visitRollupService.buildHistoryStatistics();
                     
                     // 缓存新数据
                     cacheService.cacheIpHistoryStatistics(refreshedHistory);
@@ -525,52 +529,28 @@ public class WebInfoController {
             result.put(CommonConst.IP_HISTORY_IP, history.get(CommonConst.IP_HISTORY_IP));
             result.put(CommonConst.IP_HISTORY_COUNT, history.get(CommonConst.IP_HISTORY_COUNT));
 
-            // 处理24小时数据（昨日数据）
-            List<Map<String, Object>> ipHistoryCount = (List<Map<String, Object>>) history.get(CommonConst.IP_HISTORY_HOUR);
+            // 昨日数据（来自访问统计汇总）
+            Object yesterdayCount = history.get(CommonConst.IP_HISTORY_YESTERDAY_COUNT);
+            result.put("ip_count_yest", yesterdayCount instanceof Number ? ((Number) yesterdayCount).longValue() : 0L);
 
-            if (ipHistoryCount != null && !ipHistoryCount.isEmpty()) {
-                result.put("ip_count_yest", ipHistoryCount.stream()
-                    .map(m -> m != null ? m.get("ip") : null)
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .count());
-            } else {
-                result.put("ip_count_yest", 0L);
-            }
-            // 安全地处理昨日用户信息（添加访问次数统计）
-            if (ipHistoryCount != null && !ipHistoryCount.isEmpty()) {
-                // 统计每个用户的访问次数
-                Map<Integer, Long> userVisitCount = ipHistoryCount.stream()
+            // 昨日各用户访问次数（汇总行: user_id, num）
+            List<Map<String, Object>> userVisitsYest = (List<Map<String, Object>>) history.get(CommonConst.IP_HISTORY_HOUR);
+            if (userVisitsYest != null && !userVisitsYest.isEmpty()) {
+                List<Map<String, Object>> usernameYest = userVisitsYest.stream()
                     .filter(Objects::nonNull)
                     .map(m -> {
                         try {
                             Object userId = m.get("user_id");
-                            if (userId != null) {
-                                return Integer.valueOf(userId.toString());
-                            }
-                        } catch (Exception e) {
-                            log.warn("处理昨日用户ID时出错: {}", e.getMessage());
-                        }
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.groupingBy(
-                        userId -> userId, 
-                        Collectors.counting()
-                    ));
-                
-                List<Map<String, Object>> usernameYest = userVisitCount.entrySet().stream()
-                    .map(entry -> {
-                        try {
-                            Integer userId = entry.getKey();
-                            Long visitCount = entry.getValue();
-                            User user = commonQuery.getUser(userId);
+                            Object visitCount = m.get("num");
+                            if (userId != null && visitCount instanceof Number) {
+                                User user = commonQuery.getUser(Integer.valueOf(userId.toString()));
                                 if (user != null) {
-                                Map<String, Object> userInfo = new HashMap<>();
+                                    Map<String, Object> userInfo = new HashMap<>();
                                     userInfo.put("avatar", user.getAvatar());
                                     userInfo.put("username", user.getUsername());
-                                userInfo.put("visitCount", visitCount);
+                                    userInfo.put("visitCount", ((Number) visitCount).longValue());
                                     return userInfo;
+                                }
                             }
                         } catch (Exception e) {
                             log.warn("处理昨日用户信息时出错: {}", e.getMessage());
@@ -578,8 +558,6 @@ public class WebInfoController {
                         return null;
                     })
                     .filter(Objects::nonNull)
-                    .sorted((o1, o2) -> Long.valueOf(o2.get("visitCount").toString())
-                        .compareTo(Long.valueOf(o1.get("visitCount").toString()))) // 按访问次数降序排列
                     .collect(Collectors.toList());
                 result.put("username_yest", usernameYest);
             } else {
@@ -894,8 +872,9 @@ public class WebInfoController {
         }
 
         try {
-            // 1. 获取数据库中的历史数据（不包括今天）
-            List<Map<String, Object>> dbStats = historyInfoMapper.getDailyVisitStatsExcludeToday(days);
+            // 1. 获取访问统计汇总中的历史数据（不包括今天）
+            java.time.LocalDate today = java.time.LocalDate.now();
+            List<Map<String, Object>> dbStats = visitRollupService.getDailyStats(today.minusDays(days), today.minusDays(1));
             if (dbStats == null) {
                 dbStats = new ArrayList<>();
             }
@@ -936,47 +915,46 @@ public class WebInfoController {
     }
 
     /**
-     * 从Redis获取今天的访问统计
+     * 获取指定日期的每小时访问统计（来自访问统计汇总）
+     * @param date 日期(yyyy-MM-dd)，默认昨天
+     */
+    @LoginCheck(0)
+    @GetMapping("/getHourlyVisitStats")
+    public PoetryResult<List<Map<String, Object>>> getHourlyVisitStats(@RequestParam(value = "date", required = false) String date) {
+        java.time.LocalDate statDate;
+        try {
+            statDate = StringUtils.hasText(date) ? java.time.LocalDate.parse(date) : java.time.LocalDate.now().minusDays(1);
+        } catch (java.time.format.DateTimeParseException e) {
+            return PoetryResult.fail("日期格式错误，应为yyyy-MM-dd");
+        }
+
+        try {
+            return PoetryResult.success(visitRollupService.getHourlyStats(statDate));
+        } catch (Exception e) {
+            log.error("获取每小时访问统计失败: date={}", statDate, e);
+            return PoetryResult.fail("获取访问统计数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取今天的访问统计（实时计数）
      */
     private Map<String, Object> getTodayVisitStatsFromRedis() {
         try {
-            String todayKey = CacheConstants.DAILY_VISIT_RECORDS_PREFIX + 
-                java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            
-            // 获取今天的访问记录
-            List<Object> todayRecords = redisTemplate.opsForList().range(todayKey, 0, -1);
-            if (todayRecords == null || todayRecords.isEmpty()) {
+            Map<String, Object> counters = visitCounterService.getTodayStatistics();
+            long totalVisits = ((Number) counters.get("pv_today")).longValue();
+            if (totalVisits == 0) {
                 return null;
             }
 
-            // 统计今日数据
-            Set<String> uniqueIps = new HashSet<>();
-            int totalVisits = 0;
-            
-            for (Object record : todayRecords) {
-                try {
-                    // 将JSON字符串解析为Map对象
-                    Map<String, Object> visitRecord = JSON.parseObject(record.toString(), Map.class);
-                    String ip = (String) visitRecord.get("ip");
-                    if (ip != null && !ip.isEmpty()) {
-                        uniqueIps.add(ip);
-                        totalVisits++;
-                    }
-                } catch (Exception e) {
-                    log.warn("解析Redis访问记录失败: {}", record, e);
-                }
-            }
-
             Map<String, Object> todayStats = new HashMap<>();
             todayStats.put("visit_date", java.time.LocalDate.now().toString());
-            todayStats.put("unique_visits", uniqueIps.size());
+            todayStats.put("unique_visits", counters.get("ip_count_today"));
             todayStats.put("total_visits", totalVisits);
-            
-            log.info("今日实时统计 - 独立访客: {}, 总访问量: {}", uniqueIps.size(), totalVisits);
             return todayStats;
-            
+
         } catch (Exception e) {
-            log.error("从Redis获取今日访问统计失败", e);
+            log.error("获取今日访问统计失败", e);
             return null;
         }
     }
@@ -1141,74 +1119,34 @@ public class WebInfoController {
     }
 
     /**
-     * 同步当前Redis中的访问记录到数据库（手动刷新时调用）
+     * 手动清理保留期之前的访问明细（管理员专用）
+     * 明细先计入访问统计汇总再分批删除，返回处理行数、归档与释放的空间和耗时
      */
-    private void syncCurrentRedisRecordsToDatabase() {
-        try {
-            String today = java.time.LocalDate.now().toString();
-            log.info("开始同步{}的Redis访问记录到数据库", today);
-            
-            // 获取今天的未同步访问记录
-            List<Map<String, Object>> visitRecords = cacheService.getUnsyncedDailyVisitRecords(today);
-            
-            if (visitRecords.isEmpty()) {
-                log.info("{}没有未同步的Redis访问记录需要同步", today);
-                return;
-            }
-            
-            int successCount = 0;
-            int failCount = 0;
-            List<Map<String, Object>> successfullyInsertedRecords = new ArrayList<>();
-            
-            // 批量插入访问记录到数据库
-            for (Map<String, Object> record : visitRecords) {
-                try {
-                    com.ld.poetry.entity.HistoryInfo historyInfo = new com.ld.poetry.entity.HistoryInfo();
-                    historyInfo.setIp((String) record.get("ip"));
-                    
-                    Object userIdObj = record.get("userId");
-                    if (userIdObj != null) {
-                        historyInfo.setUserId(Integer.valueOf(userIdObj.toString()));
-                    }
-                    
-                    historyInfo.setNation((String) record.get("nation"));
-                    historyInfo.setProvince((String) record.get("province"));
-                    historyInfo.setCity((String) record.get("city"));
-                    
-                    // 设置创建时间
-                    String createTimeStr = (String) record.get("createTime");
-                    if (createTimeStr != null) {
-                        // 使用与CacheService相同的日期格式 yyyy-MM-dd HH:mm:ss
-                        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                        historyInfo.setCreateTime(java.time.LocalDateTime.parse(createTimeStr, formatter));
-                    } else {
-                        historyInfo.setCreateTime(java.time.LocalDateTime.now());
-                    }
-                    
-                    // 插入数据库
-                    historyInfoMapper.insert(historyInfo);
-                    successCount++;
-                    
-                    // 记录成功插入的记录，用于后续标记
-                    successfullyInsertedRecords.add(record);
-                    
-                } catch (Exception e) {
-                    log.error("插入访问记录失败: {}", record, e);
-                    failCount++;
-                }
-            }
-            
-            log.info("{}的Redis访问记录同步完成: 成功{}, 失败{}", today, successCount, failCount);
-            
-            // 标记成功同步的记录，而不是清空整个缓存
-            if (successCount > 0) {
-                cacheService.markVisitRecordsAsSynced(today, successfullyInsertedRecords);
-                log.info("已标记{}的{}条Redis访问记录为已同步", today, successCount);
-            }
-            
-        } catch (Exception e) {
-            log.error("同步Redis访问记录到数据库失败", e);
+    @LoginCheck(1)
+    @PostMapping("/purgeHistory")
+    public PoetryResult<VisitRetentionReport> purgeHistory() {
+        VisitRetentionReport report = visitRetentionService.purge();
+        if (!report.isCompleted()) {
+            return PoetryResult.fail("清理未完成: " + report.getMessage());
         }
+        return PoetryResult.success(report);
+    }
+
+    /**
+     * 获取最近一次访问明细清理报告（管理员专用）
+     */
+    @LoginCheck(1)
+    @GetMapping("/getHistoryRetentionReport")
+    public PoetryResult<VisitRetentionReport> getHistoryRetentionReport() {
+        return PoetryResult.success(visitRetentionService.getLastReport());
+    }
+
+    /**
+     * 同步访问日志到数据库（手动刷新时调用）
+     */
+    private void syncCurrentRedisRecordsToDatabase() {
+        int synced = visitLogService.syncToDatabase();
+        log.info("手动同步访问日志到数据库完成: {} 条", synced);
     }
 }
 
@@ -4,7 +4,10 @@ import com.ld.poetry.entity.Article;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -17,6 +20,27 @@ import org.apache.ibatis.annotations.Update;
 @Mapper
 public interface ArticleMapper extends BaseMapper<Article> {
 
-    @Update("update article set view_count=view_count+1 where id=#{id}")
-    int updateViewCount(@Param("id") Integer id);
+    /**
+     * 批量累加浏览量
+     * @param deltas 文章ID -> 浏览量增量
+     * @return 更新的行数
+     */
+    int batchIncrementViewCount(@Param("deltas") Map<Integer, Long> deltas);
+
+    /**
+     * 按分类和标签分组统计未删除文章数
+     */
+    @Select("select sort_id, label_id, count(*) as num" +
+            " from article" +
+            " where deleted = 0" +
+            " group by sort_id, label_id")
+    List<Map<String, Object>> countGroupBySortAndLabel();
+
+    /**
+     * 查询未删除文章的内容签名（标题和内容的CRC32，在数据库端计算，不传输正文）
+     */
+    @Select("select id, crc32(concat_ws(char(31), article_title, article_content)) as sig" +
+            " from article" +
+            " where deleted = 0")
+    List<Map<String, Object>> selectContentSignatures();
 }
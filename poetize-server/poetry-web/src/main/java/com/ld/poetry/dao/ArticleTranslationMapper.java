@@ -3,6 +3,10 @@ package com.ld.poetry.dao;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.ld.poetry.entity.ArticleTranslation;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -14,4 +18,11 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface ArticleTranslationMapper extends BaseMapper<ArticleTranslation> {
+
+    /**
+     * 查询各翻译的内容签名（语言、标题和内容的CRC32，在数据库端计算，不传输正文）
+     */
+    @Select("select article_id, crc32(concat_ws(char(31), language, title, content)) as sig" +
+            " from article_translation")
+    List<Map<String, Object>> selectContentSignatures();
 } 
\ No newline at end of file
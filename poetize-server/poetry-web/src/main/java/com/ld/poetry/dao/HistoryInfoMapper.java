@@ -7,7 +7,6 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * <p>
@@ -28,86 +27,19 @@ public interface HistoryInfoMapper extends BaseMapper<HistoryInfo> {
     int batchInsert(@Param("list") List<HistoryInfo> historyInfoList);
 
     /**
-     * 访问IP最多的10个省
+     * 按ID顺序读取一段访问记录（保留期清理使用）
      */
-    @Select("select nation, province, count(distinct ip) as num" +
+    @Select("select id, user_id, ip, nation, province, city, create_time" +
             " from history_info" +
-            " where nation is not null and province is not null" +
-            " group by nation, province" +
-            " order by num desc" +
-            " limit 10")
-    List<Map<String, Object>> getHistoryByProvince();
+            " where id > #{afterId} and id <= #{maxId}" +
+            " order by id" +
+            " limit #{limit}")
+    List<HistoryInfo> listByIdRange(@Param("afterId") int afterId, @Param("maxId") int maxId, @Param("limit") int limit);
 
     /**
-     * 访问次数最多的10个IP
+     * 访问记录表的平均行长度（统计信息，用于估算清理释放的空间）
      */
-    @Select("select ip, count(*) as num" +
-            " from history_info" +
-            " group by ip" +
-            " order by num desc" +
-            " limit 10")
-    List<Map<String, Object>> getHistoryByIp();
-
-    /**
-     * 访问24小时内的数据
-     */
-    @Select("select ip, user_id, nation, province" +
-            " from history_info" +
-            " where create_time >= (now() - interval 24 hour)")
-    List<Map<String, Object>> getHistoryBy24Hour();
-
-    /**
-     * 总访问量（按唯一IP统计）
-     */
-    @Select("select count(distinct ip) from history_info")
-    Long getHistoryCount();
-
-    /**
-     * 今日访问量（按唯一IP统计）
-     */
-    @Select("select count(distinct ip) from history_info where date(create_time) = curdate()")
-    Long getTodayHistoryCount();
-
-    /**
-     * 昨日访问量（按日历天计算）
-     */
-    @Select("select count(distinct ip) from history_info where date(create_time) = date_sub(curdate(), interval 1 day)")
-    Long getYesterdayHistoryCount();
-
-    /**
-     * 昨日访问记录详情（按日历天计算）
-     */
-    @Select("select ip, user_id, nation, province" +
-            " from history_info" +
-            " where date(create_time) = date_sub(curdate(), interval 1 day)")
-    List<Map<String, Object>> getHistoryByYesterday();
-
-    /**
-     * 指定天数内的每日访问统计
-     * @param days 需要统计的天数，最大 365
-     * @return 每日唯一 IP 和总访问量
-     */
-    @Select("SELECT DATE_FORMAT(create_time, '%Y-%m-%d') AS visit_date, " +
-            "COUNT(DISTINCT ip) AS unique_visits, " +
-            "COUNT(*) AS total_visits " +
-            "FROM history_info " +
-            "WHERE create_time >= DATE_SUB(CURDATE(), INTERVAL #{days} DAY) " +
-            "GROUP BY DATE_FORMAT(create_time, '%Y-%m-%d') " +
-            "ORDER BY visit_date")
-    List<Map<String, Object>> getDailyVisitStats(@Param("days") Integer days);
-
-    /**
-     * 指定天数内的每日访问统计（排除今天）
-     * @param days 需要统计的天数，最大 365
-     * @return 每日唯一 IP 和总访问量（不包括今天）
-     */
-    @Select("SELECT DATE_FORMAT(create_time, '%Y-%m-%d') AS visit_date, " +
-            "COUNT(DISTINCT ip) AS unique_visits, " +
-            "COUNT(*) AS total_visits " +
-            "FROM history_info " +
-            "WHERE create_time >= DATE_SUB(CURDATE(), INTERVAL #{days} DAY) " +
-            "AND DATE(create_time) < CURDATE() " +
-            "GROUP BY DATE_FORMAT(create_time, '%Y-%m-%d') " +
-            "ORDER BY visit_date")
-    List<Map<String, Object>> getDailyVisitStatsExcludeToday(@Param("days") Integer days);
+    @Select("select avg_row_length from information_schema.tables" +
+            " where table_schema = database() and table_name = 'history_info'")
+    Long getAvgRowLength();
 }
@@ -0,0 +1,33 @@
+package com.ld.poetry.dao;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 访问日志同步位点 Mapper 接口
+ * 位点与访问记录在同一事务中写入，保证每条访问日志只同步一次
+ */
+@Mapper
+public interface VisitLogOffsetMapper {
+
+    /**
+     * 查询已同步到的位点（Redis Stream条目ID）
+     */
+    @Select("select last_id from visit_log_offset where name = #{name}")
+    String getOffset(@Param("name") String name);
+
+    /**
+     * 初始化位点，已存在时忽略
+     */
+    @Insert("insert ignore into visit_log_offset (name, last_id) values (#{name}, #{lastId})")
+    int initOffset(@Param("name") String name, @Param("lastId") String lastId);
+
+    /**
+     * 推进位点（比较并更新），位点已被其他实例推进时返回0
+     */
+    @Update("update visit_log_offset set last_id = #{newId} where name = #{name} and last_id = #{oldId}")
+    int advanceOffset(@Param("name") String name, @Param("oldId") String oldId, @Param("newId") String newId);
+}
@@ -0,0 +1,113 @@
+package com.ld.poetry.dao;
+
+import com.ld.poetry.entity.VisitRollup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 访问统计汇总 Mapper 接口
+ * 汇总在同步访问记录后增量更新，统计查询只读取汇总表，开销与查询的天数相关而与访问记录总数无关
+ */
+@Mapper
+public interface VisitRollupMapper {
+
+    /**
+     * 锁定并读取按天汇总行
+     */
+    List<VisitRollup> lockDaily(@Param("periods") Collection<String> periods);
+
+    /**
+     * 锁定并读取按小时汇总行
+     */
+    List<VisitRollup> lockHourly(@Param("dates") Collection<LocalDate> dates);
+
+    /**
+     * 锁定并读取按省份汇总行
+     */
+    List<VisitRollup> lockProvince(@Param("periods") Collection<String> periods);
+
+    int upsertDaily(@Param("list") List<VisitRollup> list);
+
+    int upsertHourly(@Param("list") List<VisitRollup> list);
+
+    int upsertProvince(@Param("list") List<VisitRollup> list);
+
+    /**
+     * 累加IP访问次数
+     */
+    int incrementIp(@Param("list") List<VisitRollup> list);
+
+    /**
+     * 累加用户每日访问次数
+     */
+    int incrementUser(@Param("list") List<VisitRollup> list);
+
+    /**
+     * 清除指定日期之前按小时汇总行的草图（保留访问次数和独立IP数）
+     */
+    @Update("update visit_rollup_hourly set uv_sketch = null" +
+            " where stat_date < #{before} and uv_sketch is not null" +
+            " limit #{limit}")
+    int clearHourlySketches(@Param("before") LocalDate before, @Param("limit") int limit);
+
+    /**
+     * 清除指定日期之前按省份汇总行的草图（累计行除外）
+     */
+    @Update("update visit_rollup_province set uv_sketch = null" +
+            " where period < #{before} and period <> 'total' and uv_sketch is not null" +
+            " limit #{limit}")
+    int clearProvinceSketches(@Param("before") String before, @Param("limit") int limit);
+
+    /**
+     * 指定周期的访问量与独立IP数
+     */
+    @Select("select period, pv, uv from visit_rollup_daily where period = #{period}")
+    VisitRollup getDaily(@Param("period") String period);
+
+    /**
+     * 日期范围内的每日访问统计
+     */
+    @Select("select period as visit_date, uv as unique_visits, pv as total_visits" +
+            " from visit_rollup_daily" +
+            " where period >= #{from} and period <= #{to} and period <> 'total'" +
+            " order by period")
+    List<Map<String, Object>> listDailyStats(@Param("from") String from, @Param("to") String to);
+
+    /**
+     * 指定日期的每小时访问统计
+     */
+    @Select("select stat_hour, uv as unique_visits, pv as total_visits" +
+            " from visit_rollup_hourly" +
+            " where stat_date = #{date}" +
+            " order by stat_hour")
+    List<Map<String, Object>> listHourlyStats(@Param("date") LocalDate date);
+
+    /**
+     * 独立IP最多的省份
+     */
+    @Select("select nation, province, uv as num" +
+            " from visit_rollup_province" +
+            " where period = #{period}" +
+            " order by uv desc" +
+            " limit #{limit}")
+    List<Map<String, Object>> listTopProvinces(@Param("period") String period, @Param("limit") int limit);
+
+    /**
+     * 访问次数最多的IP
+     */
+    @Select("select ip, pv as num from visit_rollup_ip order by pv desc limit #{limit}")
+    List<Map<String, Object>> listTopIps(@Param("limit") int limit);
+
+    /**
+     * 指定日期各用户的访问次数
+     */
+    @Select("select user_id, pv as num from visit_rollup_user where stat_date = #{date} order by pv desc")
+    List<Map<String, Object>> listUserVisits(@Param("date") LocalDate date);
+}
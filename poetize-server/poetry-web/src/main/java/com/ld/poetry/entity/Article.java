@@ -70,6 +70,12 @@ public class Article implements Serializable {
     @TableField("summary")
     private String summary;
 
+    /**
+     * 列表摘录（去除Markdown标记的纯文本，保存文章时生成）
+     */
+    @TableField("excerpt")
+    private String excerpt;
+
     /**
      * 视频链接
      */
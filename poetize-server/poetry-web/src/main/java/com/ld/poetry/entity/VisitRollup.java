@@ -0,0 +1,69 @@
+package com.ld.poetry.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * <p>
+ * 访问统计汇总行
+ * </p>
+ * 对应 visit_rollup_daily / visit_rollup_hourly / visit_rollup_province / visit_rollup_ip / visit_rollup_user，
+ * 各表只使用与自身维度相关的字段。
+ */
+@Data
+public class VisitRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 统计周期：yyyy-MM-dd 或 total（累计）
+     */
+    private String period;
+
+    /**
+     * 统计日期（按小时、按用户汇总）
+     */
+    private LocalDate statDate;
+
+    /**
+     * 小时（0-23）
+     */
+    private Integer statHour;
+
+    /**
+     * 国家
+     */
+    private String nation;
+
+    /**
+     * 省份
+     */
+    private String province;
+
+    /**
+     * ip
+     */
+    private String ip;
+
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+
+    /**
+     * 访问次数
+     */
+    private Long pv;
+
+    /**
+     * 独立IP数（由uvSketch估计）
+     */
+    private Long uv;
+
+    /**
+     * 独立IP的HyperLogLog草图
+     */
+    private byte[] uvSketch;
+}
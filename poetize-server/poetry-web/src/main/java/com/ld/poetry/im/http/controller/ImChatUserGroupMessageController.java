@@ -17,14 +17,15 @@ import com.ld.poetry.im.websocket.ImConfigConst;
 import com.ld.poetry.utils.CommonQuery;
 import com.ld.poetry.utils.PoetryUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -52,17 +53,23 @@ public class ImChatUserGroupMessageController {
     private CommonQuery commonQuery;
 
     /**
-     * 获取群消息（只获取前四十条）
+     * 每页最多返回的消息数
+     */
+    private static final long MAX_PAGE_SIZE = 200;
+
+    /**
+     * 获取群消息（按ID游标分页，从早到晚）
+     * <p>
+     * 不传游标时返回最新的 size 条；向上翻页传本页最早一条的ID作为 beforeId，补拉新消息传 afterId。
+     * 不再统计总数；current 仅为兼容旧客户端保留。
      */
     @GetMapping("/listGroupMessage")
     @LoginCheck
     public PoetryResult<Page> listGroupMessage(@RequestParam(value = "current", defaultValue = "1") Long current,
                                                @RequestParam(value = "size", defaultValue = "40") Long size,
-                                               @RequestParam(value = "groupId") Integer groupId) {
-        Page<ImChatUserGroupMessage> page = new Page<>();
-        page.setCurrent(current);
-        page.setSize(size);
-
+                                               @RequestParam(value = "groupId") Integer groupId,
+                                               @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                               @RequestParam(value = "afterId", required = false) Long afterId) {
         Integer userId = PoetryUtil.getUserId();
 
         ImChatGroup chatGroup = imChatGroupService.getById(groupId);
@@ -81,38 +88,42 @@ public class ImChatUserGroupMessageController {
             }
         }
 
-        LambdaQueryChainWrapper<ImChatUserGroupMessage> lambdaQuery = imChatUserGroupMessageService.lambdaQuery();
-        lambdaQuery.eq(ImChatUserGroupMessage::getGroupId, groupId);
-        lambdaQuery.orderByDesc(ImChatUserGroupMessage::getCreateTime);
-        Page<ImChatUserGroupMessage> result = lambdaQuery.page(page);
-        List<ImChatUserGroupMessage> records = result.getRecords();
-        Collections.reverse(records);
-        if (CollectionUtils.isEmpty(records)) {
-            return PoetryResult.success(result);
+        int limit = (int) Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<ImChatUserGroupMessage> records;
+        if (beforeId == null && afterId == null && current > 1) {
+            Page<ImChatUserGroupMessage> page = new Page<>(current, limit, false);
+            records = new ArrayList<>(imChatUserGroupMessageService.lambdaQuery()
+                    .eq(ImChatUserGroupMessage::getGroupId, groupId)
+                    .orderByDesc(ImChatUserGroupMessage::getId)
+                    .page(page)
+                    .getRecords());
+            Collections.reverse(records);
         } else {
-            List<GroupMessageVO> collect = records.stream().map(message -> {
-                GroupMessageVO groupMessageVO = new GroupMessageVO();
-                groupMessageVO.setContent(message.getContent());
-                groupMessageVO.setFromId(message.getFromId());
-                groupMessageVO.setToId(message.getToId());
-                groupMessageVO.setId(message.getId());
-                groupMessageVO.setGroupId(message.getGroupId());
-                groupMessageVO.setCreateTime(message.getCreateTime());
-                Integer messageUserId = message.getFromId();
-                User user = commonQuery.getUser(messageUserId);
-                if (user != null) {
-                    groupMessageVO.setUsername(user.getUsername());
-                    groupMessageVO.setAvatar(user.getAvatar());
-                }
-                return groupMessageVO;
-            }).collect(Collectors.toList());
-            Page<GroupMessageVO> resultVO = new Page<>();
-            resultVO.setRecords(collect);
-            resultVO.setTotal(result.getTotal());
-            resultVO.setCurrent(result.getCurrent());
-            resultVO.setSize(result.getSize());
-            return PoetryResult.success(resultVO);
+            records = imChatUserGroupMessageService.listGroupMessages(groupId, beforeId, afterId, limit);
         }
+
+        Map<Integer, User> users = commonQuery.getUsers(records.stream()
+                .map(ImChatUserGroupMessage::getFromId)
+                .collect(Collectors.toSet()));
+        List<GroupMessageVO> collect = records.stream().map(message -> {
+            GroupMessageVO groupMessageVO = new GroupMessageVO();
+            groupMessageVO.setContent(message.getContent());
+            groupMessageVO.setFromId(message.getFromId());
+            groupMessageVO.setToId(message.getToId());
+            groupMessageVO.setId(message.getId());
+            groupMessageVO.setGroupId(message.getGroupId());
+            groupMessageVO.setCreateTime(message.getCreateTime());
+            User user = users.get(message.getFromId());
+            if (user != null) {
+                groupMessageVO.setUsername(user.getUsername());
+                groupMessageVO.setAvatar(user.getAvatar());
+            }
+            return groupMessageVO;
+        }).collect(Collectors.toList());
+        Page<GroupMessageVO> resultVO = new Page<>();
+        resultVO.setRecords(collect);
+        resultVO.setCurrent(current);
+        resultVO.setSize(limit);
+        return PoetryResult.success(resultVO);
     }
 }
-
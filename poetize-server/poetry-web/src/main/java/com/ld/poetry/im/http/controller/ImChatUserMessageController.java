@@ -19,8 +19,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +43,11 @@ public class ImChatUserMessageController {
     @Autowired
     private CommonQuery commonQuery;
 
+    /**
+     * 每页最多返回的消息数
+     */
+    private static final long MAX_PAGE_SIZE = 200;
+
     /**
      * 获取系统消息（只获取前十条）
      */
@@ -108,50 +115,55 @@ public class ImChatUserMessageController {
     }
 
     /**
-     * 获取朋友消息（只获取前四十条）
+     * 获取朋友消息（按ID游标分页，从早到晚）
+     * <p>
+     * 不传游标时返回最新的 size 条；向上翻页传本页最早一条的ID作为 beforeId，补拉新消息传 afterId。
+     * 不再统计总数；current 仅为兼容旧客户端保留。
      */
     @GetMapping("/listFriendMessage")
     @LoginCheck
     public PoetryResult<Page> listFriendMessage(@RequestParam(value = "current", defaultValue = "1") Long current,
                                                 @RequestParam(value = "size", defaultValue = "40") Long size,
-                                                @RequestParam(value = "friendId") Integer friendId) {
-        Page<ImChatUserMessage> page = new Page<>();
-        page.setCurrent(current);
-        page.setSize(size);
-
+                                                @RequestParam(value = "friendId") Integer friendId,
+                                                @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                                @RequestParam(value = "afterId", required = false) Long afterId) {
         Integer userId = PoetryUtil.getUserId();
 
-        LambdaQueryChainWrapper<ImChatUserMessage> lambdaQuery = imChatUserMessageService.lambdaQuery();
-        lambdaQuery.and(wrapper -> wrapper.eq(ImChatUserMessage::getFromId, userId).eq(ImChatUserMessage::getToId, friendId))
-                .or(wrapper -> wrapper.eq(ImChatUserMessage::getFromId, friendId).eq(ImChatUserMessage::getToId, userId));
-        lambdaQuery.orderByDesc(ImChatUserMessage::getCreateTime);
-        Page<ImChatUserMessage> result = lambdaQuery.page(page);
-        List<ImChatUserMessage> records = result.getRecords();
-        Collections.reverse(records);
-        if (CollectionUtils.isEmpty(records)) {
-            return PoetryResult.success(result);
+        int limit = (int) Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<ImChatUserMessage> records;
+        if (beforeId == null && afterId == null && current > 1) {
+            Page<ImChatUserMessage> page = new Page<>(current, limit, false);
+            LambdaQueryChainWrapper<ImChatUserMessage> lambdaQuery = imChatUserMessageService.lambdaQuery();
+            lambdaQuery.and(wrapper -> wrapper.eq(ImChatUserMessage::getFromId, userId).eq(ImChatUserMessage::getToId, friendId))
+                    .or(wrapper -> wrapper.eq(ImChatUserMessage::getFromId, friendId).eq(ImChatUserMessage::getToId, userId));
+            lambdaQuery.orderByDesc(ImChatUserMessage::getId);
+            records = new ArrayList<>(lambdaQuery.page(page).getRecords());
+            Collections.reverse(records);
         } else {
-            List<UserMessageVO> collect = records.stream().map(message -> {
-                UserMessageVO userMessageVO = new UserMessageVO();
-                userMessageVO.setContent(message.getContent());
-                userMessageVO.setFromId(message.getFromId());
-                userMessageVO.setToId(message.getToId());
-                userMessageVO.setMessageStatus(message.getMessageStatus());
-                userMessageVO.setId(message.getId());
-                userMessageVO.setCreateTime(message.getCreateTime());
-                User from = commonQuery.getUser(message.getFromId());
-                if (from != null) {
-                    userMessageVO.setAvatar(from.getAvatar());
-                }
-                return userMessageVO;
-            }).collect(Collectors.toList());
-            Page<UserMessageVO> resultVO = new Page<>();
-            resultVO.setRecords(collect);
-            resultVO.setTotal(result.getTotal());
-            resultVO.setCurrent(result.getCurrent());
-            resultVO.setSize(result.getSize());
-            return PoetryResult.success(resultVO);
+            records = imChatUserMessageService.listFriendMessages(userId, friendId, beforeId, afterId, limit);
         }
+
+        Map<Integer, User> users = commonQuery.getUsers(records.stream()
+                .map(ImChatUserMessage::getFromId)
+                .collect(Collectors.toSet()));
+        List<UserMessageVO> collect = records.stream().map(message -> {
+            UserMessageVO userMessageVO = new UserMessageVO();
+            userMessageVO.setContent(message.getContent());
+            userMessageVO.setFromId(message.getFromId());
+            userMessageVO.setToId(message.getToId());
+            userMessageVO.setMessageStatus(message.getMessageStatus());
+            userMessageVO.setId(message.getId());
+            userMessageVO.setCreateTime(message.getCreateTime());
+            User from = users.get(message.getFromId());
+            if (from != null) {
+                userMessageVO.setAvatar(from.getAvatar());
+            }
+            return userMessageVO;
+        }).collect(Collectors.toList());
+        Page<UserMessageVO> resultVO = new Page<>();
+        resultVO.setRecords(collect);
+        resultVO.setCurrent(current);
+        resultVO.setSize(limit);
+        return PoetryResult.success(resultVO);
     }
 }
-
@@ -66,6 +66,27 @@ public interface ImChatLastReadService extends IService<ImChatLastRead> {
      */
     void markGroupAsRead(Integer userId, Integer groupId);
 
+    /**
+     * 收到好友消息时累加接收者的未读数
+     *
+     * @param userId 接收者ID
+     * @param friendId 发送者ID
+     */
+    void incrementFriendUnread(Integer userId, Integer friendId);
+
+    /**
+     * 收到群消息时累加除发送者外所有群成员的未读数
+     *
+     * @param groupId 群ID
+     * @param fromId 发送者ID
+     */
+    void incrementGroupUnread(Integer groupId, Integer fromId);
+
+    /**
+     * 按数据库中的消息和最后查看时间重建已缓存的未读数
+     */
+    void reconcileUnreadCounts();
+
     /**
      * 获取用户的私聊列表（按最后查看时间倒序）
      * 
@@ -4,6 +4,8 @@ import com.ld.poetry.im.http.entity.ImChatUserGroupMessage;
 import com.ld.poetry.im.http.vo.LastMessageVO;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.List;
+
 /**
  * <p>
  * 群聊记录 服务类
@@ -20,4 +22,14 @@ public interface ImChatUserGroupMessageService extends IService<ImChatUserGroupM
      * @return 最后一条消息
      */
     LastMessageVO getLastGroupMessage(Integer groupId);
+
+    /**
+     * 按ID游标获取群聊记录，活跃群的最新消息直接从内存读取
+     * @param groupId 群组ID
+     * @param beforeId 只返回ID小于该值的消息，与afterId都为空时返回最新的消息
+     * @param afterId 只返回ID大于该值的消息，beforeId不为空时忽略
+     * @param size 最多返回的条数
+     * @return 聊天记录（从早到晚）
+     */
+    List<ImChatUserGroupMessage> listGroupMessages(Integer groupId, Long beforeId, Long afterId, int size);
 }
@@ -4,6 +4,8 @@ import com.ld.poetry.im.http.entity.ImChatUserMessage;
 import com.ld.poetry.im.http.vo.LastMessageVO;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.List;
+
 /**
  * <p>
  * 单聊记录 服务类
@@ -21,4 +23,15 @@ public interface ImChatUserMessageService extends IService<ImChatUserMessage> {
      * @return 最后一条消息
      */
     LastMessageVO getLastMessageWithFriend(Integer currentUserId, Integer friendId);
+
+    /**
+     * 按ID游标获取与好友的聊天记录，活跃会话的最新消息直接从内存读取
+     * @param userId 当前用户ID
+     * @param friendId 好友ID
+     * @param beforeId 只返回ID小于该值的消息，与afterId都为空时返回最新的消息
+     * @param afterId 只返回ID大于该值的消息，beforeId不为空时忽略
+     * @param size 最多返回的条数
+     * @return 聊天记录（从早到晚）
+     */
+    List<ImChatUserMessage> listFriendMessages(Integer userId, Integer friendId, Long beforeId, Long afterId, int size);
 }
@@ -1,22 +1,40 @@
 package com.ld.poetry.im.http.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.ld.poetry.constants.CacheConstants;
 import com.ld.poetry.im.http.dao.ImChatLastReadMapper;
+import com.ld.poetry.im.http.entity.ImChatGroupUser;
 import com.ld.poetry.im.http.entity.ImChatLastRead;
+import com.ld.poetry.im.http.entity.ImChatUserMessage;
+import com.ld.poetry.im.http.service.ImChatGroupUserService;
 import com.ld.poetry.im.http.service.ImChatLastReadService;
+import com.ld.poetry.im.http.service.ImChatUserMessageService;
+import com.ld.poetry.im.websocket.ImConfigConst;
+import com.ld.poetry.utils.cache.LocalCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
  * 聊天最后查看时间 服务实现类（私聊+群聊）
  * </p>
+ * 未读数保存在每个用户一个的Redis Hash中（字段为 f:好友ID、g:群ID），发送消息时累加、标记已读时清零，
+ * 查询只读取该Hash，与消息总量无关。Hash不存在（首次查询或已过期）时按最后查看时间从消息表统计后写入，
+ * 每天凌晨再按消息表校正一次。刚发送尚未入库的消息在重建时不计入，最迟在下次校正时修正。
  *
  * @author LeapYa
  * @since 2025-10-09
@@ -25,19 +43,65 @@ import java.util.Map;
 @Service
 public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper, ImChatLastRead> implements ImChatLastReadService {
 
+    private static final String FRIEND_FIELD_PREFIX = "f:";
+
+    private static final String GROUP_FIELD_PREFIX = "g:";
+
+    /**
+     * 占位字段，保证没有任何聊天的用户也有Hash，避免每次查询都重建
+     */
+    private static final String MARKER_FIELD = "#";
+
+    /**
+     * 每次累加最多涉及的用户数
+     */
+    private static final int FAN_OUT_BATCH_SIZE = 500;
+
+    /**
+     * 只累加已存在的Hash，不存在的在下次查询时从数据库重建
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "for _, key in ipairs(KEYS) do\n" +
+            "  if redis.call('EXISTS', key) == 1 then redis.call('HINCRBY', key, ARGV[1], 1) end\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    private static final DefaultRedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('HSET', KEYS[1], ARGV[1], 0) end\n" +
+            "return 0", Long.class);
+
+    /**
+     * 参数：模式（init 仅在不存在时写入，replace 覆盖）、过期秒数、字段和值
+     */
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>(
+            "if ARGV[1] == 'init' and redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "redis.call('DEL', KEYS[1])\n" +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ImChatGroupUserService imChatGroupUserService;
+
+    @Autowired
+    private ImChatUserMessageService imChatUserMessageService;
+
+    // 群ID -> 群成员ID
+    private final LocalCache<List<Integer>> groupMembers = new LocalCache<>("imGroupMembers",
+            1024, CacheConstants.LOCAL_IM_GROUP_MEMBERS_TTL, null);
+
     @Override
     public Map<Integer, Integer> getFriendUnreadCounts(Integer userId) {
         try {
-            List<Map<String, Object>> results = baseMapper.getFriendUnreadCountsByUserId(userId);
-            Map<Integer, Integer> unreadCounts = new HashMap<>();
-            
-            for (Map<String, Object> result : results) {
-                Integer friendId = (Integer) result.get("friend_id");
-                Long unreadCount = (Long) result.get("unread_count");
-                unreadCounts.put(friendId, unreadCount != null ? unreadCount.intValue() : 0);
-            }
-            
-            return unreadCounts;
+            return loadUnreadCounts(userId, FRIEND_FIELD_PREFIX);
+        } catch (Exception e) {
+            log.warn("读取用户 {} 的好友未读数缓存失败，改为查询数据库: {}", userId, e.getMessage());
+        }
+        try {
+            return queryFriendUnreadCounts(userId);
         } catch (Exception e) {
             log.error("获取用户 {} 的好友未读数失败", userId, e);
             return new HashMap<>();
@@ -47,16 +111,12 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
     @Override
     public Map<Integer, Integer> getGroupUnreadCounts(Integer userId) {
         try {
-            List<Map<String, Object>> results = baseMapper.getGroupUnreadCountsByUserId(userId);
-            Map<Integer, Integer> unreadCounts = new HashMap<>();
-            
-            for (Map<String, Object> result : results) {
-                Integer groupId = (Integer) result.get("group_id");
-                Long unreadCount = (Long) result.get("unread_count");
-                unreadCounts.put(groupId, unreadCount != null ? unreadCount.intValue() : 0);
-            }
-            
-            return unreadCounts;
+            return loadUnreadCounts(userId, GROUP_FIELD_PREFIX);
+        } catch (Exception e) {
+            log.warn("读取用户 {} 的群聊未读数缓存失败，改为查询数据库: {}", userId, e.getMessage());
+        }
+        try {
+            return queryGroupUnreadCounts(userId);
         } catch (Exception e) {
             log.error("获取用户 {} 的群聊未读数失败", userId, e);
             return new HashMap<>();
@@ -105,6 +165,15 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
                 record.setLastReadTime(LocalDateTime.now());
                 this.save(record);
             }
+            resetUnread(userId, FRIEND_FIELD_PREFIX + friendId);
+
+            // 已读的消息下次连接时不再作为离线消息投递
+            imChatUserMessageService.lambdaUpdate()
+                    .eq(ImChatUserMessage::getFromId, friendId)
+                    .eq(ImChatUserMessage::getToId, userId)
+                    .eq(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_FALSE)
+                    .set(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_TRUE)
+                    .update();
             
         } catch (Exception e) {
             log.error("标记用户 {} 和好友 {} 的消息为已读失败", userId, friendId, e);
@@ -131,12 +200,166 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
                 record.setLastReadTime(LocalDateTime.now());
                 this.save(record);
             }
+            resetUnread(userId, GROUP_FIELD_PREFIX + groupId);
             
         } catch (Exception e) {
             log.error("标记用户 {} 在群 {} 的消息为已读失败", userId, groupId, e);
         }
     }
 
+    @Override
+    public void incrementFriendUnread(Integer userId, Integer friendId) {
+        try {
+            stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(CacheConstants.buildImUnreadKey(userId)),
+                    FRIEND_FIELD_PREFIX + friendId);
+        } catch (Exception e) {
+            log.warn("累加用户 {} 的好友 {} 未读数失败: {}", userId, friendId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void incrementGroupUnread(Integer groupId, Integer fromId) {
+        try {
+            List<String> keys = new ArrayList<>();
+            for (Integer memberId : getGroupMemberIds(groupId)) {
+                if (memberId.equals(fromId)) {
+                    continue;
+                }
+                keys.add(CacheConstants.buildImUnreadKey(memberId));
+                if (keys.size() == FAN_OUT_BATCH_SIZE) {
+                    stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, GROUP_FIELD_PREFIX + groupId);
+                    keys = new ArrayList<>();
+                }
+            }
+            if (!keys.isEmpty()) {
+                stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, GROUP_FIELD_PREFIX + groupId);
+            }
+        } catch (Exception e) {
+            log.warn("累加群 {} 的成员未读数失败: {}", groupId, e.getMessage());
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "0 15 4 * * ?")
+    public void reconcileUnreadCounts() {
+        int rebuilt = 0;
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(CacheConstants.IM_UNREAD_PREFIX + "*")
+                .count(500)
+                .build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                Integer userId;
+                try {
+                    userId = Integer.valueOf(key.substring(CacheConstants.IM_UNREAD_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                try {
+                    rebuildUnreadCounts(userId, true);
+                    rebuilt++;
+                } catch (Exception e) {
+                    log.warn("校正用户 {} 的未读数失败: {}", userId, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("校正聊天未读数失败", e);
+        }
+        log.info("聊天未读数校正完成，共{}个用户", rebuilt);
+    }
+
+    /**
+     * 读取未读数缓存中指定类型的字段，缓存不存在时从数据库重建
+     */
+    private Map<Integer, Integer> loadUnreadCounts(Integer userId, String fieldPrefix) {
+        String key = CacheConstants.buildImUnreadKey(userId);
+        Map<?, ?> entries = stringRedisTemplate.opsForHash().entries(key);
+        if (entries.isEmpty()) {
+            entries = rebuildUnreadCounts(userId, false);
+        } else {
+            stringRedisTemplate.expire(key, CacheConstants.IM_UNREAD_EXPIRE_TIME, TimeUnit.SECONDS);
+        }
+        Map<Integer, Integer> unreadCounts = new HashMap<>();
+        entries.forEach((field, value) -> {
+            String name = field.toString();
+            if (name.startsWith(fieldPrefix)) {
+                unreadCounts.put(Integer.valueOf(name.substring(fieldPrefix.length())),
+                        Math.max(0, Integer.parseInt(value.toString())));
+            }
+        });
+        return unreadCounts;
+    }
+
+    /**
+     * 从数据库统计用户的全部未读数并写入缓存
+     *
+     * @param replace 是否覆盖已有缓存，否则仅在缓存不存在时写入
+     */
+    private Map<String, String> rebuildUnreadCounts(Integer userId, boolean replace) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(MARKER_FIELD, "0");
+        queryFriendUnreadCounts(userId).forEach((friendId, count) -> fields.put(FRIEND_FIELD_PREFIX + friendId, count.toString()));
+        queryGroupUnreadCounts(userId).forEach((groupId, count) -> fields.put(GROUP_FIELD_PREFIX + groupId, count.toString()));
+
+        List<String> args = new ArrayList<>(fields.size() * 2 + 2);
+        args.add(replace ? "replace" : "init");
+        args.add(String.valueOf(CacheConstants.IM_UNREAD_EXPIRE_TIME));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        stringRedisTemplate.execute(REBUILD_SCRIPT, List.of(CacheConstants.buildImUnreadKey(userId)), args.toArray());
+        return fields;
+    }
+
+    private void resetUnread(Integer userId, String field) {
+        try {
+            stringRedisTemplate.execute(RESET_SCRIPT, List.of(CacheConstants.buildImUnreadKey(userId)), field);
+        } catch (Exception e) {
+            log.warn("清零用户 {} 的未读数 {} 失败: {}", userId, field, e.getMessage());
+        }
+    }
+
+    private Map<Integer, Integer> queryFriendUnreadCounts(Integer userId) {
+        List<Map<String, Object>> results = baseMapper.getFriendUnreadCountsByUserId(userId);
+        Map<Integer, Integer> unreadCounts = new HashMap<>();
+        for (Map<String, Object> result : results) {
+            Number friendId = (Number) result.get("friend_id");
+            Number unreadCount = (Number) result.get("unread_count");
+            unreadCounts.put(friendId.intValue(), unreadCount != null ? unreadCount.intValue() : 0);
+        }
+        return unreadCounts;
+    }
+
+    private Map<Integer, Integer> queryGroupUnreadCounts(Integer userId) {
+        List<Map<String, Object>> results = baseMapper.getGroupUnreadCountsByUserId(userId);
+        Map<Integer, Integer> unreadCounts = new HashMap<>();
+        for (Map<String, Object> result : results) {
+            Number groupId = (Number) result.get("group_id");
+            Number unreadCount = (Number) result.get("unread_count");
+            unreadCounts.put(groupId.intValue(), unreadCount != null ? unreadCount.intValue() : 0);
+        }
+        return unreadCounts;
+    }
+
+    private List<Integer> getGroupMemberIds(Integer groupId) {
+        String key = String.valueOf(groupId);
+        List<Integer> memberIds = groupMembers.get(key);
+        if (memberIds == null) {
+            memberIds = imChatGroupUserService.lambdaQuery()
+                    .select(ImChatGroupUser::getUserId)
+                    .eq(ImChatGroupUser::getGroupId, groupId)
+                    .in(ImChatGroupUser::getUserStatus, ImConfigConst.GROUP_USER_STATUS_PASS, ImConfigConst.GROUP_USER_STATUS_SILENCE)
+                    .list()
+                    .stream()
+                    .map(ImChatGroupUser::getUserId)
+                    .toList();
+            groupMembers.put(key, memberIds);
+        }
+        return memberIds;
+    }
+
     @Override
     public List<Integer> getFriendChatList(Integer userId) {
         try {
@@ -180,6 +403,8 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
                 record.setLastReadTime(LocalDateTime.now());
                 record.setIsHidden(1);
                 this.save(record);
+                // 查看时间前移后SQL统计的未读数归零，Redis中的计数同步清零
+                resetUnread(userId, FRIEND_FIELD_PREFIX + friendId);
             }
             
         } catch (Exception e) {
@@ -208,6 +433,7 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
                 record.setLastReadTime(LocalDateTime.now());
                 record.setIsHidden(1);
                 this.save(record);
+                resetUnread(userId, GROUP_FIELD_PREFIX + groupId);
             }
             
         } catch (Exception e) {
@@ -228,6 +454,8 @@ public class ImChatLastReadServiceImpl extends ServiceImpl<ImChatLastReadMapper,
                 record.setIsHidden(0);
                 record.setLastReadTime(LocalDateTime.now()); // 更新查看时间，移到列表顶部
                 this.updateById(record);
+                String field = chatType == ImChatLastRead.CHAT_TYPE_FRIEND ? FRIEND_FIELD_PREFIX : GROUP_FIELD_PREFIX;
+                resetUnread(userId, field + chatId);
             }
         } catch (Exception e) {
             log.error("取消隐藏聊天失败 - userId: {}, chatType: {}, chatId: {}", userId, chatType, chatId, e);
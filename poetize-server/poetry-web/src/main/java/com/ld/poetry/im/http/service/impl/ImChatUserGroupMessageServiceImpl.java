@@ -4,9 +4,16 @@ import com.ld.poetry.im.http.entity.ImChatUserGroupMessage;
 import com.ld.poetry.im.http.dao.ImChatUserGroupMessageMapper;
 import com.ld.poetry.im.http.service.ImChatUserGroupMessageService;
 import com.ld.poetry.im.http.vo.LastMessageVO;
+import com.ld.poetry.im.websocket.MessageHistoryCache;
+import com.ld.poetry.utils.cache.RingWindow;
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * <p>
  * 群聊记录 服务实现类
@@ -18,6 +25,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class ImChatUserGroupMessageServiceImpl extends ServiceImpl<ImChatUserGroupMessageMapper, ImChatUserGroupMessage> implements ImChatUserGroupMessageService {
 
+    @Autowired
+    private MessageHistoryCache messageHistoryCache;
+
     @Override
     public LastMessageVO getLastGroupMessage(Integer groupId) {
         if (groupId == null) {
@@ -43,4 +53,52 @@ public class ImChatUserGroupMessageServiceImpl extends ServiceImpl<ImChatUserGro
         
         return vo;
     }
+
+    @Override
+    public List<ImChatUserGroupMessage> listGroupMessages(Integer groupId, Long beforeId, Long afterId, int size) {
+        RingWindow<ImChatUserGroupMessage> window = messageHistoryCache.getGroupWindow(groupId);
+        if (afterId != null && beforeId == null) {
+            if (window != null) {
+                List<ImChatUserGroupMessage> cached = MessageHistoryCache.after(window.snapshot(), afterId, size, ImChatUserGroupMessage::getId);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            return queryGroupMessages(groupId, null, afterId, size);
+        }
+
+        if (window != null) {
+            List<ImChatUserGroupMessage> cached = MessageHistoryCache.before(window.snapshot(), beforeId, size, ImChatUserGroupMessage::getId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<ImChatUserGroupMessage> messages = queryGroupMessages(groupId, beforeId, null, size);
+        if (beforeId != null || window == null) {
+            return messages;
+        }
+        // 最新一页：数据库中的消息与窗口拼接（窗口中可能有尚未入库的消息），并补充到窗口中
+        List<ImChatUserGroupMessage> merged = window.mergeOlder(messages, MessageHistoryCache::sameGroupMessage);
+        return merged.subList(Math.max(0, merged.size() - size), merged.size());
+    }
+
+    /**
+     * 按 (group_id, id) 索引范围查询一页
+     */
+    private List<ImChatUserGroupMessage> queryGroupMessages(Integer groupId, Long beforeId, Long afterId, int size) {
+        LambdaQueryChainWrapper<ImChatUserGroupMessage> query = lambdaQuery()
+            .eq(ImChatUserGroupMessage::getGroupId, groupId);
+        if (beforeId != null) {
+            query.lt(ImChatUserGroupMessage::getId, beforeId);
+        }
+        if (afterId != null) {
+            query.gt(ImChatUserGroupMessage::getId, afterId).orderByAsc(ImChatUserGroupMessage::getId);
+            return query.last("LIMIT " + size).list();
+        }
+        List<ImChatUserGroupMessage> messages = query.orderByDesc(ImChatUserGroupMessage::getId)
+            .last("LIMIT " + size)
+            .list();
+        Collections.reverse(messages);
+        return messages;
+    }
 }
@@ -4,9 +4,17 @@ import com.ld.poetry.im.http.entity.ImChatUserMessage;
 import com.ld.poetry.im.http.dao.ImChatUserMessageMapper;
 import com.ld.poetry.im.http.service.ImChatUserMessageService;
 import com.ld.poetry.im.http.vo.LastMessageVO;
+import com.ld.poetry.im.websocket.MessageHistoryCache;
+import com.ld.poetry.utils.cache.RingWindow;
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * <p>
  * 单聊记录 服务实现类
@@ -18,6 +26,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class ImChatUserMessageServiceImpl extends ServiceImpl<ImChatUserMessageMapper, ImChatUserMessage> implements ImChatUserMessageService {
 
+    @Autowired
+    private MessageHistoryCache messageHistoryCache;
+
     @Override
     public LastMessageVO getLastMessageWithFriend(Integer currentUserId, Integer friendId) {
         if (currentUserId == null || friendId == null) {
@@ -46,4 +57,63 @@ public class ImChatUserMessageServiceImpl extends ServiceImpl<ImChatUserMessageM
         
         return vo;
     }
+
+    @Override
+    public List<ImChatUserMessage> listFriendMessages(Integer userId, Integer friendId, Long beforeId, Long afterId, int size) {
+        RingWindow<ImChatUserMessage> window = messageHistoryCache.getFriendWindow(userId, friendId);
+        if (afterId != null && beforeId == null) {
+            if (window != null) {
+                List<ImChatUserMessage> cached = MessageHistoryCache.after(window.snapshot(), afterId, size, ImChatUserMessage::getId);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            return queryFriendMessages(userId, friendId, null, afterId, size);
+        }
+
+        if (window != null) {
+            List<ImChatUserMessage> cached = MessageHistoryCache.before(window.snapshot(), beforeId, size, ImChatUserMessage::getId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<ImChatUserMessage> messages = queryFriendMessages(userId, friendId, beforeId, null, size);
+        if (beforeId != null || window == null) {
+            return messages;
+        }
+        // 最新一页：数据库中的消息与窗口拼接（窗口中可能有尚未入库的消息），并补充到窗口中
+        List<ImChatUserMessage> merged = window.mergeOlder(messages, MessageHistoryCache::sameUserMessage);
+        return merged.subList(Math.max(0, merged.size() - size), merged.size());
+    }
+
+    /**
+     * 两个方向分别按 (from_id, to_id, id) 索引范围查询后合并，每次只读取一页
+     */
+    private List<ImChatUserMessage> queryFriendMessages(Integer userId, Integer friendId, Long beforeId, Long afterId, int size) {
+        List<ImChatUserMessage> messages = new ArrayList<>(size * 2);
+        messages.addAll(queryDirection(userId, friendId, beforeId, afterId, size));
+        if (!userId.equals(friendId)) {
+            messages.addAll(queryDirection(friendId, userId, beforeId, afterId, size));
+        }
+        messages.sort(Comparator.comparing(ImChatUserMessage::getId));
+        if (messages.size() <= size) {
+            return messages;
+        }
+        return afterId != null ? messages.subList(0, size) : messages.subList(messages.size() - size, messages.size());
+    }
+
+    private List<ImChatUserMessage> queryDirection(Integer fromId, Integer toId, Long beforeId, Long afterId, int size) {
+        LambdaQueryChainWrapper<ImChatUserMessage> query = lambdaQuery()
+            .eq(ImChatUserMessage::getFromId, fromId)
+            .eq(ImChatUserMessage::getToId, toId);
+        if (beforeId != null) {
+            query.lt(ImChatUserMessage::getId, beforeId);
+        }
+        if (afterId != null) {
+            query.gt(ImChatUserMessage::getId, afterId).orderByAsc(ImChatUserMessage::getId);
+        } else {
+            query.orderByDesc(ImChatUserMessage::getId);
+        }
+        return query.last("LIMIT " + size).list();
+    }
 }
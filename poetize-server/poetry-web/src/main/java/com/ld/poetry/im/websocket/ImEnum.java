@@ -5,7 +5,8 @@ public enum ImEnum {
      * 消息类型
      */
     MESSAGE_TYPE_MSG_SINGLE(1, "单聊"),
-    MESSAGE_TYPE_MSG_GROUP(2, "群聊");
+    MESSAGE_TYPE_MSG_GROUP(2, "群聊"),
+    MESSAGE_TYPE_MSG_BATCH(6, "批量消息");
 
 
     private int code;
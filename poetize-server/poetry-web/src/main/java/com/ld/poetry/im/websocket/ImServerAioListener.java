@@ -2,6 +2,7 @@ package com.ld.poetry.im.websocket;
 
 import com.ld.poetry.constants.CommonConst;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tio.core.ChannelContext;
 import org.tio.core.Tio;
@@ -18,6 +19,9 @@ import java.util.Set;
 @Slf4j
 public class ImServerAioListener extends WsServerAioListener {
 
+    @Autowired
+    private SessionTakeover sessionTakeover;
+
     /**
      * 建链后触发本方法，注：建链不一定成功，需要关注参数isConnected
      *
@@ -54,6 +58,7 @@ public class ImServerAioListener extends WsServerAioListener {
     @Override
     public void onAfterSent(ChannelContext channelContext, Packet packet, boolean isSentSuccess) throws Exception {
         super.onAfterSent(channelContext, packet, isSentSuccess);
+        sessionTakeover.onAfterSent(channelContext, packet);
     }
 
     /**
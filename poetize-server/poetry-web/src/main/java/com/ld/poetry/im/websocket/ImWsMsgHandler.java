@@ -65,6 +65,12 @@ public class ImWsMsgHandler implements IWsMsgHandler {
     @Autowired
     private MessageCache messageCache;
 
+    @Autowired
+    private OfflineMessageDelivery offlineMessageDelivery;
+
+    @Autowired
+    private SessionTakeover sessionTakeover;
+
     @Autowired
     private CommonQuery commonQuery;
 
@@ -157,46 +163,12 @@ public class ImWsMsgHandler implements IWsMsgHandler {
                     user = tempUser;
                     String userIdStr = user.getId().toString();
                     
-                    // 1. 先获取该用户的旧连接
-                    SetWithLock<ChannelContext> oldConnections = Tio.getByUserid(channelContext.tioConfig, userIdStr);
-                    
-                    // 2. 绑定用户到当前新连接
-                    Tio.bindUser(channelContext, userIdStr);
+                    // 绑定用户到当前新连接，按多端登录策略异步踢出多余的连接
+                    if (!sessionTakeover.bind(channelContext, userIdStr)) {
+                        return;
+                    }
                     log.info("WebSocket连接绑定成功：用户ID：{}, 用户名：{}, token类型：{}", 
                         user.getId(), user.getUsername(), validationResult.getUserType());
-                    
-                    // 3. 关闭旧连接（排除当前连接）
-                    if (oldConnections != null && oldConnections.size() > 0) {
-                        int closedCount = 0;
-                        for (ChannelContext oldCtx : oldConnections.getObj()) {
-                            // 排除当前连接
-                            if (oldCtx != channelContext) {
-                                try {
-                                    // 先发送"被踢出"消息给旧连接，让客户端知道不要重连
-                                    ImMessage kickMessage = new ImMessage();
-                                    kickMessage.setMessageType(999); // 999表示被踢出
-                                    kickMessage.setContent("您的账号在其他地方登录，当前连接已断开");
-                                    String kickJson = JSON.toJSONString(kickMessage, 
-                                        SerializerFeature.WriteMapNullValue,
-                                        SerializerFeature.DisableCircularReferenceDetect);
-                                    WsResponse kickResponse = WsResponse.fromText(kickJson, ImConfigConst.CHARSET);
-                                    Tio.send(oldCtx, kickResponse);
-                                    
-                                    // 等待消息发送完成后再关闭连接
-                                    Thread.sleep(100);
-                                } catch (Exception e) {
-                                    log.warn("发送踢出消息失败: {}", e.getMessage());
-                                }
-                                
-                                // 关闭旧连接
-                                Tio.remove(oldCtx, "新连接已建立，旧连接被踢出");
-                                closedCount++;
-                            }
-                        }
-                        if (closedCount > 0) {
-                            log.info("已踢出用户 {} 的 {} 个旧连接", userIdStr, closedCount);
-                        }
-                    }
                 } else {
                     log.warn("WebSocket连接绑定失败：用户信息不存在 - userId: {}", userId);
                     return;
@@ -210,40 +182,8 @@ public class ImWsMsgHandler implements IWsMsgHandler {
             return;
         }
 
-        // 处理未读的用户消息
-        try {
-            List<ImChatUserMessage> userMessages = imChatUserMessageService.lambdaQuery().eq(ImChatUserMessage::getToId, user.getId())
-                    .eq(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_FALSE)
-                    .orderByAsc(ImChatUserMessage::getCreateTime).list();
-
-            if (!CollectionUtils.isEmpty(userMessages)) {
-                userMessages.forEach(userMessage -> {
-                    ImMessage imMessage = new ImMessage();
-                    imMessage.setContent(userMessage.getContent());
-                    imMessage.setFromId(userMessage.getFromId());
-                    imMessage.setToId(userMessage.getToId());
-                    imMessage.setMessageType(ImEnum.MESSAGE_TYPE_MSG_SINGLE.getCode());
-                    User friend = commonQuery.getUser(userMessage.getFromId());
-                    if (friend != null) {
-                        imMessage.setAvatar(friend.getAvatar());
-                    }
-                    // 使用更安全的序列化配置
-                    String jsonString = JSON.toJSONString(imMessage, 
-                        SerializerFeature.WriteMapNullValue,
-                        SerializerFeature.WriteNullStringAsEmpty,
-                        SerializerFeature.WriteNonStringKeyAsString,
-                        SerializerFeature.DisableCircularReferenceDetect);
-                    WsResponse wsResponse = WsResponse.fromText(jsonString, ImConfigConst.CHARSET);
-                    Tio.sendToUser(channelContext.tioConfig, userMessage.getToId().toString(), wsResponse);
-                });
-                
-                // ❌ 不再立即标记为已读！改为用户进入聊天时才标记
-                // imChatUserMessageService.lambdaUpdate().in(ImChatUserMessage::getId, ids)
-                //         .set(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_TRUE).update();
-            }
-        } catch (Exception e) {
-            log.error("处理用户未读消息时发生错误 - userId: {}", user.getId(), e);
-        }
+        // 异步分页投递未读的用户消息
+        offlineMessageDelivery.deliver(channelContext, user.getId());
 
         // 绑定用户所在的群组
         try {
@@ -460,6 +400,7 @@ public class ImWsMsgHandler implements IWsMsgHandler {
                     userMessage.setMessageStatus(ImConfigConst.USER_MESSAGE_STATUS_FALSE);
                 }
                 messageCache.putUserMessage(userMessage);
+                imChatLastReadService.incrementFriendUnread(imMessage.getToId(), imMessage.getFromId());
                 Tio.sendToUser(channelContext.tioConfig, imMessage.getFromId().toString(), wsResponse);
             } else if (imMessage.getMessageType().intValue() == ImEnum.MESSAGE_TYPE_MSG_GROUP.getCode()) {
                 //群聊
@@ -469,6 +410,7 @@ public class ImWsMsgHandler implements IWsMsgHandler {
                 groupMessage.setGroupId(imMessage.getGroupId());
                 groupMessage.setCreateTime(LocalDateTime.now());
                 messageCache.putGroupMessage(groupMessage);
+                imChatLastReadService.incrementGroupUnread(imMessage.getGroupId(), imMessage.getFromId());
 
                 // 🆕 自动取消隐藏（发送者）
                 imChatLastReadService.unhideChat(imMessage.getFromId(), ImChatLastRead.CHAT_TYPE_GROUP, imMessage.getGroupId());
@@ -4,24 +4,65 @@ import com.ld.poetry.im.http.entity.ImChatUserGroupMessage;
 import com.ld.poetry.im.http.entity.ImChatUserMessage;
 import com.ld.poetry.im.http.service.ImChatUserGroupMessageService;
 import com.ld.poetry.im.http.service.ImChatUserMessageService;
+import com.ld.poetry.utils.cache.BinaryCodec;
 import com.ld.poetry.utils.mail.MailSendUtil;
+import com.ld.poetry.utils.wal.SegmentLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * 聊天消息持久化
+ * <p>
+ * 消息到达时先追加到内存映射的预写日志 {@link SegmentLog}，再放入无锁队列后立即返回，发送线程之间不加锁。
+ * 后台线程批量入库：积压达到当前批量或最早的消息等待超过 flush-max-delay 时写入一批，
+ * 批量在 [{@value #MIN_BATCH_SIZE}, flush-batch-size] 内随积压情况自动增减。
+ * 入库成功后在日志中标记完成；入库失败时保留当前批次退避重试。
+ * 进程异常退出后，启动时从日志重放未入库的消息；标记完成前退出的消息可能重复入库一次。
+ * 日志目录不可用时退化为仅内存缓冲。
+ * 接收的消息同时写入 {@link MessageHistoryCache}，未入库的消息也能在历史记录中查到。
+ */
 @Component
 @Slf4j
 public class MessageCache {
 
+    /**
+     * 自适应批量的下限
+     */
+    private static final int MIN_BATCH_SIZE = 50;
+
+    /**
+     * 队列为空时入库线程的休眠时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * 入库失败后的最长重试间隔
+     */
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * 两次强制刷盘之间的最长间隔
+     */
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     @Autowired
     private ImChatUserMessageService imChatUserMessageService;
 
@@ -31,21 +72,83 @@ public class MessageCache {
     @Autowired
     private MailSendUtil mailSendUtil;
 
-    private final List<ImChatUserMessage> userMessage = new ArrayList<>();
+    @Autowired
+    private MessageHistoryCache messageHistoryCache;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
 
-    private final List<ImChatUserGroupMessage> groupMessage = new ArrayList<>();
+    @Value("${poetize.im.wal-dir:./data/im-wal}")
+    private String walDir;
 
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    @Value("${poetize.im.wal-segment-size:8388608}")
+    private int walSegmentSize;
 
-    public void putUserMessage(ImChatUserMessage message) {
-        // 修复：写操作必须使用写锁，不是读锁！
-        readWriteLock.writeLock().lock();
+    @Value("${poetize.im.flush-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${poetize.im.flush-max-delay:2000}")
+    private long flushMaxDelayMillis;
+
+    private final BinaryCodec codec = new BinaryCodec(new BinaryCodec.Fallback() {
+        @Override
+        public byte[] encode(Object value) {
+            throw new IllegalArgumentException("不支持的消息类型: " + value.getClass().getName());
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            throw new IllegalArgumentException("不支持的消息数据");
+        }
+    });
+
+    private final ConcurrentLinkedQueue<PendingMessage> queue = new ConcurrentLinkedQueue<>();
+
+    // 队列中及正在入库的消息数
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final LongAdder persistedCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private SegmentLog messageLog;
+
+    private volatile int batchSize;
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    @PostConstruct
+    public void init() {
+        maxBatchSize = Math.max(MIN_BATCH_SIZE, maxBatchSize);
+        batchSize = MIN_BATCH_SIZE;
         try {
-            userMessage.add(message);
-        } finally {
-            readWriteLock.writeLock().unlock();
+            messageLog = new SegmentLog(Paths.get(walDir), walSegmentSize);
+            replay();
+        } catch (Exception e) {
+            messageLog = null;
+            log.error("聊天消息预写日志不可用，消息仅在内存中缓冲 - 目录: {}", walDir, e);
         }
 
+        running = true;
+        flusher = new Thread(this::flushLoop, "im-message-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("im.message.pending", pendingCount, AtomicInteger::get).register(registry);
+            Gauge.builder("im.message.batch.size", this, cache -> cache.batchSize).register(registry);
+            FunctionCounter.builder("im.message.persisted", persistedCount, LongAdder::sum).register(registry);
+            FunctionCounter.builder("im.message.flush.failures", failureCount, LongAdder::sum).register(registry);
+        }
+    }
+
+    public void putUserMessage(ImChatUserMessage message) {
+        messageHistoryCache.addUserMessage(message);
+        enqueue(message);
+
         try {
             mailSendUtil.sendImMail(message);
         } catch (Exception e) {
@@ -54,95 +157,197 @@ public class MessageCache {
     }
 
     public void putGroupMessage(ImChatUserGroupMessage message) {
-        // 修复：写操作必须使用写锁，不是读锁！
-        readWriteLock.writeLock().lock();
-        try {
-            groupMessage.add(message);
-        } finally {
-            readWriteLock.writeLock().unlock();
-        }
+        messageHistoryCache.addGroupMessage(message);
+        enqueue(message);
+    }
 
+    /**
+     * 等待入库的消息数
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
     }
 
-    @Scheduled(fixedDelay = 5000)
-    public void saveUserMessage() {
-        // 优化缓存策略：先复制并清空，减少锁持有时间
-        List<ImChatUserMessage> messagesToSave = new ArrayList<>();
-        
-        readWriteLock.writeLock().lock();
-        try {
-            if (!CollectionUtils.isEmpty(userMessage)) {
-                messagesToSave.addAll(userMessage);
-                userMessage.clear();
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        } finally {
-            readWriteLock.writeLock().unlock();
         }
-        
-        // 在锁外执行数据库操作，提高并发性能
-        if (!messagesToSave.isEmpty()) {
+        if (messageLog != null) {
+            messageLog.force();
+        }
+    }
+
+    private void enqueue(Object message) {
+        SegmentLog.Position position = null;
+        if (messageLog != null) {
             try {
-                saveUserMessageWithTransaction(messagesToSave);
+                position = messageLog.append(codec.encode(message));
             } catch (Exception e) {
-                log.error("批量保存用户消息失败，消息数量: {}", messagesToSave.size(), e);
-                // 保存失败，将消息重新加入队列
-                readWriteLock.writeLock().lock();
-                try {
-                    userMessage.addAll(0, messagesToSave);
-                    log.warn("保存失败的 {} 条消息已重新加入队列", messagesToSave.size());
-                } finally {
-                    readWriteLock.writeLock().unlock();
-                }
+                log.warn("写入聊天消息预写日志失败，消息仅在内存中缓冲: {}", e.getMessage());
             }
         }
+        queue.offer(new PendingMessage(message, position, System.nanoTime()));
+        if (pendingCount.incrementAndGet() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
     }
-    
+
     /**
-     * 带事务的消息保存方法
+     * 把上次运行中未入库的消息放回队列
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void saveUserMessageWithTransaction(List<ImChatUserMessage> messages) {
-        imChatUserMessageService.saveBatch(messages);
+    private void replay() {
+        List<SegmentLog.Entry> entries = messageLog.replay();
+        int restored = 0;
+        for (SegmentLog.Entry entry : entries) {
+            Object message;
+            try {
+                message = codec.decode(entry.getPayload(), 0, entry.getPayload().length);
+            } catch (Exception e) {
+                log.error("无法解析预写日志中的聊天消息，已跳过", e);
+                entry.getPosition().complete();
+                continue;
+            }
+            if (message instanceof ImChatUserMessage) {
+                messageHistoryCache.addUserMessage((ImChatUserMessage) message);
+            } else if (message instanceof ImChatUserGroupMessage) {
+                messageHistoryCache.addGroupMessage((ImChatUserGroupMessage) message);
+            }
+            if (message instanceof ImChatUserMessage || message instanceof ImChatUserGroupMessage) {
+                queue.offer(new PendingMessage(message, entry.getPosition(), System.nanoTime()));
+                pendingCount.incrementAndGet();
+                restored++;
+            } else {
+                entry.getPosition().complete();
+            }
+        }
+        if (restored > 0) {
+            log.info("从预写日志恢复未入库的聊天消息{}条", restored);
+        }
     }
 
-    @Scheduled(fixedDelay = 10000)
-    public void saveGroupMessage() {
-        // 优化缓存策略：先复制并清空，减少锁持有时间
-        List<ImChatUserGroupMessage> messagesToSave = new ArrayList<>();
-        
-        readWriteLock.writeLock().lock();
-        try {
-            if (!CollectionUtils.isEmpty(groupMessage)) {
-                messagesToSave.addAll(groupMessage);
-                groupMessage.clear();
+    private void flushLoop() {
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(flushMaxDelayMillis);
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        long retryBackoffMillis = 0;
+        long lastForceNanos = System.nanoTime();
+        while (true) {
+            PendingMessage next;
+            while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                batch.add(next);
             }
-        } finally {
-            readWriteLock.writeLock().unlock();
-        }
-        
-        // 在锁外执行数据库操作，提高并发性能
-        if (!messagesToSave.isEmpty()) {
+
+            long now = System.nanoTime();
+            if (messageLog != null && now - lastForceNanos >= FORCE_INTERVAL_NANOS) {
+                try {
+                    messageLog.force();
+                } catch (Exception e) {
+                    log.warn("聊天消息预写日志刷盘失败: {}", e.getMessage());
+                }
+                lastForceNanos = now;
+            }
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            long waited = now - batch.get(0).enqueuedNanos;
+            if (running && batch.size() < batchSize && waited < maxDelayNanos) {
+                LockSupport.parkNanos(Math.min(maxDelayNanos - waited, IDLE_PARK_NANOS));
+                continue;
+            }
+
+            int size = batch.size();
             try {
-                saveGroupMessageWithTransaction(messagesToSave);
+                persist(batch);
+                retryBackoffMillis = 0;
+                adjustBatchSize(size);
             } catch (Exception e) {
-                log.error("批量保存群组消息失败，消息数量: {}", messagesToSave.size(), e);
-                // 保存失败，将消息重新加入队列
-                readWriteLock.writeLock().lock();
-                try {
-                    groupMessage.addAll(0, messagesToSave);
-                    log.warn("保存失败的 {} 条消息已重新加入队列", messagesToSave.size());
-                } finally {
-                    readWriteLock.writeLock().unlock();
+                failureCount.increment();
+                if (!running) {
+                    log.error("退出前保存聊天消息失败，{}条消息将在下次启动时从预写日志恢复", pendingCount.get(), e);
+                    return;
                 }
+                retryBackoffMillis = Math.min(MAX_RETRY_BACKOFF_MILLIS, Math.max(1000, retryBackoffMillis * 2));
+                log.error("批量保存聊天消息失败，消息数量: {}，{}毫秒后重试", batch.size(), retryBackoffMillis, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis));
             }
         }
     }
-    
+
     /**
-     * 带事务的群组消息保存方法
+     * 按消息类型分别批量入库，成功的部分立即标记完成并移出批次，失败时剩余部分留待重试
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void saveGroupMessageWithTransaction(List<ImChatUserGroupMessage> messages) {
-        imChatUserGroupMessageService.saveBatch(messages);
+    private void persist(List<PendingMessage> batch) {
+        List<ImChatUserMessage> userMessages = new ArrayList<>();
+        List<ImChatUserGroupMessage> groupMessages = new ArrayList<>();
+        for (PendingMessage pending : batch) {
+            if (pending.message instanceof ImChatUserMessage) {
+                userMessages.add((ImChatUserMessage) pending.message);
+            } else {
+                groupMessages.add((ImChatUserGroupMessage) pending.message);
+            }
+        }
+        if (!userMessages.isEmpty()) {
+            imChatUserMessageService.saveBatch(userMessages);
+            complete(batch, true);
+        }
+        if (!groupMessages.isEmpty()) {
+            imChatUserGroupMessageService.saveBatch(groupMessages);
+            complete(batch, false);
+        }
+    }
+
+    private void complete(List<PendingMessage> batch, boolean userMessages) {
+        int completed = 0;
+        Iterator<PendingMessage> iterator = batch.iterator();
+        while (iterator.hasNext()) {
+            PendingMessage pending = iterator.next();
+            if ((pending.message instanceof ImChatUserMessage) == userMessages) {
+                if (pending.position != null) {
+                    pending.position.complete();
+                }
+                iterator.remove();
+                completed++;
+            }
+        }
+        pendingCount.addAndGet(-completed);
+        persistedCount.add(completed);
+    }
+
+    /**
+     * 仍有积压时加倍批量，积压很少时减半
+     */
+    private void adjustBatchSize(int flushed) {
+        int current = batchSize;
+        int backlog = pendingCount.get();
+        if (flushed >= current && backlog >= current) {
+            batchSize = Math.min(maxBatchSize, current * 2);
+        } else if (backlog < current / 4) {
+            batchSize = Math.max(MIN_BATCH_SIZE, current / 2);
+        }
+    }
+
+    private static final class PendingMessage {
+
+        private final Object message;
+
+        private final SegmentLog.Position position;
+
+        private final long enqueuedNanos;
+
+        private PendingMessage(Object message, SegmentLog.Position position, long enqueuedNanos) {
+            this.message = message;
+            this.position = position;
+            this.enqueuedNanos = enqueuedNanos;
+        }
     }
 }
@@ -0,0 +1,159 @@
+package com.ld.poetry.im.websocket;
+
+import com.ld.poetry.im.http.entity.ImChatUserGroupMessage;
+import com.ld.poetry.im.http.entity.ImChatUserMessage;
+import com.ld.poetry.utils.cache.RingWindow;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 会话最近消息缓存
+ * <p>
+ * 每个活跃会话（单聊按两人、群聊按群）在内存中保留最近 {@value #WINDOW_SIZE} 条消息，
+ * 消息被 {@link MessageCache} 接收时立即写入，包括尚未入库、还没有ID的消息。
+ * 窗口只在收到新消息时创建，之后收到的消息全部写入，因此窗口内始终是会话中连续的最新一段，
+ * 查询历史时可与数据库中更早的消息直接拼接。会话数超过上限时淘汰最久未使用的窗口。
+ */
+@Component
+public class MessageHistoryCache {
+
+    /**
+     * 每个会话保留的消息数
+     */
+    public static final int WINDOW_SIZE = 100;
+
+    /**
+     * 最多保留窗口的会话数
+     */
+    private static final int MAX_CONVERSATIONS = 2000;
+
+    private final Map<String, RingWindow<ImChatUserMessage>> friendWindows = lruMap();
+
+    private final Map<String, RingWindow<ImChatUserGroupMessage>> groupWindows = lruMap();
+
+    public void addUserMessage(ImChatUserMessage message) {
+        String key = friendKey(message.getFromId(), message.getToId());
+        RingWindow<ImChatUserMessage> window;
+        synchronized (friendWindows) {
+            window = friendWindows.computeIfAbsent(key, k -> new RingWindow<>(WINDOW_SIZE));
+        }
+        window.add(message);
+    }
+
+    public void addGroupMessage(ImChatUserGroupMessage message) {
+        String key = String.valueOf(message.getGroupId());
+        RingWindow<ImChatUserGroupMessage> window;
+        synchronized (groupWindows) {
+            window = groupWindows.computeIfAbsent(key, k -> new RingWindow<>(WINDOW_SIZE));
+        }
+        window.add(message);
+    }
+
+    /**
+     * 单聊会话的窗口，没有时返回null
+     */
+    public RingWindow<ImChatUserMessage> getFriendWindow(Integer userId, Integer friendId) {
+        synchronized (friendWindows) {
+            return friendWindows.get(friendKey(userId, friendId));
+        }
+    }
+
+    /**
+     * 群聊会话的窗口，没有时返回null
+     */
+    public RingWindow<ImChatUserGroupMessage> getGroupWindow(Integer groupId) {
+        synchronized (groupWindows) {
+            return groupWindows.get(String.valueOf(groupId));
+        }
+    }
+
+    /**
+     * 从窗口中取 beforeId 之前（为空时取最新）的 size 条消息
+     *
+     * @param snapshot 窗口内容（从早到晚）
+     * @return 窗口内不足时返回null，需要查询数据库
+     */
+    public static <E> List<E> before(List<E> snapshot, Long beforeId, int size, Function<E, Long> idOf) {
+        int end = beforeId == null ? snapshot.size() : indexOf(snapshot, beforeId, idOf);
+        if (end < size) {
+            return null;
+        }
+        return snapshot.subList(end - size, end);
+    }
+
+    /**
+     * 从窗口中取 afterId 之后的最多 size 条消息（包括尚未入库的消息）
+     *
+     * @param snapshot 窗口内容（从早到晚）
+     * @return 窗口中没有 afterId 时返回null，需要查询数据库
+     */
+    public static <E> List<E> after(List<E> snapshot, Long afterId, int size, Function<E, Long> idOf) {
+        int index = indexOf(snapshot, afterId, idOf);
+        if (index < 0) {
+            return null;
+        }
+        return snapshot.subList(index + 1, Math.min(snapshot.size(), index + 1 + size));
+    }
+
+    /**
+     * 判断两条单聊消息是否为同一条：都有ID时比较ID，否则比较内容和时间（入库时时间会被截断到秒）
+     */
+    public static boolean sameUserMessage(ImChatUserMessage a, ImChatUserMessage b) {
+        if (a.getId() != null && b.getId() != null) {
+            return a.getId().equals(b.getId());
+        }
+        return Objects.equals(a.getFromId(), b.getFromId())
+                && Objects.equals(a.getToId(), b.getToId())
+                && Objects.equals(a.getContent(), b.getContent())
+                && closeTime(a.getCreateTime(), b.getCreateTime());
+    }
+
+    /**
+     * 判断两条群消息是否为同一条，规则同 {@link #sameUserMessage}
+     */
+    public static boolean sameGroupMessage(ImChatUserGroupMessage a, ImChatUserGroupMessage b) {
+        if (a.getId() != null && b.getId() != null) {
+            return a.getId().equals(b.getId());
+        }
+        return Objects.equals(a.getFromId(), b.getFromId())
+                && Objects.equals(a.getGroupId(), b.getGroupId())
+                && Objects.equals(a.getContent(), b.getContent())
+                && closeTime(a.getCreateTime(), b.getCreateTime());
+    }
+
+    private static <E> int indexOf(List<E> snapshot, Long id, Function<E, Long> idOf) {
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            if (id.equals(idOf.apply(snapshot.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean closeTime(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Math.abs(Duration.between(a, b).toMillis()) <= 1000;
+    }
+
+    private static String friendKey(Integer a, Integer b) {
+        return a <= b ? a + ":" + b : b + ":" + a;
+    }
+
+    private static <V> Map<String, V> lruMap() {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_CONVERSATIONS;
+            }
+        };
+    }
+}
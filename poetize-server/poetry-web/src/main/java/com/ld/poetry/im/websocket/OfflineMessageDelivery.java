@@ -0,0 +1,208 @@
+package com.ld.poetry.im.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.ld.poetry.entity.User;
+import com.ld.poetry.im.http.entity.ImChatUserMessage;
+import com.ld.poetry.im.http.service.ImChatUserMessageService;
+import com.ld.poetry.utils.CommonQuery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tio.core.ChannelContext;
+import org.tio.core.Tio;
+import org.tio.websocket.common.WsResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 离线消息投递
+ * <p>
+ * 用户建立连接后在虚拟线程中投递离线期间收到的未读私聊消息，不占用握手线程：
+ * 按 (to_id, message_status) 索引以ID为游标分页读取，每页一次批量查询发送人信息，
+ * 合并为一个批量消息帧（{@link ImEnum#MESSAGE_TYPE_MSG_BATCH}）后阻塞发送，上一页写入连接后才读取下一页，
+ * 客户端接收慢时投递随之放慢，连接断开时立即停止。
+ * 所有连接的查询共用 {@value #MAX_CONCURRENT_QUERIES} 个许可，部署后大量用户同时重连时排队读取，不会挤占数据库连接池。
+ * 每次连接最多投递最新的 offline-max-messages 条，更早的消息由客户端通过历史记录接口分页获取。
+ */
+@Component
+@Slf4j
+public class OfflineMessageDelivery {
+
+    /**
+     * 同时读取离线消息的最大查询数
+     */
+    private static final int MAX_CONCURRENT_QUERIES = 8;
+
+    @Autowired
+    private ImChatUserMessageService imChatUserMessageService;
+
+    @Autowired
+    private CommonQuery commonQuery;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${poetize.im.offline-page-size:100}")
+    private int pageSize;
+
+    @Value("${poetize.im.offline-max-messages:1000}")
+    private int maxMessages;
+
+    private final Semaphore querySemaphore = new Semaphore(MAX_CONCURRENT_QUERIES);
+
+    // 正在进行的投递数
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final LongAdder deliveredCount = new LongAdder();
+
+    private final LongAdder truncatedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        pageSize = Math.max(1, pageSize);
+        maxMessages = Math.max(pageSize, maxMessages);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("im.offline.active", activeCount, AtomicInteger::get).register(registry);
+            FunctionCounter.builder("im.offline.delivered", deliveredCount, LongAdder::sum).register(registry);
+            FunctionCounter.builder("im.offline.truncated", truncatedCount, LongAdder::sum).register(registry);
+        }
+    }
+
+    /**
+     * 异步投递用户的未读私聊消息
+     */
+    public void deliver(ChannelContext channelContext, Integer userId) {
+        Thread.ofVirtual().name("im-offline-" + userId).start(() -> {
+            activeCount.incrementAndGet();
+            try {
+                int delivered = deliverPages(channelContext, userId);
+                if (delivered > 0) {
+                    log.info("用户 {} 的离线消息投递完成，共{}条", userId, delivered);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("用户 {} 的离线消息投递被中断", userId);
+            } catch (Exception e) {
+                log.error("投递用户离线消息失败 - userId: {}", userId, e);
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        });
+    }
+
+    private int deliverPages(ChannelContext channelContext, Integer userId) throws InterruptedException {
+        Long cursor = startCursor(userId);
+        int delivered = 0;
+        while (delivered < maxMessages && !channelContext.isClosed) {
+            List<ImChatUserMessage> page = queryPage(userId, cursor, Math.min(pageSize, maxMessages - delivered));
+            if (page.isEmpty()) {
+                break;
+            }
+            Boolean sent = Tio.bSend(channelContext, toFrame(page));
+            if (!Boolean.TRUE.equals(sent)) {
+                log.warn("用户 {} 的连接不可用，停止投递离线消息，已投递{}条", userId, delivered);
+                break;
+            }
+            delivered += page.size();
+            deliveredCount.add(page.size());
+            if (page.size() < pageSize) {
+                break;
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+        return delivered;
+    }
+
+    /**
+     * 未读消息超过上限时，只投递最新的 maxMessages 条，返回起始游标（不含）
+     */
+    private Long startCursor(Integer userId) throws InterruptedException {
+        querySemaphore.acquire();
+        try {
+            ImChatUserMessage boundary = imChatUserMessageService.lambdaQuery()
+                    .select(ImChatUserMessage::getId)
+                    .eq(ImChatUserMessage::getToId, userId)
+                    .eq(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_FALSE)
+                    .orderByDesc(ImChatUserMessage::getId)
+                    .last("LIMIT 1 OFFSET " + maxMessages)
+                    .one();
+            if (boundary == null) {
+                return null;
+            }
+            truncatedCount.increment();
+            log.info("用户 {} 的未读消息超过{}条，只投递最新的部分", userId, maxMessages);
+            return boundary.getId();
+        } finally {
+            querySemaphore.release();
+        }
+    }
+
+    private List<ImChatUserMessage> queryPage(Integer userId, Long cursor, int size) throws InterruptedException {
+        querySemaphore.acquire();
+        try {
+            return imChatUserMessageService.lambdaQuery()
+                    .select(ImChatUserMessage::getId, ImChatUserMessage::getFromId,
+                            ImChatUserMessage::getToId, ImChatUserMessage::getContent)
+                    .eq(ImChatUserMessage::getToId, userId)
+                    .eq(ImChatUserMessage::getMessageStatus, ImConfigConst.USER_MESSAGE_STATUS_FALSE)
+                    .gt(cursor != null, ImChatUserMessage::getId, cursor)
+                    .orderByAsc(ImChatUserMessage::getId)
+                    .last("LIMIT " + size)
+                    .list();
+        } finally {
+            querySemaphore.release();
+        }
+    }
+
+    /**
+     * 一页消息合并为一个批量消息帧，发送人信息一次批量获取
+     */
+    private WsResponse toFrame(List<ImChatUserMessage> page) {
+        Set<Integer> fromIds = new HashSet<>();
+        for (ImChatUserMessage message : page) {
+            fromIds.add(message.getFromId());
+        }
+        Map<Integer, User> senders = commonQuery.getUsers(fromIds);
+
+        List<ImMessage> messages = new ArrayList<>(page.size());
+        for (ImChatUserMessage userMessage : page) {
+            ImMessage imMessage = new ImMessage();
+            imMessage.setContent(userMessage.getContent());
+            imMessage.setFromId(userMessage.getFromId());
+            imMessage.setToId(userMessage.getToId());
+            imMessage.setMessageType(ImEnum.MESSAGE_TYPE_MSG_SINGLE.getCode());
+            User friend = senders.get(userMessage.getFromId());
+            if (friend != null) {
+                imMessage.setAvatar(friend.getAvatar());
+            }
+            messages.add(imMessage);
+        }
+
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("messageType", ImEnum.MESSAGE_TYPE_MSG_BATCH.getCode());
+        frame.put("messages", messages);
+        String jsonString = JSON.toJSONString(frame,
+                SerializerFeature.WriteMapNullValue,
+                SerializerFeature.WriteNullStringAsEmpty,
+                SerializerFeature.WriteNonStringKeyAsString,
+                SerializerFeature.DisableCircularReferenceDetect);
+        return WsResponse.fromText(jsonString, ImConfigConst.CHARSET);
+    }
+}
@@ -0,0 +1,188 @@
+package com.ld.poetry.im.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.ld.poetry.utils.timer.TimerWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tio.core.ChannelContext;
+import org.tio.core.Tio;
+import org.tio.core.intf.Packet;
+import org.tio.utils.lock.SetWithLock;
+import org.tio.websocket.common.WsResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多端登录处理
+ * <p>
+ * 同一用户的连接数超过 max-sessions 时按策略处理：kick-oldest 踢出最早的连接，reject-new 拒绝新连接。
+ * 被踢的连接先收到“被踢出”消息（messageType = 999，客户端收到后不再重连），
+ * 消息发送完成（{@link ImServerAioListener#onAfterSent}）后立即关闭；
+ * 迟迟发不出去时由时间轮在 kick-timeout 后强制关闭。握手线程只负责发起，不等待发送和关闭。
+ */
+@Component
+@Slf4j
+public class SessionTakeover {
+
+    /**
+     * 被踢出消息类型
+     */
+    public static final int MESSAGE_TYPE_KICK = 999;
+
+    private static final String POLICY_REJECT_NEW = "reject-new";
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${poetize.im.max-sessions:1}")
+    private int maxSessions;
+
+    @Value("${poetize.im.session-policy:kick-oldest}")
+    private String policy;
+
+    @Value("${poetize.im.kick-timeout:1000}")
+    private long kickTimeoutMillis;
+
+    // 等待发送被踢出消息的连接
+    private final Map<ChannelContext, PendingKick> pendingKicks = new ConcurrentHashMap<>();
+
+    private final LongAdder kickedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder forcedCount = new LongAdder();
+
+    private TimerWheel timerWheel;
+
+    @PostConstruct
+    public void init() {
+        timerWheel = new TimerWheel("im-session-timer", 10, 512);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("im.session.kick.pending", pendingKicks, Map::size).register(registry);
+            FunctionCounter.builder("im.session.kicked", kickedCount, LongAdder::sum).register(registry);
+            FunctionCounter.builder("im.session.rejected", rejectedCount, LongAdder::sum).register(registry);
+            FunctionCounter.builder("im.session.kick.forced", forcedCount, LongAdder::sum).register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (timerWheel != null) {
+            timerWheel.close();
+        }
+    }
+
+    /**
+     * 把新连接绑定到用户，并按多端登录策略处理多余的连接
+     *
+     * @return 新连接被拒绝时返回false
+     */
+    public boolean bind(ChannelContext channelContext, String userId) {
+        List<ChannelContext> others = new ArrayList<>();
+        SetWithLock<ChannelContext> existing = Tio.getByUserid(channelContext.tioConfig, userId);
+        if (existing != null) {
+            for (ChannelContext ctx : existing.getObj()) {
+                if (ctx != channelContext && !pendingKicks.containsKey(ctx)) {
+                    others.add(ctx);
+                }
+            }
+        }
+
+        int excess = maxSessions > 0 ? others.size() - maxSessions + 1 : 0;
+        if (excess > 0 && POLICY_REJECT_NEW.equals(policy)) {
+            rejectedCount.increment();
+            kick(channelContext, "您的账号已在其他设备登录，当前连接已断开", "已达到最大登录设备数，拒绝新连接");
+            log.info("用户 {} 的连接数已达上限{}，拒绝新连接", userId, maxSessions);
+            return false;
+        }
+
+        Tio.bindUser(channelContext, userId);
+        if (excess > 0) {
+            others.sort(Comparator.comparingLong(ctx -> ctx.stat.timeCreated));
+            for (int i = 0; i < excess; i++) {
+                kickedCount.increment();
+                kick(others.get(i), "您的账号在其他地方登录，当前连接已断开", "新连接已建立，旧连接被踢出");
+            }
+            log.info("已踢出用户 {} 的 {} 个旧连接", userId, excess);
+        }
+        return true;
+    }
+
+    /**
+     * 消息发送完成回调，被踢出消息发出后立即关闭连接
+     */
+    public void onAfterSent(ChannelContext channelContext, Packet packet) {
+        PendingKick pending = pendingKicks.get(channelContext);
+        if (pending != null && pending.response == packet) {
+            // 不在发送线程中关闭连接
+            timerWheel.schedule(() -> close(channelContext, pending, false), 0);
+        }
+    }
+
+    private void kick(ChannelContext channelContext, String content, String remark) {
+        ImMessage kickMessage = new ImMessage();
+        kickMessage.setMessageType(MESSAGE_TYPE_KICK);
+        kickMessage.setContent(content);
+        String kickJson = JSON.toJSONString(kickMessage,
+                SerializerFeature.WriteMapNullValue,
+                SerializerFeature.DisableCircularReferenceDetect);
+        WsResponse response = WsResponse.fromText(kickJson, ImConfigConst.CHARSET);
+
+        PendingKick pending = new PendingKick(response, remark);
+        pendingKicks.put(channelContext, pending);
+        timerWheel.schedule(() -> close(channelContext, pending, true), kickTimeoutMillis);
+        try {
+            if (!Boolean.TRUE.equals(Tio.send(channelContext, response))) {
+                timerWheel.schedule(() -> close(channelContext, pending, false), 0);
+            }
+        } catch (Exception e) {
+            log.warn("发送踢出消息失败: {}", e.getMessage());
+            timerWheel.schedule(() -> close(channelContext, pending, false), 0);
+        }
+    }
+
+    /**
+     * 发送完成和超时都会触发，只有先到的一次关闭连接
+     */
+    private void close(ChannelContext channelContext, PendingKick pending, boolean timedOut) {
+        if (!pendingKicks.remove(channelContext, pending)) {
+            return;
+        }
+        if (timedOut) {
+            forcedCount.increment();
+        }
+        try {
+            Tio.remove(channelContext, pending.remark);
+        } catch (Exception e) {
+            log.warn("关闭被踢出的连接失败: {}", e.getMessage());
+        }
+    }
+
+    private static final class PendingKick {
+
+        private final WsResponse response;
+
+        private final String remark;
+
+        private PendingKick(WsResponse response, String remark) {
+            this.response = response;
+            this.remark = remark;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.utils.search.InvertedIndex;
+import com.ld.poetry.utils.search.PlainText;
+import com.ld.poetry.utils.search.RegexGuard;
+import com.ld.poetry.utils.search.SearchHit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 文章正则搜索服务
+ * <p>
+ * 在内存语料（全文索引中的原文及翻译，内容已去除Markdown标记）上并行执行用户正则，
+ * 不再逐次从数据库拉取文章内容。编译结果走LRU缓存，每个文档的匹配受步数预算约束，
+ * 整次搜索有总超时，超时或超预算的文档被跳过；完整的结果按语料版本和表达式缓存。
+ */
+@Slf4j
+@Service
+public class ArticleRegexSearchService {
+
+    /**
+     * 结果缓存容量
+     */
+    private static final int RESULT_CACHE_SIZE = 128;
+
+    /**
+     * 单个文档匹配最多读取的字符数
+     */
+    private static final long DOCUMENT_STEP_BUDGET = 2_000_000L;
+
+    /**
+     * 单次搜索总超时（毫秒）
+     */
+    private static final long SEARCH_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * 单个文档最多统计的命中次数
+     */
+    private static final int MAX_MATCHES_PER_DOCUMENT = 100;
+
+    /**
+     * 标题命中的权重（内容命中为1）
+     */
+    private static final double TITLE_WEIGHT = 10;
+
+    @Autowired
+    private ArticleSearchService articleSearchService;
+
+    private final int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    // 使用固定数量的平台线程执行匹配，避免失控的正则占用虚拟线程载体
+    private final ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "regex-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private volatile Corpus corpus = new Corpus(-1, new ArrayList<>());
+
+    // 语料版本:表达式 -> 命中结果
+    private final Map<String, List<SearchHit>> resultCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, List<SearchHit>>(RESULT_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<SearchHit>> eldest) {
+                    return size() > RESULT_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * 正则搜索文章
+     *
+     * @param regex 正则表达式（不区分大小写）
+     * @param limit 最多返回的文章数
+     * @return 按相关度降序排列的命中结果；全文索引未就绪时返回null
+     * @throws PatternSyntaxException 表达式无效
+     */
+    public List<SearchHit> search(String regex, int limit) {
+        if (!articleSearchService.isReady()) {
+            return null;
+        }
+        Pattern pattern = RegexGuard.compile(regex);
+        Corpus current = getCorpus();
+
+        String cacheKey = current.version + ":" + regex;
+        List<SearchHit> cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            return cached.size() > limit ? cached.subList(0, limit) : cached;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(SEARCH_TIMEOUT_MILLIS);
+        AtomicInteger skipped = new AtomicInteger();
+        List<EntryMatch> matches = new ArrayList<>();
+        boolean complete = true;
+
+        List<Entry> entries = current.entries;
+        int chunkSize = Math.max(32, (entries.size() + parallelism * 4 - 1) / (parallelism * 4));
+        List<Future<List<EntryMatch>>> futures = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<Entry> chunk = entries.subList(from, Math.min(from + chunkSize, entries.size()));
+            futures.add(executor.submit(() -> scan(pattern, chunk, deadline, skipped)));
+        }
+        for (Future<List<EntryMatch>> future : futures) {
+            try {
+                matches.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                complete = false;
+            } catch (ExecutionException e) {
+                complete = false;
+                log.warn("正则搜索分片执行失败: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                complete = false;
+                break;
+            }
+        }
+
+        List<SearchHit> hits = toHits(current, matches);
+        if (complete && skipped.get() == 0) {
+            resultCache.put(cacheKey, Collections.unmodifiableList(hits));
+        } else {
+            log.warn("正则搜索未完整执行，结果不缓存: 表达式={}, 跳过文档数={}, 耗时={}ms",
+                    regex, skipped.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取与全文索引版本一致的语料，索引变更后重建
+     */
+    private Corpus getCorpus() {
+        long version = articleSearchService.getVersion();
+        Corpus current = corpus;
+        if (current.version == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = corpus;
+            if (current.version == version) {
+                return current;
+            }
+            List<Entry> entries = new ArrayList<>();
+            articleSearchService.forEachDocument((articleId, language, field, text) ->
+                    entries.add(new Entry(articleId, language, field,
+                            field == InvertedIndex.FIELD_CONTENT ? PlainText.fromMarkdown(text) : text)));
+            current = new Corpus(version, entries);
+            corpus = current;
+            log.debug("正则搜索语料已重建: 版本={}, 文档数={}", version, entries.size());
+            return current;
+        }
+    }
+
+    private List<EntryMatch> scan(Pattern pattern, List<Entry> entries, long deadline, AtomicInteger skipped) {
+        List<EntryMatch> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            try {
+                Matcher matcher = RegexGuard.matcher(pattern, entry.text, DOCUMENT_STEP_BUDGET, deadline);
+                int count = 0;
+                int start = -1;
+                int end = -1;
+                while (count < MAX_MATCHES_PER_DOCUMENT && matcher.find()) {
+                    if (count == 0) {
+                        start = matcher.start();
+                        end = matcher.end();
+                    }
+                    count++;
+                }
+                if (count > 0) {
+                    matches.add(new EntryMatch(entry, count, start, end));
+                }
+            } catch (RegexGuard.BudgetExceededException e) {
+                skipped.incrementAndGet();
+            }
+        }
+        return matches;
+    }
+
+    private List<SearchHit> toHits(Corpus current, List<EntryMatch> matches) {
+        Map<Integer, List<EntryMatch>> byArticle = new HashMap<>();
+        for (EntryMatch match : matches) {
+            byArticle.computeIfAbsent(match.entry.articleId, k -> new ArrayList<>()).add(match);
+        }
+
+        List<SearchHit> hits = new ArrayList<>(byArticle.size());
+        byArticle.forEach((articleId, articleMatches) -> {
+            SearchHit hit = new SearchHit();
+            hit.setArticleId(articleId);
+            double score = 0;
+            EntryMatch originalContent = null;
+            Map<String, Double> languageScores = new HashMap<>();
+            Map<String, EntryMatch> translationContents = new HashMap<>();
+            for (EntryMatch match : articleMatches) {
+                Entry entry = match.entry;
+                double entryScore = (entry.field == InvertedIndex.FIELD_TITLE ? TITLE_WEIGHT : 1) * (1 + Math.log(match.count));
+                score += entryScore;
+                if (entry.field == InvertedIndex.FIELD_TITLE) {
+                    hit.setTitleMatched(true);
+                }
+                if (entry.language == null) {
+                    hit.setOriginalMatched(true);
+                    if (entry.field == InvertedIndex.FIELD_CONTENT) {
+                        originalContent = match;
+                    }
+                } else {
+                    languageScores.merge(entry.language, entryScore, Double::sum);
+                    if (entry.field == InvertedIndex.FIELD_CONTENT) {
+                        translationContents.put(entry.language, match);
+                    }
+                }
+            }
+            hit.setScore(score);
+
+            String language = languageScores.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            hit.setMatchedLanguage(language);
+
+            EntryMatch contentMatch = originalContent;
+            if (!hit.isOriginalMatched() && language != null) {
+                hit.setTranslationTitle(current.findText(articleId, language, InvertedIndex.FIELD_TITLE));
+                hit.setTranslationContent(current.findText(articleId, language, InvertedIndex.FIELD_CONTENT));
+                contentMatch = translationContents.get(language);
+            }
+            if (contentMatch != null) {
+                // 偏移指向去除Markdown后的纯文本
+                hit.setContentText(contentMatch.entry.text);
+                hit.setContentStart(contentMatch.start);
+                hit.setContentEnd(contentMatch.end);
+            }
+            hits.add(hit);
+        });
+
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getArticleId, Comparator.reverseOrder()));
+        return hits;
+    }
+
+    private static final class Corpus {
+
+        private final long version;
+
+        private final List<Entry> entries;
+
+        // 文章ID -> 该文章的全部文档
+        private final Map<Integer, List<Entry>> byArticle = new HashMap<>();
+
+        private Corpus(long version, List<Entry> entries) {
+            this.version = version;
+            this.entries = entries;
+            for (Entry entry : entries) {
+                byArticle.computeIfAbsent(entry.articleId, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        private String findText(int articleId, String language, byte field) {
+            for (Entry entry : byArticle.getOrDefault(articleId, Collections.emptyList())) {
+                if (entry.field == field && Objects.equals(entry.language, language)) {
+                    return entry.text;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        private final int articleId;
+
+        private final String language;
+
+        private final byte field;
+
+        private final String text;
+
+        private Entry(int articleId, String language, byte field, String text) {
+            this.articleId = articleId;
+            this.language = language;
+            this.field = field;
+            this.text = text;
+        }
+    }
+
+    private static final class EntryMatch {
+
+        private final Entry entry;
+
+        private final int count;
+
+        private final int start;
+
+        private final int end;
+
+        private EntryMatch(Entry entry, int count, int start, int end) {
+            this.entry = entry;
+            this.count = count;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.ld.poetry.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.ld.poetry.dao.ArticleMapper;
+import com.ld.poetry.dao.ArticleTranslationMapper;
+import com.ld.poetry.entity.Article;
+import com.ld.poetry.entity.ArticleTranslation;
+import com.ld.poetry.event.ArticleSavedEvent;
+import com.ld.poetry.utils.search.InvertedIndex;
+import com.ld.poetry.utils.search.SearchHit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 文章全文搜索服务
+ * <p>
+ * 在进程内维护文章原文及全部翻译的倒排索引（中日韩二元分词 + 拉丁单词分词，带位置信息），
+ * 文章保存/删除事件和翻译变更时增量更新单篇文章，索引定期持久化到本地文件。
+ * 启动时加载索引文件，再按数据库端计算的内容签名只同步有变化的文章，无需全量重建。
+ * 索引就绪前由调用方回退到数据库搜索。
+ */
+@Slf4j
+@Service
+public class ArticleSearchService {
+
+    /**
+     * 启动同步时每批加载的文章数
+     */
+    private static final int LOAD_BATCH_SIZE = 100;
+
+    @Value("${search.index.file:data/search/article-index.bin}")
+    private String indexFile;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private ArticleTranslationMapper articleTranslationMapper;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    private volatile boolean ready = false;
+
+    // 索引是否有尚未持久化的变更
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    // 索引版本，每次变更加一，供依赖索引内容的缓存判断是否过期
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 应用启动后在后台加载并同步索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("article-search-index-init").start(this::initialize);
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 搜索文章
+     *
+     * @param query 搜索词
+     * @param limit 最多返回的文章数
+     * @return 按相关度降序排列的命中结果（含匹配语言和摘要偏移）
+     */
+    public List<SearchHit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前索引版本
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 遍历索引中的全部文档（原文及翻译的标题、内容）
+     */
+    public void forEachDocument(InvertedIndex.DocumentVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            index.forEachDocument(visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文章保存、更新、删除后同步索引
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleArticleSavedEvent(ArticleSavedEvent event) {
+        if ("DELETE".equals(event.getOperationType())) {
+            removeArticle(event.getArticleId());
+        } else {
+            reindexArticle(event.getArticleId());
+        }
+    }
+
+    /**
+     * 重新索引单篇文章（原文及全部翻译）
+     *
+     * @param articleId 文章ID
+     */
+    public void reindexArticle(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        try {
+            Article article = articleMapper.selectOne(new LambdaQueryWrapper<Article>()
+                    .select(Article::getId, Article::getArticleTitle, Article::getArticleContent)
+                    .eq(Article::getId, articleId));
+            if (article == null) {
+                removeArticle(articleId);
+                return;
+            }
+            List<ArticleTranslation> translations = articleTranslationMapper.selectList(
+                    new LambdaQueryWrapper<ArticleTranslation>().eq(ArticleTranslation::getArticleId, articleId));
+
+            lock.writeLock().lock();
+            try {
+                indexArticle(index, article, translations, signatureOf(article, translations));
+                version.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            dirty.set(true);
+        } catch (Exception e) {
+            log.error("更新文章搜索索引失败，文章ID: {}", articleId, e);
+        }
+    }
+
+    /**
+     * 从索引中移除文章
+     *
+     * @param articleId 文章ID
+     */
+    public void removeArticle(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.removeArticle(articleId);
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * 定期持久化索引
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void persistIfDirty() {
+        if (ready && dirty.compareAndSet(true, false)) {
+            persist();
+        }
+    }
+
+    /**
+     * 应用关闭前持久化索引
+     */
+    @PreDestroy
+    public void persistOnShutdown() {
+        persistIfDirty();
+    }
+
+    /**
+     * 加载索引文件并与数据库同步
+     */
+    private void initialize() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            index = load();
+            int changed = reconcile(index);
+            if (changed > 0) {
+                dirty.set(true);
+            }
+            version.incrementAndGet();
+            ready = true;
+            log.info("文章搜索索引已就绪: 文章数={}, 文档数={}, 词元数={}, 同步文章数={}, 耗时={}ms",
+                    index.getArticleCount(), index.getDocumentCount(), index.getTermCount(), changed,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("文章搜索索引初始化失败，搜索将使用数据库查询", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        persistIfDirty();
+    }
+
+    /**
+     * 按内容签名同步索引：移除已删除的文章，重新索引新增或变更的文章
+     *
+     * @return 变更的文章数
+     */
+    private int reconcile(InvertedIndex target) {
+        Map<Integer, Long> current = loadSignatures();
+        Map<Integer, Long> indexed = target.getSignatures();
+
+        int changed = 0;
+        for (Integer articleId : indexed.keySet()) {
+            if (!current.containsKey(articleId)) {
+                target.removeArticle(articleId);
+                changed++;
+            }
+        }
+
+        List<Integer> stale = new ArrayList<>();
+        current.forEach((articleId, signature) -> {
+            if (!signature.equals(indexed.get(articleId))) {
+                stale.add(articleId);
+            }
+        });
+
+        for (int i = 0; i < stale.size(); i += LOAD_BATCH_SIZE) {
+            List<Integer> batch = stale.subList(i, Math.min(i + LOAD_BATCH_SIZE, stale.size()));
+            List<Article> articles = articleMapper.selectList(new LambdaQueryWrapper<Article>()
+                    .select(Article::getId, Article::getArticleTitle, Article::getArticleContent)
+                    .in(Article::getId, batch));
+            Map<Integer, List<ArticleTranslation>> translations = new HashMap<>();
+            for (ArticleTranslation translation : articleTranslationMapper.selectList(
+                    new LambdaQueryWrapper<ArticleTranslation>().in(ArticleTranslation::getArticleId, batch))) {
+                translations.computeIfAbsent(translation.getArticleId(), k -> new ArrayList<>()).add(translation);
+            }
+            for (Article article : articles) {
+                // 使用数据库端签名，保证下次启动时比较一致
+                indexArticle(target, article, translations.getOrDefault(article.getId(), Collections.emptyList()),
+                        current.get(article.getId()));
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 查询全部文章的内容签名：原文签名与各翻译签名组合，任一变化即视为文章变化
+     */
+    private Map<Integer, Long> loadSignatures() {
+        Map<Integer, Long> signatures = new HashMap<>();
+        for (Map<String, Object> row : articleMapper.selectContentSignatures()) {
+            Long id = toLong(row.get("id"));
+            Long signature = toLong(row.get("sig"));
+            if (id != null) {
+                signatures.put(id.intValue(), (signature != null ? signature : 0L) * 31);
+            }
+        }
+        for (Map<String, Object> row : articleTranslationMapper.selectContentSignatures()) {
+            Long articleId = toLong(row.get("article_id"));
+            Long signature = toLong(row.get("sig"));
+            if (articleId != null && signature != null && signatures.containsKey(articleId.intValue())) {
+                signatures.merge(articleId.intValue(), signature, Long::sum);
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * 在Java端按与数据库相同的规则计算文章签名
+     */
+    private long signatureOf(Article article, List<ArticleTranslation> translations) {
+        long signature = crc32(article.getArticleTitle(), article.getArticleContent()) * 31;
+        for (ArticleTranslation translation : translations) {
+            signature += crc32(translation.getLanguage(), translation.getTitle(), translation.getContent());
+        }
+        return signature;
+    }
+
+    /**
+     * 与 crc32(concat_ws(char(31), ...)) 等价：跳过null值，以0x1F连接
+     */
+    private long crc32(String... values) {
+        StringJoiner joiner = new StringJoiner("\u001f");
+        for (String value : values) {
+            if (value != null) {
+                joiner.add(value);
+            }
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(joiner.toString().getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    private void indexArticle(InvertedIndex target, Article article, List<ArticleTranslation> translations, long signature) {
+        target.removeArticle(article.getId());
+        target.addDocument(article.getId(), null, InvertedIndex.FIELD_TITLE, article.getArticleTitle());
+        target.addDocument(article.getId(), null, InvertedIndex.FIELD_CONTENT, article.getArticleContent());
+        for (ArticleTranslation translation : translations) {
+            if (translation.getLanguage() == null) {
+                continue;
+            }
+            target.addDocument(article.getId(), translation.getLanguage(), InvertedIndex.FIELD_TITLE, translation.getTitle());
+            target.addDocument(article.getId(), translation.getLanguage(), InvertedIndex.FIELD_CONTENT, translation.getContent());
+        }
+        target.setSignature(article.getId(), signature);
+    }
+
+    private InvertedIndex load() {
+        Path path = Paths.get(indexFile);
+        if (!Files.exists(path)) {
+            log.info("文章搜索索引文件不存在，将从数据库构建: {}", path.toAbsolutePath());
+            return new InvertedIndex();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            return InvertedIndex.readFrom(in);
+        } catch (Exception e) {
+            log.warn("读取文章搜索索引文件失败，将从数据库重建: {}", e.getMessage());
+            return new InvertedIndex();
+        }
+    }
+
+    private void persist() {
+        Path path = Paths.get(indexFile);
+        Path tempPath = Paths.get(indexFile + ".tmp");
+        lock.readLock().lock();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+                index.writeTo(out);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("文章搜索索引已持久化: {}", path.toAbsolutePath());
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("持久化文章搜索索引失败: {}", path.toAbsolutePath(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
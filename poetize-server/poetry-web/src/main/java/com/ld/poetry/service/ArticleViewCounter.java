@@ -0,0 +1,137 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.dao.ArticleMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 文章浏览量写回计数器
+ * <p>
+ * 浏览时只在内存中累加（按文章分片的LongAdder，无锁、无数据库写入），
+ * 定时任务将累计增量用一条批量UPDATE写回 article.view_count。
+ * 读取浏览量时以数据库值加上尚未写回的增量为准。
+ */
+@Slf4j
+@Service
+public class ArticleViewCounter {
+
+    /**
+     * 单条UPDATE最多包含的文章数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    // 文章ID -> 尚未写回的浏览量增量
+    private final ConcurrentHashMap<Integer, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    // 文章ID -> 已从计数器取出、正在写回数据库的增量（写回期间读取仍需计入）
+    private final ConcurrentHashMap<Integer, Long> flushingViews = new ConcurrentHashMap<>();
+
+    // 保证同一时间只有一个写回任务
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 浏览量加一
+     *
+     * @param articleId 文章ID
+     * @return 该文章尚未写回的增量
+     */
+    public long increment(Integer articleId) {
+        if (articleId == null) {
+            return 0;
+        }
+        LongAdder adder = pendingViews.computeIfAbsent(articleId, k -> new LongAdder());
+        adder.increment();
+        return adder.sum();
+    }
+
+    /**
+     * 获取尚未写回的浏览量增量
+     *
+     * @param articleId 文章ID
+     * @return 增量
+     */
+    public long getPending(Integer articleId) {
+        if (articleId == null) {
+            return 0;
+        }
+        LongAdder adder = pendingViews.get(articleId);
+        Long flushing = flushingViews.get(articleId);
+        return (adder != null ? adder.sum() : 0) + (flushing != null ? flushing : 0);
+    }
+
+    /**
+     * 合并数据库浏览量与尚未写回的增量
+     *
+     * @param articleId   文章ID
+     * @param dbViewCount 数据库中的浏览量
+     * @return 当前浏览量
+     */
+    public int merge(Integer articleId, Integer dbViewCount) {
+        long base = dbViewCount != null ? dbViewCount : 0;
+        return (int) Math.min(Integer.MAX_VALUE, base + getPending(articleId));
+    }
+
+    /**
+     * 定时将增量批量写回数据库
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            // sumThenReset逐个分片清零，并发中的累加不会丢失，只会留到下一轮
+            Map<Integer, Long> deltas = new HashMap<>();
+            for (Map.Entry<Integer, LongAdder> entry : pendingViews.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta > 0) {
+                    deltas.put(entry.getKey(), delta);
+                    flushingViews.merge(entry.getKey(), delta, Long::sum);
+                }
+                if (deltas.size() >= FLUSH_BATCH_SIZE) {
+                    writeBack(deltas);
+                    deltas = new HashMap<>();
+                }
+            }
+            if (!deltas.isEmpty()) {
+                writeBack(deltas);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBack(Map<Integer, Long> deltas) {
+        try {
+            articleMapper.batchIncrementViewCount(deltas);
+        } catch (Exception e) {
+            log.error("批量写回文章浏览量失败，文章数量: {}", deltas.size(), e);
+            // 写回失败，将增量加回计数器，等待下一轮
+            deltas.forEach((articleId, delta) ->
+                    pendingViews.computeIfAbsent(articleId, k -> new LongAdder()).add(delta));
+        } finally {
+            deltas.forEach((articleId, delta) ->
+                    flushingViews.computeIfPresent(articleId, (k, v) -> v - delta > 0 ? v - delta : null));
+        }
+    }
+}
@@ -5,6 +5,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 缓存管理服务
  * 提供统一的缓存管理接口，协调Redis缓存和Spring Cache
@@ -16,46 +19,71 @@ public class CacheManagerService {
     @Autowired
     private CacheService cacheService;
 
+    /**
+     * 用户相关的固定缓存键
+     */
+    private static final List<String> USER_CACHE_KEYS = List.of(
+            CacheConstants.ADMIN_CACHE_KEY,
+            CacheConstants.ADMIRE_LIST_KEY);
+
+    /**
+     * 系统配置相关的固定缓存键
+     */
+    private static final List<String> SYSTEM_CACHE_KEYS = List.of(
+            CacheConstants.FAMILY_LIST_KEY);
+
     /**
      * 清理所有文章相关缓存
      */
     public void evictAllArticleCache() {
         log.info("开始清理所有文章相关缓存");
         
-        // 清理分类文章列表缓存
-        cacheService.evictSortArticleList();
-        
-        // 分类信息缓存已移除
-        
-        // 清理文章搜索缓存（这里可以扩展为批量清理）
-        // 注意：搜索缓存使用动态key，需要特殊处理
+        List<String> keys = new ArrayList<>();
+        collectArticleCacheKeys(keys);
+        cacheService.deleteKeys(keys);
         
         log.info("文章相关缓存清理完成");
     }
 
+    /**
+     * 文章相关的固定缓存键
+     */
+    private void collectArticleCacheKeys(List<String> keys) {
+        // 分类文章列表缓存（分类信息缓存已移除）
+        keys.add(CacheConstants.SORT_ARTICLE_LIST_KEY);
+        
+        // 文章搜索缓存使用动态key，需要特殊处理，这里不清理
+    }
+
     /**
      * 清理所有用户相关缓存
      */
     public void evictAllUserCache() {
         log.info("开始清理所有用户相关缓存");
         
-        // 清理管理员缓存
-        cacheService.deleteKey(CacheConstants.ADMIN_CACHE_KEY);
-
-        // 清理点赞用户列表缓存
-        cacheService.deleteKey(CacheConstants.ADMIRE_LIST_KEY);
+        // 清理管理员缓存与点赞用户列表缓存（一次删除）
+        List<String> keys = new ArrayList<>();
+        collectUserCacheKeys(keys);
+        cacheService.deleteKeys(keys);
         
         log.info("用户相关缓存清理完成");
     }
 
+    /**
+     * 用户相关的固定缓存键
+     */
+    private void collectUserCacheKeys(List<String> keys) {
+        keys.addAll(USER_CACHE_KEYS);
+    }
+
     /**
      * 清理所有评论相关缓存
      */
     public void evictAllCommentCache() {
         log.info("开始清理所有评论相关缓存");
         
-        // 这里可以扩展为批量清理评论缓存
-        // 由于评论缓存使用动态key（source + type），需要特殊处理
+        // 评论列表与评论数量缓存使用动态key（source + type），按前缀扫描后批量删除
+        cacheService.deleteKeysByPattern(CacheConstants.COMMENT_LIST_PREFIX + "*");
         
         log.info("评论相关缓存清理完成");
     }
@@ -66,15 +94,21 @@ public class CacheManagerService {
     public void evictAllSystemCache() {
         log.info("开始清理系统配置相关缓存");
         
-        // 分类信息缓存已移除
-        
-        // 清理家庭成员列表缓存
-        String familyCacheKey = CacheConstants.CACHE_PREFIX + "family:list";
-        cacheService.deleteKey(familyCacheKey);
+        List<String> keys = new ArrayList<>();
+        collectSystemCacheKeys(keys);
+        cacheService.deleteKeys(keys);
         
         log.info("系统配置相关缓存清理完成");
     }
 
+    /**
+     * 系统配置相关的固定缓存键
+     */
+    private void collectSystemCacheKeys(List<String> keys) {
+        // 家庭成员列表缓存（分类信息缓存已移除）
+        keys.addAll(SYSTEM_CACHE_KEYS);
+    }
+
     /**
      * 预热关键缓存
      */
@@ -107,6 +141,7 @@ public class CacheManagerService {
             stats.put("sortArticlesCache", hasSortArticles);
             stats.put("admireListCache", hasAdmireList);
             stats.put("familyListCache", hasFamilyList);
+            stats.put("localCache", cacheService.getLocalCacheStats());
             stats.put("timestamp", System.currentTimeMillis());
             stats.put("healthy", true);
 
@@ -125,10 +160,17 @@ public class CacheManagerService {
     public void evictAllCache() {
         log.info("开始清理所有缓存");
         
-        evictAllArticleCache();
-        evictAllUserCache();
+        // 各类固定键合并为一次批量删除
+        List<String> keys = new ArrayList<>();
+        collectArticleCacheKeys(keys);
+        collectUserCacheKeys(keys);
+        collectSystemCacheKeys(keys);
+        cacheService.deleteKeys(keys);
+
         evictAllCommentCache();
-        evictAllSystemCache();
+
+        // 清空各实例的本地缓存
+        cacheService.evictLocalCaches();
         
         log.info("所有缓存清理完成");
     }
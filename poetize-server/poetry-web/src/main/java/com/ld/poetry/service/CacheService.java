@@ -3,19 +3,29 @@ package com.ld.poetry.service;
 import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.ld.poetry.constants.CacheConstants;
 import com.ld.poetry.constants.CommonConst;
-import com.ld.poetry.dao.HistoryInfoMapper;
 import com.ld.poetry.dao.WebInfoMapper;
 import com.ld.poetry.entity.Article;
 import com.ld.poetry.entity.User;
 import com.ld.poetry.entity.WebInfo;
 import com.ld.poetry.utils.RedisUtil;
 import com.ld.poetry.utils.SpringContextUtil;
+import com.ld.poetry.utils.cache.LocalCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
@@ -24,15 +34,22 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * 缓存服务类
  * 统一管理各种业务数据的缓存操作
+ * <p>
+ * 用户、网站信息、系统配置、评论数量和分类文章列表在Redis前还有一层进程内本地缓存，
+ * 写入或删除这些键时通过Redis发布/订阅通知其他实例清除本地副本。
  * 
  * @author LeapYa
  * @since 2025-7-20
@@ -43,12 +60,197 @@ public class CacheService {
 
     @Autowired
     private RedisUtil redisUtil;
+
+    @Autowired
+    private VisitLogService visitLogService;
     
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
     @Autowired
-    private HistoryInfoMapper historyInfoMapper;
+    private VisitRollupService visitRollupService;
+
+    @Autowired
+    private VisitCounterService visitCounterService;
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private IpBlacklistService ipBlacklistService;
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // ================================ 本地缓存（L1） ================================
+
+    // 本实例标识，用于忽略自己发布的失效通知
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final LocalCache<User> localUsers = new LocalCache<>("user",
+            CacheConstants.LOCAL_USER_MAX_SIZE, CacheConstants.LOCAL_USER_TTL, CacheService::copyUser);
+
+    private final LocalCache<WebInfo> localWebInfo = new LocalCache<>("webInfo",
+            1, CacheConstants.LOCAL_WEB_INFO_TTL, CacheService::copyWebInfo);
+
+    private final LocalCache<String> localSysConfigs = new LocalCache<>("sysConfig",
+            CacheConstants.LOCAL_SYS_CONFIG_MAX_SIZE, CacheConstants.LOCAL_SYS_CONFIG_TTL, null);
+
+    private final LocalCache<Long> localCommentCounts = new LocalCache<>("commentCount",
+            CacheConstants.LOCAL_COMMENT_COUNT_MAX_SIZE, CacheConstants.LOCAL_COMMENT_COUNT_TTL, null);
+
+    // 分类文章列表只被读取用于组装VO，不复制
+    private final LocalCache<Map<Integer, List<Article>>> localSortArticleList = new LocalCache<>("sortArticleList",
+            1, CacheConstants.LOCAL_SORT_ARTICLE_LIST_TTL, null);
+
+    private final List<LocalCache<?>> localCaches = List.of(
+            localUsers, localWebInfo, localSysConfigs, localCommentCounts, localSortArticleList);
+
+    @PostConstruct
+    public void initLocalCache() {
+        redisMessageListenerContainer.addMessageListener(this::onLocalCacheInvalidate,
+                new ChannelTopic(CacheConstants.LOCAL_CACHE_INVALIDATE_CHANNEL));
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            for (LocalCache<?> cache : localCaches) {
+                String name = "local." + cache.getName();
+                FunctionCounter.builder("cache.gets", cache, c -> c.getHitCount())
+                        .tag("cache", name).tag("result", "hit").register(registry);
+                FunctionCounter.builder("cache.gets", cache, c -> c.getMissCount())
+                        .tag("cache", name).tag("result", "miss").register(registry);
+                FunctionCounter.builder("cache.evictions", cache, c -> c.getEvictionCount())
+                        .tag("cache", name).register(registry);
+                Gauge.builder("cache.size", cache, c -> c.size())
+                        .tag("cache", name).register(registry);
+            }
+        }
+    }
+
+    /**
+     * 获取本地缓存统计（按键族）
+     */
+    public Map<String, Object> getLocalCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (LocalCache<?> cache : localCaches) {
+            Map<String, Object> cacheStats = new LinkedHashMap<>();
+            cacheStats.put("size", cache.size());
+            cacheStats.put("hitCount", cache.getHitCount());
+            cacheStats.put("missCount", cache.getMissCount());
+            cacheStats.put("evictionCount", cache.getEvictionCount());
+            cacheStats.put("hitRate", cache.getHitRate());
+            stats.put(cache.getName(), cacheStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 清空本实例及其他实例的全部本地缓存
+     */
+    public void evictLocalCaches() {
+        localCaches.forEach(LocalCache::invalidateAll);
+        publishLocalInvalidate("*");
+    }
+
+    /**
+     * 清除某个Redis键在本实例及其他实例的本地副本，非本地缓存覆盖的键忽略
+     */
+    private void evictLocal(String redisKey) {
+        LocalCache<?> cache = localCacheOf(redisKey);
+        if (cache != null) {
+            cache.invalidate(redisKey);
+            publishLocalInvalidate(redisKey);
+        }
+    }
+
+    /**
+     * 根据Redis键找到对应的本地缓存
+     */
+    private LocalCache<?> localCacheOf(String redisKey) {
+        if (redisKey == null) {
+            return null;
+        }
+        if (CacheConstants.WEB_INFO_KEY.equals(redisKey)) {
+            return localWebInfo;
+        }
+        if (CacheConstants.SORT_ARTICLE_LIST_KEY.equals(redisKey)) {
+            return localSortArticleList;
+        }
+        if (redisKey.startsWith(CacheConstants.SYS_CONFIG_PREFIX)) {
+            return localSysConfigs;
+        }
+        if (redisKey.startsWith(CacheConstants.COMMENT_LIST_PREFIX) && redisKey.endsWith(":count")) {
+            return localCommentCounts;
+        }
+        if (isUserKey(redisKey)) {
+            return localUsers;
+        }
+        return null;
+    }
+
+    /**
+     * 是否为 {@link CacheConstants#buildUserKey} 生成的用户信息键（前缀后只有数字），
+     * 同一前缀下的token、验证码等键没有本地副本
+     */
+    private static boolean isUserKey(String redisKey) {
+        int start = CacheConstants.USER_CACHE_PREFIX.length();
+        if (!redisKey.startsWith(CacheConstants.USER_CACHE_PREFIX) || redisKey.length() == start) {
+            return false;
+        }
+        for (int i = start; i < redisKey.length(); i++) {
+            if (!Character.isDigit(redisKey.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void publishLocalInvalidate(String redisKey) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.LOCAL_CACHE_INVALIDATE_CHANNEL, instanceId + "|" + redisKey);
+        } catch (Exception e) {
+            // 通知失败时其他实例的本地副本将在存活时间到期后失效
+            log.warn("发布本地缓存失效通知失败 - Key: {}, 错误: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private void onLocalCacheInvalidate(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || instanceId.equals(body.substring(0, separator))) {
+            return;
+        }
+        String redisKey = body.substring(separator + 1);
+        if ("*".equals(redisKey)) {
+            localCaches.forEach(LocalCache::invalidateAll);
+            return;
+        }
+        LocalCache<?> cache = localCacheOf(redisKey);
+        if (cache != null) {
+            cache.invalidate(redisKey);
+        }
+    }
+
+    private static User copyUser(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    private static WebInfo copyWebInfo(WebInfo webInfo) {
+        WebInfo copy = new WebInfo();
+        BeanUtils.copyProperties(webInfo, copy);
+        return copy;
+    }
 
     // ================================ 用户缓存 ================================
 
@@ -60,6 +262,8 @@ public class CacheService {
             String key = CacheConstants.buildUserKey(user.getId());
             // 使用与token相同的过期时间，确保用户信息和会话同步
             redisUtil.set(key, user, CommonConst.TOKEN_EXPIRE);
+            evictLocal(key);
+            localUsers.put(key, user);
             log.info("缓存用户信息: {}, 过期时间与token一致: {}秒", user.getId(), CommonConst.TOKEN_EXPIRE);
         }
     }
@@ -71,13 +275,63 @@ public class CacheService {
         if (userId == null) return null;
         
         String key = CacheConstants.buildUserKey(userId);
+        User local = localUsers.get(key);
+        if (local != null) {
+            return local;
+        }
+        long mark = localUsers.mark();
         Object cached = redisUtil.get(key);
         if (cached instanceof User) {
+            localUsers.put(key, (User) cached, mark);
             return (User) cached;
         }
         return null;
     }
 
+    /**
+     * 批量获取缓存的用户信息（一次MGET）
+     *
+     * @param userIds 用户ID集合
+     * @return 命中缓存的用户，键为用户ID
+     */
+    public Map<Integer, User> getCachedUsers(Collection<Integer> userIds) {
+        Map<Integer, User> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        // 先读本地缓存，未命中的再一次MGET
+        List<Integer> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(userIds)) {
+            if (id == null) {
+                continue;
+            }
+            String key = CacheConstants.buildUserKey(id);
+            User local = localUsers.get(key);
+            if (local != null) {
+                result.put(id, local);
+            } else {
+                ids.add(id);
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        long mark = localUsers.mark();
+        List<Object> values = redisUtil.mGet(keys);
+        for (int i = 0; i < values.size() && i < ids.size(); i++) {
+            Object cached = values.get(i);
+            if (cached instanceof User) {
+                result.put(ids.get(i), (User) cached);
+                localUsers.put(keys.get(i), (User) cached, mark);
+            }
+        }
+        return result;
+    }
+
     /**
      * 删除用户缓存
      */
@@ -85,6 +339,7 @@ public class CacheService {
         if (userId != null) {
             String key = CacheConstants.buildUserKey(userId);
             redisUtil.del(key);
+            evictLocal(key);
         }
     }
 
@@ -146,27 +401,18 @@ public class CacheService {
     }
 
     /**
-     * 增加文章浏览量
+     * 增加文章浏览量（返回尚未写回数据库的增量）
      */
     public long incrementArticleView(Integer articleId) {
-        if (articleId == null) return 0;
-        
-        String key = CacheConstants.ARTICLE_VIEW_PREFIX + articleId;
-        return redisUtil.incr(key, 1);
+        // 统一走浏览量写回计数器，由其定时批量落库
+        return articleViewCounter.increment(articleId);
     }
 
     /**
-     * 获取文章浏览量
+     * 获取文章尚未写回数据库的浏览量增量
      */
     public long getArticleViewCount(Integer articleId) {
-        if (articleId == null) return 0;
-
-        String key = CacheConstants.ARTICLE_VIEW_PREFIX + articleId;
-        Object count = redisUtil.get(key);
-        if (count instanceof Number) {
-            return ((Number) count).longValue();
-        }
-        return 0;
+        return articleViewCounter.getPending(articleId);
     }
 
     /**
@@ -175,6 +421,8 @@ public class CacheService {
     public void cacheSortArticleList(Map<Integer, List<Article>> sortArticleMap) {
         if (sortArticleMap != null) {
             redisUtil.set(CacheConstants.SORT_ARTICLE_LIST_KEY, sortArticleMap, CacheConstants.LONG_EXPIRE_TIME);
+            evictLocal(CacheConstants.SORT_ARTICLE_LIST_KEY);
+            localSortArticleList.put(CacheConstants.SORT_ARTICLE_LIST_KEY, sortArticleMap);
         }
     }
 
@@ -184,6 +432,11 @@ public class CacheService {
      */
     @SuppressWarnings("unchecked")
     public Map<Integer, List<Article>> getCachedSortArticleList() {
+        Map<Integer, List<Article>> local = localSortArticleList.get(CacheConstants.SORT_ARTICLE_LIST_KEY);
+        if (local != null) {
+            return local;
+        }
+        long mark = localSortArticleList.mark();
         Object cached = redisUtil.get(CacheConstants.SORT_ARTICLE_LIST_KEY);
         if (cached instanceof Map) {
             Map<?, ?> rawMap = (Map<?, ?>) cached;
@@ -201,6 +454,7 @@ public class CacheService {
                             entry.getValue() != null ? entry.getValue().getClass().getSimpleName() : "null");
                 }
             }
+            localSortArticleList.put(CacheConstants.SORT_ARTICLE_LIST_KEY, result, mark);
             return result;
         }
         return null;
@@ -243,6 +497,7 @@ public class CacheService {
      */
     public void evictSortArticleList() {
         redisUtil.del(CacheConstants.SORT_ARTICLE_LIST_KEY);
+        evictLocal(CacheConstants.SORT_ARTICLE_LIST_KEY);
     }
 
 
@@ -252,10 +507,18 @@ public class CacheService {
      */
     public void evictArticleRelatedCache(Integer articleId) {
         if (articleId != null) {
-            // 删除文章详情缓存
-            evictArticle(articleId);
-            // 删除文章列表缓存（模糊删除）
-            // 注意：这里简化处理，实际可以使用Redis的SCAN命令
+            // 文章详情缓存与分类文章列表缓存一次删除
+            deleteKeys(CacheConstants.buildArticleKey(articleId), CacheConstants.SORT_ARTICLE_LIST_KEY);
+        }
+    }
+
+    /**
+     * 删除文章列表相关缓存：用户文章列表（userId不为空时）与分类文章列表
+     */
+    public void evictArticleListCaches(Integer userId) {
+        if (userId != null) {
+            deleteKeys(CacheConstants.buildUserArticleListKey(userId), CacheConstants.SORT_ARTICLE_LIST_KEY);
+        } else {
             evictSortArticleList();
         }
     }
@@ -313,6 +576,8 @@ public class CacheService {
         if (webInfo != null) {
             // 使用PERMANENT_EXPIRE_TIME常量（值为0）表示永久缓存
             redisUtil.set(CacheConstants.WEB_INFO_KEY, webInfo, CacheConstants.PERMANENT_EXPIRE_TIME);
+            evictLocal(CacheConstants.WEB_INFO_KEY);
+            localWebInfo.put(CacheConstants.WEB_INFO_KEY, webInfo);
             log.info("缓存网站信息成功(永久缓存) - Key: {}, webName: {}, webTitle: {}",
                     CacheConstants.WEB_INFO_KEY, webInfo.getWebName(), webInfo.getWebTitle());
         } else {
@@ -324,10 +589,16 @@ public class CacheService {
      * 获取缓存的网站信息
      */
     public WebInfo getCachedWebInfo() {
+        WebInfo local = localWebInfo.get(CacheConstants.WEB_INFO_KEY);
+        if (local != null) {
+            return local;
+        }
         try {
+            long mark = localWebInfo.mark();
             Object cached = redisUtil.get(CacheConstants.WEB_INFO_KEY);
             if (cached instanceof WebInfo) {
                 WebInfo webInfo = (WebInfo) cached;
+                localWebInfo.put(CacheConstants.WEB_INFO_KEY, webInfo, mark);
                 return webInfo;
             } else {
                 log.info("缓存中未找到网站信息 - Key: {}, 缓存值类型: {}",
@@ -400,6 +671,7 @@ public class CacheService {
     public void evictWebInfo() {
         try {
             redisUtil.del(CacheConstants.WEB_INFO_KEY);
+            evictLocal(CacheConstants.WEB_INFO_KEY);
             log.info("删除网站信息缓存成功 - Key: {}", CacheConstants.WEB_INFO_KEY);
         } catch (Exception e) {
             log.error("删除网站信息缓存失败 - Key: {}", CacheConstants.WEB_INFO_KEY, e);
@@ -413,6 +685,8 @@ public class CacheService {
         if (configKey != null) {
             String key = CacheConstants.buildSysConfigKey(configKey);
             redisUtil.set(key, configValue, CacheConstants.PERMANENT_EXPIRE_TIME);
+            evictLocal(key);
+            localSysConfigs.put(key, configValue);
             log.info("缓存系统配置(永久): {}", configKey);
         }
     }
@@ -424,8 +698,14 @@ public class CacheService {
         if (configKey == null) return null;
 
         String key = CacheConstants.buildSysConfigKey(configKey);
+        String local = localSysConfigs.get(key);
+        if (local != null) {
+            return local;
+        }
+        long mark = localSysConfigs.mark();
         Object cached = redisUtil.get(key);
         if (cached instanceof String) {
+            localSysConfigs.put(key, (String) cached, mark);
             return (String) cached;
         }
         return null;
@@ -438,6 +718,7 @@ public class CacheService {
         if (configKey != null) {
             String key = CacheConstants.buildSysConfigKey(configKey);
             redisUtil.del(key);
+            evictLocal(key);
         }
     }
 
@@ -583,6 +864,7 @@ public class CacheService {
         defaultStats.put(CommonConst.IP_HISTORY_PROVINCE, new ArrayList<>());
         defaultStats.put(CommonConst.IP_HISTORY_IP, new ArrayList<>());
         defaultStats.put(CommonConst.IP_HISTORY_HOUR, new ArrayList<>());
+        defaultStats.put(CommonConst.IP_HISTORY_YESTERDAY_COUNT, 0L);
         defaultStats.put(CommonConst.IP_HISTORY_COUNT, 0L);
         defaultStats.put("_cache_refresh_needed", true);
 
@@ -706,13 +988,11 @@ public class CacheService {
      */
     public void evictAllUserTokens(Integer userId) {
         if (userId != null) {
-            // 清理管理员token
-            evictAdminToken(userId);
-            evictTokenInterval(userId, true);
-
-            // 清理用户token
-            evictUserToken(userId);
-            evictTokenInterval(userId, false);
+            // 管理员与用户的token及间隔检查一次删除
+            deleteKeys(CacheConstants.buildAdminTokenKey(userId),
+                    CacheConstants.buildAdminTokenIntervalKey(userId),
+                    CacheConstants.buildUserTokenKey(userId),
+                    CacheConstants.buildUserTokenIntervalKey(userId));
 
             // 清理用户会话
             // 注意：这里需要根据token清理会话，但我们没有反向映射
@@ -729,10 +1009,8 @@ public class CacheService {
     public boolean unblacklistIP(String ip) {
         if (ip == null) return false;
 
-        String blacklistKey = CacheConstants.buildIpBlacklistKey(ip);
-        String attackKey = CacheConstants.buildIpAttackKey(ip);
-
-        redisUtil.del(blacklistKey, attackKey);
+        ipBlacklistService.unblacklist(ip);
+        rateLimiterService.reset(CacheConstants.IP_ATTACK_LIMITER, ip);
         log.info("管理员手动解除IP拉黑: {}", ip);
         return true;
     }
@@ -811,6 +1089,24 @@ public class CacheService {
         }
     }
 
+    /**
+     * 清理一次登录的会话、token映射与间隔检查缓存，可同时清理用户信息缓存（一次删除）
+     */
+    public void evictLoginState(Integer userId, String token, boolean isAdmin, boolean includeUser) {
+        List<String> keys = new ArrayList<>(4);
+        if (token != null) {
+            keys.add(CacheConstants.buildSessionKey(token));
+        }
+        if (userId != null) {
+            keys.add(isAdmin ? CacheConstants.buildAdminTokenKey(userId) : CacheConstants.buildUserTokenKey(userId));
+            keys.add(isAdmin ? CacheConstants.buildAdminTokenIntervalKey(userId) : CacheConstants.buildUserTokenIntervalKey(userId));
+            if (includeUser) {
+                keys.add(CacheConstants.buildUserKey(userId));
+            }
+        }
+        deleteKeys(keys);
+    }
+
     /**
      * 删除用户Token映射
      */
@@ -886,6 +1182,8 @@ public class CacheService {
         if (source != null && type != null && count != null) {
             String key = CacheConstants.buildCommentListKey(source, type) + ":count";
             redisUtil.set(key, count, CacheConstants.LONG_EXPIRE_TIME);
+            evictLocal(key);
+            localCommentCounts.put(key, count);
         }
     }
 
@@ -896,13 +1194,66 @@ public class CacheService {
         if (source == null || type == null) return null;
 
         String key = CacheConstants.buildCommentListKey(source, type) + ":count";
+        Long local = localCommentCounts.get(key);
+        if (local != null) {
+            return local;
+        }
+        long mark = localCommentCounts.mark();
         Object cached = redisUtil.get(key);
         if (cached instanceof Number) {
-            return ((Number) cached).longValue();
+            long count = ((Number) cached).longValue();
+            localCommentCounts.put(key, count, mark);
+            return count;
         }
         return null;
     }
 
+    /**
+     * 批量获取缓存的评论数量（一次MGET）
+     *
+     * @param sources 评论来源ID集合
+     * @param type    评论类型
+     * @return 命中缓存的评论数量，键为来源ID
+     */
+    public Map<Integer, Long> getCachedCommentCounts(Collection<Integer> sources, String type) {
+        Map<Integer, Long> result = new HashMap<>();
+        if (sources == null || sources.isEmpty() || type == null) {
+            return result;
+        }
+
+        // 先读本地缓存，未命中的再一次MGET
+        List<Integer> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(sources)) {
+            if (id == null) {
+                continue;
+            }
+            String key = CacheConstants.buildCommentListKey(id, type) + ":count";
+            Long local = localCommentCounts.get(key);
+            if (local != null) {
+                result.put(id, local);
+            } else {
+                ids.add(id);
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        long mark = localCommentCounts.mark();
+        List<Object> values = redisUtil.mGet(keys);
+        for (int i = 0; i < values.size() && i < ids.size(); i++) {
+            Object cached = values.get(i);
+            if (cached instanceof Number) {
+                long count = ((Number) cached).longValue();
+                result.put(ids.get(i), count);
+                localCommentCounts.put(keys.get(i), count, mark);
+            }
+        }
+        return result;
+    }
+
     /**
      * 递增评论数量
      */
@@ -910,7 +1261,9 @@ public class CacheService {
         if (source == null || type == null) return 0;
 
         String key = CacheConstants.buildCommentListKey(source, type) + ":count";
-        return redisUtil.incr(key, 1);
+        long count = redisUtil.incr(key, 1);
+        evictLocal(key);
+        return count;
     }
 
     /**
@@ -920,7 +1273,9 @@ public class CacheService {
         if (source == null || type == null) return 0;
 
         String key = CacheConstants.buildCommentListKey(source, type) + ":count";
-        return redisUtil.decr(key, 1);
+        long count = redisUtil.decr(key, 1);
+        evictLocal(key);
+        return count;
     }
 
     /**
@@ -928,9 +1283,8 @@ public class CacheService {
      */
     public void evictCommentRelatedCache(Integer source, String type) {
         if (source != null && type != null) {
-            evictCommentList(source, type);
-            String countKey = CacheConstants.buildCommentListKey(source, type) + ":count";
-            redisUtil.del(countKey);
+            String listKey = CacheConstants.buildCommentListKey(source, type);
+            deleteKeys(listKey, listKey + ":count");
         }
     }
 
@@ -940,7 +1294,9 @@ public class CacheService {
      * 通用缓存设置方法（带过期时间）
      */
     public boolean set(String key, Object value, long expireTime) {
-        return redisUtil.set(key, value, (int) expireTime);
+        boolean result = redisUtil.set(key, value, (int) expireTime);
+        evictLocal(key);
+        return result;
     }
 
     /**
@@ -948,6 +1304,7 @@ public class CacheService {
      */
     public void set(String key, Object value) {
         redisUtil.set(key, value);
+        evictLocal(key);
     }
 
     /**
@@ -972,6 +1329,53 @@ public class CacheService {
      */
     public void deleteKey(String key) {
         redisUtil.del(key);
+        evictLocal(key);
+    }
+
+    /**
+     * 批量删除缓存（管道执行），同时清除本地副本
+     */
+    public void deleteKeys(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        redisUtil.del(keys);
+        keys.forEach(this::evictLocal);
+    }
+
+    /**
+     * 批量删除缓存（管道执行），同时清除本地副本
+     */
+    public void deleteKeys(String... keys) {
+        if (keys != null) {
+            deleteKeys(java.util.Arrays.asList(keys));
+        }
+    }
+
+    /**
+     * 批量获取缓存（MGET，一次往返）
+     * @return 与键列表一一对应的值列表，不存在的键对应null
+     */
+    public List<Object> mGet(List<String> keys) {
+        return redisUtil.mGet(keys);
+    }
+
+    /**
+     * 批量设置缓存（管道执行），所有键使用相同的过期时间
+     */
+    public boolean mSet(Map<String, ?> values, long expireTime) {
+        boolean result = redisUtil.mSet(values, expireTime);
+        values.keySet().forEach(this::evictLocal);
+        return result;
+    }
+
+    /**
+     * 批量设置缓存（管道执行），每个键单独指定过期时间
+     */
+    public boolean mSet(Map<String, ?> values, Map<String, Long> expireTimes) {
+        boolean result = redisUtil.mSet(values, expireTimes);
+        values.keySet().forEach(this::evictLocal);
+        return result;
     }
 
     /**
@@ -1022,7 +1426,10 @@ public class CacheService {
             
             // 批量删除匹配的键
             if (!keysToDelete.isEmpty()) {
-                redisTemplate.delete(keysToDelete);
+                redisUtil.del(keysToDelete);
+                if (keysToDelete.stream().anyMatch(key -> localCacheOf(key) != null)) {
+                    evictLocalCaches();
+                }
                 log.info("成功删除{}个匹配模式的缓存键: {}", keysToDelete.size(), pattern);
             } else {
                 log.info("没有找到匹配模式的缓存键: {}", pattern);
@@ -1036,305 +1443,44 @@ public class CacheService {
     // ================================ 访问统计Redis缓存方法 ================================
     
     /**
-     * 记录访问信息到Redis（不立即写数据库）
-     * @param ip IP地址
-     * @param userId 用户ID（可为null）
-     * @param nation 国家
-     * @param province 省份
-     * @param city 城市
-     */
-    public void recordVisitToRedis(String ip, Integer userId, String nation, String province, String city) {
-        try {
-            String today = java.time.LocalDate.now().toString();
-            
-            // 将访问记录添加到当日记录集合中（每次访问都记录）
-            String recordsKey = CacheConstants.buildDailyVisitRecordsKey(today);
-            
-            // 构建访问记录JSON
-            java.util.Map<String, Object> visitRecord = new java.util.HashMap<>();
-            visitRecord.put("ip", ip);
-            visitRecord.put("userId", userId);
-            visitRecord.put("nation", nation);
-            visitRecord.put("province", province);
-            visitRecord.put("city", city);
-            // 使用数据库兼容的时间格式 yyyy-MM-dd HH:mm:ss
-            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            visitRecord.put("createTime", java.time.LocalDateTime.now().format(formatter));
-            // 添加同步标记，默认未同步
-            visitRecord.put("synced", false);
-            
-            // 将记录序列化为JSON字符串并添加到Redis List中
-            String recordJson = com.alibaba.fastjson.JSON.toJSONString(visitRecord);
-            redisUtil.lSet(recordsKey, recordJson);
-            
-            // 设置记录的过期时间为7天
-            redisUtil.expire(recordsKey, 7 * 24 * 3600);
-            
-            // log.info("访问记录已保存到Redis: ip={}, userId={}, province={}", ip, userId, province);
-            
-        } catch (Exception e) {
-            log.error("记录访问信息到Redis失败: ip={}, userId={}", ip, userId, e);
-        }
-    }
-    
-    /**
-     * 获取指定日期的访问记录（用于同步到数据库）
+     * 获取指定日期的访问记录（从访问日志读取，包含尚未同步到数据库的记录）
      * @param date 日期（格式：yyyy-MM-dd）
      * @return 访问记录列表
      */
-    @SuppressWarnings("unchecked")
     public java.util.List<java.util.Map<String, Object>> getDailyVisitRecords(String date) {
+        java.util.List<java.util.Map<String, Object>> records = new java.util.ArrayList<>();
         try {
-            String recordsKey = CacheConstants.buildDailyVisitRecordsKey(date);
-            java.util.List<Object> recordJsonList = redisUtil.lGet(recordsKey, 0, -1);
-            
-            java.util.List<java.util.Map<String, Object>> records = new java.util.ArrayList<>();
-            
-            if (recordJsonList != null) {
-                for (Object recordJson : recordJsonList) {
-                    try {
-                        java.util.Map<String, Object> record = com.alibaba.fastjson.JSON.parseObject(recordJson.toString(), java.util.Map.class);
-                        records.add(record);
-                    } catch (Exception e) {
-                        log.warn("解析访问记录JSON失败: {}", recordJson, e);
-                    }
-                }
-            }
-            
+            LocalDate day = LocalDate.parse(date);
+            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            visitLogService.forEach(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), record -> {
+                java.util.Map<String, Object> visitRecord = new java.util.HashMap<>();
+                visitRecord.put("ip", record.getIp());
+                visitRecord.put("userId", record.getUserId());
+                visitRecord.put("nation", record.getNation());
+                visitRecord.put("province", record.getProvince());
+                visitRecord.put("city", record.getCity());
+                visitRecord.put("createTime", record.getCreateTime().format(formatter));
+                visitRecord.put("timestamp", record.getTimestamp());
+                records.add(visitRecord);
+            });
             log.info("获取{}的访问记录: {} 条", date, records.size());
-            return records;
-            
         } catch (Exception e) {
             log.error("获取每日访问记录失败: date={}", date, e);
-            return new java.util.ArrayList<>();
-        }
-    }
-    
-    /**
-     * 清空指定日期的访问记录缓存（同步到数据库后调用）
-     * @param date 日期（格式：yyyy-MM-dd）
-     */
-    public void clearDailyVisitRecords(String date) {
-        try {
-            String recordsKey = CacheConstants.buildDailyVisitRecordsKey(date);
-            redisUtil.del(recordsKey);
-            log.info("已清空{}的访问记录缓存", date);
-        } catch (Exception e) {
-            log.error("清空每日访问记录缓存失败: date={}", date, e);
         }
+        return records;
     }
 
-    /**
-     * 获取指定日期的未同步访问记录
-     * @param date 日期（格式：yyyy-MM-dd）
-     * @return 未同步的访问记录列表
-     */
-    @SuppressWarnings("unchecked")
-    public java.util.List<java.util.Map<String, Object>> getUnsyncedDailyVisitRecords(String date) {
-        try {
-            String recordsKey = CacheConstants.buildDailyVisitRecordsKey(date);
-            java.util.List<Object> recordJsonList = redisUtil.lGet(recordsKey, 0, -1);
-            
-            java.util.List<java.util.Map<String, Object>> unsyncedRecords = new java.util.ArrayList<>();
-            
-            if (recordJsonList != null) {
-                for (Object recordJson : recordJsonList) {
-                    try {
-                        java.util.Map<String, Object> record = com.alibaba.fastjson.JSON.parseObject(recordJson.toString(), java.util.Map.class);
-                        // 只返回未同步的记录
-                        Boolean synced = (Boolean) record.get("synced");
-                        if (synced == null || !synced) {
-                            unsyncedRecords.add(record);
-                        }
-                    } catch (Exception e) {
-                        log.warn("解析访问记录JSON失败: {}", recordJson, e);
-                    }
-                }
-            }
-            
-            log.info("获取{}的未同步访问记录: {} 条", date, unsyncedRecords.size());
-            return unsyncedRecords;
-            
-        } catch (Exception e) {
-            log.error("获取未同步访问记录失败: date={}", date, e);
-            return new java.util.ArrayList<>();
-        }
-    }
 
     /**
-     * 标记指定日期的访问记录为已同步
-     * @param date 日期（格式：yyyy-MM-dd）
-     * @param syncedRecords 已同步的记录列表
-     */
-    @SuppressWarnings("unchecked")
-    public void markVisitRecordsAsSynced(String date, java.util.List<java.util.Map<String, Object>> syncedRecords) {
-        try {
-            String recordsKey = CacheConstants.buildDailyVisitRecordsKey(date);
-            java.util.List<Object> recordJsonList = redisUtil.lGet(recordsKey, 0, -1);
-            
-            if (recordJsonList == null || recordJsonList.isEmpty()) {
-                return;
-            }
-
-            // 创建已同步记录的标识集合（用于快速查找）
-            java.util.Set<String> syncedRecordIds = new java.util.HashSet<>();
-            for (java.util.Map<String, Object> syncedRecord : syncedRecords) {
-                // 使用ip+createTime作为唯一标识
-                String recordId = syncedRecord.get("ip") + "_" + syncedRecord.get("createTime");
-                syncedRecordIds.add(recordId);
-            }
-
-            // 更新Redis中的记录，标记已同步的记录
-            java.util.List<String> updatedRecords = new java.util.ArrayList<>();
-            for (Object recordJson : recordJsonList) {
-                try {
-                    java.util.Map<String, Object> record = com.alibaba.fastjson.JSON.parseObject(recordJson.toString(), java.util.Map.class);
-                    String recordId = record.get("ip") + "_" + record.get("createTime");
-                    
-                    // 如果这条记录已同步，则标记为已同步
-                    if (syncedRecordIds.contains(recordId)) {
-                        record.put("synced", true);
-                    }
-                    
-                    updatedRecords.add(com.alibaba.fastjson.JSON.toJSONString(record));
-                } catch (Exception e) {
-                    log.warn("更新访问记录同步标记失败: {}", recordJson, e);
-                    // 保留原记录
-                    updatedRecords.add(recordJson.toString());
-                }
-            }
-
-            // 清空原记录并重新插入更新后的记录
-            redisUtil.del(recordsKey);
-            for (String updatedRecord : updatedRecords) {
-                redisUtil.lSet(recordsKey, updatedRecord);
-            }
-
-            // 重新设置过期时间
-            redisUtil.expire(recordsKey, 7 * 24 * 3600);
-            
-            log.info("已标记{}的{}条访问记录为已同步", date, syncedRecords.size());
-            
-        } catch (Exception e) {
-            log.error("标记访问记录为已同步失败: date={}", date, e);
-        }
-    }
-
-
-    /**
-     * 刷新地理位置统计缓存 (混合Redis+数据库)
+     * 刷新地理位置统计缓存（读取访问统计汇总表）
      */
     public void refreshLocationStatisticsCache() {
         try {
-            Map<String, Object> statistics = new HashMap<>();
-            
-            // 1. 获取数据库的历史统计（省份、IP统计）
-            try {
-                List<Map<String, Object>> provinceStats = historyInfoMapper.getHistoryByProvince();
-                List<Map<String, Object>> ipStats = historyInfoMapper.getHistoryByIp();
-                
-                statistics.put(CommonConst.IP_HISTORY_PROVINCE, provinceStats != null ? provinceStats : new ArrayList<>());
-                statistics.put(CommonConst.IP_HISTORY_IP, ipStats != null ? ipStats : new ArrayList<>());
-                
-                log.info("成功获取数据库统计: 省份{}, IP{}", 
-                    provinceStats != null ? provinceStats.size() : 0, 
-                    ipStats != null ? ipStats.size() : 0);
-            } catch (Exception e) {
-                log.error("获取数据库统计失败", e);
-                statistics.put(CommonConst.IP_HISTORY_PROVINCE, new ArrayList<>());
-                statistics.put(CommonConst.IP_HISTORY_IP, new ArrayList<>());
-            }
-            
-            // 2. 获取昨日访问统计（按日历天计算）
-            try {
-                List<Map<String, Object>> yesterdayStats = getYesterdayStatisticsFromDatabase();
-                statistics.put(CommonConst.IP_HISTORY_HOUR, yesterdayStats);
-                log.info("成功获取昨日访问统计: {}", yesterdayStats.size());
-            } catch (Exception e) {
-                log.error("获取昨日访问统计失败", e);
-                statistics.put(CommonConst.IP_HISTORY_HOUR, new ArrayList<>());
-            }
-            
-            // 3. 计算总访问量（仅统计数据库数据）
-            try {
-                // 只获取数据库总数，不再统计Redis实时数据
-                Long dbCount = historyInfoMapper.getHistoryCount();
-                long totalCount = dbCount != null ? dbCount : 0;
-                
-                statistics.put(CommonConst.IP_HISTORY_COUNT, totalCount);
-                log.info("成功计算总访问量: 数据库总计={}", totalCount);
-            } catch (Exception e) {
-                log.error("计算总访问量失败", e);
-                statistics.put(CommonConst.IP_HISTORY_COUNT, 0L);
-            }
-            
-            // 缓存统计结果
+            Map<String, Object> statistics = visitRollupService.buildHistoryStatistics();
             cacheIpHistoryStatistics(statistics);
-            log.info("成功刷新地理位置统计缓存 (仅数据库统计)");
-            
+            log.info("成功刷新地理位置统计缓存，总访问量: {}", statistics.get(CommonConst.IP_HISTORY_COUNT));
         } catch (Exception e) {
             log.error("刷新地理位置统计缓存失败", e);
-            
-            // 完全失败时的fallback
-            try {
-                log.warn("混合统计失败，完全fallback到数据库查询");
-                Map<String, Object> fallbackStats = generateLocationStatisticsFromDatabase();
-                cacheIpHistoryStatistics(fallbackStats);
-                log.info("成功使用数据库fallback刷新统计缓存");
-            } catch (Exception dbException) {
-                log.error("数据库fallback也失败", dbException);
-            }
-        }
-    }
-
-    /**
-     * Fallback: 基于数据库生成地理位置统计 (保留作为备用方案)
-     */
-    private Map<String, Object> generateLocationStatisticsFromDatabase() {
-        Map<String, Object> statistics = new HashMap<>();
-        
-        try {
-            statistics.put(CommonConst.IP_HISTORY_PROVINCE, historyInfoMapper.getHistoryByProvince());
-        } catch (Exception e) {
-            log.error("数据库省份统计查询失败", e);
-            statistics.put(CommonConst.IP_HISTORY_PROVINCE, new ArrayList<>());
-        }
-        
-        try {
-            statistics.put(CommonConst.IP_HISTORY_IP, historyInfoMapper.getHistoryByIp());
-        } catch (Exception e) {
-            log.error("数据库IP统计查询失败", e);
-            statistics.put(CommonConst.IP_HISTORY_IP, new ArrayList<>());
-        }
-        
-        try {
-            statistics.put(CommonConst.IP_HISTORY_HOUR, historyInfoMapper.getHistoryByYesterday());
-        } catch (Exception e) {
-            log.error("数据库昨日访问统计查询失败", e);
-            statistics.put(CommonConst.IP_HISTORY_HOUR, new ArrayList<>());
-        }
-        
-        try {
-            Long totalCount = historyInfoMapper.getHistoryCount();
-            statistics.put(CommonConst.IP_HISTORY_COUNT, totalCount != null ? totalCount : 0L);
-        } catch (Exception e) {
-            log.error("数据库总访问量查询失败", e);
-            statistics.put(CommonConst.IP_HISTORY_COUNT, 0L);
-        }
-        
-        return statistics;
-    }
-
-    /**
-     * 从数据库获取昨日访问统计（按日历天计算）
-     */
-    private List<Map<String, Object>> getYesterdayStatisticsFromDatabase() {
-        try {
-            List<Map<String, Object>> yesterdayRecords = historyInfoMapper.getHistoryByYesterday();
-            return yesterdayRecords != null ? yesterdayRecords : new ArrayList<>();
-        } catch (Exception e) {
-            log.error("获取昨日访问统计失败", e);
-            return new ArrayList<>();
         }
     }
 
@@ -1389,95 +1535,11 @@ public class CacheService {
     }
     
     /**
-     * 获取今日访问数据的实时统计（从Redis）
+     * 获取今日访问数据的实时统计（Redis HyperLogLog计数，与今日访问量无关）
      * @return 今日访问统计数据
      */
     public Map<String, Object> getTodayVisitStatisticsFromRedis() {
-        Map<String, Object> result = new HashMap<>();
-        
-        try {
-            String today = java.time.LocalDate.now().toString();
-            List<Map<String, Object>> todayRecords = getDailyVisitRecords(today);
-            
-            if (todayRecords.isEmpty()) {
-                log.info("今日暂无访问记录");
-                result.put("ip_count_today", 0L);
-                result.put("username_today", new ArrayList<>());
-                result.put("province_today", new ArrayList<>());
-                return result;
-            }
-            
-            // 1. 计算今日访问IP数量（去重）
-            long ipCountToday = todayRecords.stream()
-                .map(record -> (String) record.get("ip"))
-                .filter(java.util.Objects::nonNull)
-                .distinct()
-                .count();
-            result.put("ip_count_today", ipCountToday);
-            
-            // 2. 获取今日访问用户列表（统计每个用户的访问次数）
-            Map<String, Long> userVisitCount = todayRecords.stream()
-                .filter(java.util.Objects::nonNull)
-                .map(record -> {
-                    try {
-                        Object userIdObj = record.get("userId");
-                        if (userIdObj != null) {
-                            return Integer.valueOf(userIdObj.toString()).toString();
-                        }
-                    } catch (Exception e) {
-                        log.warn("处理今日用户信息时出错: {}", e.getMessage());
-                    }
-                    return null;
-                })
-                .filter(java.util.Objects::nonNull)
-                .collect(java.util.stream.Collectors.groupingBy(
-                    userId -> userId, 
-                    java.util.stream.Collectors.counting()
-                ));
-            
-            List<Map<String, Object>> usernameToday = userVisitCount.entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> userInfo = new HashMap<>();
-                    userInfo.put("userId", entry.getKey());
-                    userInfo.put("visitCount", entry.getValue());
-                    return userInfo;
-                })
-                .sorted((o1, o2) -> Long.valueOf(o2.get("visitCount").toString())
-                    .compareTo(Long.valueOf(o1.get("visitCount").toString()))) // 按访问次数降序排列
-                .collect(java.util.stream.Collectors.toList());
-            result.put("username_today", usernameToday);
-            
-            // 3. 处理今日省份统计
-            List<Map<String, Object>> provinceToday = todayRecords.stream()
-                .map(record -> (String) record.get("province"))
-                .filter(java.util.Objects::nonNull)
-                .collect(java.util.stream.Collectors.groupingBy(
-                    province -> province, 
-                    java.util.stream.Collectors.counting()
-                ))
-                .entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("province", entry.getKey());
-                    map.put("num", entry.getValue());
-                    return map;
-                })
-                .sorted((o1, o2) -> Long.valueOf(o2.get("num").toString())
-                    .compareTo(Long.valueOf(o1.get("num").toString())))
-                .collect(java.util.stream.Collectors.toList());
-            result.put("province_today", provinceToday);
-            
-            log.info("获取今日访问统计: IP数量={}, 用户数量={}, 省份数量={}", 
-                ipCountToday, usernameToday.size(), provinceToday.size());
-            
-        } catch (Exception e) {
-            log.error("获取今日访问统计失败", e);
-            result.put("ip_count_today", 0L);
-            result.put("username_today", new ArrayList<>());
-            result.put("province_today", new ArrayList<>());
-        }
-        
-        return result;
+        return visitCounterService.getTodayStatistics();
     }
 
     // ==================== 用户界面状态缓存方法 ====================
@@ -0,0 +1,265 @@
+package com.ld.poetry.service;
+
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.dao.ArticleMapper;
+import com.ld.poetry.entity.Article;
+import com.ld.poetry.enums.CommentTypeEnum;
+import com.ld.poetry.event.ArticleSavedEvent;
+import com.ld.poetry.utils.ArticleHotScore;
+import com.ld.poetry.utils.CommonQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门文章排行榜服务
+ * <p>
+ * 使用Redis有序集合维护可见文章的热度分数，在浏览、评论、推荐状态变更时增量更新单篇文章，
+ * 定时任务只重算仍处于时间衰减窗口内的文章。读取排行时只取前K个文章ID，无需全表计算。
+ * Redis不可用时退化为基于轻量字段的进程内计算。
+ */
+@Slf4j
+@Service
+public class HotArticleRankService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private CommonQuery commonQuery;
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
+
+    /**
+     * 文章被浏览后更新热度（使用已加载的文章数据，不额外查询文章表）
+     *
+     * @param article   文章
+     * @param viewCount 最新浏览量（含尚未写回的增量）
+     */
+    public void onArticleViewed(Article article, int viewCount) {
+        if (article == null || article.getId() == null || !Boolean.TRUE.equals(article.getViewStatus())) {
+            return;
+        }
+        try {
+            int commentCount = Boolean.TRUE.equals(article.getCommentStatus())
+                    ? commonQuery.getCommentCount(article.getId(), CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode()) : 0;
+            double score = ArticleHotScore.calculate(viewCount, commentCount, article.getCreateTime(),
+                    article.getRecommendStatus(), LocalDateTime.now());
+            stringRedisTemplate.opsForZSet().add(CacheConstants.HOT_ARTICLE_RANK_KEY, article.getId().toString(), score);
+        } catch (Exception e) {
+            log.warn("更新文章热度失败，文章ID: {}, 错误: {}", article.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 重新计算单篇文章热度（评论变更、推荐/可见状态变更时调用）
+     *
+     * @param articleId 文章ID
+     */
+    public void refreshArticle(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        try {
+            Article article = lightQuery().eq(Article::getId, articleId).one();
+            if (article == null || !Boolean.TRUE.equals(article.getViewStatus())) {
+                removeArticle(articleId);
+                return;
+            }
+            int commentCount = Boolean.TRUE.equals(article.getCommentStatus())
+                    ? commonQuery.getCommentCount(articleId, CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode()) : 0;
+            double score = ArticleHotScore.calculate(viewCountOf(article), commentCount, article.getCreateTime(),
+                    article.getRecommendStatus(), LocalDateTime.now());
+            stringRedisTemplate.opsForZSet().add(CacheConstants.HOT_ARTICLE_RANK_KEY, articleId.toString(), score);
+        } catch (Exception e) {
+            log.warn("刷新文章热度失败，文章ID: {}, 错误: {}", articleId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从排行榜移除文章
+     *
+     * @param articleId 文章ID
+     */
+    public void removeArticle(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(CacheConstants.HOT_ARTICLE_RANK_KEY, articleId.toString());
+        } catch (Exception e) {
+            log.warn("从热门排行移除文章失败，文章ID: {}, 错误: {}", articleId, e.getMessage());
+        }
+    }
+
+    /**
+     * 文章保存、更新、删除后同步排行榜
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleArticleSavedEvent(ArticleSavedEvent event) {
+        if ("DELETE".equals(event.getOperationType())) {
+            removeArticle(event.getArticleId());
+        } else {
+            refreshArticle(event.getArticleId());
+        }
+    }
+
+    /**
+     * 获取热度最高的前K篇文章ID（按热度降序）
+     *
+     * @param k 数量
+     * @return 文章ID列表
+     */
+    public List<Integer> getTopArticleIds(int k) {
+        try {
+            if (needsRebuild()) {
+                rebuild();
+            }
+            Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(CacheConstants.HOT_ARTICLE_RANK_KEY, 0, k - 1);
+            List<Integer> ids = new ArrayList<>();
+            if (members != null) {
+                for (String member : members) {
+                    ids.add(Integer.valueOf(member));
+                }
+            }
+            return ids;
+        } catch (Exception e) {
+            log.warn("读取热门排行失败，改为本地计算: {}", e.getMessage());
+            return computeTopArticleIds(k);
+        }
+    }
+
+    /**
+     * 全量重建排行榜：只查询计算所需的轻量字段，写入临时键后原子替换
+     */
+    public synchronized void rebuild() {
+        Map<Integer, Double> scores = computeScores(null);
+        String tempKey = CacheConstants.HOT_ARTICLE_RANK_KEY + ":building";
+        stringRedisTemplate.delete(tempKey);
+        if (scores.isEmpty()) {
+            // 有序集合不能为空，写入短期标记，避免每次读取都重建
+            stringRedisTemplate.delete(CacheConstants.HOT_ARTICLE_RANK_KEY);
+            stringRedisTemplate.opsForValue().set(CacheConstants.HOT_ARTICLE_RANK_EMPTY_KEY, "1",
+                    CacheConstants.HOT_ARTICLE_RANK_EMPTY_EXPIRE_TIME, TimeUnit.SECONDS);
+            return;
+        }
+        stringRedisTemplate.opsForZSet().add(tempKey, toTuples(scores));
+        stringRedisTemplate.rename(tempKey, CacheConstants.HOT_ARTICLE_RANK_KEY);
+        stringRedisTemplate.delete(CacheConstants.HOT_ARTICLE_RANK_EMPTY_KEY);
+        log.info("热门文章排行榜已重建，文章数: {}", scores.size());
+    }
+
+    /**
+     * 应用时间衰减：只重算发布时间仍在衰减窗口内的文章，窗口外文章的时间分数为常量
+     */
+    public void applyTimeDecay() {
+        try {
+            if (needsRebuild()) {
+                rebuild();
+                return;
+            }
+            LocalDateTime since = LocalDateTime.now().minusDays(ArticleHotScore.DECAY_WINDOW_DAYS + 1);
+            Map<Integer, Double> scores = computeScores(since);
+            if (!scores.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(CacheConstants.HOT_ARTICLE_RANK_KEY, toTuples(scores));
+            }
+            log.info("热门文章时间衰减已更新，重算文章数: {}", scores.size());
+        } catch (Exception e) {
+            log.error("热门文章时间衰减更新失败", e);
+        }
+    }
+
+    /**
+     * 排行榜不存在且没有“排行为空”标记时需要重建
+     */
+    private boolean needsRebuild() {
+        return !Boolean.TRUE.equals(stringRedisTemplate.hasKey(CacheConstants.HOT_ARTICLE_RANK_KEY))
+                && !Boolean.TRUE.equals(stringRedisTemplate.hasKey(CacheConstants.HOT_ARTICLE_RANK_EMPTY_KEY));
+    }
+
+    /**
+     * 本地计算前K篇文章ID（Redis不可用时的降级方案），使用有界小顶堆
+     */
+    private List<Integer> computeTopArticleIds(int k) {
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> entry : computeScores(null).entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Integer> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /**
+     * 计算可见文章热度分数
+     *
+     * @param since 只计算该时间之后发布的文章，为null时计算全部
+     */
+    private Map<Integer, Double> computeScores(LocalDateTime since) {
+        LambdaQueryChainWrapper<Article> query = lightQuery().eq(Article::getViewStatus, true);
+        if (since != null) {
+            query.ge(Article::getCreateTime, since);
+        }
+        List<Article> articles = query.list();
+        Map<Integer, Double> scores = new HashMap<>();
+        if (CollectionUtils.isEmpty(articles)) {
+            return scores;
+        }
+
+        List<Integer> commentSources = new ArrayList<>();
+        for (Article article : articles) {
+            if (Boolean.TRUE.equals(article.getCommentStatus())) {
+                commentSources.add(article.getId());
+            }
+        }
+        Map<Integer, Integer> commentCounts = commentSources.isEmpty() ? Collections.emptyMap()
+                : commonQuery.getCommentCounts(commentSources, CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Article article : articles) {
+            int commentCount = Boolean.TRUE.equals(article.getCommentStatus())
+                    ? commentCounts.getOrDefault(article.getId(), 0) : 0;
+            scores.put(article.getId(), ArticleHotScore.calculate(viewCountOf(article), commentCount,
+                    article.getCreateTime(), article.getRecommendStatus(), now));
+        }
+        return scores;
+    }
+
+    private LambdaQueryChainWrapper<Article> lightQuery() {
+        return new LambdaQueryChainWrapper<>(articleMapper)
+                .select(Article::getId, Article::getViewCount, Article::getCommentStatus,
+                        Article::getRecommendStatus, Article::getViewStatus, Article::getCreateTime);
+    }
+
+    private int viewCountOf(Article article) {
+        // 合并尚未写回数据库的浏览量增量
+        return articleViewCounter.merge(article.getId(), article.getViewCount());
+    }
+
+    private Set<ZSetOperations.TypedTuple<String>> toTuples(Map<Integer, Double> scores) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        scores.forEach((id, score) -> tuples.add(new DefaultTypedTuple<>(id.toString(), score)));
+        return tuples;
+    }
+}
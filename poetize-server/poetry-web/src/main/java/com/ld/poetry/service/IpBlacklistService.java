@@ -0,0 +1,249 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.utils.RedisUtil;
+import com.ld.poetry.utils.cache.LocalCache;
+import com.ld.poetry.utils.security.CountingBloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IP黑名单（Redis为准，本地计数布隆过滤器前置）
+ * <p>
+ * 每个请求都要检查来源IP是否被拉黑。本地维护已拉黑IP的计数布隆过滤器：
+ * 过滤器判断不存在时直接放行，正常访问不再访问Redis；判断可能存在时才查询Redis，
+ * Redis中不存在（误判或已过期）的结果在本地短时缓存。
+ * <p>
+ * 拉黑和解除拉黑通过发布/订阅通知其他实例同步过滤器；启动时及之后定期按Redis中的黑名单键重建，
+ * 清除已过期的记录并修复丢失的通知。
+ */
+@Slf4j
+@Service
+public class IpBlacklistService {
+
+    /**
+     * 布隆过滤器容量（预期黑名单IP数）与误判率
+     */
+    private static final int EXPECTED_ENTRIES = 20_000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static final String OP_ADD = "add";
+
+    private static final String OP_REMOVE = "remove";
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // 本实例标识，用于忽略自己发布的同步通知
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // 过滤器与已添加的IP（IP -> 过期时间毫秒）一起替换；计数布隆过滤器只能删除添加过的元素
+    private volatile Snapshot snapshot = new Snapshot();
+
+    private final Object mutationLock = new Object();
+
+    private final LocalCache<Boolean> negativeCache = new LocalCache<>("ipBlacklistNegative",
+            CacheConstants.LOCAL_BLACKLIST_NEGATIVE_MAX_SIZE, CacheConstants.LOCAL_BLACKLIST_NEGATIVE_TTL, null);
+
+    private final LongAdder filterPassCount = new LongAdder();
+
+    private final LongAdder redisCheckCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this::onBlacklistSync,
+                new ChannelTopic(CacheConstants.IP_BLACKLIST_SYNC_CHANNEL));
+        reload();
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            FunctionCounter.builder("security.blacklist.checks", filterPassCount, LongAdder::sum)
+                    .tag("result", "filtered").register(registry);
+            FunctionCounter.builder("security.blacklist.checks", negativeCache, c -> c.getHitCount())
+                    .tag("result", "negative-cached").register(registry);
+            FunctionCounter.builder("security.blacklist.checks", redisCheckCount, LongAdder::sum)
+                    .tag("result", "redis").register(registry);
+            Gauge.builder("security.blacklist.size", this, s -> s.snapshot.entries.size()).register(registry);
+        }
+    }
+
+    /**
+     * IP是否被拉黑
+     */
+    public boolean isBlacklisted(String ip) {
+        if (!snapshot.filter.mightContain(ip)) {
+            filterPassCount.increment();
+            return false;
+        }
+        if (negativeCache.get(ip) != null) {
+            return false;
+        }
+        long mark = negativeCache.mark();
+        redisCheckCount.increment();
+        if (redisUtil.hasKey(CacheConstants.buildIpBlacklistKey(ip))) {
+            return true;
+        }
+        negativeCache.put(ip, Boolean.FALSE, mark);
+        return false;
+    }
+
+    /**
+     * 拉黑IP
+     *
+     * @param seconds 拉黑时长（秒）
+     */
+    public void blacklist(String ip, long seconds) {
+        redisUtil.set(CacheConstants.buildIpBlacklistKey(ip), LocalDateTime.now().toString(), seconds);
+        long expireAt = System.currentTimeMillis() + seconds * 1000;
+        addLocal(ip, expireAt);
+        publish(OP_ADD, expireAt, ip);
+    }
+
+    /**
+     * 解除IP拉黑
+     */
+    public void unblacklist(String ip) {
+        redisUtil.del(CacheConstants.buildIpBlacklistKey(ip));
+        removeLocal(ip);
+        publish(OP_REMOVE, 0, ip);
+    }
+
+    /**
+     * 按Redis中的黑名单键重建本地过滤器
+     */
+    @Scheduled(initialDelay = 300_000, fixedDelay = 300_000)
+    public void reload() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> loaded = new HashMap<>();
+        try {
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(CacheConstants.IP_BLACKLIST_PREFIX + "*")
+                    .count(500)
+                    .build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    Long ttl = stringRedisTemplate.getExpire(key, TimeUnit.SECONDS);
+                    if (ttl == null || ttl == -2) {
+                        continue;
+                    }
+                    // 未设置过期时间的键按默认拉黑时长处理，下次重建时会再次确认
+                    long seconds = ttl > 0 ? ttl : CacheConstants.IP_BLACKLIST_EXPIRE_TIME;
+                    loaded.put(key.substring(CacheConstants.IP_BLACKLIST_PREFIX.length()), now + seconds * 1000);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("加载IP黑名单失败，保留当前本地过滤器: {}", e.getMessage());
+            return;
+        }
+
+        synchronized (mutationLock) {
+            Snapshot rebuilt = new Snapshot();
+            loaded.forEach(rebuilt::add);
+            // 扫描期间本实例新增的拉黑记录
+            snapshot.entries.forEach((ip, expireAt) -> {
+                if (expireAt > now && !rebuilt.entries.containsKey(ip)) {
+                    rebuilt.add(ip, expireAt);
+                }
+            });
+            int previous = snapshot.entries.size();
+            snapshot = rebuilt;
+            if (previous != rebuilt.entries.size()) {
+                log.info("IP黑名单本地过滤器已重建，当前拉黑IP数: {}", rebuilt.entries.size());
+            }
+        }
+    }
+
+    private void addLocal(String ip, long expireAt) {
+        synchronized (mutationLock) {
+            snapshot.add(ip, expireAt);
+        }
+        negativeCache.invalidate(ip);
+    }
+
+    private void removeLocal(String ip) {
+        synchronized (mutationLock) {
+            snapshot.remove(ip);
+        }
+    }
+
+    private void publish(String op, long expireAt, String ip) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.IP_BLACKLIST_SYNC_CHANNEL,
+                    instanceId + "|" + op + "|" + expireAt + "|" + ip);
+        } catch (Exception e) {
+            // 通知失败时其他实例在下次重建时同步
+            log.warn("发布IP黑名单同步通知失败 - IP: {}, 错误: {}", ip, e.getMessage());
+        }
+    }
+
+    private void onBlacklistSync(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4 || instanceId.equals(parts[0])) {
+            return;
+        }
+        if (OP_ADD.equals(parts[1])) {
+            try {
+                addLocal(parts[3], Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                log.warn("忽略格式错误的IP黑名单同步通知: {}", parts[2]);
+            }
+        } else if (OP_REMOVE.equals(parts[1])) {
+            removeLocal(parts[3]);
+        }
+    }
+
+    /**
+     * 布隆过滤器及已添加的IP，只在持有 mutationLock 时修改
+     */
+    private static final class Snapshot {
+
+        private final CountingBloomFilter filter = new CountingBloomFilter(EXPECTED_ENTRIES, FALSE_POSITIVE_RATE);
+
+        private final ConcurrentHashMap<String, Long> entries = new ConcurrentHashMap<>();
+
+        private void add(String ip, long expireAt) {
+            if (entries.put(ip, expireAt) == null) {
+                filter.add(ip);
+            }
+        }
+
+        private void remove(String ip) {
+            if (entries.remove(ip) != null) {
+                filter.remove(ip);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.utils.cache.LocalCache;
+import com.ld.poetry.utils.ip.Region;
+import com.ld.poetry.utils.ip.XdbSearcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * IP离线地理位置查询（全局唯一的 ip2region 查询器）
+ * <p>
+ * xdb 文件通过只读内存映射加载，整个进程只映射一次，访问记录、IP解析提供者等共用；
+ * 查询结果解析为不可变的 {@link Region}，热点IP结果放在有上限的本地缓存中。
+ * 配置了 poetize.ip2region.path 时直接映射该文件，否则映射 classpath 中的 ip2region.xdb
+ * （位于jar内时先复制到临时文件）。
+ */
+@Slf4j
+@Service
+public class IpRegionService {
+
+    /**
+     * IP地区缓存容量与有效期
+     */
+    private static final int REGION_CACHE_MAX_SIZE = 10_000;
+
+    private static final long REGION_CACHE_TTL = 3_600_000;
+
+    private static final String XDB_RESOURCE = "ip2region.xdb";
+
+    @Value("${poetize.ip2region.path:}")
+    private String xdbPath;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private volatile XdbSearcher searcher;
+
+    private final LocalCache<Region> regionCache = new LocalCache<>("ipRegion",
+            REGION_CACHE_MAX_SIZE, REGION_CACHE_TTL, null);
+
+    @PostConstruct
+    public void init() {
+        try {
+            long start = System.currentTimeMillis();
+            searcher = XdbSearcher.open(resolveXdbFile());
+            log.info("ip2region离线库映射成功，大小: {}KB，耗时: {}ms", searcher.size() / 1024,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("ip2region离线库加载失败，IP离线定位不可用: {}", e.getMessage());
+        }
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            FunctionCounter.builder("cache.gets", regionCache, c -> c.getHitCount())
+                    .tag("cache", "local.ipRegion").tag("result", "hit").register(registry);
+            FunctionCounter.builder("cache.gets", regionCache, c -> c.getMissCount())
+                    .tag("cache", "local.ipRegion").tag("result", "miss").register(registry);
+            FunctionCounter.builder("cache.evictions", regionCache, c -> c.getEvictionCount())
+                    .tag("cache", "local.ipRegion").register(registry);
+        }
+    }
+
+    /**
+     * 离线库是否可用
+     */
+    public boolean isAvailable() {
+        return searcher != null;
+    }
+
+    /**
+     * 查询IP地理位置，结果按IP缓存
+     *
+     * @return 地理位置，离线库不可用、非IPv4或未收录时返回 {@link Region#UNKNOWN}
+     */
+    public Region search(String ip) {
+        XdbSearcher current = searcher;
+        if (current == null || !StringUtils.hasText(ip)) {
+            return Region.UNKNOWN;
+        }
+        Region region = regionCache.get(ip);
+        if (region != null) {
+            return region;
+        }
+        long value = XdbSearcher.parseIpv4(ip);
+        if (value < 0) {
+            // 非IPv4地址不缓存，避免任意字符串占满缓存
+            return Region.UNKNOWN;
+        }
+        try {
+            region = Region.parse(current.search(value));
+        } catch (Exception e) {
+            log.warn("IP地理位置解析失败: {}, 错误: {}", ip, e.getMessage());
+            region = Region.UNKNOWN;
+        }
+        regionCache.put(ip, region);
+        return region;
+    }
+
+    /**
+     * 本地缓存命中率
+     */
+    public double getCacheHitRate() {
+        return regionCache.getHitRate();
+    }
+
+    private Path resolveXdbFile() throws IOException {
+        if (StringUtils.hasText(xdbPath)) {
+            return Paths.get(xdbPath);
+        }
+        ClassPathResource resource = new ClassPathResource(XDB_RESOURCE);
+        if (resource.isFile()) {
+            return resource.getFile().toPath();
+        }
+        // 打包在jar内时无法直接映射，复制到临时文件后映射
+        Path temp = Files.createTempFile("ip2region", ".xdb");
+        temp.toFile().deleteOnExit();
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return temp;
+    }
+}
@@ -3,6 +3,8 @@ package com.ld.poetry.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.ld.poetry.entity.Label;
 
+import java.util.List;
+
 /**
  * <p>
  * 标签服务接口
@@ -10,5 +12,19 @@ import com.ld.poetry.entity.Label;
  *
  */
 public interface LabelService extends IService<Label> {
-    
-} 
\ No newline at end of file
+
+    /**
+     * 从分类标签快照获取标签（无数据库访问）
+     *
+     * @param id 标签ID
+     * @return 标签，不存在时返回null
+     */
+    Label getCachedById(Integer id);
+
+    /**
+     * 从分类标签快照获取全部标签（无数据库访问）
+     *
+     * @return 标签列表
+     */
+    List<Label> listCached();
+}
@@ -1,14 +1,14 @@
 package com.ld.poetry.service;
 
 import com.ld.poetry.service.provider.IpLocationProviderFactory;
+import com.ld.poetry.utils.IpUtil;
+import com.ld.poetry.utils.cache.LocalCache;
+import com.ld.poetry.utils.ip.IpAddress;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.net.Inet6Address;
-import java.net.InetAddress;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * IP地理位置解析服务
@@ -18,11 +18,19 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class LocationService {
 
+    /**
+     * IP地理位置缓存容量与有效期
+     */
+    private static final int LOCATION_CACHE_MAX_SIZE = 10_000;
+
+    private static final long LOCATION_CACHE_TTL = 6 * 3_600_000L;
+
     @Autowired
     private IpLocationProviderFactory providerFactory;
     
-    // IP地理位置缓存，避免重复查询
-    private final ConcurrentHashMap<String, String> locationCache = new ConcurrentHashMap<>();
+    // IP地理位置缓存，避免重复查询；按最近访问淘汰，容量有上限
+    private final LocalCache<String> locationCache = new LocalCache<>("ipLocation",
+            LOCATION_CACHE_MAX_SIZE, LOCATION_CACHE_TTL, null);
 
     /**
      * 根据IP地址获取地理位置
@@ -60,7 +68,7 @@ public class LocationService {
      * 清理位置缓存（可用于定期清理）
      */
     public void clearLocationCache() {
-        locationCache.clear();
+        locationCache.invalidateAll();
         log.info("IP地理位置缓存已清理");
     }
 
@@ -116,12 +124,12 @@ public class LocationService {
             return false;
         }
         
-        try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            return inetAddress instanceof Inet6Address;
-        } catch (Exception e) {
-            return ip.contains(":") && !ip.contains(".");
+        // 只按字面量解析，不触发DNS查询
+        IpAddress address = IpAddress.parse(ip);
+        if (address != null) {
+            return address.isIpv6();
         }
+        return ip.contains(":") && !ip.contains(".");
     }
     
     /**
@@ -153,91 +161,22 @@ public class LocationService {
             return true;
         }
         
-        // 使用Java内置方法检查是否为内网IP
-        try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            
-            // 检查是否为内网地址
-            if (inetAddress.isSiteLocalAddress() || 
-                inetAddress.isLinkLocalAddress() || 
-                inetAddress.isLoopbackAddress()) {
-                return true;
-            }
-            
-            // IPv6特殊处理
-            if (inetAddress instanceof Inet6Address) {
-                return isInternalIPv6(ip);
-            }
-            
-            // IPv4私有地址段检查
-            if (ip.startsWith("192.168.") || 
-                ip.startsWith("10.") || 
-                (ip.startsWith("172.") && isInRange172(ip))) {
-                return true;
-            }
-            
-        } catch (Exception e) {
-            return true; // 无法解析的IP认为是无效的
-        }
-        
-        return false;
-    }
-    
-    /**
-     * 检查是否为内网IPv6地址
-     * @param ipv6 IPv6地址
-     * @return 是否为内网IPv6
-     */
-    private boolean isInternalIPv6(String ipv6) {
-        if (!StringUtils.hasText(ipv6)) {
-            return true;
-        }
-        
-        ipv6 = ipv6.toLowerCase().trim();
-        
-        // IPv6本地回环
-        if (ipv6.equals("::1")) {
-            return true;
-        }
-        
-        // IPv6链路本地地址 (fe80::/10)
-        if (ipv6.startsWith("fe80:")) {
+        // 只按字面量解析，不触发DNS查询；无法解析的IP认为是无效的
+        IpAddress address = IpAddress.parse(ip);
+        if (address == null) {
             return true;
         }
         
-        // IPv6唯一本地地址 (fc00::/7)
-        if (ipv6.startsWith("fc") || ipv6.startsWith("fd")) {
+        // 内网、回环、链路本地地址（IPv4映射的IPv6地址已按IPv4判断）
+        if (IpUtil.isInternalAddress(address)) {
             return true;
         }
         
         // IPv6多播地址 (ff00::/8)
-        if (ipv6.startsWith("ff")) {
-            return true;
-        }
-        
-        // IPv4映射的IPv6地址
-        if (ipv6.contains("::ffff:")) {
+        if (address.isIpv6() && (address.getHigh() >>> 56) == 0xFF) {
             return true;
         }
         
         return false;
     }
-
-    /**
-     * 检查是否在172.16.0.0-172.31.255.255范围内
-     * @param ip IP地址
-     * @return 是否在范围内
-     */
-    private boolean isInRange172(String ip) {
-        try {
-            String[] parts = ip.split("\\.");
-            if (parts.length == 4) {
-                int secondOctet = Integer.parseInt(parts[1]);
-                return secondOctet >= 16 && secondOctet <= 31;
-            }
-        } catch (Exception e) {
-            // 忽略解析错误
-        }
-        return false;
-    }
 }
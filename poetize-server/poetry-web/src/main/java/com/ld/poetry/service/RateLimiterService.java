@@ -0,0 +1,252 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.utils.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统一限流服务
+ * <p>
+ * 分布式限流使用GCRA（通用信元速率算法）Lua脚本：每个限流对象只保存一个“理论到达时间”，
+ * 一次往返完成判断和更新，时间取Redis服务器时间，不受各实例时钟偏差影响。
+ * 效果等价于容量为 limit、每个周期补满的令牌桶，即任意一个周期内最多通过 limit 次。
+ * <p>
+ * 每个限流对象在本地另有一个参数相同的令牌桶：本实例的请求数不超过全局请求数，
+ * 本地桶已空时全局一定超限，直接拒绝而不访问Redis；也可只使用本地桶做单实例限流。
+ * Redis异常时放行，与原有各处限流的处理方式一致。
+ */
+@Slf4j
+@Service
+public class RateLimiterService {
+
+    /**
+     * 参数：周期（微秒）、次数、本次消耗（0表示只查询）
+     * 返回：是否通过、剩余次数、需等待的毫秒数
+     */
+    private static final String GCRA_SCRIPT =
+            "local t = redis.call('TIME')\n" +
+            "local now = tonumber(t[1]) * 1000000 + tonumber(t[2])\n" +
+            "local period = tonumber(ARGV[1])\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local cost = tonumber(ARGV[3])\n" +
+            "local interval = period / limit\n" +
+            "local tat = now\n" +
+            "local stored = redis.call('GET', KEYS[1])\n" +
+            "if stored then tat = math.max(tonumber(stored) or now, now) end\n" +
+            "local newTat = tat + interval * cost\n" +
+            "local allowAt = newTat - period\n" +
+            "if allowAt > now then\n" +
+            "  return {0, 0, math.ceil((allowAt - now) / 1000)}\n" +
+            "end\n" +
+            "if cost > 0 then\n" +
+            "  redis.call('SET', KEYS[1], string.format('%.0f', newTat), 'PX', math.ceil((newTat - now) / 1000))\n" +
+            "end\n" +
+            "return {1, math.floor((now - allowAt) / interval), 0}";
+
+    private static final DefaultRedisScript<List> SCRIPT = new DefaultRedisScript<>(GCRA_SCRIPT, List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // 本实例标识，用于忽略自己发布的重置通知
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ConcurrentHashMap<String, TokenBucket> localBuckets = new ConcurrentHashMap<>();
+
+    // 按“限流器名称|结果”统计
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this::onReset,
+                new ChannelTopic(CacheConstants.RATE_LIMIT_RESET_CHANNEL));
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("ratelimit.local.buckets", localBuckets, m -> m.size()).register(registry);
+        }
+    }
+
+    /**
+     * 限流判断结果
+     */
+    public static final class Result {
+
+        private static final Result ALLOWED = new Result(true, -1, 0);
+
+        private final boolean allowed;
+
+        private final long remaining;
+
+        private final long retryAfterMillis;
+
+        private Result(boolean allowed, long remaining, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * 本周期剩余次数，未知（本地判断或Redis异常放行）时为-1
+         */
+        public long getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * 被拒绝时距离下次可通过的毫秒数，本地拒绝时为0
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    /**
+     * 分布式限流：一个周期内同一对象最多通过 limit 次
+     *
+     * @param name    限流器名称，用于缓存键和监控指标
+     * @param subject 限流对象，如IP、用户ID
+     */
+    public Result tryAcquire(String name, String subject, int limit, long period, TimeUnit unit) {
+        TokenBucket bucket = localBucket(name, subject, limit, period, unit);
+        if (bucket != null && !bucket.tryAcquire()) {
+            record(name, "rejected-local");
+            return new Result(false, 0, 0);
+        }
+        try {
+            List<?> reply = stringRedisTemplate.execute(SCRIPT,
+                    List.of(CacheConstants.buildRateLimitKey(name, subject)),
+                    String.valueOf(unit.toMicros(period)), String.valueOf(limit), "1");
+            if (reply == null || reply.size() < 3) {
+                record(name, "error");
+                return Result.ALLOWED;
+            }
+            boolean allowed = ((Number) reply.get(0)).longValue() == 1;
+            if (!allowed && bucket != null) {
+                // 全局拒绝的请求不计入本地桶，保证本地计数不超过全局
+                bucket.release();
+            }
+            record(name, allowed ? "allowed" : "rejected");
+            return new Result(allowed, ((Number) reply.get(1)).longValue(), ((Number) reply.get(2)).longValue());
+        } catch (Exception e) {
+            // Redis异常时放行，避免影响正常访问
+            log.warn("限流检查失败，放行请求 - 限流器: {}, 对象: {}, 错误: {}", name, subject, e.getMessage());
+            record(name, "error");
+            return Result.ALLOWED;
+        }
+    }
+
+    /**
+     * 单实例限流，只使用本地令牌桶
+     */
+    public boolean tryAcquireLocal(String name, String subject, int limit, long period, TimeUnit unit) {
+        TokenBucket bucket = localBucket(name, subject, limit, period, unit);
+        boolean allowed = bucket == null || bucket.tryAcquire();
+        record(name, allowed ? "allowed" : "rejected-local");
+        return allowed;
+    }
+
+    /**
+     * 查询本周期内已使用的次数，不消耗次数
+     */
+    public int getUsed(String name, String subject, int limit, long period, TimeUnit unit) {
+        try {
+            List<?> reply = stringRedisTemplate.execute(SCRIPT,
+                    List.of(CacheConstants.buildRateLimitKey(name, subject)),
+                    String.valueOf(unit.toMicros(period)), String.valueOf(limit), "0");
+            if (reply == null || reply.size() < 3) {
+                return 0;
+            }
+            return (int) Math.max(0, limit - ((Number) reply.get(1)).longValue());
+        } catch (Exception e) {
+            log.warn("查询限流状态失败 - 限流器: {}, 对象: {}, 错误: {}", name, subject, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 清除限流状态（Redis中的记录及所有实例的本地令牌桶）
+     * <p>
+     * 其他实例的本地桶可能仍是空的，不通知时下一个请求会在本地被拒绝，不会到达Redis。
+     */
+    public void reset(String name, String subject) {
+        String key = name + ":" + subject;
+        localBuckets.remove(key);
+        stringRedisTemplate.delete(CacheConstants.buildRateLimitKey(name, subject));
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.RATE_LIMIT_RESET_CHANNEL, instanceId + "|" + key);
+        } catch (Exception e) {
+            // 通知失败时其他实例的本地桶最迟一个周期后补满
+            log.warn("发布限流重置通知失败 - 限流器: {}, 对象: {}, 错误: {}", name, subject, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理已补满（闲置）的本地令牌桶
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        localBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private TokenBucket localBucket(String name, String subject, int limit, long period, TimeUnit unit) {
+        String key = name + ":" + subject;
+        TokenBucket bucket = localBuckets.get(key);
+        if (bucket == null) {
+            if (localBuckets.size() >= CacheConstants.LOCAL_RATE_LIMIT_MAX_BUCKETS) {
+                return null;
+            }
+            bucket = localBuckets.computeIfAbsent(key, k -> new TokenBucket(limit, period, unit));
+        }
+        return bucket;
+    }
+
+    private void onReset(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length == 2 && !instanceId.equals(parts[0])) {
+            localBuckets.remove(parts[1]);
+        }
+    }
+
+    private void record(String name, String result) {
+        counters.computeIfAbsent(name + "|" + result, k -> {
+            LongAdder adder = new LongAdder();
+            MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+            if (registry != null) {
+                FunctionCounter.builder("ratelimit.requests", adder, LongAdder::sum)
+                        .tag("limiter", name).tag("result", result).register(registry);
+            }
+            return adder;
+        }).increment();
+    }
+}
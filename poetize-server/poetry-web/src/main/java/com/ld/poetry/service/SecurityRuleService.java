@@ -0,0 +1,238 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.entity.SysConfig;
+import com.ld.poetry.utils.security.PathRuleMatcher;
+import com.ld.poetry.utils.security.PathRuleMatcher.MatchType;
+import com.ld.poetry.utils.security.PathRuleMatcher.Rule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 恶意请求路径规则
+ * <p>
+ * 内置规则与系统配置 {@value #RULES_CONFIG_KEY} 中的自定义规则（每行一条，# 开头为注释）
+ * 一起编译为 {@link PathRuleMatcher}，每个请求只对规范化后的路径扫描一遍。
+ * 自定义规则修改后立即重新编译，其他实例每分钟检查一次配置变化；每条规则单独统计命中次数。
+ */
+@Slf4j
+@Service
+public class SecurityRuleService {
+
+    /**
+     * 自定义规则的系统配置键
+     */
+    public static final String RULES_CONFIG_KEY = "security.malicious.rules";
+
+    public static final String CATEGORY_MALICIOUS_PATH = "恶意路径扫描";
+
+    public static final String CATEGORY_SUSPICIOUS_PATTERN = "可疑请求特征";
+
+    /**
+     * URL解码失败时返回的规则，可能是恶意构造的URL
+     */
+    public static final Rule INVALID_ENCODING = new Rule(CATEGORY_SUSPICIOUS_PATTERN, MatchType.EXACT, "<invalid-encoding>");
+
+    // 常见的恶意扫描路径 - 只包含明确的恶意路径，避免误拦截正常请求
+    private static final List<String> MALICIOUS_PATHS = List.of(
+        "/.env",                    // 环境变量文件
+        "/.env.local",
+        "/.env.production",
+        "/.git",                    // Git版本控制目录
+        "/.git/config",
+        "/phpmyadmin",              // 数据库管理工具
+        "/pma",
+        "/wp-admin",                // WordPress管理后台
+        "/wp-login.php",
+        "/wp-config.php",
+        "/config.php",              // PHP配置文件
+        "/database.php",
+        "/xmlrpc.php",              // WordPress XML-RPC
+        "/.aws",                    // AWS配置
+        "/.docker",                 // Docker配置
+        "/docker-compose.yml",
+        "/Dockerfile",
+        "/.DS_Store",               // macOS系统文件
+        "/admin.php",               // PHP管理页面（而不是/admin）
+        "/admin/login.php",
+        "/administrator.php",
+        "/manager.php",
+        "/console.php",
+        "/debug.php",
+        "/test.php",
+        "/info.php",
+        "/phpinfo.php",
+        "/sql.php",
+        "/backup.sql",
+        "/database.sql",
+        "/.htaccess",               // Apache配置文件
+        "/.htpasswd",
+        "/web.config",              // IIS配置文件
+        "/server.xml",              // Tomcat配置
+        "/application.properties",  // Spring配置文件（如果在根目录就是恶意扫描）
+        "/application.yml",
+        "/build.sh",                // 构建脚本，常被扫描利用
+        "/index.html",              // 根目录index.html探测
+        "/translation/test-summary", // 翻译模型测试探测
+        "/translation/definite_notexist_path", // 翻译模型路径扫描
+        "/definite_notexist_path"  // 通用路径探测
+    );
+
+    // 可疑请求特征
+    private static final List<String> SUSPICIOUS_PATTERNS = List.of(
+        // 路径遍历攻击
+        "..", "./",
+        // 敏感文件扩展名
+        "suffix:.sql", "suffix:.bak", "suffix:.backup", "suffix:.old", "suffix:.tmp", "suffix:.log",
+        // PHP相关恶意路径（WordPress、PHPMyAdmin等）
+        "/wp-", ".php.", "admin.php", "login.php", "config.php", "phpinfo",
+        // 明显的恶意探测模式
+        "notexist", "test-", "scan", "probe",
+        // 常见的CMS路径扫描
+        "/wordpress", "/drupal", "/joomla", "/magento", "/administrator", "/admin/login",
+        "/phpmyadmin", "/xmlrpc", "/cms/", "/old/", "/new/", "/backup/", "/bak/", "/beta/", "/temp/", "/dev/",
+        // XSS和脚本注入
+        "<script", "javascript:", "eval(", "base64_decode",
+        // SQL注入
+        "all:union&select", "all:drop&table", "all:insert&into",
+        "all:delete&from", "all:update&set", "all:select&from"
+    );
+
+    @Autowired
+    private SysConfigService sysConfigService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private volatile PathRuleMatcher matcher;
+
+    // 当前已编译的自定义规则原文，用于判断配置是否变化
+    private volatile String loadedConfig;
+
+    // 按规则名统计命中次数，重新编译后保留
+    private final ConcurrentHashMap<String, LongAdder> hitCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        compile(null);
+        reload();
+    }
+
+    /**
+     * 匹配请求路径
+     *
+     * @param requestURI 原始请求URI
+     * @return 命中的规则，未命中返回null；URL解码失败时返回 {@link #INVALID_ENCODING}
+     */
+    public Rule match(String requestURI) {
+        String path;
+        try {
+            path = PathRuleMatcher.normalize(requestURI);
+        } catch (IllegalArgumentException e) {
+            log.warn("URL解码失败，可能为恶意请求: {}", requestURI);
+            recordHit(INVALID_ENCODING);
+            return INVALID_ENCODING;
+        }
+        Rule rule = matcher.match(path);
+        if (rule != null) {
+            recordHit(rule);
+        }
+        return rule;
+    }
+
+    /**
+     * 从系统配置读取自定义规则，有变化时重新编译
+     */
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    public void reload() {
+        String config;
+        try {
+            config = sysConfigService.lambdaQuery()
+                    .eq(SysConfig::getConfigKey, RULES_CONFIG_KEY)
+                    .list()
+                    .stream()
+                    .map(SysConfig::getConfigValue)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.joining("\n"));
+        } catch (Exception e) {
+            log.warn("读取自定义安全规则失败，保留当前规则: {}", e.getMessage());
+            return;
+        }
+        if (!config.equals(loadedConfig)) {
+            compile(config);
+        }
+    }
+
+    /**
+     * 各规则命中次数，按次数倒序
+     */
+    public Map<String, Object> getRuleStats() {
+        PathRuleMatcher current = matcher;
+        Map<String, Long> hits = new LinkedHashMap<>();
+        hitCounts.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .forEach(e -> hits.put(e.getKey(), e.getValue().sum()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ruleCount", current.getRuleCount());
+        stats.put("stateCount", current.getStateCount());
+        stats.put("hits", hits);
+        return stats;
+    }
+
+    private synchronized void compile(String config) {
+        List<Rule> rules = new ArrayList<>();
+        for (String path : MALICIOUS_PATHS) {
+            rules.add(new Rule(CATEGORY_MALICIOUS_PATH, MatchType.EXACT, path));
+        }
+        for (String pattern : SUSPICIOUS_PATTERNS) {
+            rules.add(Rule.parse(pattern, CATEGORY_SUSPICIOUS_PATTERN));
+        }
+        int custom = 0;
+        if (config != null) {
+            for (String line : config.split("\\r?\\n")) {
+                if (line.isBlank() || line.trim().startsWith("#")) {
+                    continue;
+                }
+                try {
+                    rules.add(Rule.parse(line, CATEGORY_SUSPICIOUS_PATTERN));
+                    custom++;
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无效的自定义安全规则: {}", line);
+                }
+            }
+        }
+        matcher = new PathRuleMatcher(rules);
+        if (config != null) {
+            loadedConfig = config;
+            log.info("安全规则已编译，内置规则{}条，自定义规则{}条", rules.size() - custom, custom);
+        }
+    }
+
+    private void recordHit(Rule rule) {
+        hitCounts.computeIfAbsent(rule.getName(), name -> {
+            LongAdder adder = new LongAdder();
+            MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+            if (registry != null) {
+                FunctionCounter.builder("security.rule.hits", adder, LongAdder::sum)
+                        .tag("rule", name).register(registry);
+            }
+            return adder;
+        }).increment();
+    }
+}
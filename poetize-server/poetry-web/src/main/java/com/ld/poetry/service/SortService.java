@@ -3,6 +3,8 @@ package com.ld.poetry.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.ld.poetry.entity.Sort;
 
+import java.util.List;
+
 /**
  * <p>
  * 分类服务接口
@@ -10,5 +12,19 @@ import com.ld.poetry.entity.Sort;
  *
  */
 public interface SortService extends IService<Sort> {
-    
-} 
\ No newline at end of file
+
+    /**
+     * 从分类标签快照获取分类（无数据库访问）
+     *
+     * @param id 分类ID
+     * @return 分类，不存在时返回null
+     */
+    Sort getCachedById(Integer id);
+
+    /**
+     * 从分类标签快照获取全部分类（无数据库访问）
+     *
+     * @return 分类列表
+     */
+    List<Sort> listCached();
+}
@@ -0,0 +1,170 @@
+package com.ld.poetry.service;
+
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.ld.poetry.dao.ArticleMapper;
+import com.ld.poetry.dao.LabelMapper;
+import com.ld.poetry.dao.SortMapper;
+import com.ld.poetry.entity.Label;
+import com.ld.poetry.entity.Sort;
+import com.ld.poetry.event.ArticleSavedEvent;
+import com.ld.poetry.utils.cache.TaxonomySnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分类标签快照服务
+ * <p>
+ * 在内存中维护一份不可变的分类、标签及文章数量快照，读取时无数据库访问。
+ * 文章保存/更新/删除事件以及分类标签增删改会使快照失效，下一次读取时使用一次分组统计查询重建并原子替换。
+ */
+@Slf4j
+@Service
+public class TaxonomyService {
+
+    @Autowired
+    private SortMapper sortMapper;
+
+    @Autowired
+    private LabelMapper labelMapper;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    // 失效代数与当前快照，放在同一个引用中原子替换；快照为null表示需要重建
+    private final AtomicReference<CachedSnapshot> stateRef = new AtomicReference<>(new CachedSnapshot(0, null));
+
+    // 重建锁，保证同一时间只有一个线程访问数据库
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 获取当前快照，失效时同步重建
+     *
+     * @return 分类标签快照
+     */
+    public TaxonomySnapshot getSnapshot() {
+        CachedSnapshot state = stateRef.get();
+        if (state.snapshot != null) {
+            return state.snapshot;
+        }
+
+        rebuildLock.lock();
+        try {
+            state = stateRef.get();
+            if (state.snapshot != null) {
+                return state.snapshot;
+            }
+            TaxonomySnapshot snapshot = buildSnapshot(state.generation);
+            // 重建期间如果再次失效，代数已变化，CAS失败，本次结果只返回给当前调用方，不再缓存
+            stateRef.compareAndSet(state, new CachedSnapshot(state.generation, snapshot));
+            return snapshot;
+        } catch (Exception e) {
+            log.error("分类标签快照重建失败", e);
+            return TaxonomySnapshot.EMPTY;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 使快照失效，下次读取时重建
+     */
+    public void invalidate() {
+        stateRef.updateAndGet(state -> new CachedSnapshot(state.generation + 1, null));
+    }
+
+    /**
+     * 文章保存、更新、删除后使快照失效（文章数量可能变化）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleArticleSavedEvent(ArticleSavedEvent event) {
+        invalidate();
+        log.debug("文章{}事件，分类标签快照已失效: ID={}", event.getOperationType(), event.getArticleId());
+    }
+
+    /**
+     * 获取完整分类信息（含标签及文章数量）
+     */
+    public List<Sort> getSortInfo() {
+        return getSnapshot().copySortInfo();
+    }
+
+    /**
+     * 获取分类列表
+     */
+    public List<Sort> listSorts() {
+        return getSnapshot().copySorts();
+    }
+
+    /**
+     * 获取标签列表
+     */
+    public List<Label> listLabels() {
+        return getSnapshot().copyLabels();
+    }
+
+    /**
+     * 根据ID获取分类
+     */
+    public Sort getSort(Integer sortId) {
+        return getSnapshot().getSort(sortId);
+    }
+
+    /**
+     * 根据ID获取标签
+     */
+    public Label getLabel(Integer labelId) {
+        return getSnapshot().getLabel(labelId);
+    }
+
+    private TaxonomySnapshot buildSnapshot(long version) {
+        List<Sort> sorts = new LambdaQueryChainWrapper<>(sortMapper).list();
+        List<Label> labels = new LambdaQueryChainWrapper<>(labelMapper).list();
+
+        Map<Integer, Integer> sortCounts = new HashMap<>();
+        Map<Integer, Integer> labelCounts = new HashMap<>();
+        List<Map<String, Object>> rows = articleMapper.countGroupBySortAndLabel();
+        for (Map<String, Object> row : rows) {
+            Integer num = toInteger(row.get("num"));
+            if (num == null) {
+                continue;
+            }
+            Integer sortId = toInteger(row.get("sort_id"));
+            Integer labelId = toInteger(row.get("label_id"));
+            if (sortId != null) {
+                sortCounts.merge(sortId, num, Integer::sum);
+            }
+            if (labelId != null) {
+                labelCounts.merge(labelId, num, Integer::sum);
+            }
+        }
+
+        TaxonomySnapshot snapshot = new TaxonomySnapshot(version, sorts, labels, sortCounts, labelCounts);
+        log.info("分类标签快照已重建: 版本={}, 分类数={}, 标签数={}", version, snapshot.getSortCount(), snapshot.getLabelCount());
+        return snapshot;
+    }
+
+    private Integer toInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static final class CachedSnapshot {
+
+        private final long generation;
+
+        private final TaxonomySnapshot snapshot;
+
+        private CachedSnapshot(long generation, TaxonomySnapshot snapshot) {
+            this.generation = generation;
+            this.snapshot = snapshot;
+        }
+    }
+}
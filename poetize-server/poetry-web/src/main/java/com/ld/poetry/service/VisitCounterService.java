@@ -0,0 +1,420 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.utils.visit.HyperLogLog;
+import com.ld.poetry.utils.visit.VisitRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 今日访问实时计数
+ * <p>
+ * 记录访问时按天、按小时、按省份写入Redis HyperLogLog（PFADD）统计独立IP，
+ * 访问次数写入每日计数Hash（HINCRBY）。查询今日统计只需PFCOUNT和一次HGETALL，与访问量无关。
+ * <p>
+ * 每批写入在一个 MULTI/EXEC 事务中执行，不会只执行一部分。
+ * 同时在进程内维护当天的本地草图：无法连接Redis时记录暂存待重试（有上限），结果未知（如超时）时丢弃该批避免重复计数，
+ * 并在一段时间内直接用本地草图回答查询（仅包含本实例的记录）。
+ */
+@Slf4j
+@Service
+public class VisitCounterService {
+
+    /**
+     * 计数键过期时间（秒），保留到次日仍可读取
+     */
+    private static final long COUNTER_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    /**
+     * Redis失败后暂存待重试的最多记录数
+     */
+    private static final int PENDING_CAPACITY = 8192;
+
+    /**
+     * Redis失败后改用本地草图的时长
+     */
+    private static final long DEGRADED_MILLIS = 10_000;
+
+    private static final int DAILY_PRECISION = 14;
+
+    private static final int DETAIL_PRECISION = 12;
+
+    private static final String FIELD_PV = "pv";
+
+    private static final String FIELD_HOUR_PREFIX = "h:";
+
+    private static final String FIELD_PROVINCE_PREFIX = "p:";
+
+    private static final String FIELD_USER_PREFIX = "u:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 待写入Redis的记录（写入失败待重试或请求线程暂存的），只在短时间内持有其锁
+    private final ArrayDeque<VisitRecord> pending = new ArrayDeque<>();
+
+    // 本地计数锁，与写入锁分开，查询不必等待Redis写入
+    private final Object localLock = new Object();
+
+    private LocalCounters local = new LocalCounters(LocalDate.now());
+
+    private volatile long degradedUntil;
+
+    private long droppedCount;
+
+    /**
+     * 计入一批访问记录并写入Redis，只由访问记录的消费线程调用
+     * <p>
+     * 先在短暂持有的锁内取走暂存的记录，Redis写入在锁外进行。
+     */
+    public void record(List<VisitRecord> records) {
+        addLocal(records);
+
+        List<VisitRecord> batch;
+        synchronized (pending) {
+            if (isDegraded()) {
+                addPending(records);
+                return;
+            }
+            batch = new ArrayList<>(pending.size() + records.size());
+            batch.addAll(pending);
+            pending.clear();
+            batch.addAll(records);
+        }
+        try {
+            writeToRedis(batch);
+        } catch (RedisConnectionFailureException e) {
+            // 未能连接时事务不会执行，整批留待重试
+            degradedUntil = System.currentTimeMillis() + DEGRADED_MILLIS;
+            synchronized (pending) {
+                addPending(batch);
+                log.warn("访问计数写入Redis失败，暂用本地计数，待重试记录: {}, 错误: {}", pending.size(), e.getMessage());
+            }
+        } catch (Exception e) {
+            // 超时等情况下无法确定事务是否已执行，重试可能重复计数，丢弃该批（已计入本地计数）
+            degradedUntil = System.currentTimeMillis() + DEGRADED_MILLIS;
+            synchronized (pending) {
+                droppedCount += batch.size();
+            }
+            log.warn("访问计数写入Redis结果未知，丢弃{}条记录，暂用本地计数, 错误: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 只计入本地计数并暂存，由消费线程下次写入Redis时一并发送，不访问Redis
+     * <p>
+     * 供访问记录队列满时的请求线程调用。
+     */
+    public void recordDeferred(List<VisitRecord> records) {
+        addLocal(records);
+        synchronized (pending) {
+            addPending(records);
+        }
+    }
+
+    /**
+     * 今日独立IP数
+     */
+    public long getTodayUniqueVisitors() {
+        String today = LocalDate.now().toString();
+        if (!isDegraded()) {
+            try {
+                Long count = stringRedisTemplate.opsForHyperLogLog().size(CacheConstants.buildVisitUvKey(today));
+                return count != null ? count : 0L;
+            } catch (Exception e) {
+                markDegraded(e);
+            }
+        }
+        synchronized (localLock) {
+            return local.date.toString().equals(today) ? local.day.cardinality() : 0L;
+        }
+    }
+
+    /**
+     * 今日访问统计
+     *
+     * @return ip_count_today（独立IP数）、pv_today（访问次数）、
+     * username_today（userId, visitCount）、province_today（province, num=独立IP数, pv）、
+     * hour_today（hour, unique_visits, total_visits）
+     */
+    public Map<String, Object> getTodayStatistics() {
+        String today = LocalDate.now().toString();
+        if (!isDegraded()) {
+            try {
+                return readFromRedis(today);
+            } catch (Exception e) {
+                markDegraded(e);
+            }
+        }
+        synchronized (localLock) {
+            return local.date.toString().equals(today) ? local.toStatistics() : new LocalCounters(LocalDate.now()).toStatistics();
+        }
+    }
+
+    /**
+     * 暂存超过上限或写入结果未知而被丢弃的记录数（这些记录只计入了本地草图）
+     */
+    public long getDroppedCount() {
+        synchronized (pending) {
+            return droppedCount;
+        }
+    }
+
+    private boolean isDegraded() {
+        return System.currentTimeMillis() < degradedUntil;
+    }
+
+    private void markDegraded(Exception e) {
+        degradedUntil = System.currentTimeMillis() + DEGRADED_MILLIS;
+        log.warn("读取Redis访问计数失败，改用本地计数: {}", e.getMessage());
+    }
+
+    private void addLocal(List<VisitRecord> records) {
+        synchronized (localLock) {
+            for (VisitRecord record : records) {
+                LocalDate date = record.getCreateTime().toLocalDate();
+                if (date.isAfter(local.date)) {
+                    local = new LocalCounters(date);
+                }
+                if (date.equals(local.date)) {
+                    local.add(record);
+                }
+            }
+        }
+    }
+
+    private void addPending(List<VisitRecord> records) {
+        for (VisitRecord record : records) {
+            if (pending.size() >= PENDING_CAPACITY) {
+                pending.pollFirst();
+                droppedCount++;
+            }
+            pending.addLast(record);
+        }
+    }
+
+    private void writeToRedis(List<VisitRecord> records) {
+        Map<String, List<String>> uvMembers = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> counters = new LinkedHashMap<>();
+        for (VisitRecord record : records) {
+            String ip = record.getIp();
+            if (ip == null || ip.isEmpty()) {
+                continue;
+            }
+            String date = record.getCreateTime().toLocalDate().toString();
+            int hour = record.getCreateTime().getHour();
+            Map<String, Long> fields = counters.computeIfAbsent(CacheConstants.buildVisitCounterKey(date), k -> new HashMap<>());
+            fields.merge(FIELD_PV, 1L, Long::sum);
+            fields.merge(FIELD_HOUR_PREFIX + hour, 1L, Long::sum);
+            uvMembers.computeIfAbsent(CacheConstants.buildVisitUvKey(date), k -> new ArrayList<>()).add(ip);
+            uvMembers.computeIfAbsent(CacheConstants.buildHourlyVisitUvKey(date, hour), k -> new ArrayList<>()).add(ip);
+            if (record.getProvince() != null) {
+                fields.merge(FIELD_PROVINCE_PREFIX + record.getProvince(), 1L, Long::sum);
+                uvMembers.computeIfAbsent(CacheConstants.buildProvinceVisitUvKey(date, record.getProvince()), k -> new ArrayList<>()).add(ip);
+            }
+            if (record.getUserId() != null) {
+                fields.merge(FIELD_USER_PREFIX + record.getUserId(), 1L, Long::sum);
+            }
+        }
+        if (counters.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                // 事务保证整批要么全部执行要么都不执行，重试时计数不会部分重复
+                ops.multi();
+                for (Map.Entry<String, List<String>> entry : uvMembers.entrySet()) {
+                    ops.opsForHyperLogLog().add(entry.getKey(), entry.getValue().toArray(new String[0]));
+                    ops.expire(entry.getKey(), COUNTER_EXPIRE_SECONDS, TimeUnit.SECONDS);
+                }
+                for (Map.Entry<String, Map<String, Long>> entry : counters.entrySet()) {
+                    for (Map.Entry<String, Long> field : entry.getValue().entrySet()) {
+                        ops.opsForHash().increment(entry.getKey(), field.getKey(), field.getValue());
+                    }
+                    ops.expire(entry.getKey(), COUNTER_EXPIRE_SECONDS, TimeUnit.SECONDS);
+                }
+                ops.exec();
+                return null;
+            }
+        });
+    }
+
+    private Map<String, Object> readFromRedis(String date) {
+        Map<Object, Object> counters = stringRedisTemplate.opsForHash().entries(CacheConstants.buildVisitCounterKey(date));
+        long pv = 0;
+        Map<Integer, Long> hourPv = new LinkedHashMap<>();
+        Map<String, Long> provincePv = new LinkedHashMap<>();
+        Map<String, Long> userPv = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : counters.entrySet()) {
+            String field = entry.getKey().toString();
+            long value = Long.parseLong(entry.getValue().toString());
+            if (FIELD_PV.equals(field)) {
+                pv = value;
+            } else if (field.startsWith(FIELD_HOUR_PREFIX)) {
+                hourPv.put(Integer.valueOf(field.substring(FIELD_HOUR_PREFIX.length())), value);
+            } else if (field.startsWith(FIELD_PROVINCE_PREFIX)) {
+                provincePv.put(field.substring(FIELD_PROVINCE_PREFIX.length()), value);
+            } else if (field.startsWith(FIELD_USER_PREFIX)) {
+                userPv.put(field.substring(FIELD_USER_PREFIX.length()), value);
+            }
+        }
+
+        // 一次往返取回全部PFCOUNT：当天、各小时、各省份
+        List<Integer> hours = new ArrayList<>(hourPv.keySet());
+        List<String> provinces = new ArrayList<>(provincePv.keySet());
+        List<Object> counts = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForHyperLogLog().size(CacheConstants.buildVisitUvKey(date));
+                for (Integer hour : hours) {
+                    ops.opsForHyperLogLog().size(CacheConstants.buildHourlyVisitUvKey(date, hour));
+                }
+                for (String province : provinces) {
+                    ops.opsForHyperLogLog().size(CacheConstants.buildProvinceVisitUvKey(date, province));
+                }
+                return null;
+            }
+        });
+
+        Map<Integer, Long> hourUv = new HashMap<>();
+        for (int i = 0; i < hours.size(); i++) {
+            hourUv.put(hours.get(i), toLong(counts.get(1 + i)));
+        }
+        Map<String, Long> provinceUv = new HashMap<>();
+        for (int i = 0; i < provinces.size(); i++) {
+            provinceUv.put(provinces.get(i), toLong(counts.get(1 + hours.size() + i)));
+        }
+        return buildStatistics(toLong(counts.get(0)), pv, hourPv, hourUv, provincePv, provinceUv, userPv);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static Map<String, Object> buildStatistics(long uv, long pv,
+                                                       Map<Integer, Long> hourPv, Map<Integer, Long> hourUv,
+                                                       Map<String, Long> provincePv, Map<String, Long> provinceUv,
+                                                       Map<String, Long> userPv) {
+        List<Map<String, Object>> usernameToday = new ArrayList<>();
+        userPv.forEach((userId, count) -> {
+            Map<String, Object> userInfo = new HashMap<>();
+            userInfo.put("userId", userId);
+            userInfo.put("visitCount", count);
+            usernameToday.add(userInfo);
+        });
+        usernameToday.sort((o1, o2) -> Long.compare((Long) o2.get("visitCount"), (Long) o1.get("visitCount")));
+
+        List<Map<String, Object>> provinceToday = new ArrayList<>();
+        provincePv.forEach((province, count) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("province", province);
+            map.put("num", provinceUv.getOrDefault(province, 0L));
+            map.put("pv", count);
+            provinceToday.add(map);
+        });
+        provinceToday.sort((o1, o2) -> Long.compare((Long) o2.get("num"), (Long) o1.get("num")));
+
+        List<Map<String, Object>> hourToday = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            Long count = hourPv.get(hour);
+            if (count != null) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("hour", hour);
+                map.put("unique_visits", hourUv.getOrDefault(hour, 0L));
+                map.put("total_visits", count);
+                hourToday.add(map);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("ip_count_today", uv);
+        result.put("pv_today", pv);
+        result.put("username_today", usernameToday);
+        result.put("province_today", provinceToday);
+        result.put("hour_today", hourToday);
+        return result;
+    }
+
+    /**
+     * 本实例当天的本地计数（Redis不可用时使用）
+     */
+    private static final class LocalCounters {
+
+        private final LocalDate date;
+
+        private final HyperLogLog day = new HyperLogLog(DAILY_PRECISION);
+
+        private final HyperLogLog[] hours = new HyperLogLog[24];
+
+        private final long[] hourPv = new long[24];
+
+        private final Map<String, HyperLogLog> provinces = new HashMap<>();
+
+        private final Map<String, Long> provincePv = new HashMap<>();
+
+        private final Map<String, Long> userPv = new HashMap<>();
+
+        private long pv;
+
+        private LocalCounters(LocalDate date) {
+            this.date = date;
+        }
+
+        private void add(VisitRecord record) {
+            String ip = record.getIp();
+            if (ip == null || ip.isEmpty()) {
+                return;
+            }
+            long hash = HyperLogLog.hash(ip);
+            int hour = record.getCreateTime().getHour();
+            pv++;
+            day.addHash(hash);
+            if (hours[hour] == null) {
+                hours[hour] = new HyperLogLog(DETAIL_PRECISION);
+            }
+            hours[hour].addHash(hash);
+            hourPv[hour]++;
+            if (record.getProvince() != null) {
+                provinces.computeIfAbsent(record.getProvince(), k -> new HyperLogLog(DETAIL_PRECISION)).addHash(hash);
+                provincePv.merge(record.getProvince(), 1L, Long::sum);
+            }
+            if (record.getUserId() != null) {
+                userPv.merge(record.getUserId().toString(), 1L, Long::sum);
+            }
+        }
+
+        private Map<String, Object> toStatistics() {
+            Map<Integer, Long> hourPvMap = new HashMap<>();
+            Map<Integer, Long> hourUv = new HashMap<>();
+            for (int hour = 0; hour < 24; hour++) {
+                if (hours[hour] != null) {
+                    hourPvMap.put(hour, hourPv[hour]);
+                    hourUv.put(hour, hours[hour].cardinality());
+                }
+            }
+            Map<String, Long> provinceUv = new HashMap<>();
+            provinces.forEach((province, sketch) -> provinceUv.put(province, sketch.cardinality()));
+            return buildStatistics(day.cardinality(), pv, hourPvMap, hourUv, provincePv, provinceUv, userPv);
+        }
+    }
+}
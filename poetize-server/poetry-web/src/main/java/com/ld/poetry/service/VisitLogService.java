@@ -0,0 +1,447 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.constants.CacheConstants;
+import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.dao.VisitLogOffsetMapper;
+import com.ld.poetry.entity.HistoryInfo;
+import com.ld.poetry.utils.visit.VisitRecord;
+import com.ld.poetry.utils.visit.VisitRingBuffer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 访问日志服务
+ * <p>
+ * 访问记录编码为定长二进制（{@link VisitRecord}）写入进程内环形缓冲区，
+ * 定时批量追加到Redis Stream（每个条目一批记录，条目ID即时间顺序位点）。
+ * 同步到数据库时从已同步位点开始分块读取，分批batchInsert，
+ * 并在同一事务中推进位点，保证每条记录只同步一次且内存占用与日志总量无关。
+ */
+@Slf4j
+@Service
+public class VisitLogService {
+
+    /**
+     * 环形缓冲区容量（条）
+     */
+    private static final int BUFFER_CAPACITY = 8192;
+
+    /**
+     * 每个Stream条目包含的最多记录数
+     */
+    private static final int FLUSH_BATCH_SIZE = 512;
+
+    /**
+     * 同步时每次读取的Stream条目数
+     */
+    private static final int SYNC_ENTRY_BATCH = 8;
+
+    /**
+     * 单条INSERT最多包含的记录数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 访问发生到写出Stream的最大延迟（毫秒），按时间范围读取时在结束时间之后多读取这段时间
+     * 说明：正常每秒写出一次，Redis短暂不可用时记录暂留在缓冲区中
+     */
+    private static final long FLUSH_LAG_MARGIN_MILLIS = 300_000;
+
+    /**
+     * 读取统计时每次读取的Stream条目数
+     */
+    private static final int READ_ENTRY_BATCH = 32;
+
+    /**
+     * 已同步的记录在Stream中至少保留的天数（今日、近24小时统计需要读取）
+     */
+    private static final int RETENTION_DAYS = 2;
+
+    /**
+     * 旧格式记录迁移的回溯天数（与旧列表的7天过期时间一致）
+     */
+    private static final int LEGACY_LOOKBACK_DAYS = 7;
+
+    /**
+     * 同步位点名称
+     */
+    private static final String OFFSET_NAME = "history_info";
+
+    private static final String INITIAL_ID = "0-0";
+
+    private static final byte[] STREAM_KEY = CacheConstants.VISIT_LOG_STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] FIELD_RECORDS = "r".getBytes(StandardCharsets.UTF_8);
+
+    private static final DateTimeFormatter LEGACY_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private HistoryInfoMapper historyInfoMapper;
+
+    @Autowired
+    private VisitLogOffsetMapper visitLogOffsetMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VisitRollupService visitRollupService;
+
+    private final VisitRingBuffer buffer = new VisitRingBuffer(BUFFER_CAPACITY);
+
+    // 保证同一时间只有一个写出任务（环形缓冲区的唯一读取方）
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 保证本实例同一时间只有一个同步任务，跨实例由位点的比较更新保证
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // 缓冲区已满且Redis不可用时丢弃的记录数
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * 记录一次访问（只写入内存缓冲区，不访问Redis）
+     */
+    public void append(String ip, Integer userId, String nation, String province, String city) {
+        VisitRecord record = new VisitRecord(System.currentTimeMillis(), userId, ip, nation, province, city);
+        if (buffer.offer(record)) {
+            return;
+        }
+        // 缓冲区已满，尝试立即写出后重试
+        flush();
+        if (!buffer.offer(record)) {
+            droppedCount.increment();
+            log.warn("访问日志缓冲区已满，丢弃访问记录: ip={}, 累计丢弃: {}", ip, droppedCount.sum());
+        }
+    }
+
+    /**
+     * 批量记录访问（一次写入内存缓冲区）
+     */
+    public void appendAll(List<VisitRecord> records) {
+        int written = buffer.offerAll(records);
+        if (written < records.size()) {
+            flush();
+            written += buffer.offerAll(records.subList(written, records.size()));
+        }
+        if (written < records.size()) {
+            droppedCount.add(records.size() - written);
+            log.warn("访问日志缓冲区已满，丢弃访问记录{}条, 累计丢弃: {}", records.size() - written, droppedCount.sum());
+        }
+    }
+
+    /**
+     * 只写入内存缓冲区，不触发写出，缓冲区满时丢弃（供请求线程调用，不访问Redis）
+     */
+    public void offerAll(List<VisitRecord> records) {
+        int written = buffer.offerAll(records);
+        if (written < records.size()) {
+            droppedCount.add(records.size() - written);
+        }
+    }
+
+    /**
+     * 定时将缓冲区中的记录批量追加到Redis Stream
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            while (buffer.size() > 0) {
+                byte[] batch = buffer.peek(FLUSH_BATCH_SIZE);
+                try {
+                    appendEntry(batch);
+                } catch (Exception e) {
+                    // 写出失败，记录留在缓冲区等待下一轮
+                    log.error("访问日志写入Redis失败，缓冲记录数: {}", buffer.size(), e);
+                    return;
+                }
+                buffer.skip(batch.length / VisitRecord.SIZE);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭前写出缓冲区中的记录
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 按时间顺序遍历指定时间段内的访问记录（包含尚未同步到数据库的记录）
+     *
+     * @param from     开始时间（包含）
+     * @param to       结束时间（不包含），为null时读取到最新
+     * @param consumer 记录处理
+     */
+    public void forEach(LocalDateTime from, LocalDateTime to, Consumer<VisitRecord> consumer) {
+        long fromMillis = toMillis(from);
+        long toMillis = to != null ? toMillis(to) : Long.MAX_VALUE;
+        String startId = fromMillis + "-0";
+        while (true) {
+            List<ByteRecord> entries = range(startId, READ_ENTRY_BATCH);
+            for (ByteRecord entry : entries) {
+                byte[] data = recordsOf(entry);
+                for (int offset = 0; offset + VisitRecord.SIZE <= data.length; offset += VisitRecord.SIZE) {
+                    VisitRecord record = VisitRecord.readFrom(data, offset);
+                    // 条目ID是写出时间，迁移的旧记录可能早于条目时间，以记录自身时间为准
+                    if (record.getTimestamp() >= fromMillis && record.getTimestamp() < toMillis) {
+                        consumer.accept(record);
+                    }
+                }
+            }
+            if (entries.size() < READ_ENTRY_BATCH) {
+                return;
+            }
+            RecordId lastId = entries.get(entries.size() - 1).getId();
+            // 条目ID是写出时间，结束时间之前的访问可能在结束时间之后才写出，多读取一段写出延迟
+            if (toMillis != Long.MAX_VALUE && lastId.getTimestamp() >= toMillis + FLUSH_LAG_MARGIN_MILLIS) {
+                return;
+            }
+            startId = nextId(lastId.getValue());
+        }
+    }
+
+    /**
+     * 将已同步位点之后的访问日志写入数据库
+     *
+     * @return 本次写入的记录数
+     */
+    public int syncToDatabase() {
+        if (!syncLock.tryLock()) {
+            log.info("访问日志同步正在进行，跳过本次同步");
+            return 0;
+        }
+        int total = 0;
+        try {
+            flush();
+            importLegacyRecords();
+
+            visitLogOffsetMapper.initOffset(OFFSET_NAME, INITIAL_ID);
+            String offset = visitLogOffsetMapper.getOffset(OFFSET_NAME);
+            while (true) {
+                List<ByteRecord> entries = range(nextId(offset), SYNC_ENTRY_BATCH);
+                if (entries.isEmpty()) {
+                    break;
+                }
+                List<HistoryInfo> rows = new ArrayList<>();
+                for (ByteRecord entry : entries) {
+                    byte[] data = recordsOf(entry);
+                    for (int i = 0; i + VisitRecord.SIZE <= data.length; i += VisitRecord.SIZE) {
+                        rows.add(toHistoryInfo(VisitRecord.readFrom(data, i)));
+                    }
+                }
+                String fromId = offset;
+                String toId = entries.get(entries.size() - 1).getId().getValue();
+                Integer inserted = transactionTemplate.execute(status -> {
+                    int count = 0;
+                    for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE) {
+                        count += historyInfoMapper.batchInsert(rows.subList(i, Math.min(i + INSERT_BATCH_SIZE, rows.size())));
+                    }
+                    if (visitLogOffsetMapper.advanceOffset(OFFSET_NAME, fromId, toId) != 1) {
+                        status.setRollbackOnly();
+                        return -1;
+                    }
+                    return count;
+                });
+                if (inserted == null || inserted < 0) {
+                    log.warn("访问日志同步位点已被其他实例推进，停止本次同步: {}", fromId);
+                    break;
+                }
+                total += inserted;
+                offset = toId;
+                if (entries.size() < SYNC_ENTRY_BATCH) {
+                    break;
+                }
+            }
+
+            trim(offset);
+            log.info("访问日志同步完成: 写入{}条, 位点: {}", total, offset);
+
+            // 新写入的记录计入访问统计汇总
+            visitRollupService.rollup();
+        } catch (Exception e) {
+            log.error("访问日志同步失败，已写入{}条", total, e);
+        } finally {
+            syncLock.unlock();
+        }
+        return total;
+    }
+
+    /**
+     * 缓冲区中尚未写出的记录数
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * 缓冲区已满时丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 将旧格式（每日JSON列表）中尚未同步的记录迁移到访问日志，迁移后删除旧列表
+     */
+    @SuppressWarnings("unchecked")
+    private void importLegacyRecords() {
+        LocalDate today = LocalDate.now();
+        for (int days = LEGACY_LOOKBACK_DAYS; days >= 0; days--) {
+            String key = CacheConstants.buildDailyVisitRecordsKey(today.minusDays(days).toString());
+            String importingKey = key + ":importing";
+            try {
+                // 先改名，多个实例同时迁移时只有一个能成功
+                if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))
+                        || !Boolean.TRUE.equals(redisTemplate.renameIfAbsent(key, importingKey))) {
+                    continue;
+                }
+                Long size = redisTemplate.opsForList().size(importingKey);
+                if (size == null) {
+                    size = 0L;
+                }
+                int imported = 0;
+                for (long start = 0; start < size; start += FLUSH_BATCH_SIZE) {
+                    List<Object> page = redisTemplate.opsForList().range(importingKey, start, start + FLUSH_BATCH_SIZE - 1);
+                    if (page == null || page.isEmpty()) {
+                        break;
+                    }
+                    byte[] batch = new byte[page.size() * VisitRecord.SIZE];
+                    int count = 0;
+                    for (Object json : page) {
+                        try {
+                            Map<String, Object> legacy = com.alibaba.fastjson.JSON.parseObject(json.toString(), Map.class);
+                            if (Boolean.TRUE.equals(legacy.get("synced"))) {
+                                continue;
+                            }
+                            fromLegacy(legacy).writeTo(batch, count++ * VisitRecord.SIZE);
+                        } catch (Exception e) {
+                            log.warn("解析旧格式访问记录失败: {}", json, e);
+                        }
+                    }
+                    if (count > 0) {
+                        appendEntry(Arrays.copyOf(batch, count * VisitRecord.SIZE));
+                        imported += count;
+                    }
+                }
+                redisTemplate.delete(importingKey);
+                log.info("已将旧格式访问记录迁移到访问日志: key={}, 迁移{}条", key, imported);
+            } catch (Exception e) {
+                log.error("迁移旧格式访问记录失败: key={}", key, e);
+            }
+        }
+    }
+
+    private VisitRecord fromLegacy(Map<String, Object> legacy) {
+        Object userId = legacy.get("userId");
+        Object createTime = legacy.get("createTime");
+        long timestamp = createTime != null
+                ? toMillis(LocalDateTime.parse(createTime.toString(), LEGACY_TIME_FORMATTER))
+                : System.currentTimeMillis();
+        return new VisitRecord(timestamp,
+                userId != null ? Integer.valueOf(userId.toString()) : null,
+                (String) legacy.get("ip"),
+                (String) legacy.get("nation"),
+                (String) legacy.get("province"),
+                (String) legacy.get("city"));
+    }
+
+    private HistoryInfo toHistoryInfo(VisitRecord record) {
+        HistoryInfo historyInfo = new HistoryInfo();
+        historyInfo.setIp(record.getIp() != null ? record.getIp() : "unknown");
+        historyInfo.setUserId(record.getUserId());
+        historyInfo.setNation(record.getNation());
+        historyInfo.setProvince(record.getProvince());
+        historyInfo.setCity(record.getCity());
+        historyInfo.setCreateTime(record.getCreateTime());
+        return historyInfo;
+    }
+
+    private void appendEntry(byte[] records) {
+        ByteRecord entry = StreamRecords.rawBytes(Collections.singletonMap(FIELD_RECORDS, records)).withStreamKey(STREAM_KEY);
+        redisTemplate.execute((RedisCallback<RecordId>) connection -> connection.streamCommands().xAdd(entry));
+    }
+
+    private List<ByteRecord> range(String startId, int count) {
+        List<ByteRecord> entries = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRange(STREAM_KEY,
+                        Range.rightUnbounded(Range.Bound.inclusive(startId)),
+                        Limit.limit().count(count)));
+        return entries != null ? entries : Collections.emptyList();
+    }
+
+    /**
+     * 删除已同步且超过保留期的条目（MINID近似裁剪），未同步的条目不会被删除
+     */
+    private void trim(String syncedId) {
+        long retentionMillis = toMillis(LocalDate.now().minusDays(RETENTION_DAYS - 1).atStartOfDay());
+        long syncedMillis = Long.parseLong(syncedId.substring(0, syncedId.indexOf('-')));
+        long minMillis = Math.min(syncedMillis, retentionMillis);
+        if (minMillis <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("XTRIM", STREAM_KEY,
+                    "MINID".getBytes(StandardCharsets.UTF_8),
+                    "~".getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(minMillis).getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("裁剪访问日志失败: {}", e.getMessage());
+        }
+    }
+
+    private static byte[] recordsOf(ByteRecord entry) {
+        for (Map.Entry<byte[], byte[]> field : entry.getValue().entrySet()) {
+            if (Arrays.equals(field.getKey(), FIELD_RECORDS)) {
+                return field.getValue();
+            }
+        }
+        return new byte[0];
+    }
+
+    /**
+     * 紧随给定条目ID之后的最小ID
+     */
+    private static String nextId(String id) {
+        int dash = id.indexOf('-');
+        return id.substring(0, dash) + "-" + (Long.parseLong(id.substring(dash + 1)) + 1);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,189 @@
+package com.ld.poetry.service;
+
+import com.ld.poetry.utils.ip.Region;
+import com.ld.poetry.utils.visit.MpscBoundedQueue;
+import com.ld.poetry.utils.visit.VisitRecord;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 页面访问记录器
+ * <p>
+ * 请求线程只把 (ip, userId, 时间) 放入有界无锁队列后立即返回；
+ * 后台线程批量取出，通过 {@link IpRegionService} 解析IP地理位置，再一次性写入访问日志和今日实时计数。
+ * 队列满时按配置的策略处理：drop 丢弃并计数，caller-runs 由请求线程自行解析后写入内存缓冲（不访问Redis），由后台线程随下一批写出。
+ */
+@Slf4j
+@Service
+public class VisitRecorder {
+
+    /**
+     * 消费线程每批最多处理的记录数
+     */
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    /**
+     * 队列为空时消费线程的休眠时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Autowired
+    private VisitLogService visitLogService;
+
+    @Autowired
+    private VisitCounterService visitCounterService;
+
+    @Autowired
+    private IpRegionService ipRegionService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${poetize.visit.queue-capacity:16384}")
+    private int queueCapacity;
+
+    @Value("${poetize.visit.overflow-policy:drop}")
+    private String overflowPolicy;
+
+    private MpscBoundedQueue<PendingVisit> queue;
+
+    private boolean callerRunsOnOverflow;
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder recordedCount = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread consumer;
+
+    @PostConstruct
+    public void init() {
+        queue = new MpscBoundedQueue<>(queueCapacity);
+        callerRunsOnOverflow = "caller-runs".equalsIgnoreCase(overflowPolicy);
+        running = true;
+        consumer = new Thread(this::consume, "visit-recorder");
+        consumer.setDaemon(true);
+        consumer.start();
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("visit.recorder.queue.size", queue, MpscBoundedQueue::size).register(registry);
+            FunctionCounter.builder("visit.recorder.dropped", droppedCount, LongAdder::sum).register(registry);
+            FunctionCounter.builder("visit.recorder.recorded", recordedCount, LongAdder::sum).register(registry);
+        }
+        log.info("访问记录器已启动，队列容量: {}, 溢出策略: {}", queue.capacity(), callerRunsOnOverflow ? "caller-runs" : "drop");
+    }
+
+    /**
+     * 记录一次页面访问，不阻塞调用方
+     */
+    public void record(String ip, Integer userId) {
+        PendingVisit visit = new PendingVisit(ip, userId, System.currentTimeMillis());
+        if (queue.offer(visit)) {
+            return;
+        }
+        if (callerRunsOnOverflow) {
+            List<VisitRecord> records = new ArrayList<>(1);
+            records.add(resolve(visit));
+            visitLogService.offerAll(records);
+            visitCounterService.recordDeferred(records);
+            recordedCount.increment();
+            return;
+        }
+        droppedCount.increment();
+        long dropped = droppedCount.sum();
+        if ((dropped & 1023) == 1) {
+            log.warn("访问记录队列已满，丢弃访问记录，累计丢弃: {}", dropped);
+        }
+    }
+
+    /**
+     * 因队列满而丢弃的访问记录数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 等待处理的访问记录数
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void consume() {
+        List<PendingVisit> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        List<VisitRecord> records = new ArrayList<>(DRAIN_BATCH_SIZE);
+        while (true) {
+            batch.clear();
+            if (queue.drainTo(batch, DRAIN_BATCH_SIZE) == 0) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                records.clear();
+                for (PendingVisit visit : batch) {
+                    records.add(resolve(visit));
+                }
+                visitLogService.appendAll(records);
+                visitCounterService.record(records);
+                recordedCount.add(records.size());
+            } catch (Exception e) {
+                log.error("处理访问记录失败，丢弃{}条", batch.size(), e);
+                droppedCount.add(batch.size());
+            }
+        }
+    }
+
+    private VisitRecord resolve(PendingVisit visit) {
+        Region region = ipRegionService.search(visit.ip);
+        return new VisitRecord(visit.timestamp, visit.userId, visit.ip,
+                region.getCountry(), region.getProvince(), region.getCity());
+    }
+
+    private static final class PendingVisit {
+
+        private final String ip;
+
+        private final Integer userId;
+
+        private final long timestamp;
+
+        private PendingVisit(String ip, Integer userId, long timestamp) {
+            this.ip = ip;
+            this.userId = userId;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.ld.poetry.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.dao.VisitRollupMapper;
+import com.ld.poetry.entity.HistoryInfo;
+import com.ld.poetry.vo.VisitRetentionReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 访问明细保留期清理
+ * <p>
+ * history_info 中早于保留期的明细先确认已计入访问统计汇总，再按ID顺序分块删除（每块独立提交，避免长事务）；
+ * 可选在删除前导出为按月分区的 gzip CSV 文件（每块追加为一个gzip成员，整个文件仍可直接解压）。
+ * 同时清除保留期之前按小时、按省份汇总行的草图，只保留访问次数和独立IP数。
+ * 某块归档后、删除前中断时，该块下次会再次归档，导入归档时按id去重即可。
+ * 默认不清理，需配置 poetize.visit.retention-days 开启。
+ */
+@Slf4j
+@Service
+public class VisitRetentionService {
+
+    /**
+     * 每块读取和删除的明细行数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * 每次清除草图的汇总行数
+     */
+    private static final int COMPACT_CHUNK_SIZE = 500;
+
+    private static final String ARCHIVE_HEADER = "id,user_id,ip,nation,province,city,create_time";
+
+    private static final DateTimeFormatter ARCHIVE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Value("${poetize.visit.retention-days:0}")
+    private int retentionDays;
+
+    @Value("${poetize.visit.archive-enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${poetize.visit.archive-dir:./data/visit-archive}")
+    private String archiveDir;
+
+    @Autowired
+    private HistoryInfoMapper historyInfoMapper;
+
+    @Autowired
+    private VisitRollupMapper visitRollupMapper;
+
+    @Autowired
+    private VisitRollupService visitRollupService;
+
+    private final ReentrantLock purgeLock = new ReentrantLock();
+
+    private volatile VisitRetentionReport lastReport;
+
+    /**
+     * 每天凌晨清理过期明细（在0点的同步和统计任务之后）
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void scheduledPurge() {
+        if (retentionDays > 0) {
+            purge();
+        }
+    }
+
+    /**
+     * 清理保留期之前的访问明细
+     *
+     * @return 清理报告
+     */
+    public VisitRetentionReport purge() {
+        VisitRetentionReport report = new VisitRetentionReport();
+        report.setStartTime(System.currentTimeMillis());
+        if (retentionDays <= 0) {
+            report.setMessage("未启用访问明细保留期清理");
+            return report;
+        }
+        if (!purgeLock.tryLock()) {
+            report.setMessage("访问明细清理正在进行");
+            return report;
+        }
+        long start = System.nanoTime();
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        report.setCutoffDate(cutoff.toString());
+        try {
+            // 只删除已计入汇总的明细
+            visitRollupService.rollup();
+            int maxId = visitRollupService.getRolledUpId();
+            purgeRows(cutoff.atStartOfDay(), maxId, report);
+            compactSketches(cutoff, report);
+
+            Long avgRowLength = historyInfoMapper.getAvgRowLength();
+            if (avgRowLength != null) {
+                report.setBytesReclaimed(report.getRowsDeleted() * avgRowLength);
+            }
+            report.setCompleted(true);
+        } catch (Exception e) {
+            log.error("访问明细清理失败，已删除{}条", report.getRowsDeleted(), e);
+            report.setMessage(e.getMessage());
+        } finally {
+            report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+            lastReport = report;
+            purgeLock.unlock();
+        }
+        log.info("访问明细清理完成: 边界={}, 扫描{}条, 删除{}条, 归档{}条/{}字节, 估算释放{}字节, 清除草图{}行, 耗时{}ms",
+                report.getCutoffDate(), report.getRowsScanned(), report.getRowsDeleted(), report.getRowsArchived(),
+                report.getArchiveBytes(), report.getBytesReclaimed(), report.getSketchesCompacted(), report.getDurationMillis());
+        return report;
+    }
+
+    /**
+     * 最近一次清理报告
+     */
+    public VisitRetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    private void purgeRows(LocalDateTime cutoffTime, int maxId, VisitRetentionReport report) throws IOException {
+        int cursor = 0;
+        while (true) {
+            List<HistoryInfo> chunk = historyInfoMapper.listByIdRange(cursor, maxId, CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            cursor = chunk.get(chunk.size() - 1).getId();
+            report.setRowsScanned(report.getRowsScanned() + chunk.size());
+
+            List<HistoryInfo> expired = new ArrayList<>(chunk.size());
+            for (HistoryInfo row : chunk) {
+                if (row.getCreateTime() != null && row.getCreateTime().isBefore(cutoffTime)) {
+                    expired.add(row);
+                }
+            }
+            if (!expired.isEmpty()) {
+                if (archiveEnabled) {
+                    archive(expired, report);
+                }
+                List<Integer> ids = new ArrayList<>(expired.size());
+                for (HistoryInfo row : expired) {
+                    ids.add(row.getId());
+                }
+                int deleted = historyInfoMapper.delete(new LambdaQueryWrapper<HistoryInfo>().in(HistoryInfo::getId, ids));
+                report.setRowsDeleted(report.getRowsDeleted() + deleted);
+            }
+            // ID与写入时间基本同序，块内出现保留期内的记录说明已越过边界
+            if (expired.size() < chunk.size()) {
+                return;
+            }
+        }
+    }
+
+    private void compactSketches(LocalDate cutoff, VisitRetentionReport report) {
+        int cleared;
+        do {
+            cleared = visitRollupMapper.clearHourlySketches(cutoff, COMPACT_CHUNK_SIZE);
+            report.setSketchesCompacted(report.getSketchesCompacted() + cleared);
+        } while (cleared == COMPACT_CHUNK_SIZE);
+        do {
+            cleared = visitRollupMapper.clearProvinceSketches(cutoff.toString(), COMPACT_CHUNK_SIZE);
+            report.setSketchesCompacted(report.getSketchesCompacted() + cleared);
+        } while (cleared == COMPACT_CHUNK_SIZE);
+    }
+
+    /**
+     * 按月追加到归档文件 history_info-yyyy-MM.csv.gz
+     */
+    private void archive(List<HistoryInfo> rows, VisitRetentionReport report) throws IOException {
+        Map<YearMonth, List<HistoryInfo>> partitions = new TreeMap<>();
+        for (HistoryInfo row : rows) {
+            partitions.computeIfAbsent(YearMonth.from(row.getCreateTime()), k -> new ArrayList<>()).add(row);
+        }
+        Path dir = Paths.get(archiveDir);
+        Files.createDirectories(dir);
+        for (Map.Entry<YearMonth, List<HistoryInfo>> partition : partitions.entrySet()) {
+            Path file = dir.resolve("history_info-" + partition.getKey() + ".csv.gz");
+            boolean exists = Files.exists(file);
+            long before = exists ? Files.size(file) : 0;
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new FileOutputStream(file.toFile(), true)), StandardCharsets.UTF_8))) {
+                if (!exists) {
+                    writer.write(ARCHIVE_HEADER);
+                    writer.newLine();
+                }
+                for (HistoryInfo row : partition.getValue()) {
+                    writer.write(toCsvLine(row));
+                    writer.newLine();
+                }
+            }
+            report.setArchiveBytes(report.getArchiveBytes() + Files.size(file) - before);
+            report.setRowsArchived(report.getRowsArchived() + partition.getValue().size());
+            if (!report.getArchiveFiles().contains(file.toString())) {
+                report.getArchiveFiles().add(file.toString());
+            }
+        }
+    }
+
+    private static String toCsvLine(HistoryInfo row) {
+        return row.getId() + ","
+                + (row.getUserId() != null ? row.getUserId() : "") + ","
+                + csv(row.getIp()) + ","
+                + csv(row.getNation()) + ","
+                + csv(row.getProvince()) + ","
+                + csv(row.getCity()) + ","
+                + row.getCreateTime().format(ARCHIVE_TIME_FORMATTER);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,338 @@
+package com.ld.poetry.service;
+
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.ld.poetry.constants.CommonConst;
+import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.dao.VisitLogOffsetMapper;
+import com.ld.poetry.dao.VisitRollupMapper;
+import com.ld.poetry.entity.HistoryInfo;
+import com.ld.poetry.entity.VisitRollup;
+import com.ld.poetry.utils.visit.HyperLogLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 访问统计汇总服务
+ * <p>
+ * 按 history_info 自增ID的位点增量汇总访问记录：每日/每小时/每省份的访问次数和独立IP草图（HyperLogLog），
+ * 以及IP累计访问次数、用户每日访问次数。汇总与位点在同一事务中提交，每条记录只计入一次；
+ * 首次运行时从头汇总已有记录。
+ * 统计查询只读取汇总表，多天的独立IP数通过合并草图得到，不再对 history_info 做 count(distinct ip)。
+ */
+@Slf4j
+@Service
+public class VisitRollupService {
+
+    /**
+     * 累计统计的周期名称
+     */
+    public static final String TOTAL_PERIOD = "total";
+
+    /**
+     * 每次汇总读取的访问记录数
+     */
+    private static final int ROLLUP_BATCH_SIZE = 5000;
+
+    /**
+     * 按天（含累计）草图精度，误差约0.81%
+     */
+    private static final int DAILY_PRECISION = 14;
+
+    /**
+     * 按小时、按省份草图精度，误差约1.63%
+     */
+    private static final int DETAIL_PRECISION = 12;
+
+    /**
+     * 排行榜条数
+     */
+    private static final int TOP_LIMIT = 10;
+
+    /**
+     * 汇总位点名称（history_info 已汇总到的ID）
+     */
+    private static final String OFFSET_NAME = "visit_rollup";
+
+    @Autowired
+    private HistoryInfoMapper historyInfoMapper;
+
+    @Autowired
+    private VisitRollupMapper visitRollupMapper;
+
+    @Autowired
+    private VisitLogOffsetMapper visitLogOffsetMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock rollupLock = new ReentrantLock();
+
+    /**
+     * 定时汇总，兜底处理同步后未及时汇总的记录以及首次运行时的历史记录
+     */
+    @Scheduled(initialDelay = 60_000, fixedDelay = 600_000)
+    public void scheduledRollup() {
+        rollup();
+    }
+
+    /**
+     * 汇总位点之后的访问记录
+     *
+     * @return 本次汇总的记录数
+     */
+    public int rollup() {
+        if (!rollupLock.tryLock()) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            visitLogOffsetMapper.initOffset(OFFSET_NAME, "0");
+            int lastId = Integer.parseInt(visitLogOffsetMapper.getOffset(OFFSET_NAME));
+            while (true) {
+                List<HistoryInfo> rows = new LambdaQueryChainWrapper<>(historyInfoMapper)
+                        .select(HistoryInfo::getId, HistoryInfo::getUserId, HistoryInfo::getIp,
+                                HistoryInfo::getNation, HistoryInfo::getProvince, HistoryInfo::getCreateTime)
+                        .gt(HistoryInfo::getId, lastId)
+                        .orderByAsc(HistoryInfo::getId)
+                        .last("limit " + ROLLUP_BATCH_SIZE)
+                        .list();
+                if (rows.isEmpty()) {
+                    break;
+                }
+                String fromId = String.valueOf(lastId);
+                String toId = String.valueOf(rows.get(rows.size() - 1).getId());
+                Boolean applied = transactionTemplate.execute(status -> {
+                    apply(rows);
+                    if (visitLogOffsetMapper.advanceOffset(OFFSET_NAME, fromId, toId) != 1) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(applied)) {
+                    log.warn("访问统计汇总位点已被其他实例推进，停止本次汇总: {}", fromId);
+                    break;
+                }
+                total += rows.size();
+                lastId = Integer.parseInt(toId);
+                if (rows.size() < ROLLUP_BATCH_SIZE) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("访问统计汇总完成: {}条, 位点: {}", total, lastId);
+            }
+        } catch (Exception e) {
+            log.error("访问统计汇总失败，已汇总{}条", total, e);
+        } finally {
+            rollupLock.unlock();
+        }
+        return total;
+    }
+
+    /**
+     * 已汇总到的 history_info ID，此ID及之前的记录已计入汇总
+     */
+    public int getRolledUpId() {
+        String offset = visitLogOffsetMapper.getOffset(OFFSET_NAME);
+        return offset != null ? Integer.parseInt(offset) : 0;
+    }
+
+    /**
+     * 生成访问统计缓存数据：省份排行、IP排行、累计独立IP数，以及昨日独立IP数和昨日各用户访问次数
+     */
+    public Map<String, Object> buildHistoryStatistics() {
+        String yesterday = LocalDate.now().minusDays(1).toString();
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put(CommonConst.IP_HISTORY_PROVINCE, visitRollupMapper.listTopProvinces(TOTAL_PERIOD, TOP_LIMIT));
+        statistics.put(CommonConst.IP_HISTORY_IP, visitRollupMapper.listTopIps(TOP_LIMIT));
+        statistics.put(CommonConst.IP_HISTORY_HOUR, visitRollupMapper.listUserVisits(LocalDate.parse(yesterday)));
+        statistics.put(CommonConst.IP_HISTORY_YESTERDAY_COUNT, getUniqueVisitors(yesterday));
+        statistics.put(CommonConst.IP_HISTORY_COUNT, getUniqueVisitors(TOTAL_PERIOD));
+        return statistics;
+    }
+
+    /**
+     * 指定日期（yyyy-MM-dd）或累计的独立IP数
+     */
+    public long getUniqueVisitors(String period) {
+        VisitRollup daily = visitRollupMapper.getDaily(period);
+        return daily != null && daily.getUv() != null ? daily.getUv() : 0L;
+    }
+
+    /**
+     * 日期范围内的每日访问统计（visit_date, unique_visits, total_visits）
+     */
+    public List<Map<String, Object>> getDailyStats(LocalDate from, LocalDate to) {
+        return visitRollupMapper.listDailyStats(from.toString(), to.toString());
+    }
+
+    /**
+     * 指定日期的每小时访问统计（stat_hour, unique_visits, total_visits）
+     */
+    public List<Map<String, Object>> getHourlyStats(LocalDate date) {
+        return visitRollupMapper.listHourlyStats(date);
+    }
+
+    /**
+     * 将一批访问记录计入汇总（需在事务中调用）
+     */
+    private void apply(List<HistoryInfo> rows) {
+        Map<String, Bucket> daily = new LinkedHashMap<>();
+        Map<String, Bucket> hourly = new LinkedHashMap<>();
+        Map<String, Bucket> province = new LinkedHashMap<>();
+        Map<String, VisitRollup> ips = new HashMap<>();
+        Map<String, VisitRollup> users = new HashMap<>();
+
+        for (HistoryInfo row : rows) {
+            if (!StringUtils.hasText(row.getIp()) || row.getCreateTime() == null) {
+                continue;
+            }
+            long hash = HyperLogLog.hash(row.getIp());
+            LocalDate date = row.getCreateTime().toLocalDate();
+            String period = date.toString();
+            int hour = row.getCreateTime().getHour();
+
+            bucket(daily, period, DAILY_PRECISION, r -> r.setPeriod(period)).add(hash);
+            bucket(daily, TOTAL_PERIOD, DAILY_PRECISION, r -> r.setPeriod(TOTAL_PERIOD)).add(hash);
+            bucket(hourly, period + "|" + hour, DETAIL_PRECISION, r -> {
+                r.setStatDate(date);
+                r.setStatHour(hour);
+            }).add(hash);
+            if (row.getNation() != null && row.getProvince() != null) {
+                for (String p : new String[]{period, TOTAL_PERIOD}) {
+                    bucket(province, p + "|" + row.getNation() + "|" + row.getProvince(), DETAIL_PRECISION, r -> {
+                        r.setPeriod(p);
+                        r.setNation(row.getNation());
+                        r.setProvince(row.getProvince());
+                    }).add(hash);
+                }
+            }
+
+            VisitRollup ip = ips.computeIfAbsent(row.getIp(), k -> {
+                VisitRollup r = new VisitRollup();
+                r.setIp(k);
+                r.setPv(0L);
+                return r;
+            });
+            ip.setPv(ip.getPv() + 1);
+            if (row.getUserId() != null) {
+                VisitRollup user = users.computeIfAbsent(period + "|" + row.getUserId(), k -> {
+                    VisitRollup r = new VisitRollup();
+                    r.setStatDate(date);
+                    r.setUserId(row.getUserId());
+                    r.setPv(0L);
+                    return r;
+                });
+                user.setPv(user.getPv() + 1);
+            }
+        }
+        if (daily.isEmpty()) {
+            return;
+        }
+
+        List<VisitRollup> existingDaily = visitRollupMapper.lockDaily(daily.keySet());
+        visitRollupMapper.upsertDaily(mergeBuckets(daily, existingDaily, VisitRollup::getPeriod));
+
+        List<LocalDate> dates = new ArrayList<>();
+        for (Bucket bucket : daily.values()) {
+            if (!TOTAL_PERIOD.equals(bucket.row.getPeriod())) {
+                dates.add(LocalDate.parse(bucket.row.getPeriod()));
+            }
+        }
+        List<VisitRollup> existingHourly = visitRollupMapper.lockHourly(dates);
+        visitRollupMapper.upsertHourly(mergeBuckets(hourly, existingHourly, r -> r.getStatDate() + "|" + r.getStatHour()));
+
+        if (!province.isEmpty()) {
+            List<String> periods = new ArrayList<>(daily.keySet());
+            List<VisitRollup> existingProvince = visitRollupMapper.lockProvince(periods);
+            visitRollupMapper.upsertProvince(mergeBuckets(province, existingProvince,
+                    r -> r.getPeriod() + "|" + r.getNation() + "|" + r.getProvince()));
+        }
+
+        List<VisitRollup> ipList = new ArrayList<>(ips.values());
+        for (int i = 0; i < ipList.size(); i += ROLLUP_BATCH_SIZE / 10) {
+            visitRollupMapper.incrementIp(ipList.subList(i, Math.min(i + ROLLUP_BATCH_SIZE / 10, ipList.size())));
+        }
+        if (!users.isEmpty()) {
+            visitRollupMapper.incrementUser(new ArrayList<>(users.values()));
+        }
+    }
+
+    /**
+     * 将本批草图与已有汇总行合并，生成待写入的汇总行
+     */
+    private static List<VisitRollup> mergeBuckets(Map<String, Bucket> buckets, List<VisitRollup> existing,
+                                                  Function<VisitRollup, String> keyOf) {
+        Map<String, VisitRollup> existingByKey = new HashMap<>();
+        for (VisitRollup row : existing) {
+            existingByKey.put(keyOf.apply(row), row);
+        }
+        List<VisitRollup> result = new ArrayList<>(buckets.size());
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long pv = bucket.pv;
+            VisitRollup old = existingByKey.get(entry.getKey());
+            if (old != null) {
+                pv += old.getPv() != null ? old.getPv() : 0;
+                if (old.getUvSketch() != null) {
+                    bucket.sketch.merge(HyperLogLog.fromBytes(old.getUvSketch()));
+                }
+            }
+            VisitRollup row = bucket.row;
+            row.setPv(pv);
+            row.setUv(bucket.sketch.cardinality());
+            row.setUvSketch(bucket.sketch.toBytes());
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key, int precision,
+                                 Consumer<VisitRollup> init) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            VisitRollup row = new VisitRollup();
+            init.accept(row);
+            bucket = new Bucket(row, new HyperLogLog(precision));
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * 一个汇总维度在本批记录中的访问次数和独立IP草图
+     */
+    private static final class Bucket {
+
+        private final VisitRollup row;
+
+        private final HyperLogLog sketch;
+
+        private long pv;
+
+        private Bucket(VisitRollup row, HyperLogLog sketch) {
+            this.row = row;
+            this.sketch = sketch;
+        }
+
+        private void add(long hash) {
+            sketch.addHash(hash);
+            pv++;
+        }
+    }
+}
@@ -16,10 +16,17 @@ import com.ld.poetry.entity.*;
 import com.ld.poetry.enums.CommentTypeEnum;
 import com.ld.poetry.enums.PoetryEnum;
 import com.ld.poetry.service.ArticleService;
+import com.ld.poetry.service.ArticleViewCounter;
 import com.ld.poetry.service.CacheService;
+import com.ld.poetry.service.HotArticleRankService;
 import com.ld.poetry.service.UserService;
 import com.ld.poetry.service.SysConfigService;
+import com.ld.poetry.service.TaxonomyService;
 import com.ld.poetry.utils.*;
+import com.ld.poetry.utils.cache.TaxonomySnapshot;
+import com.ld.poetry.utils.search.PlainText;
+import com.ld.poetry.utils.search.RegexGuard;
+import com.ld.poetry.utils.search.SearchHit;
 import com.ld.poetry.utils.mail.MailUtil;
 import com.ld.poetry.vo.ArticleVO;
 import com.ld.poetry.vo.BaseRequestVO;
@@ -48,8 +55,6 @@ import com.ld.poetry.utils.PrerenderClient;
 import com.ld.poetry.utils.SmartSummaryGenerator;
 import com.ld.poetry.service.SummaryService;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.StructuredTaskScope;
-import java.util.concurrent.StructuredTaskScope.Subtask;
 import com.ld.poetry.service.SeoService;
 import com.ld.poetry.event.ArticleSavedEvent;
 import org.springframework.context.ApplicationEventPublisher;
@@ -106,6 +111,15 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private TaxonomyService taxonomyService;
+
+    @Autowired
+    private HotArticleRankService hotArticleRankService;
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
+
     @Autowired
     private ApplicationEventPublisher eventPublisher;
     
@@ -583,7 +597,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
         }
         
         // ========== 步骤1：在短事务中更新文章 ==========
-        boolean updateResult = updateArticleInTransaction(updateChainWrapper);
+        boolean updateResult = updateArticleInTransaction(updateChainWrapper, articleVO.getArticleContent());
         if (!updateResult) {
             log.error("数据库更新失败");
             return PoetryResult.fail("更新文章失败");
@@ -662,16 +676,33 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
     public PoetryResult<Page> listArticle(BaseRequestVO baseRequestVO) {
         List<Integer> ids = null;
         List<List<Integer>> idList = null;
+        Map<Integer, SearchHit> searchHits = null;
         if (StringUtils.hasText(baseRequestVO.getArticleSearch())) {
-            idList = commonQuery.getArticleIds(baseRequestVO.getArticleSearch());
-            ids = idList.stream().flatMap(Collection::stream).collect(Collectors.toList());
+            // 优先使用全文索引，一次得到按相关度排序的文章ID、匹配语言和摘要偏移
+            searchHits = commonQuery.searchArticleHits(baseRequestVO.getArticleSearch());
+            if (searchHits != null) {
+                List<Integer> titleIds = new ArrayList<>();
+                List<Integer> contentIds = new ArrayList<>();
+                for (SearchHit hit : searchHits.values()) {
+                    if (hit.isTitleMatched()) {
+                        titleIds.add(hit.getArticleId());
+                    } else {
+                        contentIds.add(hit.getArticleId());
+                    }
+                }
+                idList = Arrays.asList(titleIds, contentIds);
+                ids = new ArrayList<>(searchHits.keySet());
+            } else {
+                idList = commonQuery.getArticleIds(baseRequestVO.getArticleSearch());
+                ids = idList.stream().flatMap(Collection::stream).collect(Collectors.toList());
+            }
             if (CollectionUtils.isEmpty(ids)) {
                 baseRequestVO.setRecords(new ArrayList<>());
                 return PoetryResult.success(baseRequestVO);
             }
         }
 
-        LambdaQueryChainWrapper<Article> lambdaQuery = lambdaQuery();
+        LambdaQueryChainWrapper<Article> lambdaQuery = listQuery();
         lambdaQuery.in(!CollectionUtils.isEmpty(ids), Article::getId, ids);
         lambdaQuery.like(StringUtils.hasText(baseRequestVO.getSearchKey()), Article::getArticleTitle, baseRequestVO.getSearchKey());
         lambdaQuery.eq(baseRequestVO.getRecommendStatus() != null && baseRequestVO.getRecommendStatus(), Article::getRecommendStatus, PoetryEnum.STATUS_ENABLE.getCode());
@@ -685,7 +716,12 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
             lambdaQuery.eq(Article::getSortId, baseRequestVO.getSortId());
         }
 
-        lambdaQuery.orderByDesc(Article::getCreateTime);
+        if (searchHits != null) {
+            // 全文索引结果按相关度排序
+            lambdaQuery.last("ORDER BY FIELD(id, " + ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")");
+        } else {
+            lambdaQuery.orderByDesc(Article::getCreateTime);
+        }
 
         Page<Article> page = new Page<>(baseRequestVO.getCurrent(), baseRequestVO.getSize());
         lambdaQuery.page(page);
@@ -696,12 +732,20 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
             List<ArticleVO> titles = new ArrayList<>();
             List<ArticleVO> contents = new ArrayList<>();
 
-            for (Article article : records) {
-                // 保存原始内容用于显示前的高亮处理
-                String originalContent = article.getArticleContent();
+            // 全文索引未就绪时回退为逐篇匹配，仅此时按本页文章ID加载正文
+            Map<Integer, String> pageContents = StringUtils.hasText(baseRequestVO.getArticleSearch()) && searchHits == null
+                    ? getArticleContents(records) : Collections.emptyMap();
+            useExcerpt(records);
+
+            // 整页批量组装，关联数据查询次数与页大小无关
+            List<ArticleVO> articleVOList = buildArticleVOList(records, false);
+            for (int i = 0; i < records.size(); i++) {
+                Article article = records.get(i);
+                // 保存原始内容用于显示前的高亮处理（全文索引命中时由命中结果携带）
+                String originalContent = pageContents.get(article.getId());
                 String originalTitle = article.getArticleTitle();
                 
-                ArticleVO articleVO = buildArticleVO(article, false);
+                ArticleVO articleVO = articleVOList.get(i);
                 
                 // 直接使用数据库中存储的摘要（仅在非搜索场景下设置）
                 if (!StringUtils.hasText(baseRequestVO.getArticleSearch()) && StringUtils.hasText(article.getSummary())) {
@@ -724,23 +768,37 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                     String highlightStart = "<span class='search-highlight' style='color: var(--lightGreen); font-weight: bold;'>";
                     String highlightEnd = "</span>";
                     
-                    // 检查原文是否匹配
-                    boolean originalTitleMatches = false;
-                    boolean originalContentMatches = false;
+                    SearchHit hit = searchHits != null ? searchHits.get(articleVO.getId()) : null;
+                    boolean originalMatches;
+                    String matchedLanguage;
                     
-                    if (isRegexSearch) {
-                        Pattern pattern = Pattern.compile(actualSearchText, Pattern.CASE_INSENSITIVE);
-                        originalTitleMatches = originalTitle != null && pattern.matcher(originalTitle).find();
-                        originalContentMatches = originalContent != null && pattern.matcher(originalContent).find();
+                    if (hit != null) {
+                        // 全文索引已给出原文/翻译命中情况，无需再查询翻译表
+                        originalMatches = hit.isOriginalMatched();
+                        matchedLanguage = hit.getMatchedLanguage();
                     } else {
-                        originalTitleMatches = originalTitle != null && originalTitle.toLowerCase().contains(searchText.toLowerCase());
-                        originalContentMatches = originalContent != null && originalContent.toLowerCase().contains(searchText.toLowerCase());
+                        // 检查原文是否匹配
+                        boolean originalTitleMatches = false;
+                        boolean originalContentMatches = false;
+                        
+                        if (isRegexSearch) {
+                            try {
+                                Pattern pattern = RegexGuard.compile(actualSearchText);
+                                originalTitleMatches = originalTitle != null && RegexGuard.matcher(pattern, originalTitle).find();
+                                originalContentMatches = originalContent != null && RegexGuard.matcher(pattern, originalContent).find();
+                            } catch (RegexGuard.BudgetExceededException | java.util.regex.PatternSyntaxException e) {
+                                log.warn("正则匹配失败，文章ID: {}, 表达式: {}, 错误: {}", articleVO.getId(), actualSearchText, e.getMessage());
+                            }
+                        } else {
+                            originalTitleMatches = originalTitle != null && originalTitle.toLowerCase().contains(searchText.toLowerCase());
+                            originalContentMatches = originalContent != null && originalContent.toLowerCase().contains(searchText.toLowerCase());
+                        }
+                        
+                        originalMatches = originalTitleMatches || originalContentMatches;
+                        
+                        // 检查翻译是否匹配
+                        matchedLanguage = commonQuery.getMatchedTranslationLanguage(articleVO.getId(), searchText);
                     }
-                    
-                    boolean originalMatches = originalTitleMatches || originalContentMatches;
-                    
-                    // 检查翻译是否匹配
-                    String matchedLanguage = commonQuery.getMatchedTranslationLanguage(articleVO.getId(), searchText);
                     boolean translationMatches = matchedLanguage != null;
                     
                     if (originalMatches && translationMatches) {
@@ -758,7 +816,15 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                         
                     } else if (translationMatches) {
                         // 只有翻译匹配
-                        Map<String, String> matchedTranslation = commonQuery.getMatchedTranslation(articleVO.getId(), searchText, matchedLanguage);
+                        Map<String, String> matchedTranslation;
+                        if (hit != null) {
+                            // 翻译文本由索引直接返回
+                            matchedTranslation = new HashMap<>();
+                            matchedTranslation.put("title", hit.getTranslationTitle());
+                            matchedTranslation.put("content", hit.getTranslationContent());
+                        } else {
+                            matchedTranslation = commonQuery.getMatchedTranslation(articleVO.getId(), searchText, matchedLanguage);
+                        }
                         if (matchedTranslation != null) {
                             articleVO.setIsTranslationMatch(true);
                             articleVO.setMatchedLanguage(matchedLanguage);
@@ -778,7 +844,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                             }
                             if (translatedContent != null) {
                                 // 智能截取包含搜索关键词的内容片段
-                                String contentSnippet = getContentSnippetWithKeyword(translatedContent, searchText, CommonConst.SUMMARY);
+                                String contentSnippet = getContentSnippet(translatedContent, hit, searchText, CommonConst.SUMMARY);
                                 String highlightedContent;
                                 if (isRegexSearch) {
                                     highlightedContent = StringUtil.highlightTextWithRegex(contentSnippet, actualSearchText, highlightStart, highlightEnd);
@@ -812,7 +878,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                         // 内容匹配的文章
                         if (!Boolean.TRUE.equals(articleVO.getIsTranslationMatch())) {
                             // 智能截取包含搜索关键词的原文内容片段（使用原始内容）
-                            String contentSnippet = getContentSnippetWithKeyword(originalContent, searchText, CommonConst.SUMMARY);
+                            String contentSnippet = getContentSnippet(originalContent, hit, searchText, CommonConst.SUMMARY);
                             String highlightedContent;
                             if (isRegexSearch) {
                                 highlightedContent = StringUtil.highlightTextWithRegex(contentSnippet, actualSearchText, highlightStart, highlightEnd);
@@ -827,12 +893,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                         contents.add(articleVO);
                     }
                 } else {
-                    // 非搜索情况下，对内容进行默认截断处理
-                    if (originalContent.length() > CommonConst.SUMMARY) {
-                        String truncatedContent = originalContent.substring(0, CommonConst.SUMMARY)
-                            .replace("`", "").replace("#", "").replace(">", "") + "...";
-                        articleVO.setArticleContent(truncatedContent);
-                    }
+                    // 非搜索情况下，内容即为保存时生成的摘录
                     articles.add(articleVO);
                 }
                 
@@ -876,9 +937,10 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
             return PoetryResult.fail("密码错误" + (StringUtils.hasText(article.getTips()) ? article.getTips() : "请联系作者获取密码"));
         }
         
-        // 只有当需要增加浏览量时才调用updateViewCount
+        // 只有当需要增加浏览量时才计数（写回计数器，定时批量落库）
         if (incrementViewCount) {
-            articleMapper.updateViewCount(id);
+            articleViewCounter.increment(id);
+            hotArticleRankService.onArticleViewed(article, articleViewCounter.merge(id, article.getViewCount()));
         }
         
         article.setPassword(null);
@@ -898,8 +960,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
 
     @Override
     public PoetryResult<Page> listAdminArticle(BaseRequestVO baseRequestVO, Boolean isBoss) {
-        LambdaQueryChainWrapper<Article> lambdaQuery = lambdaQuery();
-        lambdaQuery.select(Article.class, a -> !a.getColumn().equals("article_content"));
+        LambdaQueryChainWrapper<Article> lambdaQuery = listQuery();
         if (!isBoss) {
             lambdaQuery.eq(Article::getUserId, PoetryUtil.getUserId());
         } else {
@@ -927,12 +988,11 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
 
         List<Article> records = page.getRecords();
         if (!CollectionUtils.isEmpty(records)) {
-            List<ArticleVO> collect = records.stream().map(article -> {
+            records.forEach(article -> {
                 article.setPassword(null);
-                ArticleVO articleVO = buildArticleVO(article, true);
-                return articleVO;
-            }).collect(Collectors.toList());
-            baseRequestVO.setRecords(collect);
+                article.setExcerpt(null);
+            });
+            baseRequestVO.setRecords(buildArticleVOList(records, true));
         }
         return PoetryResult.success(baseRequestVO);
     }
@@ -970,28 +1030,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
         Map<Integer, List<Article>> cachedResult = cacheService.getCachedSortArticleList();
         if (cachedResult != null) {
             // 转换为ArticleVO
-            Map<Integer, List<ArticleVO>> result = new HashMap<>();
-            for (Map.Entry<?, List<Article>> entry : cachedResult.entrySet()) {
-                // 安全地转换键类型，处理String到Integer的转换
-                Integer sortId = convertToInteger(entry.getKey());
-                if (sortId != null) {
-                    List<ArticleVO> articleVOList = entry.getValue().stream().map(article -> {
-                        ArticleVO vo = buildArticleVO(article, false);
-                        if (StringUtils.hasText(article.getSummary())) {
-                            vo.setSummary(article.getSummary());
-                        }
-                        vo.setHasVideo(StringUtils.hasText(article.getVideoUrl()));
-                        vo.setPassword(null);
-                        vo.setVideoUrl(null);
-                        return vo;
-                    }).collect(Collectors.toList());
-                    result.put(sortId, articleVOList);
-                } else {
-                    log.warn("无法转换分类ID: {}, 类型: {}", entry.getKey(),
-                            entry.getKey() != null ? entry.getKey().getClass().getSimpleName() : "null");
-                }
-            }
-            return PoetryResult.success(result);
+            return PoetryResult.success(buildSortArticleVOMap(cachedResult));
         }
 
         // 缓存未命中，使用写锁更新缓存
@@ -1000,11 +1039,10 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
             Map<?, List<Article>> finalCachedResult = cacheService.getCachedSortArticleList();
             if (finalCachedResult == null) {
                 Map<Integer, List<Article>> articleMap = new HashMap<>();
-                Map<Integer, List<ArticleVO>> resultMap = new HashMap<>();
 
                 List<Sort> sorts = new LambdaQueryChainWrapper<>(sortMapper).select(Sort::getId).list();
                 for (Sort sort : sorts) {
-                    LambdaQueryChainWrapper<Article> lambdaQuery = lambdaQuery()
+                    LambdaQueryChainWrapper<Article> lambdaQuery = listQuery()
                             .eq(Article::getSortId, sort.getId())
                             .eq(Article::getViewStatus, true)  // 添加对可见文章的过滤
                             .orderByDesc(Article::getCreateTime)
@@ -1014,172 +1052,161 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                         continue;
                     }
 
-                    // 处理文章内容用于缓存
-                    List<Article> processedArticles = articleList.stream().map(article -> {
-                        Article processedArticle = new Article();
-                        BeanUtils.copyProperties(article, processedArticle);
-                        // 如果内容太长，截取用于缓存
-                        if (processedArticle.getArticleContent().length() > CommonConst.SUMMARY) {
-                            processedArticle.setArticleContent(processedArticle.getArticleContent().substring(0, CommonConst.SUMMARY).replace("`", "").replace("#", "").replace(">", "") + "...");
-                        }
-                        return processedArticle;
-                    }).collect(Collectors.toList());
-
-                    List<ArticleVO> articleVOList = processedArticles.stream().map(article -> {
-                        ArticleVO vo = buildArticleVO(article, false);
-
-                        // 直接使用数据库中存储的摘要
-                        if (StringUtils.hasText(article.getSummary())) {
-                            vo.setSummary(article.getSummary());
-                        }
-
-                        vo.setHasVideo(StringUtils.hasText(article.getVideoUrl()));
-                        vo.setPassword(null);
-                        vo.setVideoUrl(null);
-                        return vo;
-                    }).collect(Collectors.toList());
-
-                    articleMap.put(sort.getId(), processedArticles);
-                    resultMap.put(sort.getId(), articleVOList);
+                    // 缓存中只保存摘录，不含正文
+                    useExcerpt(articleList);
+                    articleMap.put(sort.getId(), articleList);
                 }
 
                 // 缓存到Redis
                 cacheService.cacheSortArticleList(articleMap);
-                return PoetryResult.success(resultMap);
+                return PoetryResult.success(buildSortArticleVOMap(articleMap));
             } else {
                 // 转换缓存结果为ArticleVO
-                Map<Integer, List<ArticleVO>> resultMap = new HashMap<>();
-                for (Map.Entry<?, List<Article>> entry : finalCachedResult.entrySet()) {
-                    // 安全地转换键类型，处理String到Integer的转换
-                    Integer sortId = convertToInteger(entry.getKey());
-                    if (sortId != null) {
-                        List<ArticleVO> articleVOList = entry.getValue().stream().map(article -> {
-                            ArticleVO vo = buildArticleVO(article, false);
-                            if (StringUtils.hasText(article.getSummary())) {
-                                vo.setSummary(article.getSummary());
-                            }
-                            vo.setHasVideo(StringUtils.hasText(article.getVideoUrl()));
-                            vo.setPassword(null);
-                            vo.setVideoUrl(null);
-                            return vo;
-                        }).collect(Collectors.toList());
-                        resultMap.put(sortId, articleVOList);
-                    } else {
-                        log.warn("无法转换分类ID: {}, 类型: {}", entry.getKey(),
-                                entry.getKey() != null ? entry.getKey().getClass().getSimpleName() : "null");
-                    }
-                }
-                return PoetryResult.success(resultMap);
+                return PoetryResult.success(buildSortArticleVOMap(finalCachedResult));
             }
         });
     }
 
-    private ArticleVO buildArticleVO(Article article, Boolean isAdmin) {
-        ArticleVO articleVO = new ArticleVO();
-        BeanUtils.copyProperties(article, articleVO);
-        if (!isAdmin) {
-            if (!StringUtils.hasText(articleVO.getArticleCover())) {
-                articleVO.setArticleCover(PoetryUtil.getRandomCover(articleVO.getId().toString()));
+    /**
+     * 将分类文章列表批量转换为ArticleVO，所有分类的文章合并为一批组装
+     */
+    private Map<Integer, List<ArticleVO>> buildSortArticleVOMap(Map<?, List<Article>> sortArticleMap) {
+        List<Integer> sortIds = new ArrayList<>();
+        List<Article> allArticles = new ArrayList<>();
+        for (Map.Entry<?, List<Article>> entry : sortArticleMap.entrySet()) {
+            // 安全地转换键类型，处理String到Integer的转换
+            Integer sortId = convertToInteger(entry.getKey());
+            if (sortId != null) {
+                for (Article article : entry.getValue()) {
+                    sortIds.add(sortId);
+                    allArticles.add(article);
+                }
+            } else {
+                log.warn("无法转换分类ID: {}, 类型: {}", entry.getKey(),
+                        entry.getKey() != null ? entry.getKey().getClass().getSimpleName() : "null");
             }
         }
 
-        // 生成文章访问链接
+        Map<Integer, List<ArticleVO>> resultMap = new HashMap<>();
+        List<ArticleVO> articleVOList = buildArticleVOList(allArticles, false);
+        for (int i = 0; i < articleVOList.size(); i++) {
+            ArticleVO vo = articleVOList.get(i);
+            vo.setHasVideo(StringUtils.hasText(allArticles.get(i).getVideoUrl()));
+            vo.setPassword(null);
+            vo.setVideoUrl(null);
+            resultMap.computeIfAbsent(sortIds.get(i), k -> new ArrayList<>()).add(vo);
+        }
+        return resultMap;
+    }
+
+    private ArticleVO buildArticleVO(Article article, Boolean isAdmin) {
+        return buildArticleVOList(Collections.singletonList(article), isAdmin).get(0);
+    }
+
+    /**
+     * 批量构建文章VO
+     * 作者信息一次MGET + 一次IN查询，评论数一次MGET + 一次分组统计，分类标签读内存快照，
+     * 查询次数与文章数量无关。返回结果与入参顺序一一对应。
+     */
+    private List<ArticleVO> buildArticleVOList(List<Article> articles, boolean isAdmin) {
+        if (CollectionUtils.isEmpty(articles)) {
+            return new ArrayList<>();
+        }
+
+        // 生成文章访问链接所需的站点地址，整批只取一次
+        String siteUrl = null;
         try {
-            String siteUrl = mailUtil.getSiteUrl();
-            if (StringUtils.hasText(siteUrl)) {
-                articleVO.setArticleUrl(siteUrl + "/article/" + article.getId());
-            }
+            siteUrl = mailUtil.getSiteUrl();
         } catch (Exception e) {
         }
 
-        // 并行获取关联数据（用户信息、评论数、分类信息）
-        try (var scope = StructuredTaskScope.open()) {
-            // Fork 用户信息查询
-            Subtask<User> userTask = scope.fork(() -> 
-                commonQuery.getUser(articleVO.getUserId())
-            );
-            
-            // Fork 评论数查询（仅当评论开启时）
-            Subtask<Integer> commentCountTask = articleVO.getCommentStatus() 
-                ? scope.fork(() -> commonQuery.getCommentCount(articleVO.getId(), CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode()))
-                : null;
-            
-            // Fork 分类信息查询
-            Subtask<List<Sort>> sortInfoTask = scope.fork(() -> 
-                commonQuery.getSortInfo()
-            );
-            
-            // 等待所有查询完成
-            scope.join();
-            
-            // 处理用户信息
-            if (userTask.state() == Subtask.State.SUCCESS) {
-                User user = userTask.get();
-                if (user != null && StringUtils.hasText(user.getUsername())) {
-                    articleVO.setUsername(user.getUsername());
-                } else if (!isAdmin) {
-                    articleVO.setUsername(PoetryUtil.getRandomName(articleVO.getUserId().toString()));
-                }
-            } else if (!isAdmin) {
-                articleVO.setUsername(PoetryUtil.getRandomName(articleVO.getUserId().toString()));
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> commentSources = new HashSet<>();
+        for (Article article : articles) {
+            if (article.getUserId() != null) {
+                userIds.add(article.getUserId());
             }
-            
-            // 处理评论数
-            if (commentCountTask != null && commentCountTask.state() == Subtask.State.SUCCESS) {
-                articleVO.setCommentCount(commentCountTask.get());
-            } else {
-                articleVO.setCommentCount(0);
+            if (Boolean.TRUE.equals(article.getCommentStatus())) {
+                commentSources.add(article.getId());
             }
-            
-            // 处理分类和标签信息
-            if (sortInfoTask.state() == Subtask.State.SUCCESS) {
-                List<Sort> sortInfo = sortInfoTask.get();
-                if (!CollectionUtils.isEmpty(sortInfo)) {
-                    for (Sort s : sortInfo) {
-                        if (s.getId().intValue() == articleVO.getSortId().intValue()) {
-                            Sort sort = new Sort();
-                            BeanUtils.copyProperties(s, sort);
-                            sort.setLabels(null);
-                            articleVO.setSort(sort);
-                            // 同时设置sortName字段，方便API直接使用
-                            articleVO.setSortName(s.getSortName());
-                            if (!CollectionUtils.isEmpty(s.getLabels())) {
-                                for (int j = 0; j < s.getLabels().size(); j++) {
-                                    Label l = s.getLabels().get(j);
-                                    if (l.getId().intValue() == articleVO.getLabelId().intValue()) {
-                                        Label label = new Label();
-                                        BeanUtils.copyProperties(l, label);
-                                        articleVO.setLabel(label);
-                                        // 同时设置labelName字段，方便API直接使用
-                                        articleVO.setLabelName(l.getLabelName());
-                                        break;
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                    }
-                }
+        }
+
+        // 批量获取作者信息
+        Map<Integer, User> users;
+        try {
+            users = commonQuery.getUsers(userIds);
+        } catch (Exception e) {
+            log.error("批量获取文章作者失败，使用降级数据", e);
+            users = Collections.emptyMap();
+        }
+
+        // 批量获取评论数（仅评论开启的文章）
+        Map<Integer, Integer> commentCounts;
+        try {
+            commentCounts = commentSources.isEmpty() ? Collections.emptyMap()
+                    : commonQuery.getCommentCounts(commentSources, CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode());
+        } catch (Exception e) {
+            log.error("批量获取文章评论数失败，使用降级数据", e);
+            commentCounts = Collections.emptyMap();
+        }
+
+        // 分类和标签信息从内存快照读取，无数据库访问
+        TaxonomySnapshot snapshot = taxonomyService.getSnapshot();
+
+        List<ArticleVO> result = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            ArticleVO articleVO = new ArticleVO();
+            BeanUtils.copyProperties(article, articleVO);
+            // 浏览量合并尚未写回数据库的增量
+            if (article.getViewCount() != null) {
+                articleVO.setViewCount(articleViewCounter.merge(article.getId(), article.getViewCount()));
             }
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("构建文章VO时并行查询被中断，使用降级数据", e);
-            // 降级处理：使用默认值
             if (!isAdmin) {
-                articleVO.setUsername(PoetryUtil.getRandomName(articleVO.getUserId().toString()));
+                if (!StringUtils.hasText(articleVO.getArticleCover())) {
+                    articleVO.setArticleCover(PoetryUtil.getRandomCover(articleVO.getId().toString()));
+                }
             }
-            articleVO.setCommentCount(0);
-        } catch (Exception e) {
-            log.error("构建文章VO时并行查询失败，使用降级数据", e);
-            // 降级处理
-            if (!isAdmin) {
+
+            if (StringUtils.hasText(siteUrl)) {
+                articleVO.setArticleUrl(siteUrl + "/article/" + article.getId());
+            }
+
+            // 处理用户信息
+            User user = users.get(articleVO.getUserId());
+            if (user != null && StringUtils.hasText(user.getUsername())) {
+                articleVO.setUsername(user.getUsername());
+            } else if (!isAdmin) {
                 articleVO.setUsername(PoetryUtil.getRandomName(articleVO.getUserId().toString()));
             }
-            articleVO.setCommentCount(0);
+
+            // 处理评论数
+            articleVO.setCommentCount(Boolean.TRUE.equals(articleVO.getCommentStatus())
+                    ? commentCounts.getOrDefault(articleVO.getId(), 0) : 0);
+
+            fillTaxonomy(articleVO, snapshot);
+            result.add(articleVO);
+        }
+        return result;
+    }
+
+    /**
+     * 从分类标签快照填充文章的分类和标签信息
+     */
+    private void fillTaxonomy(ArticleVO articleVO, TaxonomySnapshot snapshot) {
+        Sort sort = snapshot.getSort(articleVO.getSortId());
+        if (sort == null) {
+            return;
+        }
+        articleVO.setSort(sort);
+        // 同时设置sortName字段，方便API直接使用
+        articleVO.setSortName(sort.getSortName());
+
+        Label label = snapshot.getLabel(articleVO.getLabelId());
+        if (label != null && sort.getId().equals(label.getSortId())) {
+            articleVO.setLabel(label);
+            // 同时设置labelName字段，方便API直接使用
+            articleVO.setLabelName(label.getLabelName());
         }
-        
-        return articleVO;
     }
 
     /**
@@ -1327,56 +1354,47 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
     @Override
     public PoetryResult<List<ArticleVO>> getArticlesByLikesTop() {
         try {
-            // 查询可见的文章，获取所有需要计算热度的字段
-            LambdaQueryChainWrapper<Article> lambdaQuery = lambdaQuery()
+            // 从热门排行榜读取前10篇文章ID（已按热度降序）
+            List<Integer> topIds = hotArticleRankService.getTopArticleIds(10);
+            if (CollectionUtils.isEmpty(topIds)) {
+                return PoetryResult.success(new ArrayList<>());
+            }
+
+            // 只加载排行榜中的文章
+            List<Article> articles = lambdaQuery()
                     .select(Article::getId, Article::getUserId, Article::getSortId, Article::getLabelId, 
-                            Article::getArticleCover, Article::getArticleTitle, Article::getArticleContent,
+                            Article::getArticleCover, Article::getArticleTitle, Article::getExcerpt,
                             Article::getSummary, Article::getViewCount, 
                             Article::getCommentStatus, Article::getRecommendStatus, Article::getViewStatus,
                             Article::getCreateTime, Article::getUpdateTime, Article::getVideoUrl)
+                    .in(Article::getId, topIds)
                     .eq(Article::getViewStatus, true)  // 只查询可见的文章
-                    .orderByDesc(Article::getCreateTime);  // 先按时间排序，后面会重新排序
-
-            List<Article> articles = lambdaQuery.list();
+                    .list();
 
             if (CollectionUtils.isEmpty(articles)) {
                 return PoetryResult.success(new ArrayList<>());
             }
 
-            // 使用并行流转换为ArticleVO（利用虚拟线程的优势）
-            List<ArticleVO> articleVOList = articles.parallelStream().map(article -> {
-                // 如果内容太长，截取用于显示
-                if (StringUtils.hasText(article.getArticleContent()) && article.getArticleContent().length() > CommonConst.SUMMARY) {
-                    article.setArticleContent(article.getArticleContent().substring(0, CommonConst.SUMMARY)
-                            .replace("`", "").replace("#", "").replace(">", "") + "...");
-                }
+            // 按排行榜顺序排列
+            Map<Integer, Integer> rankMap = new HashMap<>();
+            for (int i = 0; i < topIds.size(); i++) {
+                rankMap.put(topIds.get(i), i);
+            }
+            articles.sort(Comparator.comparingInt((Article article) -> rankMap.getOrDefault(article.getId(), Integer.MAX_VALUE)));
 
-                ArticleVO articleVO = buildArticleVO(article, false);
-                
-                // 使用数据库中存储的摘要
-                if (StringUtils.hasText(article.getSummary())) {
-                    articleVO.setSummary(article.getSummary());
-                }
-                
+            // 内容使用保存时生成的摘录
+            useExcerpt(articles);
+
+            // 批量转换为ArticleVO
+            List<ArticleVO> articleVOList = buildArticleVOList(articles, false);
+            for (ArticleVO articleVO : articleVOList) {
                 // 设置视频标识
-                articleVO.setHasVideo(StringUtils.hasText(article.getVideoUrl()));
+                articleVO.setHasVideo(StringUtils.hasText(articleVO.getVideoUrl()));
                 
                 // 清空敏感信息
                 articleVO.setPassword(null);
                 articleVO.setVideoUrl(null);
-                
-                return articleVO;
-            }).collect(Collectors.toList());
-
-            // 计算每篇文章的热度分数并排序
-            articleVOList = articleVOList.stream()
-                    .sorted((a1, a2) -> {
-                        double score1 = calculateHotScore(a1);
-                        double score2 = calculateHotScore(a2);
-                        return Double.compare(score2, score1);  // 降序排列
-                    })
-                    .limit(10)  // 限制返回前10篇
-                    .collect(Collectors.toList());
+            }
 
             log.info("获取热门文章成功，返回{}篇文章", articleVOList.size());
             return PoetryResult.success(articleVOList);
@@ -1387,68 +1405,6 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
         }
     }
 
-    /**
-     * 计算文章热度分数的智能算法
-     * 综合考虑浏览量、评论数、发布时间等因素
-     * 
-     * @param articleVO 文章VO对象
-     * @return 热度分数（越高越热门）
-     */
-    private double calculateHotScore(ArticleVO articleVO) {
-        // 基础数据
-        int viewCount = articleVO.getViewCount() != null ? articleVO.getViewCount() : 0;
-        int commentCount = articleVO.getCommentCount() != null ? articleVO.getCommentCount() : 0;
-        LocalDateTime createTime = articleVO.getCreateTime();
-        
-        // 1. 浏览量权重 (60%) - 标准化处理，权重提升
-        double viewScore = Math.log10(Math.max(viewCount, 1)) * 60;
-        
-        // 2. 评论数权重 (30%) - 评论表示深度参与，权重提升
-        double commentScore = Math.log10(Math.max(commentCount, 1)) * 30 * 6; // 评论权重更高
-        
-        // 3. 时间衰减因子 (10%) - 新文章有加成，但不会完全压倒旧的热门文章
-        double timeScore = 0;
-        if (createTime != null) {
-            long daysSinceCreation = java.time.Duration.between(createTime, LocalDateTime.now()).toDays();
-            
-            // 使用指数衰减，但设置一个底线
-            if (daysSinceCreation <= 7) {
-                // 一周内的文章有时间加成
-                timeScore = 10 * Math.exp(-daysSinceCreation / 7.0);
-            } else if (daysSinceCreation <= 30) {
-                // 一个月内的文章保持一定分数
-                timeScore = 5 * Math.exp(-(daysSinceCreation - 7) / 23.0);
-            } else {
-                // 超过一个月的文章，时间分数较低但不为0
-                timeScore = 1;
-            }
-        }
-        
-        // 4. 互动比率加成 - 评论率高的文章额外加分
-        double engagementBonus = 0;
-        if (viewCount > 0) {
-            double commentRate = (double) commentCount / viewCount;
-            
-            // 评论率超过0.5%的文章加分
-            if (commentRate > 0.005) {
-                engagementBonus += Math.min(commentRate * 2000, 20); // 最多加20分
-            }
-        }
-        
-        // 5. 推荐文章额外加分
-        double recommendBonus = 0;
-        if (Boolean.TRUE.equals(articleVO.getRecommendStatus())) {
-            recommendBonus = 25; // 被推荐的文章额外加25分
-        }
-        
-        // 计算最终热度分数
-        double finalScore = viewScore + commentScore + timeScore + engagementBonus + recommendBonus;
-        
-        // 调试日志
-        
-        return finalScore;
-    }
-
     /**
      * 异步更新文章（快速响应版本）
      */
@@ -1534,7 +1490,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
                 updateSaveStatus(taskId, "processing", "正在更新数据库...");
                 
                 // ========== 步骤1：使用短事务方法更新文章 ==========
-                boolean updateResult = updateArticleInTransaction(updateChainWrapper);
+                boolean updateResult = updateArticleInTransaction(updateChainWrapper, articleVO.getArticleContent());
                 if (!updateResult) {
                     log.error("数据库更新失败，任务ID: {}", taskId);
                     updateSaveStatus(taskId, "failed", "数据库更新失败");
@@ -1634,9 +1590,33 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
             return content.substring(0, maxLength) + "...";
         }
 
+        return getContentSnippetAt(content, keywordIndex, keywordIndex + keyword.length(), maxLength);
+    }
+
+    /**
+     * 截取内容片段：有全文索引命中偏移时直接按偏移截取，否则按关键词查找
+     */
+    private String getContentSnippet(String content, SearchHit hit, String keyword, int maxLength) {
+        if (hit != null && hit.getContentText() != null) {
+            // 偏移指向命中结果携带的内容文本
+            content = hit.getContentText();
+        }
+        if (hit == null || hit.getContentStart() < 0 || content == null || hit.getContentEnd() > content.length()) {
+            return getContentSnippetWithKeyword(content, keyword, maxLength);
+        }
+        if (content.length() <= maxLength) {
+            return content;
+        }
+        return getContentSnippetAt(content, hit.getContentStart(), hit.getContentEnd(), maxLength);
+    }
+
+    /**
+     * 以命中区间为中心截取内容片段
+     */
+    private String getContentSnippetAt(String content, int keywordIndex, int keywordEnd, int maxLength) {
         // 计算截取的起始位置，尽量让关键词居中
-        int keywordLength = keyword.length();
-        int halfLength = (maxLength - keywordLength) / 2;
+        int keywordLength = keywordEnd - keywordIndex;
+        int halfLength = Math.max(0, (maxLength - keywordLength) / 2);
         
         int startIndex = Math.max(0, keywordIndex - halfLength);
         int endIndex = Math.min(content.length(), startIndex + maxLength);
@@ -1789,6 +1769,7 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
         article.setSubmitToSearchEngine(articleVO.getSubmitToSearchEngine());
         article.setArticleTitle(articleVO.getArticleTitle());
         article.setArticleContent(articleVO.getArticleContent());
+        article.setExcerpt(PlainText.excerpt(articleVO.getArticleContent(), CommonConst.SUMMARY));
         article.setSummary("");  // 先设置空摘要，保存后会同步生成多语言AI摘要
         article.setSortId(articleVO.getSortId());
         article.setLabelId(articleVO.getLabelId());
@@ -1838,12 +1819,46 @@ public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> impl
      * 在独立事务中更新文章（短事务）
      * 
      * @param updateChainWrapper 更新链式包装器
+     * @param articleContent 文章内容，用于同步重新生成列表摘录
      * @return 更新成功返回true，失败返回false
      */
     @Transactional(rollbackFor = Exception.class)
-    private boolean updateArticleInTransaction(LambdaUpdateChainWrapper<Article> updateChainWrapper) {
+    private boolean updateArticleInTransaction(LambdaUpdateChainWrapper<Article> updateChainWrapper, String articleContent) {
+        updateChainWrapper.set(Article::getExcerpt, PlainText.excerpt(articleContent, CommonConst.SUMMARY));
         boolean result = updateChainWrapper.update();
         return result;
     }
 
+    /**
+     * 列表查询：只查询摘要投影，不读取文章正文
+     */
+    private LambdaQueryChainWrapper<Article> listQuery() {
+        LambdaQueryChainWrapper<Article> lambdaQuery = lambdaQuery();
+        lambdaQuery.select(Article.class, a -> !a.getColumn().equals("article_content"));
+        return lambdaQuery;
+    }
+
+    /**
+     * 以摘录作为列表展示的文章内容
+     */
+    private void useExcerpt(List<Article> articles) {
+        for (Article article : articles) {
+            article.setArticleContent(article.getExcerpt() != null ? article.getExcerpt() : "");
+            article.setExcerpt(null);
+        }
+    }
+
+    /**
+     * 按ID批量加载文章正文（仅搜索降级路径使用）
+     */
+    private Map<Integer, String> getArticleContents(List<Article> articles) {
+        List<Integer> articleIds = articles.stream().map(Article::getId).collect(Collectors.toList());
+        return lambdaQuery()
+                .select(Article::getId, Article::getArticleContent)
+                .in(Article::getId, articleIds)
+                .list()
+                .stream()
+                .collect(Collectors.toMap(Article::getId, Article::getArticleContent, (a, b) -> a));
+    }
+
 }
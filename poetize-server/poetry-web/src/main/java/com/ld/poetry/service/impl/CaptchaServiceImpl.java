@@ -1,6 +1,7 @@
 package com.ld.poetry.service.impl;
 
 import com.ld.poetry.service.CaptchaService;
+import com.ld.poetry.service.RateLimiterService;
 import com.ld.poetry.service.SysCaptchaConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,8 +28,11 @@ public class CaptchaServiceImpl implements CaptchaService {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
     
+    @Autowired
+    private RateLimiterService rateLimiterService;
+    
     private static final String CAPTCHA_TOKEN_PREFIX = "captcha:token:";
-    private static final String IP_VERIFY_COUNT_PREFIX = "captcha:ip:count:";
+    private static final String CAPTCHA_VERIFY_LIMITER = "captchaVerify";
     private static final String IP_BLOCK_PREFIX = "captcha:ip:block:";
     private static final String FINGERPRINT_PREFIX = "captcha:fingerprint:";
     private static final long TOKEN_EXPIRY = 5; // 5分钟过期
@@ -89,13 +93,13 @@ public class CaptchaServiceImpl implements CaptchaService {
                     return result;
                 }
                 
-                // 获取当前验证次数
-                int currentCount = getIpVerifyCount(clientIp);
-                int remainingAttempts = MAX_VERIFY_PER_IP - currentCount;
+                // 检查IP验证频率（计数和判断一次完成）
+                RateLimiterService.Result rateLimit = rateLimiterService.tryAcquire(CAPTCHA_VERIFY_LIMITER, clientIp,
+                        MAX_VERIFY_PER_IP, IP_COUNT_WINDOW, TimeUnit.MINUTES);
+                long remainingAttempts = rateLimit.getRemaining();
                 
-                // 检查IP验证频率
-                if (!checkIpRateLimit(clientIp)) {
-                    log.warn("IP验证频率过高: {}, 已达{}次", clientIp, currentCount);
+                if (!rateLimit.isAllowed()) {
+                    log.warn("IP验证频率过高: {}, 已达{}次", clientIp, MAX_VERIFY_PER_IP);
                     blockIp(clientIp);
                     result.put("success", false);
                     result.put("token", "");
@@ -273,13 +277,13 @@ public class CaptchaServiceImpl implements CaptchaService {
                     return result;
                 }
                 
-                // 获取当前验证次数
-                int currentCount = getIpVerifyCount(clientIp);
-                int remainingAttempts = MAX_VERIFY_PER_IP - currentCount;
+                // 检查IP验证频率（计数和判断一次完成）
+                RateLimiterService.Result rateLimit = rateLimiterService.tryAcquire(CAPTCHA_VERIFY_LIMITER, clientIp,
+                        MAX_VERIFY_PER_IP, IP_COUNT_WINDOW, TimeUnit.MINUTES);
+                long remainingAttempts = rateLimit.getRemaining();
                 
-                // 检查IP验证频率
-                if (!checkIpRateLimit(clientIp)) {
-                    log.warn("IP滑动验证频率过高: {}, 已达{}次", clientIp, currentCount);
+                if (!rateLimit.isAllowed()) {
+                    log.warn("IP滑动验证频率过高: {}, 已达{}次", clientIp, MAX_VERIFY_PER_IP);
                     blockIp(clientIp);
                     result.put("success", false);
                     result.put("message", String.format("验证次数过多（%d次/%d分钟），已被临时限制 %d 分钟", 
@@ -470,46 +474,6 @@ public class CaptchaServiceImpl implements CaptchaService {
         }
     }
     
-    /**
-     * 获取IP当前验证次数
-     */
-    private int getIpVerifyCount(String ip) {
-        try {
-            String key = IP_VERIFY_COUNT_PREFIX + ip;
-            String countStr = redisTemplate.opsForValue().get(key);
-            return countStr != null ? Integer.parseInt(countStr) : 0;
-        } catch (Exception e) {
-            log.error("获取IP验证次数失败", e);
-            return 0;
-        }
-    }
-    
-    /**
-     * 检查IP验证频率限制
-     * @return true表示在限制内，false表示超出限制
-     */
-    private boolean checkIpRateLimit(String ip) {
-        try {
-            String key = IP_VERIFY_COUNT_PREFIX + ip;
-            String countStr = redisTemplate.opsForValue().get(key);
-            
-            int count = countStr != null ? Integer.parseInt(countStr) : 0;
-            
-            if (count >= MAX_VERIFY_PER_IP) {
-                return false;
-            }
-            
-            // 增加计数
-            redisTemplate.opsForValue().increment(key);
-            redisTemplate.expire(key, IP_COUNT_WINDOW, TimeUnit.MINUTES);
-            
-            return true;
-        } catch (Exception e) {
-            log.error("检查IP频率失败", e);
-            return true; // 出错时允许通过
-        }
-    }
-    
     /**
      * 封禁IP
      */
@@ -862,15 +826,14 @@ public class CaptchaServiceImpl implements CaptchaService {
     public boolean unblockIp(String ip) {
         try {
             String blockKey = IP_BLOCK_PREFIX + ip;
-            String countKey = IP_VERIFY_COUNT_PREFIX + ip;
             
             // 删除封禁记录
             Boolean blockDeleted = redisTemplate.delete(blockKey);
-            // 删除计数记录
-            Boolean countDeleted = redisTemplate.delete(countKey);
+            // 清除验证频率记录
+            rateLimiterService.reset(CAPTCHA_VERIFY_LIMITER, ip);
             
             if (Boolean.TRUE.equals(blockDeleted)) {
-                log.info("IP封禁已解除: {}, 计数记录也已清除: {}", ip, countDeleted);
+                log.info("IP封禁已解除: {}, 验证频率记录也已清除", ip);
                 return true;
             } else {
                 log.info("IP未被封禁: {}", ip);
@@ -917,9 +880,8 @@ public class CaptchaServiceImpl implements CaptchaService {
                         ipInfo.put("remainingMinutes", (ttlSeconds + 59) / 60); // 向上取整
                         
                         // 获取验证失败次数（如果还在计数窗口内）
-                        String countKey = IP_VERIFY_COUNT_PREFIX + ip;
-                        String countStr = redisTemplate.opsForValue().get(countKey);
-                        int failCount = countStr != null ? Integer.parseInt(countStr) : 0;
+                        int failCount = rateLimiterService.getUsed(CAPTCHA_VERIFY_LIMITER, ip,
+                                MAX_VERIFY_PER_IP, IP_COUNT_WINDOW, TimeUnit.MINUTES);
                         ipInfo.put("failCount", failCount);
                         
                         blockedList.add(ipInfo);
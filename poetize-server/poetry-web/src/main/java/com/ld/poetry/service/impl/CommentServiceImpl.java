@@ -19,6 +19,7 @@ import com.ld.poetry.enums.CodeMsg;
 import com.ld.poetry.enums.CommentTypeEnum;
 import com.ld.poetry.service.CacheService;
 import com.ld.poetry.service.CommentService;
+import com.ld.poetry.service.HotArticleRankService;
 import com.ld.poetry.service.LocationService;
 import com.ld.poetry.service.UserService;
 import com.ld.poetry.utils.*;
@@ -70,6 +71,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private HotArticleRankService hotArticleRankService;
+
     @Override
     public PoetryResult saveComment(CommentVO commentVO) {
         if (CommentTypeEnum.getEnumByCode(commentVO.getType()) == null) {
@@ -133,6 +137,11 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         // 清理评论相关缓存
         cacheService.evictCommentRelatedCache(commentVO.getSource(), commentVO.getType());
 
+        // 文章评论数变化，更新热门排行
+        if (CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode().equals(commentVO.getType())) {
+            hotArticleRankService.refreshArticle(commentVO.getSource());
+        }
+
         return PoetryResult.success();
     }
 
@@ -195,6 +204,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         // 清理评论相关缓存
         if (comment != null) {
             cacheService.evictCommentRelatedCache(comment.getSource(), comment.getType());
+            if (CommentTypeEnum.COMMENT_TYPE_ARTICLE.getCode().equals(comment.getType())) {
+                hotArticleRankService.refreshArticle(comment.getSource());
+            }
         }
 
         return PoetryResult.success();
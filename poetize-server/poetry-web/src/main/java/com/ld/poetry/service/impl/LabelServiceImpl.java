@@ -4,8 +4,12 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ld.poetry.dao.LabelMapper;
 import com.ld.poetry.entity.Label;
 import com.ld.poetry.service.LabelService;
+import com.ld.poetry.service.TaxonomyService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * <p>
  * 标签服务实现类
@@ -14,5 +18,17 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class LabelServiceImpl extends ServiceImpl<LabelMapper, Label> implements LabelService {
-    
-} 
\ No newline at end of file
+
+    @Autowired
+    private TaxonomyService taxonomyService;
+
+    @Override
+    public Label getCachedById(Integer id) {
+        return taxonomyService.getLabel(id);
+    }
+
+    @Override
+    public List<Label> listCached() {
+        return taxonomyService.listLabels();
+    }
+}
@@ -103,7 +103,7 @@ public class SeoMetaServiceImpl implements SeoMetaService {
 
             // 获取分类信息
             if (article.getSortId() != null) {
-                Sort sort = sortService.getById(article.getSortId());
+                Sort sort = sortService.getCachedById(article.getSortId());
                 if (sort != null) {
                     meta.put("category", sort.getSortName());
                     meta.put("category_id", sort.getId());
@@ -112,7 +112,7 @@ public class SeoMetaServiceImpl implements SeoMetaService {
 
             // 获取标签信息
             if (article.getLabelId() != null) {
-                Label label = labelService.getById(article.getLabelId());
+                Label label = labelService.getCachedById(article.getLabelId());
                 if (label != null) {
                     meta.put("tag", label.getLabelName());
                     meta.put("tag_id", label.getId());
@@ -191,7 +191,7 @@ public class SeoMetaServiceImpl implements SeoMetaService {
             }
 
             // 获取分类信息
-            Sort category = sortService.getById(categoryId);
+            Sort category = sortService.getCachedById(categoryId);
             if (category == null) {
                 return createNotFoundMeta();
             }
@@ -236,7 +236,7 @@ public class SeoMetaServiceImpl implements SeoMetaService {
             }
 
             // 获取标签信息
-            Label tag = labelService.getById(tagId);
+            Label tag = labelService.getCachedById(tagId);
             if (tag == null) {
                 return createNotFoundMeta();
             }
@@ -4,8 +4,12 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.ld.poetry.dao.SortMapper;
 import com.ld.poetry.entity.Sort;
 import com.ld.poetry.service.SortService;
+import com.ld.poetry.service.TaxonomyService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * <p>
  * 分类服务实现类
@@ -14,5 +18,17 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class SortServiceImpl extends ServiceImpl<SortMapper, Sort> implements SortService {
-    
-} 
\ No newline at end of file
+
+    @Autowired
+    private TaxonomyService taxonomyService;
+
+    @Override
+    public Sort getCachedById(Integer id) {
+        return taxonomyService.getSort(id);
+    }
+
+    @Override
+    public List<Sort> listCached() {
+        return taxonomyService.listSorts();
+    }
+}
@@ -46,6 +46,9 @@ public class TranslationServiceImpl implements TranslationService {
     @Autowired
     private com.ld.poetry.service.SysAiConfigService sysAiConfigService;
     
+    @Autowired
+    private com.ld.poetry.service.ArticleSearchService articleSearchService;
+    
     public TranslationServiceImpl() {
         this.restTemplate = new RestTemplate();
     }
@@ -297,7 +300,7 @@ public class TranslationServiceImpl implements TranslationService {
                     log.info("更新文章翻译成功，文章ID: {}, 目标语言: {} (尝试第{}次)", articleId, targetLanguage, attempt);
                     
                     // 翻译更新成功后，清除sitemap缓存（翻译URL可能需要更新）
-                    updateSitemapForTranslation(articleId, "翻译更新");
+                    afterTranslationChanged(articleId, "翻译更新");
                     return true;
                 } else {
                     // 创建新翻译
@@ -314,7 +317,7 @@ public class TranslationServiceImpl implements TranslationService {
                         log.info("创建文章翻译成功，文章ID: {}, 目标语言: {} (尝试第{}次)", articleId, targetLanguage, attempt);
                         
                         // 翻译创建成功后，清除sitemap缓存（新增翻译URL）
-                        updateSitemapForTranslation(articleId, "翻译创建");
+                        afterTranslationChanged(articleId, "翻译创建");
                         return true;
                     } catch (org.springframework.dao.DuplicateKeyException e) {
                         // 如果遇到重复键异常，说明在我们检查后有其他线程插入了记录
@@ -333,7 +336,7 @@ public class TranslationServiceImpl implements TranslationService {
                                 log.info("最终更新文章翻译成功，文章ID: {}, 目标语言: {}", articleId, targetLanguage);
                                 
                                 // 翻译最终更新成功后，清除sitemap缓存
-                                updateSitemapForTranslation(articleId, "翻译最终更新");
+                                afterTranslationChanged(articleId, "翻译最终更新");
                                 return true;
                             }
                         }
@@ -367,7 +370,7 @@ public class TranslationServiceImpl implements TranslationService {
                 translateAndSaveArticle(articleId); // 重新翻译并将在内部触发 prerender
                 
                 // 刷新翻译后，清除sitemap缓存（翻译URL可能发生变化）
-                updateSitemapForTranslation(articleId, "刷新翻译");
+                afterTranslationChanged(articleId, "刷新翻译");
             }
             log.info("删除文章翻译成功，文章ID: {}", articleId);
         } catch (Exception e) {
@@ -602,7 +605,7 @@ public class TranslationServiceImpl implements TranslationService {
             
             // 删除翻译后，清除sitemap缓存（翻译URL需要从sitemap中移除）
             if (rows > 0) {
-                updateSitemapForTranslation(articleId, "删除所有翻译");
+                afterTranslationChanged(articleId, "删除所有翻译");
             }
         } catch (Exception e) {
             log.error("删除文章翻译失败，文章ID: {}", articleId, e);
@@ -621,7 +624,7 @@ public class TranslationServiceImpl implements TranslationService {
             
             // 删除特定语言翻译后，清除sitemap缓存（该语言的翻译URL需要从sitemap中移除）
             if (rows > 0) {
-                updateSitemapForTranslation(articleId, "删除" + language + "翻译");
+                afterTranslationChanged(articleId, "删除" + language + "翻译");
             }
             
             return rows > 0;
@@ -631,6 +634,16 @@ public class TranslationServiceImpl implements TranslationService {
         }
     }
 
+    /**
+     * 翻译变更后的统一处理：更新搜索索引并清除sitemap缓存
+     * @param articleId 文章ID
+     * @param operation 操作描述
+     */
+    private void afterTranslationChanged(Integer articleId, String operation) {
+        articleSearchService.reindexArticle(articleId);
+        updateSitemapForTranslation(articleId, operation);
+    }
+
     /**
      * 翻译操作后更新sitemap的辅助方法（只清除缓存）
      * @param articleId 文章ID
@@ -289,11 +289,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             try {
                 String oldToken = cacheService.getAdminToken(one.getId());
                 if (oldToken != null) {
-                    // 清除旧token的会话
-                    cacheService.evictUserSession(oldToken);
-                    // 清除token映射
-                    cacheService.evictAdminToken(one.getId());
-                    cacheService.evictTokenInterval(one.getId(), true);
+                    // 清除旧token的会话、token映射与间隔检查
+                    cacheService.evictLoginState(one.getId(), oldToken, true, false);
                 }
             } catch (Exception e) {
                 log.error("清除旧token时发生错误: userId={}", one.getId(), e);
@@ -303,11 +300,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             try {
                 String oldToken = cacheService.getUserToken(one.getId());
                 if (oldToken != null) {
-                    // 清除旧token的会话
-                    cacheService.evictUserSession(oldToken);
-                    // 清除token映射
-                    cacheService.evictUserToken(one.getId());
-                    cacheService.evictTokenInterval(one.getId(), false);
+                    // 清除旧token的会话、token映射与间隔检查
+                    cacheService.evictLoginState(one.getId(), oldToken, false, false);
                 }
             } catch (Exception e) {
                 log.error("清除旧token时发生错误: userId={}", one.getId(), e);
@@ -377,20 +371,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 // 判断是管理员还是普通用户token
                 boolean isAdminToken = token.contains(CommonConst.ADMIN_ACCESS_TOKEN);
 
-                // 清理用户会话
-                cacheService.evictUserSession(token);
-
-                // 清理token映射和间隔检查
-                if (isAdminToken) {
-                    cacheService.evictAdminToken(userId);
-                    cacheService.evictTokenInterval(userId, true);
-                } else {
-                    cacheService.evictUserToken(userId);
-                    cacheService.evictTokenInterval(userId, false);
-                }
-
-                // 清理用户信息缓存
-                cacheService.evictUser(userId);
+                // 清理用户会话、token映射、间隔检查和用户信息缓存
+                cacheService.evictLoginState(userId, token, isAdminToken, true);
 
                 // 如果是普通用户，断开WebSocket连接
                 if (token.contains(CommonConst.USER_ACCESS_TOKEN)) {
@@ -413,23 +395,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                         // 尝试从token获取userId
                         Integer tokenUserId = cacheService.getUserIdFromSession(token);
                         if (tokenUserId != null) {
-                            // 清理用户会话
-                            cacheService.evictUserSession(token);
-                            
                             // 判断是管理员还是普通用户token
                             boolean isAdminToken = token.contains(CommonConst.ADMIN_ACCESS_TOKEN);
                             
-                            // 清理token映射和间隔检查
-                            if (isAdminToken) {
-                                cacheService.evictAdminToken(tokenUserId);
-                                cacheService.evictTokenInterval(tokenUserId, true);
-                            } else {
-                                cacheService.evictUserToken(tokenUserId);
-                                cacheService.evictTokenInterval(tokenUserId, false);
-                            }
-                            
-                            // 清理用户信息缓存
-                            cacheService.evictUser(tokenUserId);
+                            // 清理用户会话、token映射、间隔检查和用户信息缓存
+                            cacheService.evictLoginState(tokenUserId, token, isAdminToken, true);
                             
                             // 清除UserCacheManager中的用户缓存
                             userCacheManager.removeUserByToken(token);
@@ -1,13 +1,12 @@
 package com.ld.poetry.service.provider;
 
 import com.ld.poetry.service.SysConfigService;
+import com.ld.poetry.utils.ip.IpAddress;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.net.Inet6Address;
-import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -166,13 +165,12 @@ public class IpLocationProviderFactory {
             return false;
         }
         
-        try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            return inetAddress instanceof Inet6Address;
-        } catch (Exception e) {
-            // 如果Java解析失败，使用简单的字符串匹配
-            return ip.contains(":") && !ip.contains(".");
+        // 只按字面量解析，不触发DNS查询
+        IpAddress address = IpAddress.parse(ip);
+        if (address != null) {
+            return address.isIpv6();
         }
+        return ip.contains(":") && !ip.contains(".");
     }
     
     /**
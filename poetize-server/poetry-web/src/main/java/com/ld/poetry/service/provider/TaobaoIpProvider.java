@@ -1,13 +1,12 @@
 package com.ld.poetry.service.provider;
 
+import com.ld.poetry.utils.ip.IpAddress;
+import com.ld.poetry.utils.ratelimit.TokenBucket;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.Inet6Address;
-import java.net.InetAddress;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,9 +20,8 @@ import java.util.concurrent.TimeUnit;
 public class TaobaoIpProvider implements IpLocationProvider {
     
     private final RestTemplate restTemplate = new RestTemplate();
-    private final Semaphore rateLimiter = new Semaphore(1);
-    private volatile long lastRequestTime = 0L;
-    private static final long MIN_REQUEST_INTERVAL = 1000L; // 1秒间隔
+    // 每秒最多1次请求，超出时排队等待
+    private final TokenBucket rateLimiter = new TokenBucket(1, 1, TimeUnit.SECONDS);
     
     @Override
     public ProviderType getProviderType() {
@@ -33,37 +31,19 @@ public class TaobaoIpProvider implements IpLocationProvider {
     @Override
     public String resolveLocation(String ipAddress) {
         try {
-            // 获取限流许可，最多等待5秒
-            if (!rateLimiter.tryAcquire(5, TimeUnit.SECONDS)) {
+            // 获取限流令牌，最多等待5秒
+            if (!rateLimiter.acquire(5, TimeUnit.SECONDS)) {
                 log.warn("获取淘宝IP服务限流许可超时，IP: {}", ipAddress);
                 return "未知";
             }
             
-            try {
-                // 确保与上次请求间隔至少1秒
-                long currentTime = System.currentTimeMillis();
-                long timeSinceLastRequest = currentTime - lastRequestTime;
-                
-                if (timeSinceLastRequest < MIN_REQUEST_INTERVAL) {
-                    long sleepTime = MIN_REQUEST_INTERVAL - timeSinceLastRequest;
-                    Thread.sleep(sleepTime);
-                }
-                
-                // 更新请求时间
-                lastRequestTime = System.currentTimeMillis();
-                
-                // 使用淘宝IP服务API
-                String apiUrl = "http://ip.taobao.com/outGetIpInfo?ip=" + ipAddress + "&accessKey=alibaba-inc";
-                
-                String response = restTemplate.getForObject(apiUrl, String.class);
-                
-                if (StringUtils.hasText(response)) {
-                    return parseResponse(response);
-                }
-                
-            } finally {
-                // 释放限流许可
-                rateLimiter.release();
+            // 使用淘宝IP服务API
+            String apiUrl = "http://ip.taobao.com/outGetIpInfo?ip=" + ipAddress + "&accessKey=alibaba-inc";
+            
+            String response = restTemplate.getForObject(apiUrl, String.class);
+            
+            if (StringUtils.hasText(response)) {
+                return parseResponse(response);
             }
             
         } catch (InterruptedException e) {
@@ -176,12 +156,11 @@ public class TaobaoIpProvider implements IpLocationProvider {
             return false;
         }
         
-        try {
-            InetAddress inetAddress = InetAddress.getByName(ip);
-            return inetAddress instanceof Inet6Address;
-        } catch (Exception e) {
-            // 如果Java解析失败，使用简单的字符串匹配
-            return ip.contains(":") && !ip.contains(".");
+        // 只按字面量解析，不触发DNS查询
+        IpAddress address = IpAddress.parse(ip);
+        if (address != null) {
+            return address.isIpv6();
         }
+        return ip.contains(":") && !ip.contains(".");
     }
 }
\ No newline at end of file
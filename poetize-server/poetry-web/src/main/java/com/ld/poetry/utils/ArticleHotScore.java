@@ -0,0 +1,74 @@
+package com.ld.poetry.utils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 文章热度分数计算
+ * 综合考虑浏览量、评论数、发布时间等因素
+ */
+public class ArticleHotScore {
+
+    /**
+     * 时间衰减窗口（天），超过该天数的文章时间分数为常量，无需再定期重算
+     */
+    public static final int DECAY_WINDOW_DAYS = 30;
+
+    private ArticleHotScore() {
+    }
+
+    /**
+     * 计算文章热度分数
+     *
+     * @param viewCount       浏览量
+     * @param commentCount    评论数
+     * @param createTime      发布时间
+     * @param recommendStatus 是否推荐
+     * @param now             当前时间
+     * @return 热度分数（越高越热门）
+     */
+    public static double calculate(int viewCount, int commentCount, LocalDateTime createTime, Boolean recommendStatus, LocalDateTime now) {
+        // 1. 浏览量权重 (60%) - 标准化处理，权重提升
+        double viewScore = Math.log10(Math.max(viewCount, 1)) * 60;
+
+        // 2. 评论数权重 (30%) - 评论表示深度参与，权重提升
+        double commentScore = Math.log10(Math.max(commentCount, 1)) * 30 * 6; // 评论权重更高
+
+        // 3. 时间衰减因子 (10%) - 新文章有加成，但不会完全压倒旧的热门文章
+        double timeScore = 0;
+        if (createTime != null) {
+            long daysSinceCreation = Duration.between(createTime, now).toDays();
+
+            // 使用指数衰减，但设置一个底线
+            if (daysSinceCreation <= 7) {
+                // 一周内的文章有时间加成
+                timeScore = 10 * Math.exp(-daysSinceCreation / 7.0);
+            } else if (daysSinceCreation <= DECAY_WINDOW_DAYS) {
+                // 一个月内的文章保持一定分数
+                timeScore = 5 * Math.exp(-(daysSinceCreation - 7) / 23.0);
+            } else {
+                // 超过一个月的文章，时间分数较低但不为0
+                timeScore = 1;
+            }
+        }
+
+        // 4. 互动比率加成 - 评论率高的文章额外加分
+        double engagementBonus = 0;
+        if (viewCount > 0) {
+            double commentRate = (double) commentCount / viewCount;
+
+            // 评论率超过0.5%的文章加分
+            if (commentRate > 0.005) {
+                engagementBonus += Math.min(commentRate * 2000, 20); // 最多加20分
+            }
+        }
+
+        // 5. 推荐文章额外加分
+        double recommendBonus = 0;
+        if (Boolean.TRUE.equals(recommendStatus)) {
+            recommendBonus = 25; // 被推荐的文章额外加25分
+        }
+
+        return viewScore + commentScore + timeScore + engagementBonus + recommendBonus;
+    }
+}
@@ -1,24 +1,26 @@
 package com.ld.poetry.utils;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.ld.poetry.constants.CacheConstants;
 import com.ld.poetry.constants.CommonConst;
 import com.ld.poetry.dao.*;
 import com.ld.poetry.entity.*;
+import com.ld.poetry.service.ArticleRegexSearchService;
+import com.ld.poetry.service.ArticleSearchService;
 import com.ld.poetry.service.CacheService;
+import com.ld.poetry.service.TaxonomyService;
 import com.ld.poetry.service.UserService;
+import com.ld.poetry.service.VisitRecorder;
+import com.ld.poetry.utils.search.SearchHit;
 import com.ld.poetry.vo.FamilyVO;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
-import org.lionsoul.ip2region.xdb.Searcher;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
-import jakarta.annotation.PostConstruct;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.regex.Pattern;
@@ -28,6 +30,12 @@ import java.util.regex.PatternSyntaxException;
 @Slf4j
 @Component
 public class CommonQuery {
+
+    /**
+     * 全文索引搜索最多返回的文章数
+     */
+    private static final int SEARCH_HIT_LIMIT = 200;
+
     @Autowired
     private CommentMapper commentMapper;
 
@@ -37,12 +45,6 @@ public class CommonQuery {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private SortMapper sortMapper;
-
-    @Autowired
-    private LabelMapper labelMapper;
-
     @Autowired
     private ArticleMapper articleMapper;
 
@@ -58,57 +60,28 @@ public class CommonQuery {
     @Autowired
     private LockManager lockManager;
 
-    private Searcher searcher;
+    @Autowired
+    private VisitRecorder visitRecorder;
 
-    @PostConstruct
-    public void init() {
-        try {
-            searcher = Searcher.newWithBuffer(IOUtils.toByteArray(new ClassPathResource("ip2region.xdb").getInputStream()));
-        } catch (Exception e) {
-        }
-    }
+    @Autowired
+    private TaxonomyService taxonomyService;
+
+    @Autowired
+    private ArticleSearchService articleSearchService;
 
+    @Autowired
+    private ArticleRegexSearchService articleRegexSearchService;
+
+    /**
+     * 记录页面访问：只做轻量过滤后交给访问记录器排队，地理位置解析与写入在后台批量完成
+     */
     public void saveHistory(String ip) {
         try {
             // 过滤无效IP，避免记录Docker内部IP和无效地址
             if (ip == null || ip.isEmpty() || "unknown".equals(ip) || isInvalidIP(ip)) {
                 return;
             }
-            
-            
-            Integer userId = PoetryUtil.getUserId();
-            String ipUser = ip + (userId != null ? "_" + userId.toString() : "");
-    
-            // 记录每次访问 - 使用 LockManager 替代 String.intern()，避免内存泄漏
-            lockManager.executeWithLock("saveHistory:" + ipUser, () -> {
-                // log.info("[saveHistory] 记录访问到Redis: {}", ipUser);
-                
-                // 解析IP地理位置信息
-                String nation = null, province = null, city = null;
-                if (searcher != null) {
-                    try {
-                        String search = searcher.search(ip);
-                        String[] region = search.split("\\|");
-                        if (!"0".equals(region[0])) {
-                            nation = region[0];
-                        }
-                        if (region.length > 2 && !"0".equals(region[2])) {
-                            province = region[2];
-                        }
-                        if (region.length > 3 && !"0".equals(region[3])) {
-                            city = region[3];
-                        }
-                    } catch (Exception e) {
-                        log.warn("[saveHistory] IP地理位置解析失败: {}, 错误: {}", ip, e.getMessage());
-                    }
-                } else {
-                }
-                
-                // 记录访问信息到Redis（不立即写数据库）
-                cacheService.recordVisitToRedis(ip, userId, nation, province, city);
-                
-                // log.info("[saveHistory] 访问记录已保存到Redis缓存，等待定时同步到数据库: {}", ipUser);
-            });
+            visitRecorder.record(ip, PoetryUtil.getUserId());
         } catch (Exception e) {
             log.error("[saveHistory] 保存访问记录时发生异常: {}", e.getMessage(), e);
         }
@@ -144,7 +117,7 @@ public class CommonQuery {
         
         // 在开发/测试环境下，允许内网IP进行访问统计
         // 检查是否为有效的IP格式
-        if (!isValidIpFormat(ip)) {
+        if (!IpUtil.isValidIpFormat(ip)) {
             return true;
         }
         
@@ -157,56 +130,6 @@ public class CommonQuery {
         return false;
     }
     
-    /**
-     * 验证IP格式是否有效（支持IPv4和IPv6）
-     */
-    private boolean isValidIpFormat(String ip) {
-        if (ip == null || ip.trim().isEmpty()) {
-            return false;
-        }
-        
-        ip = ip.trim();
-        
-        // 使用Java内置的InetAddress来验证IP格式
-        try {
-            java.net.InetAddress.getByName(ip);
-            return true;
-        } catch (java.net.UnknownHostException e) {
-            // 如果InetAddress无法解析，再尝试手动验证IPv4格式
-            return isValidIPv4(ip);
-        }
-    }
-    
-    /**
-     * 验证IPv4格式
-     */
-    private boolean isValidIPv4(String ip) {
-        if (ip == null || ip.trim().isEmpty()) {
-            return false;
-        }
-        
-        String[] parts = ip.split("\\.");
-        if (parts.length != 4) {
-            return false;
-        }
-        
-        try {
-            for (String part : parts) {
-                int num = Integer.parseInt(part);
-                if (num < 0 || num > 255) {
-                    return false;
-                }
-                // 检查前导零（除了"0"本身）
-                if (part.length() > 1 && part.startsWith("0")) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
     public User getUser(Integer userId) {
         // 使用Redis缓存替换PoetryCache
         User user = cacheService.getCachedUser(userId);
@@ -221,6 +144,34 @@ public class CommonQuery {
         return null;
     }
 
+    /**
+     * 批量获取用户信息：先一次MGET读取缓存，未命中的用一次IN查询补齐并回填缓存
+     *
+     * @param userIds 用户ID集合
+     * @return 用户信息，键为用户ID
+     */
+    public Map<Integer, User> getUsers(Collection<Integer> userIds) {
+        Map<Integer, User> result = cacheService.getCachedUsers(userIds);
+        if (CollectionUtils.isEmpty(userIds)) {
+            return result;
+        }
+
+        Set<Integer> missIds = new HashSet<>();
+        for (Integer userId : userIds) {
+            if (userId != null && !result.containsKey(userId)) {
+                missIds.add(userId);
+            }
+        }
+        if (!missIds.isEmpty()) {
+            List<User> users = userService.listByIds(missIds);
+            for (User u : users) {
+                result.put(u.getId(), u);
+                cacheService.cacheUser(u);
+            }
+        }
+        return result;
+    }
+
     public List<User> getAdmire() {
         // 使用Redis缓存替换PoetryCache
         String cacheKey = CacheConstants.CACHE_PREFIX + "admire:list";
@@ -303,6 +254,50 @@ public class CommonQuery {
         return result;
     }
 
+    /**
+     * 批量获取评论数量：先一次MGET读取缓存，未命中的用一次分组统计查询补齐并回填缓存
+     *
+     * @param sources 评论来源ID集合
+     * @param type    评论类型
+     * @return 评论数量，键为来源ID，无评论的来源值为0
+     */
+    public Map<Integer, Integer> getCommentCounts(Collection<Integer> sources, String type) {
+        Map<Integer, Integer> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(sources)) {
+            return result;
+        }
+
+        cacheService.getCachedCommentCounts(sources, type).forEach((source, count) -> result.put(source, count.intValue()));
+
+        Set<Integer> missSources = new HashSet<>();
+        for (Integer source : sources) {
+            if (source != null && !result.containsKey(source)) {
+                missSources.add(source);
+            }
+        }
+        if (!missSources.isEmpty()) {
+            QueryWrapper<Comment> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("source, count(*) as num")
+                    .in("source", missSources)
+                    .eq("type", type)
+                    .groupBy("source");
+            Map<Integer, Long> counts = new HashMap<>();
+            for (Map<String, Object> row : commentMapper.selectMaps(queryWrapper)) {
+                Object source = row.get("source");
+                Object num = row.get("num");
+                if (source instanceof Number && num instanceof Number) {
+                    counts.put(((Number) source).intValue(), ((Number) num).longValue());
+                }
+            }
+            for (Integer source : missSources) {
+                Long c = counts.getOrDefault(source, 0L);
+                result.put(source, c.intValue());
+                cacheService.cacheCommentCount(source, type, c);
+            }
+        }
+        return result;
+    }
+
     public List<Integer> getUserArticleIds(Integer userId) {
         // 使用Redis缓存替换PoetryCache
         String cacheKey = CacheConstants.CACHE_PREFIX + "user:article:list:" + userId;
@@ -331,6 +326,51 @@ public class CommonQuery {
         });
     }
 
+    /**
+     * 使用内存索引搜索文章（原文及全部翻译）
+     * 普通文本走全文倒排索引，/pattern/ 形式走内存语料上的受限正则搜索
+     *
+     * @param searchText 搜索文本
+     * @return 文章ID -> 命中结果，按相关度降序；索引未就绪时返回null，由调用方回退到getArticleIds
+     */
+    public Map<Integer, SearchHit> searchArticleHits(String searchText) {
+        if (!StringUtils.hasText(searchText) || !articleSearchService.isReady()) {
+            return null;
+        }
+        boolean isRegex = searchText.startsWith("/") && searchText.endsWith("/") && searchText.length() > 2;
+        String actualSearchText = isRegex ? searchText.substring(1, searchText.length() - 1) : searchText;
+
+        // 限制文章搜索关键词长度，避免过长搜索导致性能问题
+        if (actualSearchText.length() > 50) {
+            actualSearchText = actualSearchText.substring(0, 50);
+        }
+
+        List<SearchHit> results = null;
+        if (isRegex) {
+            try {
+                results = articleRegexSearchService.search(actualSearchText, SEARCH_HIT_LIMIT);
+            } catch (PatternSyntaxException e) {
+                log.warn("无效的正则表达式: {}, 错误: {}", actualSearchText, e.getMessage());
+                // 如果正则表达式无效，回退到普通文本搜索
+            }
+        }
+        if (results == null) {
+            results = articleSearchService.search(actualSearchText, SEARCH_HIT_LIMIT);
+        }
+
+        Map<Integer, SearchHit> hits = new LinkedHashMap<>();
+        for (SearchHit hit : results) {
+            hits.put(hit.getArticleId(), hit);
+        }
+        return hits;
+    }
+
+    /**
+     * 数据库搜索文章（正则搜索，以及全文索引未就绪时的回退）
+     *
+     * @param searchText 搜索文本
+     * @return [标题命中的文章ID, 内容命中的文章ID]
+     */
     public List<List<Integer>> getArticleIds(String searchText) {
         // 如果搜索文本为空，返回空结果
         if (!StringUtils.hasText(searchText)) {
@@ -642,32 +682,7 @@ public class CommonQuery {
     }
 
     public List<Sort> getSortInfo() {
-        // 直接从数据库查询，不使用缓存
-        List<Sort> sorts = new LambdaQueryChainWrapper<>(sortMapper).list();
-        if (!CollectionUtils.isEmpty(sorts)) {
-            sorts.forEach(sort -> {
-                LambdaQueryChainWrapper<Article> sortWrapper = new LambdaQueryChainWrapper<>(articleMapper);
-                Long countOfSort = sortWrapper
-                    .eq(Article::getSortId, sort.getId())
-                    .eq(Article::getDeleted, false)
-                    .count();
-                sort.setCountOfSort(countOfSort.intValue());
-
-                LambdaQueryChainWrapper<Label> wrapper = new LambdaQueryChainWrapper<>(labelMapper);
-                List<Label> labels = wrapper.eq(Label::getSortId, sort.getId()).list();
-                if (!CollectionUtils.isEmpty(labels)) {
-                    labels.forEach(label -> {
-                        LambdaQueryChainWrapper<Article> labelWrapper = new LambdaQueryChainWrapper<>(articleMapper);
-                        Long countOfLabel = labelWrapper
-                            .eq(Article::getLabelId, label.getId())
-                            .eq(Article::getDeleted, false)
-                            .count();
-                        label.setCountOfLabel(countOfLabel.intValue());
-                    });
-                    sort.setLabels(labels);
-                }
-            });
-        }
-        return sorts;
+        // 从内存快照读取，快照在文章及分类标签变更后失效重建
+        return taxonomyService.getSortInfo();
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.ld.poetry.utils;
 
+import com.ld.poetry.utils.ip.CidrTrie;
+import com.ld.poetry.utils.ip.IpAddress;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -13,21 +15,27 @@ import jakarta.annotation.PostConstruct;
 @Component
 public class DockerNetworkUtil {
 
-    // 从环境变量获取Docker子网
-    @Value("${DOCKER_SUBNET:172.28.147.0/28}")
+    private static final String DEFAULT_DOCKER_SUBNET = "172.28.147.0/28";
+    
+    // 从环境变量获取Docker子网，多个子网以逗号分隔
+    @Value("${DOCKER_SUBNET:" + DEFAULT_DOCKER_SUBNET + "}")
     private String dockerSubnet;
     
     // 受信任的内部服务名称
     private static final String[] TRUSTED_SERVICES = {"poetize-python", "poetize-prerender", "poetize-nginx"};
     
-    // 存储从环境变量获取的Docker子网
-    private static String DOCKER_SUBNET;
+    // 从环境变量获取的Docker子网，初始化前使用默认子网
+    private static volatile CidrTrie DOCKER_NETWORKS = CidrTrie.of(DEFAULT_DOCKER_SUBNET);
     
     @PostConstruct
     public void init() {
-        // 初始化时将环境变量的值赋给静态变量
-        DOCKER_SUBNET = dockerSubnet;
-        log.info("已初始化Docker子网: {}", DOCKER_SUBNET);
+        // 初始化时把环境变量中的子网构建为前缀树
+        try {
+            DOCKER_NETWORKS = CidrTrie.of(dockerSubnet.split(","));
+            log.info("已初始化Docker子网: {}", dockerSubnet);
+        } catch (IllegalArgumentException e) {
+            log.warn("Docker子网配置无效: {}, 使用默认子网: {}", dockerSubnet, DEFAULT_DOCKER_SUBNET);
+        }
     }
     
     /**
@@ -40,18 +48,23 @@ public class DockerNetworkUtil {
             return false;
         }
         
-        // 检查是否为本地回环地址
-        if (ip.equals("127.0.0.1") || ip.equals("localhost") || ip.equals("::1")) {
+        if (ip.equals("localhost")) {
             return true;
         }
         
-        // 检查是否在配置的Docker子网范围内
-        if (DOCKER_SUBNET != null) {
-            return IpUtil.isIpInCidr(ip, DOCKER_SUBNET);
+        return isInDockerNetwork(IpAddress.parse(ip));
+    }
+    
+    /**
+     * 检查已解析的IP是否在Docker内部网络中
+     * @param address IP地址，可为null
+     * @return 是否为本地回环地址或在配置的Docker子网范围内
+     */
+    public static boolean isInDockerNetwork(IpAddress address) {
+        if (address == null) {
+            return false;
         }
-        
-        // 如果环境变量未设置，使用默认子网
-        return IpUtil.isIpInCidr(ip, "172.28.147.0/28");
+        return address.isLoopback() || DOCKER_NETWORKS.contains(address);
     }
     
     /**
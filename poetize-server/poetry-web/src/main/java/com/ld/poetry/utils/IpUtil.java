@@ -1,29 +1,59 @@
 package com.ld.poetry.utils;
 
+import com.ld.poetry.utils.ip.CidrTrie;
+import com.ld.poetry.utils.ip.IpAddress;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Pattern;
 
 /**
  * IP地址获取和验证工具类
  * 提供更强大的IP获取、验证、监控功能
+ * <p>
+ * 所有地址只按字面量解析（{@link IpAddress}），不会触发DNS查询；每个请求的客户端IP只解析一次，
+ * 结果保存在请求属性中，同一请求内的过滤器、切面和业务代码直接复用。
  */
 @Slf4j
 public class IpUtil {
     
-    // IPv4地址正则表达式
-    private static final Pattern IPV4_PATTERN = Pattern.compile(
-        "^(([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\.){3}([01]?\\d\\d?|2[0-4]\\d|25[0-5])$"
-    );
+    /**
+     * 客户端IP字符串的请求属性名
+     */
+    public static final String CLIENT_IP_ATTRIBUTE = IpUtil.class.getName() + ".CLIENT_IP";
+    
+    /**
+     * 客户端IP解析结果（{@link IpAddress}）的请求属性名，无法解析时不设置
+     */
+    public static final String CLIENT_ADDRESS_ATTRIBUTE = IpUtil.class.getName() + ".CLIENT_ADDRESS";
     
-    // IPv6地址正则表达式（简化版）
-    private static final Pattern IPV6_PATTERN = Pattern.compile(
-        "^([0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$|^::1$|^::$"
+    // 按优先级顺序尝试的请求头
+    private static final String[] IP_HEADER_NAMES = {
+        "X-Forwarded-For",
+        "X-Real-IP",
+        "X-Original-Forwarded-For",
+        "Proxy-Client-IP",
+        "WL-Proxy-Client-IP",
+        "HTTP_CLIENT_IP",
+        "HTTP_X_FORWARDED_FOR",
+        "CF-Connecting-IP",  // Cloudflare
+        "True-Client-IP",    // Akamai
+        "X-Cluster-Client-IP" // 集群环境
+    };
+    
+    // 内网、回环、链路本地及无效地址段
+    private static final CidrTrie INTERNAL_NETWORKS = CidrTrie.of(
+        "10.0.0.0/8",
+        "172.16.0.0/12",     // 包含Docker默认网络 172.17.x、172.18.x
+        "192.168.0.0/16",
+        "169.254.0.0/16",    // 链路本地地址
+        "127.0.0.0/8",
+        "0.0.0.0/32",
+        "255.255.255.255/32",
+        "::1/128",
+        "fe80::/10",
+        "fc00::/7"
     );
     
     // IP获取失败统计
@@ -37,156 +67,123 @@ public class IpUtil {
     
     /**
      * 获取客户端真实IP地址
-     * 支持多种代理环境和容错机制
+     * 支持多种代理环境，同一请求内只解析一次
      */
     public static String getClientRealIp(HttpServletRequest request) {
         if (request == null) {
             recordFailure("request_null");
             return "unknown";
         }
+        Object cached = request.getAttribute(CLIENT_IP_ATTRIBUTE);
+        if (cached != null) {
+            return (String) cached;
+        }
         
         totalCount.incrementAndGet();
-        
-        return RetryUtil.executeWithRetry(() -> {
-            try {
-                // 按优先级顺序尝试获取IP地址
-                String[] headerNames = {
-                    "X-Forwarded-For",
-                    "X-Real-IP",
-                    "X-Original-Forwarded-For",
-                    "Proxy-Client-IP",
-                    "WL-Proxy-Client-IP",
-                    "HTTP_CLIENT_IP",
-                    "HTTP_X_FORWARDED_FOR",
-                    "CF-Connecting-IP",  // Cloudflare
-                    "True-Client-IP",    // Akamai
-                    "X-Cluster-Client-IP" // 集群环境
-                };
-                
-                for (String headerName : headerNames) {
-                    String ip = extractValidIpFromHeader(request, headerName);
-                    if (ip != null) {
-                        successCount.incrementAndGet();
-                        return ip;
-                    }
-                }
-                
-                // 最后尝试getRemoteAddr()
-                String remoteAddr = request.getRemoteAddr();
-                if (isValidPublicIp(remoteAddr)) {
-                    successCount.incrementAndGet();
-                    return remoteAddr;
-                }
-                
-                // 如果是内网IP，但在开发环境可能是有效的
-                if (isValidIpFormat(remoteAddr)) {
-                    successCount.incrementAndGet();
-                    return remoteAddr;
-                }
-                
-                // 记录调试信息
-                logDetailedRequestInfo(request);
-                recordFailure("no_valid_ip");
-                
-                return "unknown";
-                
-            } catch (Exception e) {
-                log.error("获取客户端IP时发生异常: {}", e.getMessage(), e);
-                recordFailure("exception_" + e.getClass().getSimpleName());
-                return "unknown";
+        String ip = "unknown";
+        try {
+            ip = resolveClientIp(request);
+        } catch (Exception e) {
+            log.error("获取客户端IP时发生异常: {}", e.getMessage(), e);
+            recordFailure("exception_" + e.getClass().getSimpleName());
+        }
+        request.setAttribute(CLIENT_IP_ATTRIBUTE, ip);
+        return ip;
+    }
+    
+    /**
+     * 获取客户端IP的解析结果，同一请求内只解析一次
+     *
+     * @return 无法获取有效IP时返回null
+     */
+    public static IpAddress getClientAddress(HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        getClientRealIp(request);
+        return (IpAddress) request.getAttribute(CLIENT_ADDRESS_ATTRIBUTE);
+    }
+    
+    private static String resolveClientIp(HttpServletRequest request) {
+        for (String headerName : IP_HEADER_NAMES) {
+            String ip = extractValidIpFromHeader(request, headerName);
+            if (ip != null) {
+                successCount.incrementAndGet();
+                return ip;
             }
-        }, 3, 100, "获取客户端IP");
+        }
+        
+        // 最后尝试getRemoteAddr()，内网IP在开发环境也是有效的
+        String remoteAddr = request.getRemoteAddr();
+        IpAddress address = IpAddress.parse(remoteAddr);
+        if (address != null) {
+            request.setAttribute(CLIENT_ADDRESS_ATTRIBUTE, address);
+            successCount.incrementAndGet();
+            return remoteAddr.trim();
+        }
+        
+        // 记录调试信息
+        logDetailedRequestInfo(request);
+        recordFailure("no_valid_ip");
+        
+        return "unknown";
     }
     
     /**
      * 从请求头中提取有效的IP地址
+     * 多个IP以逗号分隔时优先返回第一个公网IP，没有公网IP时返回第一个格式有效的IP；
+     * 按下标扫描，只为最终选中的IP创建字符串
      */
     private static String extractValidIpFromHeader(HttpServletRequest request, String headerName) {
         String headerValue = request.getHeader(headerName);
-        if (!isValidHeaderValue(headerValue)) {
+        if (headerValue == null || headerValue.isEmpty()) {
             return null;
         }
         
-        // 处理多个IP的情况（通常用逗号分隔）
-        if (headerValue.contains(",")) {
-            String[] ips = headerValue.split(",");
-            for (String ip : ips) {
-                ip = ip.trim();
-                if (isValidPublicIp(ip)) {
-                    return ip;
-                }
+        int firstStart = -1;
+        int firstEnd = -1;
+        IpAddress firstAddress = null;
+        int length = headerValue.length();
+        int start = 0;
+        while (start <= length) {
+            int end = headerValue.indexOf(',', start);
+            if (end < 0) {
+                end = length;
             }
-            // 如果没有公网IP，返回第一个有效格式的IP
-            for (String ip : ips) {
-                ip = ip.trim();
-                if (isValidIpFormat(ip)) {
-                    return ip;
+            IpAddress address = IpAddress.parse(headerValue, start, end);
+            if (address != null) {
+                if (!isInternalAddress(address)) {
+                    request.setAttribute(CLIENT_ADDRESS_ATTRIBUTE, address);
+                    return headerValue.substring(start, end).trim();
+                }
+                if (firstAddress == null) {
+                    firstAddress = address;
+                    firstStart = start;
+                    firstEnd = end;
                 }
             }
-        } else {
-            // 单个IP的情况
-            String ip = headerValue.trim();
-            if (isValidPublicIp(ip)) {
-                return ip;
-            }
-            if (isValidIpFormat(ip)) {
-                return ip;
-            }
+            start = end + 1;
+        }
+        if (firstAddress != null) {
+            request.setAttribute(CLIENT_ADDRESS_ATTRIBUTE, firstAddress);
+            return headerValue.substring(firstStart, firstEnd).trim();
         }
-        
         return null;
     }
     
     /**
-     * 验证请求头值是否有效
-     */
-    private static boolean isValidHeaderValue(String value) {
-        return value != null && 
-               !value.trim().isEmpty() && 
-               !"unknown".equalsIgnoreCase(value.trim()) &&
-               !"null".equalsIgnoreCase(value.trim()) &&
-               !"undefined".equalsIgnoreCase(value.trim()) &&
-               !"-".equals(value.trim());
-    }
-    
-    /**
-     * 验证IP格式是否正确
+     * 验证IP格式是否正确（仅接受IPv4/IPv6字面量，不解析主机名）
      */
     public static boolean isValidIpFormat(String ip) {
-        if (ip == null || ip.trim().isEmpty()) {
-            return false;
-        }
-        
-        ip = ip.trim();
-        
-        // 检查IPv4格式
-        if (IPV4_PATTERN.matcher(ip).matches()) {
-            return true;
-        }
-        
-        // 检查IPv6格式（简化检查）
-        if (IPV6_PATTERN.matcher(ip).matches()) {
-            return true;
-        }
-        
-        // 检查是否为有效的主机名（可以解析为IP）
-        try {
-            InetAddress.getByName(ip);
-            return true;
-        } catch (UnknownHostException e) {
-            return false;
-        }
+        return IpAddress.parse(ip) != null;
     }
     
     /**
      * 验证是否为有效的公网IP
      */
     public static boolean isValidPublicIp(String ip) {
-        if (!isValidIpFormat(ip)) {
-            return false;
-        }
-        
-        return !isInternalIp(ip);
+        IpAddress address = IpAddress.parse(ip);
+        return address != null && !isInternalAddress(address);
     }
     
     /**
@@ -199,47 +196,20 @@ public class IpUtil {
         
         ip = ip.trim();
         
-        // 本地回环地址
-        if ("127.0.0.1".equals(ip) || "localhost".equals(ip) || 
-            "0:0:0:0:0:0:0:1".equals(ip) || "::1".equals(ip)) {
+        // 本地主机名和无效IP
+        if ("localhost".equals(ip) || "unknown".equals(ip)) {
             return true;
         }
         
-        // 私有IP地址段
-        if (ip.startsWith("192.168.") || 
-            ip.startsWith("10.") || 
-            (ip.startsWith("172.") && isInRange172(ip)) ||
-            ip.startsWith("169.254.")) { // 链路本地地址
-            return true;
-        }
-        
-        // Docker默认网络
-        if (ip.startsWith("172.17.") || ip.startsWith("172.18.")) {
-            return true;
-        }
-        
-        // 其他无效IP
-        if ("unknown".equals(ip) || "0.0.0.0".equals(ip) || "255.255.255.255".equals(ip)) {
-            return true;
-        }
-        
-        return false;
+        IpAddress address = IpAddress.parse(ip);
+        return address != null && isInternalAddress(address);
     }
     
     /**
-     * 检查是否在172.16.0.0-172.31.255.255范围内
+     * 判断是否为内网、回环、链路本地或无效地址
      */
-    private static boolean isInRange172(String ip) {
-        try {
-            String[] parts = ip.split("\\.");
-            if (parts.length >= 2) {
-                int second = Integer.parseInt(parts[1]);
-                return second >= 16 && second <= 31;
-            }
-        } catch (NumberFormatException e) {
-            // 忽略解析错误
-        }
-        return false;
+    public static boolean isInternalAddress(IpAddress address) {
+        return INTERNAL_NETWORKS.contains(address);
     }
     
     /**
@@ -288,45 +258,18 @@ public class IpUtil {
     
     /**
      * 验证IP是否在指定的CIDR范围内
+     * 频繁匹配同一组网段时应使用 {@link CidrTrie}
      */
     public static boolean isIpInCidr(String ip, String cidr) {
+        IpAddress address = IpAddress.parse(ip);
+        if (address == null || cidr == null) {
+            return false;
+        }
         try {
-            String[] cidrParts = cidr.split("/");
-            if (cidrParts.length != 2) {
-                return false;
-            }
-            
-            InetAddress targetAddr = InetAddress.getByName(ip);
-            InetAddress cidrAddr = InetAddress.getByName(cidrParts[0]);
-            int prefixLength = Integer.parseInt(cidrParts[1]);
-            
-            byte[] targetBytes = targetAddr.getAddress();
-            byte[] cidrBytes = cidrAddr.getAddress();
-            
-            if (targetBytes.length != cidrBytes.length) {
-                return false;
-            }
-            
-            int bytesToCheck = prefixLength / 8;
-            int bitsToCheck = prefixLength % 8;
-            
-            // 检查完整字节
-            for (int i = 0; i < bytesToCheck; i++) {
-                if (targetBytes[i] != cidrBytes[i]) {
-                    return false;
-                }
-            }
-            
-            // 检查剩余位
-            if (bitsToCheck > 0 && bytesToCheck < targetBytes.length) {
-                int mask = 0xFF << (8 - bitsToCheck);
-                return (targetBytes[bytesToCheck] & mask) == (cidrBytes[bytesToCheck] & mask);
-            }
-            
-            return true;
-        } catch (Exception e) {
+            return CidrTrie.of(cidr).contains(address);
+        } catch (IllegalArgumentException e) {
             log.error("CIDR匹配检查失败: ip={}, cidr={}, error={}", ip, cidr, e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+}
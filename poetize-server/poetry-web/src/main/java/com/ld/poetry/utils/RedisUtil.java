@@ -2,15 +2,22 @@ package com.ld.poetry.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 /**
  * Redis工具类
@@ -28,6 +35,11 @@ public class RedisUtil {
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    /**
+     * 单次管道提交的最大键数，避免一次积压过多命令
+     */
+    private static final int PIPELINE_BATCH_SIZE = 500;
+
     // =============================common============================
 
     /**
@@ -96,6 +108,24 @@ public class RedisUtil {
         return key == null ? null : redisTemplate.opsForValue().get(key);
     }
 
+    /**
+     * 批量获取缓存（MGET，一次往返）
+     * @param keys 键列表
+     * @return 与键列表一一对应的值列表，不存在的键对应null；失败时返回空列表
+     */
+    public List<Object> mGet(List<String> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            return values != null ? values : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("批量获取缓存失败，key数量: {}", keys.size(), e);
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * 普通缓存放入
      * @param key 键
@@ -507,4 +537,133 @@ public class RedisUtil {
             return 0;
         }
     }
+
+    // ============================Batch=============================
+
+    /**
+     * 批量删除缓存（管道执行UNLINK，每批最多500个键）
+     * @param keys 键集合
+     * @return 删除的键数量
+     */
+    public long del(Collection<String> keys) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return 0;
+        }
+        try {
+            long deleted = 0;
+            for (List<String> batch : partition(new ArrayList<>(keys))) {
+                List<Object> results = pipelined(operations -> operations.unlink(batch));
+                for (Object result : results) {
+                    if (result instanceof Number) {
+                        deleted += ((Number) result).longValue();
+                    }
+                }
+            }
+            return deleted;
+        } catch (Exception e) {
+            log.error("批量删除缓存失败，key数量: {}", keys.size(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 批量放入缓存（管道执行），所有键使用相同的过期时间
+     * @param values 键值对
+     * @param time 时间(秒) 小于等于0时永久有效
+     * @return true成功 false失败
+     */
+    public boolean mSet(Map<String, ?> values, long time) {
+        return pipelinedSet(values, key -> time);
+    }
+
+    /**
+     * 批量放入缓存（管道执行），每个键单独指定过期时间
+     * @param values 键值对
+     * @param times 键对应的过期时间(秒)，未指定或小于等于0时永久有效
+     * @return true成功 false失败
+     */
+    public boolean mSet(Map<String, ?> values, Map<String, Long> times) {
+        return pipelinedSet(values, key -> {
+            Long time = times != null ? times.get(key) : null;
+            return time != null ? time : 0L;
+        });
+    }
+
+    private boolean pipelinedSet(Map<String, ?> values, ToLongFunction<String> timeOf) {
+        if (CollectionUtils.isEmpty(values)) {
+            return true;
+        }
+        try {
+            for (List<String> batch : partition(new ArrayList<>(values.keySet()))) {
+                pipelined(operations -> {
+                    for (String key : batch) {
+                        long time = timeOf.applyAsLong(key);
+                        if (time > 0) {
+                            operations.opsForValue().set(key, values.get(key), time, TimeUnit.SECONDS);
+                        } else {
+                            operations.opsForValue().set(key, values.get(key));
+                        }
+                    }
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("批量设置缓存失败，key数量: {}", values.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量将多个list放入缓存（管道执行，每个键一次RPUSH）
+     * @param values 键与要追加的元素
+     * @param time 时间(秒) 小于等于0时不设置过期时间
+     * @return true成功 false失败
+     */
+    public boolean lSetAll(Map<String, List<Object>> values, long time) {
+        if (CollectionUtils.isEmpty(values)) {
+            return true;
+        }
+        try {
+            for (List<String> batch : partition(new ArrayList<>(values.keySet()))) {
+                pipelined(operations -> {
+                    for (String key : batch) {
+                        List<Object> items = values.get(key);
+                        if (CollectionUtils.isEmpty(items)) {
+                            continue;
+                        }
+                        operations.opsForList().rightPushAll(key, items);
+                        if (time > 0) {
+                            operations.expire(key, time, TimeUnit.SECONDS);
+                        }
+                    }
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("批量将list放入缓存失败，key数量: {}", values.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 在一个管道内执行多条命令，返回各命令的结果
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> pipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
+    private static List<List<String>> partition(List<String> keys) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += PIPELINE_BATCH_SIZE) {
+            batches.add(keys.subList(i, Math.min(i + PIPELINE_BATCH_SIZE, keys.size())));
+        }
+        return batches;
+    }
 }
@@ -1,5 +1,6 @@
 package com.ld.poetry.utils;
 
+import com.ld.poetry.utils.search.RegexGuard;
 import org.springframework.util.StringUtils;
 
 import java.util.regex.Matcher;
@@ -91,9 +92,9 @@ public class StringUtil {
         }
         
         try {
-            // 直接使用正则表达式进行匹配和替换
-            Pattern pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(text);
+            // 使用缓存的编译结果，并限制匹配步数，避免灾难性回溯
+            Pattern pattern = RegexGuard.compile(regexPattern);
+            Matcher matcher = RegexGuard.matcher(pattern, text);
             
             StringBuffer sb = new StringBuffer();
             while (matcher.find()) {
@@ -103,6 +104,9 @@ public class StringUtil {
             matcher.appendTail(sb);
             
             return sb.toString();
+        } catch (RegexGuard.BudgetExceededException e) {
+            // 匹配超出预算，不做高亮
+            return text;
         } catch (Exception e) {
             // 如果正则表达式有问题，回退到普通文本高亮
             return highlightText(text, regexPattern, highlightStart, highlightEnd);
@@ -0,0 +1,649 @@
+package com.ld.poetry.utils.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制编码
+ * <p>
+ * 每个值以单字节类型标签开头，整数使用ZigZag变长编码，字符串为UTF-8。
+ * 本项目实体（com.ld.poetry包下带无参构造的类）按字段编码：一次编码中类名和字段名只写一次，
+ * 之后的同类对象只写类型编号和字段值；解码时按字段名匹配，实体增删字段不影响已有数据。
+ * Map的键保留原始类型（Integer键解码后仍为Integer）。
+ * 其他无法直接编码的对象交给 {@link Fallback}（JSON）处理。
+ * <p>
+ * 解码只会实例化本项目包下的类，避免任意类反序列化。
+ */
+public final class BinaryCodec {
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte CHAR = 9;
+    private static final byte STRING = 10;
+    private static final byte BYTES = 11;
+    private static final byte BIG_DECIMAL = 12;
+    private static final byte BIG_INTEGER = 13;
+    private static final byte LOCAL_DATE_TIME = 14;
+    private static final byte LOCAL_DATE = 15;
+    private static final byte LOCAL_TIME = 16;
+    private static final byte INSTANT = 17;
+    private static final byte DATE = 18;
+    private static final byte LIST = 19;
+    private static final byte SET = 20;
+    private static final byte MAP = 21;
+    private static final byte ENUM = 22;
+    private static final byte BEAN_DEF = 23;
+    private static final byte BEAN = 24;
+    private static final byte FALLBACK = 25;
+
+    /**
+     * 嵌套深度上限，防止循环引用导致栈溢出
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * 允许按字段编解码的类名前缀
+     */
+    private static final String BEAN_PACKAGE_PREFIX = "com.ld.poetry.";
+
+    // 类 -> 字段结构，不可编码为实体的类映射为NOT_BEAN
+    private static final Map<Class<?>, ClassSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private static final ClassSchema NOT_BEAN = new ClassSchema(null, null, new Field[0]);
+
+    /**
+     * 回退编码器，处理本编码不支持的对象
+     */
+    public interface Fallback {
+
+        byte[] encode(Object value);
+
+        Object decode(byte[] bytes);
+    }
+
+    private final Fallback fallback;
+
+    public BinaryCodec(Fallback fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * 编码
+     */
+    public byte[] encode(Object value) {
+        Writer writer = new Writer();
+        writer.writeValue(value, 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * 解码
+     *
+     * @throws IllegalArgumentException 数据格式错误
+     */
+    public Object decode(byte[] bytes, int offset, int length) {
+        Reader reader = new Reader(bytes, offset, offset + length);
+        try {
+            return reader.readValue(0);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("二进制缓存数据不完整", e);
+        }
+    }
+
+    // ================================ 编码 ================================
+
+    private final class Writer {
+
+        private final Buffer out = new Buffer();
+
+        // 本次编码中已定义的实体类
+        private final Map<Class<?>, Integer> classIds = new HashMap<>();
+
+        private byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void writeValue(Object value, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("对象嵌套过深，可能存在循环引用");
+            }
+            if (value == null) {
+                out.write(NULL);
+            } else if (value instanceof String) {
+                out.write(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                out.write(INT);
+                out.writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.write(LONG);
+                out.writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Boolean) {
+                out.write((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Double) {
+                out.write(DOUBLE);
+                out.writeFixedLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Float) {
+                out.write(FLOAT);
+                out.writeVarLong(Float.floatToIntBits((Float) value) & 0xFFFFFFFFL);
+            } else if (value instanceof Short) {
+                out.write(SHORT);
+                out.writeVarLong(zigZag((Short) value));
+            } else if (value instanceof Byte) {
+                out.write(BYTE);
+                out.write((Byte) value);
+            } else if (value instanceof Character) {
+                out.write(CHAR);
+                out.writeVarLong((Character) value);
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                out.write(BYTES);
+                out.writeVarLong(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            } else if (value instanceof BigDecimal) {
+                out.write(BIG_DECIMAL);
+                writeString(((BigDecimal) value).toString());
+            } else if (value instanceof BigInteger) {
+                out.write(BIG_INTEGER);
+                writeString(value.toString());
+            } else if (value instanceof LocalDateTime) {
+                LocalDateTime time = (LocalDateTime) value;
+                out.write(LOCAL_DATE_TIME);
+                out.writeVarLong(zigZag(time.toEpochSecond(ZoneOffset.UTC)));
+                out.writeVarLong(time.getNano());
+            } else if (value instanceof LocalDate) {
+                out.write(LOCAL_DATE);
+                out.writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+            } else if (value instanceof LocalTime) {
+                out.write(LOCAL_TIME);
+                out.writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (value instanceof Instant) {
+                Instant instant = (Instant) value;
+                out.write(INSTANT);
+                out.writeVarLong(zigZag(instant.getEpochSecond()));
+                out.writeVarLong(instant.getNano());
+            } else if (value.getClass() == Date.class) {
+                out.write(DATE);
+                out.writeVarLong(zigZag(((Date) value).getTime()));
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.write(LIST);
+                out.writeVarLong(list.size());
+                for (Object element : list) {
+                    writeValue(element, depth + 1);
+                }
+            } else if (value instanceof Set) {
+                Set<?> set = (Set<?>) value;
+                out.write(SET);
+                out.writeVarLong(set.size());
+                for (Object element : set) {
+                    writeValue(element, depth + 1);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.write(MAP);
+                out.writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey(), depth + 1);
+                    writeValue(entry.getValue(), depth + 1);
+                }
+            } else if (value instanceof Enum && isProjectClass(((Enum<?>) value).getDeclaringClass())) {
+                out.write(ENUM);
+                writeString(((Enum<?>) value).getDeclaringClass().getName());
+                writeString(((Enum<?>) value).name());
+            } else {
+                ClassSchema schema = schemaOf(value.getClass());
+                if (schema != NOT_BEAN) {
+                    writeBean(value, schema, depth);
+                } else {
+                    byte[] bytes = fallback.encode(value);
+                    out.write(FALLBACK);
+                    out.writeVarLong(bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+
+        private void writeBean(Object value, ClassSchema schema, int depth) {
+            Integer classId = classIds.get(schema.type);
+            if (classId == null) {
+                classIds.put(schema.type, classIds.size());
+                out.write(BEAN_DEF);
+                writeString(schema.type.getName());
+                out.writeVarLong(schema.fields.length);
+                for (Field field : schema.fields) {
+                    writeString(field.getName());
+                }
+            } else {
+                out.write(BEAN);
+                out.writeVarLong(classId);
+            }
+            for (Field field : schema.fields) {
+                try {
+                    writeValue(field.get(value), depth + 1);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("无法读取字段: " + field, e);
+                }
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    // ================================ 解码 ================================
+
+    private final class Reader {
+
+        private final byte[] bytes;
+
+        private final int end;
+
+        private int position;
+
+        // 本次解码中已定义的实体类（按编号）
+        private final List<ReadSchema> schemas = new ArrayList<>();
+
+        private Reader(byte[] bytes, int offset, int end) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.end = end;
+        }
+
+        private Object readValue(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("二进制缓存数据嵌套过深");
+            }
+            byte tag = readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INT:
+                    return (int) unZigZag(readVarLong());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixedLong());
+                case FLOAT:
+                    return Float.intBitsToFloat((int) readVarLong());
+                case SHORT:
+                    return (short) unZigZag(readVarLong());
+                case BYTE:
+                    return readByte();
+                case CHAR:
+                    return (char) readVarLong();
+                case STRING:
+                    return readString();
+                case BYTES:
+                    return readBytes();
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                case LOCAL_DATE_TIME: {
+                    long seconds = unZigZag(readVarLong());
+                    int nanos = (int) readVarLong();
+                    return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                }
+                case LOCAL_DATE:
+                    return LocalDate.ofEpochDay(unZigZag(readVarLong()));
+                case LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case INSTANT: {
+                    long seconds = unZigZag(readVarLong());
+                    int nanos = (int) readVarLong();
+                    return Instant.ofEpochSecond(seconds, nanos);
+                }
+                case DATE:
+                    return new Date(unZigZag(readVarLong()));
+                case LIST: {
+                    int size = readSize();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(depth + 1));
+                    }
+                    return list;
+                }
+                case SET: {
+                    int size = readSize();
+                    Set<Object> set = new LinkedHashSet<>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; i++) {
+                        set.add(readValue(depth + 1));
+                    }
+                    return set;
+                }
+                case MAP: {
+                    int size = readSize();
+                    Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; i++) {
+                        Object key = readValue(depth + 1);
+                        map.put(key, readValue(depth + 1));
+                    }
+                    return map;
+                }
+                case ENUM:
+                    return readEnum(readString(), readString());
+                case BEAN_DEF: {
+                    String className = readString();
+                    int fieldCount = readSize();
+                    String[] names = new String[fieldCount];
+                    for (int i = 0; i < fieldCount; i++) {
+                        names[i] = readString();
+                    }
+                    ReadSchema schema = new ReadSchema(className, names);
+                    schemas.add(schema);
+                    return readBean(schema, depth);
+                }
+                case BEAN: {
+                    long classId = readVarLong();
+                    if (classId < 0 || classId >= schemas.size()) {
+                        throw new IllegalArgumentException("未定义的实体类型编号: " + classId);
+                    }
+                    return readBean(schemas.get((int) classId), depth);
+                }
+                case FALLBACK:
+                    return fallback.decode(readBytes());
+                default:
+                    throw new IllegalArgumentException("未知的类型标签: " + tag);
+            }
+        }
+
+        private Object readBean(ReadSchema schema, int depth) {
+            if (schema.local == null) {
+                // 类已不存在或不允许实例化，按字段名还原为Map
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (String name : schema.names) {
+                    map.put(name, readValue(depth + 1));
+                }
+                return map;
+            }
+            Object bean = schema.local.newInstance();
+            for (Field field : schema.fields) {
+                Object value = readValue(depth + 1);
+                if (field != null) {
+                    setField(bean, field, value);
+                }
+            }
+            return bean;
+        }
+
+        private int readSize() {
+            long size = readVarLong();
+            // 每个元素至少占一个字节
+            if (size < 0 || size > end - position) {
+                throw new IllegalArgumentException("长度超出数据范围: " + size);
+            }
+            return (int) size;
+        }
+
+        private byte readByte() {
+            if (position >= end) {
+                throw new IndexOutOfBoundsException("数据已读完");
+            }
+            return bytes[position++];
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("变长整数格式错误");
+        }
+
+        private long readFixedLong() {
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result = (result << 8) | (readByte() & 0xFF);
+            }
+            return result;
+        }
+
+        private byte[] readBytes() {
+            int length = readSize();
+            byte[] result = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return result;
+        }
+
+        private String readString() {
+            int length = readSize();
+            String result = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+    }
+
+    // ================================ 类型结构 ================================
+
+    /**
+     * 编码端的类结构
+     */
+    private static final class ClassSchema {
+
+        private final Class<?> type;
+
+        private final Constructor<?> constructor;
+
+        private final Field[] fields;
+
+        private ClassSchema(Class<?> type, Constructor<?> constructor, Field[] fields) {
+            this.type = type;
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+
+        private Object newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("无法实例化: " + type.getName(), e);
+            }
+        }
+
+        private Field field(String name) {
+            for (Field field : fields) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 解码端的类结构：数据中的字段名映射到本地类的字段，本地没有的字段为null
+     */
+    private static final class ReadSchema {
+
+        private final String[] names;
+
+        private final ClassSchema local;
+
+        private final Field[] fields;
+
+        private ReadSchema(String className, String[] names) {
+            this.names = names;
+            ClassSchema schema = NOT_BEAN;
+            if (className.startsWith(BEAN_PACKAGE_PREFIX)) {
+                try {
+                    schema = schemaOf(Class.forName(className, false, BinaryCodec.class.getClassLoader()));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    schema = NOT_BEAN;
+                }
+            }
+            this.local = schema != NOT_BEAN ? schema : null;
+            this.fields = new Field[names.length];
+            if (local != null) {
+                for (int i = 0; i < names.length; i++) {
+                    fields[i] = local.field(names[i]);
+                }
+            }
+        }
+    }
+
+    private static ClassSchema schemaOf(Class<?> type) {
+        return SCHEMAS.computeIfAbsent(type, BinaryCodec::buildSchema);
+    }
+
+    private static ClassSchema buildSchema(Class<?> type) {
+        if (!isProjectClass(type) || type.isInterface() || type.isEnum() || type.isArray()
+                || Modifier.isAbstract(type.getModifiers()) || type.isAnonymousClass() || type.isLocalClass()
+                || (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()))) {
+            return NOT_BEAN;
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return NOT_BEAN;
+        }
+
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || !names.add(field.getName())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    return NOT_BEAN;
+                }
+                fields.add(field);
+            }
+        }
+        return new ClassSchema(type, constructor, fields.toArray(new Field[0]));
+    }
+
+    private static boolean isProjectClass(Class<?> type) {
+        return type.getName().startsWith(BEAN_PACKAGE_PREFIX);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(String className, String name) {
+        if (!className.startsWith(BEAN_PACKAGE_PREFIX)) {
+            throw new IllegalArgumentException("不允许的枚举类型: " + className);
+        }
+        try {
+            Class<?> type = Class.forName(className, false, BinaryCodec.class.getClassLoader());
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException("不是枚举类型: " + className);
+            }
+            return Enum.valueOf((Class) type, name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("枚举类型不存在: " + className, e);
+        }
+    }
+
+    /**
+     * 设置字段值，数值类型不一致时按字段类型转换，无法转换的值忽略
+     */
+    private static void setField(Object bean, Field field, Object value) {
+        Class<?> type = field.getType();
+        if (value == null) {
+            if (type.isPrimitive()) {
+                return;
+            }
+        } else if (value instanceof Number && !type.isInstance(value)) {
+            value = convertNumber((Number) value, type);
+            if (value == null) {
+                return;
+            }
+        } else if (!type.isPrimitive() && !type.isInstance(value)) {
+            return;
+        }
+        try {
+            field.set(bean, value);
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            // 字段类型已变更，保持默认值
+        }
+    }
+
+    private static Object convertNumber(Number value, Class<?> type) {
+        if (type == Integer.class || type == int.class) {
+            return value.intValue();
+        } else if (type == Long.class || type == long.class) {
+            return value.longValue();
+        } else if (type == Double.class || type == double.class) {
+            return value.doubleValue();
+        } else if (type == Float.class || type == float.class) {
+            return value.floatValue();
+        } else if (type == Short.class || type == short.class) {
+            return value.shortValue();
+        } else if (type == Byte.class || type == byte.class) {
+            return value.byteValue();
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(value.toString());
+        } else if (type == Object.class || type == Number.class) {
+            return value;
+        }
+        return null;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 支持变长整数写入的输出缓冲
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(256);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeFixedLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift) & 0xFF);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.ld.poetry.utils.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis紧凑二进制序列化器
+ * <p>
+ * 数据格式：魔数(1字节) + 版本(1字节) + 标志(1字节) + 内容。内容由 {@link BinaryCodec} 编码，
+ * 超过阈值时以Deflate压缩（标志位记录，并在内容前写入原始长度）。
+ * 魔数0xB1不可能是UTF-8文本的首字节，不带魔数的数据一律交给旧格式序列化器（JSON）读取，
+ * 因此可以与旧数据共存；关闭二进制写入后写出的仍是旧格式，便于多实例滚动升级。
+ * 顶层Integer/Long仍写为十进制文本，计数类键可以继续使用INCR等命令。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 魔数
+     */
+    static final byte MAGIC = (byte) 0xB1;
+
+    /**
+     * 当前格式版本
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * 标志位：内容已压缩
+     */
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BinaryCodec codec;
+
+    private final RedisSerializer<Object> legacySerializer;
+
+    private final boolean writeBinary;
+
+    private final int compressThreshold;
+
+    /**
+     * @param legacySerializer  旧格式序列化器，读取旧数据以及编码中无法直接处理的对象
+     * @param writeBinary       是否以二进制格式写入，false时写入旧格式
+     * @param compressThreshold 内容超过该字节数时压缩
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> legacySerializer, boolean writeBinary, int compressThreshold) {
+        this.legacySerializer = legacySerializer;
+        this.writeBinary = writeBinary;
+        this.compressThreshold = compressThreshold;
+        this.codec = new BinaryCodec(new BinaryCodec.Fallback() {
+            @Override
+            public byte[] encode(Object value) {
+                return legacySerializer.serialize(value);
+            }
+
+            @Override
+            public Object decode(byte[] bytes) {
+                return legacySerializer.deserialize(bytes);
+            }
+        });
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        // 顶层整数保持十进制文本，计数类键仍可使用INCR/DECR/HINCRBY
+        if (!writeBinary || value instanceof Integer || value instanceof Long) {
+            return legacySerializer.serialize(value);
+        }
+
+        byte[] content;
+        try {
+            content = codec.encode(value);
+        } catch (RuntimeException e) {
+            throw new SerializationException("二进制序列化失败: " + value.getClass().getName(), e);
+        }
+
+        if (content.length > compressThreshold) {
+            byte[] compressed = compress(content);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] result = new byte[HEADER_LENGTH + content.length];
+        result[0] = MAGIC;
+        result[1] = VERSION;
+        result[2] = 0;
+        System.arraycopy(content, 0, result, HEADER_LENGTH, content.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("二进制缓存数据头不完整");
+        }
+        if (bytes[1] > VERSION) {
+            throw new SerializationException("不支持的二进制缓存格式版本: " + bytes[1]);
+        }
+        try {
+            if ((bytes[2] & FLAG_COMPRESSED) != 0) {
+                byte[] content = decompress(bytes);
+                return codec.decode(content, 0, content.length);
+            }
+            return codec.decode(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new SerializationException("二进制反序列化失败", e);
+        }
+    }
+
+    /**
+     * 压缩：头部 + 原始长度(4字节) + 压缩内容，压缩后没有变小时返回null
+     */
+    private byte[] compress(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 16);
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(FLAG_COMPRESSED);
+            out.write(content.length >>> 24);
+            out.write(content.length >>> 16);
+            out.write(content.length >>> 8);
+            out.write(content.length);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+                if (out.size() >= content.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        if (bytes.length < HEADER_LENGTH + 4) {
+            throw new IllegalArgumentException("压缩数据不完整");
+        }
+        int length = ((bytes[3] & 0xFF) << 24) | ((bytes[4] & 0xFF) << 16) | ((bytes[5] & 0xFF) << 8) | (bytes[6] & 0xFF);
+        if (length < 0) {
+            throw new IllegalArgumentException("压缩数据长度无效: " + length);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, HEADER_LENGTH + 4, bytes.length - HEADER_LENGTH - 4);
+            byte[] content = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int read = inflater.inflate(content, offset, length - offset);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += read;
+            }
+            if (offset != length) {
+                throw new IllegalArgumentException("压缩数据长度不符: " + offset + "/" + length);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩数据格式错误", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return Object.class;
+    }
+}
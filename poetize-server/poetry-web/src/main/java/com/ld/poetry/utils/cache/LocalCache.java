@@ -0,0 +1,188 @@
+package com.ld.poetry.utils.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 进程内本地缓存（Redis前的一级缓存）
+ * <p>
+ * 按最近访问顺序淘汰，容量有上限，每个条目有固定存活时间。键为对应的Redis键，
+ * 便于按Redis键精确失效。可变实体通过复制函数在写入和读取时各复制一次，
+ * 调用方修改返回值不会污染缓存。
+ * <p>
+ * 失效使用代次标记：读取Redis前调用 {@link #mark()}，回填时若期间发生过失效则放弃写入，
+ * 避免把失效前读到的旧值重新放回缓存。
+ *
+ * @param <V> 值类型
+ */
+public class LocalCache<V> {
+
+    private final String name;
+
+    private final int maximumSize;
+
+    private final long ttlNanos;
+
+    private final UnaryOperator<V> copier;
+
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    // 失效代次，每次失效递增
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param name        缓存名称（键族）
+     * @param maximumSize 最大条目数
+     * @param ttlMillis   条目存活时间（毫秒）
+     * @param copier      值复制函数，不可变值传null
+     */
+    public LocalCache(String name, int maximumSize, long ttlMillis, UnaryOperator<V> copier) {
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<String, Entry<V>>(Math.min(maximumSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > LocalCache.this.maximumSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @return 未命中或已过期时返回null
+     */
+    public V get(String key) {
+        V value;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                missCount.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.expireAt > 0) {
+                entries.remove(key);
+                evictionCount.increment();
+                missCount.increment();
+                return null;
+            }
+            value = entry.value;
+        }
+        hitCount.increment();
+        return copy(value);
+    }
+
+    /**
+     * 当前失效代次，在读取Redis之前获取
+     */
+    public long mark() {
+        return generation.get();
+    }
+
+    /**
+     * 写入缓存
+     */
+    public void put(String key, V value) {
+        put(key, value, -1);
+    }
+
+    /**
+     * 回填缓存，获取标记之后若发生过失效则不写入
+     *
+     * @param mark {@link #mark()} 的返回值，小于0表示不检查
+     */
+    public void put(String key, V value, long mark) {
+        if (key == null || value == null) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(copy(value), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            if (mark >= 0 && generation.get() != mark) {
+                return;
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * 失效单个键
+     */
+    public void invalidate(String key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 命中率，无访问时为0
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private V copy(V value) {
+        return copier != null ? copier.apply(value) : value;
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        private Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ld.poetry.utils.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * 定长环形窗口，保存最近写入的若干个元素
+ * <p>
+ * 写满后新元素覆盖最早的元素，因此窗口内始终是连续的“最新一段”。
+ * {@link #mergeOlder(List, BiPredicate)} 可把从数据库查到的更早元素补到窗口前部，
+ * 下次读取即可直接命中。所有方法线程安全。
+ *
+ * @param <E> 元素类型
+ */
+public final class RingWindow<E> {
+
+    private final Object[] items;
+
+    // 最早一个元素的下标
+    private int head;
+
+    private int size;
+
+    public RingWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * 追加一个最新元素，窗口已满时丢弃最早的元素
+     */
+    public synchronized void add(E item) {
+        if (size == items.length) {
+            items[head] = item;
+            head = (head + 1) % items.length;
+        } else {
+            items[(head + size) % items.length] = item;
+            size++;
+        }
+    }
+
+    /**
+     * 按写入顺序（从早到晚）复制窗口内容
+     */
+    public synchronized List<E> snapshot() {
+        List<E> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 把窗口之前的元素与窗口合并
+     * <p>
+     * older 按从早到晚排列，其中与窗口内元素相同（same 判断）的会被去掉，剩余元素视为都早于窗口内元素；
+     * 窗口未满时把其中最新的若干个补到窗口前部。
+     *
+     * @return 合并后的完整序列（从早到晚），包括未能放入窗口的元素
+     */
+    public synchronized List<E> mergeOlder(List<E> older, BiPredicate<? super E, ? super E> same) {
+        List<E> current = snapshot();
+        List<E> earlier = new ArrayList<>(older.size());
+        for (E candidate : older) {
+            boolean duplicate = false;
+            for (E existing : current) {
+                if (same.test(candidate, existing)) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                earlier.add(candidate);
+            }
+        }
+
+        int fill = Math.min(items.length - size, earlier.size());
+        for (int i = earlier.size() - 1; i >= earlier.size() - fill; i--) {
+            head = (head - 1 + items.length) % items.length;
+            items[head] = earlier.get(i);
+            size++;
+        }
+
+        earlier.addAll(current);
+        return earlier;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E get(int index) {
+        return (E) items[(head + index) % items.length];
+    }
+}
@@ -0,0 +1,181 @@
+package com.ld.poetry.utils.cache;
+
+import com.ld.poetry.entity.Label;
+import com.ld.poetry.entity.Sort;
+import org.springframework.beans.BeanUtils;
+
+import java.util.*;
+
+/**
+ * 分类标签快照
+ * <p>
+ * 不可变的分类、标签及文章数量视图，构建完成后只读，可被任意线程并发访问。
+ * 对外返回的实体均为副本，调用方修改不会影响快照本身。
+ */
+public final class TaxonomySnapshot {
+
+    /**
+     * 空快照
+     */
+    public static final TaxonomySnapshot EMPTY = new TaxonomySnapshot(0L, Collections.emptyList(), Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+
+    // 快照版本号
+    private final long version;
+
+    // 构建时间戳（毫秒）
+    private final long buildTime;
+
+    // 分类列表（含标签及数量），保持数据库返回顺序
+    private final List<Sort> sorts;
+
+    // 分类ID索引
+    private final Map<Integer, Sort> sortById;
+
+    // 标签ID索引
+    private final Map<Integer, Label> labelById;
+
+    /**
+     * 构建快照
+     *
+     * @param version     版本号
+     * @param sortList    分类列表
+     * @param labelList   标签列表
+     * @param sortCounts  各分类未删除文章数
+     * @param labelCounts 各标签未删除文章数
+     */
+    public TaxonomySnapshot(long version, List<Sort> sortList, List<Label> labelList,
+                            Map<Integer, Integer> sortCounts, Map<Integer, Integer> labelCounts) {
+        this.version = version;
+        this.buildTime = System.currentTimeMillis();
+
+        Map<Integer, List<Label>> labelsBySort = new HashMap<>();
+        Map<Integer, Label> labelIndex = new HashMap<>();
+        for (Label source : labelList) {
+            Label label = copyLabel(source);
+            label.setCountOfLabel(labelCounts.getOrDefault(label.getId(), 0));
+            labelIndex.put(label.getId(), label);
+            if (label.getSortId() != null) {
+                labelsBySort.computeIfAbsent(label.getSortId(), k -> new ArrayList<>()).add(label);
+            }
+        }
+
+        List<Sort> sortResult = new ArrayList<>(sortList.size());
+        Map<Integer, Sort> sortIndex = new HashMap<>();
+        for (Sort source : sortList) {
+            Sort sort = new Sort();
+            BeanUtils.copyProperties(source, sort);
+            sort.setCountOfSort(sortCounts.getOrDefault(sort.getId(), 0));
+            List<Label> labels = labelsBySort.get(sort.getId());
+            sort.setLabels(labels == null ? null : Collections.unmodifiableList(labels));
+            sortResult.add(sort);
+            sortIndex.put(sort.getId(), sort);
+        }
+
+        this.sorts = Collections.unmodifiableList(sortResult);
+        this.sortById = Collections.unmodifiableMap(sortIndex);
+        this.labelById = Collections.unmodifiableMap(labelIndex);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    public int getSortCount() {
+        return sorts.size();
+    }
+
+    public int getLabelCount() {
+        return labelById.size();
+    }
+
+    /**
+     * 获取完整分类信息（含标签），返回深拷贝
+     */
+    public List<Sort> copySortInfo() {
+        List<Sort> result = new ArrayList<>(sorts.size());
+        for (Sort sort : sorts) {
+            Sort copy = copySort(sort);
+            if (sort.getLabels() != null) {
+                List<Label> labels = new ArrayList<>(sort.getLabels().size());
+                for (Label label : sort.getLabels()) {
+                    labels.add(copyLabel(label));
+                }
+                copy.setLabels(labels);
+            }
+            result.add(copy);
+        }
+        return result;
+    }
+
+    /**
+     * 获取分类列表（不含标签），返回副本
+     */
+    public List<Sort> copySorts() {
+        List<Sort> result = new ArrayList<>(sorts.size());
+        for (Sort sort : sorts) {
+            result.add(copySort(sort));
+        }
+        return result;
+    }
+
+    /**
+     * 获取标签列表，返回副本
+     */
+    public List<Label> copyLabels() {
+        List<Label> result = new ArrayList<>(labelById.size());
+        for (Label label : labelById.values()) {
+            result.add(copyLabel(label));
+        }
+        result.sort(Comparator.comparing(Label::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * 根据ID获取分类（不含标签），不存在时返回null
+     */
+    public Sort getSort(Integer sortId) {
+        Sort sort = sortId == null ? null : sortById.get(sortId);
+        return sort == null ? null : copySort(sort);
+    }
+
+    /**
+     * 根据ID获取标签，不存在时返回null
+     */
+    public Label getLabel(Integer labelId) {
+        Label label = labelId == null ? null : labelById.get(labelId);
+        return label == null ? null : copyLabel(label);
+    }
+
+    /**
+     * 根据ID获取分类名称，不存在时返回null
+     */
+    public String getSortName(Integer sortId) {
+        Sort sort = sortId == null ? null : sortById.get(sortId);
+        return sort == null ? null : sort.getSortName();
+    }
+
+    /**
+     * 根据ID获取标签名称，不存在时返回null
+     */
+    public String getLabelName(Integer labelId) {
+        Label label = labelId == null ? null : labelById.get(labelId);
+        return label == null ? null : label.getLabelName();
+    }
+
+    private static Sort copySort(Sort source) {
+        Sort sort = new Sort();
+        BeanUtils.copyProperties(source, sort);
+        sort.setLabels(null);
+        return sort;
+    }
+
+    private static Label copyLabel(Label source) {
+        Label label = new Label();
+        BeanUtils.copyProperties(source, label);
+        return label;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ld.poetry.utils.ip;
+
+import java.util.Arrays;
+
+/**
+ * CIDR网段前缀树（二叉字典树）
+ * <p>
+ * 按地址从最高位开始逐位下行，沿途遇到网段终点即命中，查询耗时只与前缀长度有关，与网段数量无关。
+ * IPv4和IPv6各有一个根节点，节点以数组存储，查询过程不创建对象。
+ * 构建完成后只读，可以被多个线程并发查询；需要变更时构建新实例整体替换。
+ */
+public class CidrTrie {
+
+    private static final int IPV4_ROOT = 0;
+
+    private static final int IPV6_ROOT = 1;
+
+    private static final int NONE = 0;
+
+    // children[2 * node + bit] 为子节点下标，0 表示不存在（根节点不会作为子节点）
+    private int[] children = new int[64];
+
+    private boolean[] terminal = new boolean[32];
+
+    private int nodeCount = 2;
+
+    private int prefixCount;
+
+    /**
+     * 由CIDR列表构建，单个地址视为 /32 或 /128
+     *
+     * @throws IllegalArgumentException 网段格式不正确
+     */
+    public static CidrTrie of(String... cidrs) {
+        CidrTrie trie = new CidrTrie();
+        for (String cidr : cidrs) {
+            trie.add(cidr);
+        }
+        return trie;
+    }
+
+    /**
+     * 添加网段，如 10.0.0.0/8、fc00::/7 或单个地址
+     *
+     * @throws IllegalArgumentException 网段格式不正确
+     */
+    public void add(String cidr) {
+        if (cidr == null) {
+            throw new IllegalArgumentException("cidr is null");
+        }
+        int slash = cidr.indexOf('/');
+        IpAddress network = IpAddress.parse(cidr, 0, slash < 0 ? cidr.length() : slash);
+        if (network == null) {
+            throw new IllegalArgumentException("invalid cidr: " + cidr);
+        }
+        int prefixLength = network.bitLength();
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid cidr: " + cidr);
+            }
+        }
+        add(network, prefixLength);
+    }
+
+    /**
+     * 添加网段，网络地址中前缀长度之后的位被忽略
+     */
+    public void add(IpAddress network, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > network.bitLength()) {
+            throw new IllegalArgumentException("invalid prefix length: " + prefixLength);
+        }
+        int node = network.isIpv6() ? IPV6_ROOT : IPV4_ROOT;
+        for (int i = 0; i < prefixLength && !terminal[node]; i++) {
+            int slot = 2 * node + network.bit(i);
+            int child = children[slot];
+            if (child == NONE) {
+                child = newNode();
+                children[slot] = child;
+            }
+            node = child;
+        }
+        if (!terminal[node]) {
+            terminal[node] = true;
+            prefixCount++;
+        }
+    }
+
+    /**
+     * 地址是否落在任一网段内
+     */
+    public boolean contains(IpAddress address) {
+        if (address == null) {
+            return false;
+        }
+        int node = address.isIpv6() ? IPV6_ROOT : IPV4_ROOT;
+        int bits = address.bitLength();
+        for (int i = 0; ; i++) {
+            if (terminal[node]) {
+                return true;
+            }
+            if (i == bits) {
+                return false;
+            }
+            node = children[2 * node + address.bit(i)];
+            if (node == NONE) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 解析IP字面量并判断是否落在任一网段内，格式不正确时返回false
+     */
+    public boolean contains(CharSequence ip) {
+        return contains(IpAddress.parse(ip));
+    }
+
+    /**
+     * 添加的网段数量（添加时已被更短前缀覆盖的网段不计入）
+     */
+    public int size() {
+        return prefixCount;
+    }
+
+    public boolean isEmpty() {
+        return prefixCount == 0;
+    }
+
+    private int newNode() {
+        if (nodeCount == terminal.length) {
+            terminal = Arrays.copyOf(terminal, nodeCount * 2);
+            children = Arrays.copyOf(children, nodeCount * 4);
+        }
+        return nodeCount++;
+    }
+}
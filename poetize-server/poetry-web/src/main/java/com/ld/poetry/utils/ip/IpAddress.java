@@ -0,0 +1,304 @@
+package com.ld.poetry.utils.ip;
+
+/**
+ * IP地址（不可变，IPv4为32位、IPv6为128位的紧凑表示）
+ * <p>
+ * 只解析字面量地址：逐字符扫描，不使用正则、split 或 InetAddress，不会触发DNS查询，
+ * 解析过程中除成功时的结果对象外不创建任何对象。IPv4映射的IPv6地址（::ffff:a.b.c.d）
+ * 统一转换为IPv4，IPv6的区域标识（%eth0）被忽略。
+ */
+public final class IpAddress {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL;
+
+    /**
+     * IPv6高64位，IPv4为0
+     */
+    private final long high;
+
+    /**
+     * IPv6低64位，IPv4为32位无符号地址
+     */
+    private final long low;
+
+    private final boolean ipv6;
+
+    private IpAddress(long high, long low, boolean ipv6) {
+        this.high = high;
+        this.low = low;
+        this.ipv6 = ipv6;
+    }
+
+    public static IpAddress ofIpv4(long value) {
+        return new IpAddress(0, value & 0xFFFFFFFFL, false);
+    }
+
+    public static IpAddress ofIpv6(long high, long low) {
+        if (high == 0 && (low >>> 32) == IPV4_MAPPED_PREFIX) {
+            return ofIpv4(low);
+        }
+        return new IpAddress(high, low, true);
+    }
+
+    /**
+     * 解析IP字面量，两端空白会被忽略
+     *
+     * @return 格式不正确时返回null
+     */
+    public static IpAddress parse(CharSequence text) {
+        return text == null ? null : parse(text, 0, text.length());
+    }
+
+    /**
+     * 解析 text[from, to) 范围内的IP字面量，两端空白会被忽略
+     *
+     * @return 格式不正确时返回null
+     */
+    public static IpAddress parse(CharSequence text, int from, int to) {
+        if (text == null) {
+            return null;
+        }
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return null;
+        }
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ':') {
+                return parseIpv6(text, from, to);
+            }
+        }
+        long value = parseIpv4(text, from, to);
+        return value < 0 ? null : new IpAddress(0, value, false);
+    }
+
+    /**
+     * 解析 text[from, to) 范围内的点分十进制IPv4地址，不接受前导零和空白
+     *
+     * @return 无符号32位整数，格式不正确时返回-1
+     */
+    public static long parseIpv4(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length < 7 || length > 15) {
+            return -1;
+        }
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                // 不接受前导零（如 010），避免与八进制写法混淆
+                if (digits == 1 && octet == 0) {
+                    return -1;
+                }
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return -1;
+                }
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * 解析IPv6字面量，支持 :: 压缩和末尾内嵌IPv4
+     * <p>
+     * :: 之前的分组累加到 head，之后的分组累加到 tail，最后把 head 左移补足省略的零分组再与 tail 合并。
+     */
+    private static IpAddress parseIpv6(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '%') {
+                to = i;
+                break;
+            }
+        }
+        if (to - from < 2) {
+            return null;
+        }
+        long headHigh = 0;
+        long headLow = 0;
+        int headGroups = -1;
+        long high = 0;
+        long low = 0;
+        int groups = 0;
+        int i = from;
+        if (text.charAt(i) == ':') {
+            if (text.charAt(i + 1) != ':') {
+                return null;
+            }
+            headGroups = 0;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int value = 0;
+            int digit;
+            while (i < to && (digit = hexDigit(text.charAt(i))) >= 0) {
+                if (i - start == 4) {
+                    return null;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (i < to && text.charAt(i) == '.') {
+                // 内嵌IPv4占两个分组，且必须位于末尾
+                long ipv4 = parseIpv4(text, start, to);
+                if (ipv4 < 0) {
+                    return null;
+                }
+                high = (high << 32) | (low >>> 32);
+                low = (low << 32) | ipv4;
+                groups += 2;
+                break;
+            }
+            if (i == start) {
+                return null;
+            }
+            high = (high << 16) | (low >>> 48);
+            low = (low << 16) | value;
+            groups++;
+            if (i == to) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            if (i < to && text.charAt(i) == ':') {
+                if (headGroups >= 0) {
+                    return null;
+                }
+                headHigh = high;
+                headLow = low;
+                headGroups = groups;
+                high = 0;
+                low = 0;
+                groups = 0;
+                i++;
+            } else if (i == to) {
+                return null;
+            }
+        }
+
+        if (headGroups < 0) {
+            return groups == 8 ? ofIpv6(high, low) : null;
+        }
+        if (headGroups + groups > 7) {
+            return null;
+        }
+        for (int shift = headGroups; shift < 8; shift++) {
+            headHigh = (headHigh << 16) | (headLow >>> 48);
+            headLow <<= 16;
+        }
+        return ofIpv6(headHigh | high, headLow | low);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    public boolean isIpv6() {
+        return ipv6;
+    }
+
+    public boolean isIpv4() {
+        return !ipv6;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * 地址位数：IPv4为32，IPv6为128
+     */
+    public int bitLength() {
+        return ipv6 ? 128 : 32;
+    }
+
+    /**
+     * 从最高位开始的第 index 位
+     */
+    public int bit(int index) {
+        if (!ipv6) {
+            return (int) (low >>> (31 - index)) & 1;
+        }
+        return index < 64 ? (int) (high >>> (63 - index)) & 1 : (int) (low >>> (127 - index)) & 1;
+    }
+
+    /**
+     * 是否为回环地址（127.0.0.0/8 或 ::1）
+     */
+    public boolean isLoopback() {
+        return ipv6 ? high == 0 && low == 1 : (low >>> 24) == 127;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IpAddress)) {
+            return false;
+        }
+        IpAddress other = (IpAddress) o;
+        return high == other.high && low == other.low && ipv6 == other.ipv6;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low) + (ipv6 ? 1 : 0);
+    }
+
+    /**
+     * IPv4为点分十进制，IPv6为不压缩的冒号十六进制（与 InetAddress.getHostAddress 一致）
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(ipv6 ? 39 : 15);
+        if (!ipv6) {
+            builder.append(low >>> 24).append('.').append((low >>> 16) & 0xFF).append('.')
+                    .append((low >>> 8) & 0xFF).append('.').append(low & 0xFF);
+            return builder.toString();
+        }
+        for (int group = 0; group < 8; group++) {
+            if (group > 0) {
+                builder.append(':');
+            }
+            long word = group < 4 ? high >>> (48 - group * 16) : low >>> (48 - (group - 4) * 16);
+            builder.append(Long.toHexString(word & 0xFFFF));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ld.poetry.utils.ip;
+
+import java.util.Objects;
+
+/**
+ * IP地理位置（不可变）
+ * <p>
+ * 由 ip2region 结果（国家|区域|省份|城市|ISP）解析一次得到，"0"和空串视为未知并保存为null。
+ * 实例可以在线程间和缓存中直接共享。
+ */
+public final class Region {
+
+    /**
+     * 未知地区
+     */
+    public static final Region UNKNOWN = new Region(null, null, null, null, null);
+
+    private final String country;
+
+    private final String area;
+
+    private final String province;
+
+    private final String city;
+
+    private final String isp;
+
+    public Region(String country, String area, String province, String city, String isp) {
+        this.country = country;
+        this.area = area;
+        this.province = province;
+        this.city = city;
+        this.isp = isp;
+    }
+
+    /**
+     * 解析 ip2region 结果
+     *
+     * @param search 国家|区域|省份|城市|ISP，为null时返回 {@link #UNKNOWN}
+     */
+    public static Region parse(String search) {
+        if (search == null || search.isEmpty()) {
+            return UNKNOWN;
+        }
+        String[] fields = new String[5];
+        int start = 0;
+        for (int field = 0; field < fields.length; field++) {
+            int end = search.indexOf('|', start);
+            if (end < 0) {
+                end = search.length();
+            }
+            if (end > start && !(end - start == 1 && search.charAt(start) == '0')) {
+                fields[field] = search.substring(start, end);
+            }
+            if (end == search.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+        if (fields[0] == null && fields[2] == null && fields[3] == null) {
+            return UNKNOWN;
+        }
+        return new Region(fields[0], fields[1], fields[2], fields[3], fields[4]);
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getArea() {
+        return area;
+    }
+
+    public String getProvince() {
+        return province;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getIsp() {
+        return isp;
+    }
+
+    public boolean isUnknown() {
+        return country == null && province == null && city == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Region)) {
+            return false;
+        }
+        Region other = (Region) o;
+        return Objects.equals(country, other.country) && Objects.equals(area, other.area)
+                && Objects.equals(province, other.province) && Objects.equals(city, other.city)
+                && Objects.equals(isp, other.isp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(country, area, province, city, isp);
+    }
+
+    @Override
+    public String toString() {
+        return (country != null ? country : "0") + "|" + (area != null ? area : "0") + "|"
+                + (province != null ? province : "0") + "|" + (city != null ? city : "0") + "|"
+                + (isp != null ? isp : "0");
+    }
+}
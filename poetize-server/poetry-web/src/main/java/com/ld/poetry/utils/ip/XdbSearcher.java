@@ -0,0 +1,115 @@
+package com.ld.poetry.utils.ip;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射的 ip2region xdb 查询器
+ * <p>
+ * xdb 文件以只读方式映射到进程地址空间，数据由操作系统页缓存承载，不占用堆内存，
+ * 多个查询器或多个进程映射同一文件时共享物理页。查询只使用绝对位置读取，不修改缓冲区状态，
+ * 可以被任意多个线程并发调用。
+ * <p>
+ * xdb 格式（小端序）：256字节头部 + 256×256 向量索引（每项8字节：段索引起止偏移）
+ * + 段索引（每项14字节：起始IP、结束IP、数据长度、数据偏移）+ 地区数据（UTF-8，国家|区域|省份|城市|ISP）。
+ */
+public class XdbSearcher {
+
+    public static final int HEADER_INFO_LENGTH = 256;
+
+    public static final int VECTOR_INDEX_ROWS = 256;
+
+    public static final int VECTOR_INDEX_COLS = 256;
+
+    public static final int VECTOR_INDEX_SIZE = 8;
+
+    public static final int SEGMENT_INDEX_SIZE = 14;
+
+    private final MappedByteBuffer buffer;
+
+    private XdbSearcher(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 映射 xdb 文件，映射建立后关闭文件通道不影响查询
+     */
+    public static XdbSearcher open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_INFO_LENGTH + (long) VECTOR_INDEX_ROWS * VECTOR_INDEX_COLS * VECTOR_INDEX_SIZE) {
+                throw new IOException("invalid xdb file: " + file + ", size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new XdbSearcher(buffer);
+        }
+    }
+
+    /**
+     * 查询IPv4地址
+     *
+     * @return 地区字符串，IP格式不正确或未收录时返回null
+     */
+    public String search(String ip) {
+        long value = parseIpv4(ip);
+        return value < 0 ? null : search(value);
+    }
+
+    /**
+     * 查询IPv4地址（无符号32位整数）
+     *
+     * @return 地区字符串，未收录时返回null
+     */
+    public String search(long ip) {
+        int il0 = (int) (ip >>> 24) & 0xFF;
+        int il1 = (int) (ip >>> 16) & 0xFF;
+        int idx = HEADER_INFO_LENGTH + il0 * VECTOR_INDEX_COLS * VECTOR_INDEX_SIZE + il1 * VECTOR_INDEX_SIZE;
+        long sPtr = buffer.getInt(idx) & 0xFFFFFFFFL;
+        long ePtr = buffer.getInt(idx + 4) & 0xFFFFFFFFL;
+
+        long low = 0;
+        long high = (ePtr - sPtr) / SEGMENT_INDEX_SIZE;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int p = (int) (sPtr + mid * SEGMENT_INDEX_SIZE);
+            long startIp = buffer.getInt(p) & 0xFFFFFFFFL;
+            if (ip < startIp) {
+                high = mid - 1;
+                continue;
+            }
+            long endIp = buffer.getInt(p + 4) & 0xFFFFFFFFL;
+            if (ip > endIp) {
+                low = mid + 1;
+                continue;
+            }
+            int dataLen = buffer.getShort(p + 8) & 0xFFFF;
+            int dataPtr = buffer.getInt(p + 10);
+            byte[] data = new byte[dataLen];
+            buffer.get(dataPtr, data);
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * 映射的文件大小
+     */
+    public long size() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 解析点分十进制IPv4地址，不创建中间对象
+     *
+     * @return 无符号32位整数，格式不正确时返回-1
+     */
+    public static long parseIpv4(CharSequence ip) {
+        return ip == null ? -1 : IpAddress.parseIpv4(ip, 0, ip.length());
+    }
+}
@@ -0,0 +1,96 @@
+package com.ld.poetry.utils.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地令牌桶
+ * <p>
+ * 桶容量为 capacity，每 period 补满一次（按时间均匀补充）。{@link #tryAcquire()} 不等待，
+ * {@link #acquire(long, TimeUnit)} 在超时时间内预约下一个令牌并等待，用于对外部接口匀速调用。
+ * 与 {@code RateLimiterService} 的GCRA脚本参数一致时，本地拒绝的请求在全局也一定会被拒绝。
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+
+    private final double nanosPerToken;
+
+    // 可为负数，表示已被预约的令牌
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    /**
+     * @param capacity 桶容量，即每个周期内允许的次数
+     * @param period   补满一次的时长
+     */
+    public TokenBucket(int capacity, long period, TimeUnit unit) {
+        if (capacity <= 0 || period <= 0) {
+            throw new IllegalArgumentException("capacity and period must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = (double) unit.toNanos(period) / capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 立即获取一个令牌
+     *
+     * @return 桶中没有令牌时返回false
+     */
+    public synchronized boolean tryAcquire() {
+        refill(System.nanoTime());
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取一个令牌，没有令牌时预约并等待到可用
+     *
+     * @return 需要等待的时间超过超时时间时返回false，不占用令牌
+     */
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill(System.nanoTime());
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+            if (waitNanos > unit.toNanos(timeout)) {
+                return false;
+            }
+            tokens -= 1;
+        }
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+        return true;
+    }
+
+    /**
+     * 归还一个令牌，用于令牌取得后请求未被执行的情况
+     */
+    public synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * 桶是否已满（长时间未使用），可用于清理闲置的桶
+     */
+    public synchronized boolean isFull() {
+        refill(System.nanoTime());
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed / nanosPerToken);
+            lastRefillNanos = now;
+        }
+    }
+}
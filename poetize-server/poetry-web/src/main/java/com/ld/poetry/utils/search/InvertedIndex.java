@@ -0,0 +1,592 @@
+package com.ld.poetry.utils.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 文章倒排索引
+ * <p>
+ * 每篇文章的原文标题、原文内容以及各语言翻译的标题、内容分别作为一个文档，
+ * 词元到文档的倒排表记录词元在文档中的位置，支持短语（相邻位置）匹配，
+ * 同时保存每个位置在原文中的字符偏移，用于截取摘要和高亮。
+ * <p>
+ * 本类不是线程安全的，由调用方加锁。
+ */
+public class InvertedIndex {
+
+    public static final byte FIELD_TITLE = 0;
+
+    public static final byte FIELD_CONTENT = 1;
+
+    private static final int FILE_MAGIC = 0x50534958;
+
+    private static final int FILE_VERSION = 1;
+
+    /**
+     * 标题命中的权重（内容命中为1）
+     */
+    private static final double TITLE_WEIGHT = 10;
+
+    /**
+     * 拉丁单词前缀匹配最多展开的词元数
+     */
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    // 文档ID -> 文档
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    // 文章ID -> 文档ID列表
+    private final Map<Integer, List<Integer>> articleDocuments = new HashMap<>();
+
+    // 词元 -> (文档ID -> 升序位置)，有序以支持前缀匹配
+    private final TreeMap<String, Map<Integer, int[]>> postings = new TreeMap<>();
+
+    // 文章ID -> 内容签名，用于启动时识别已变更的文章
+    private final Map<Integer, Long> signatures = new HashMap<>();
+
+    private int nextDocId = 1;
+
+    /**
+     * 添加文档
+     *
+     * @param articleId 文章ID
+     * @param language  翻译语言，原文为null
+     * @param field     字段（FIELD_TITLE / FIELD_CONTENT）
+     * @param text      文本
+     */
+    public void addDocument(int articleId, String language, byte field, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        List<SearchTokenizer.Token> tokens = SearchTokenizer.tokenize(text);
+        int docId = nextDocId++;
+        int[] starts = new int[tokens.size()];
+        int[] ends = new int[tokens.size()];
+        Map<String, List<Integer>> termPositions = new HashMap<>();
+        for (int position = 0; position < tokens.size(); position++) {
+            SearchTokenizer.Token token = tokens.get(position);
+            starts[position] = token.getStart();
+            ends[position] = token.getEnd();
+            termPositions.computeIfAbsent(token.getTerm(), k -> new ArrayList<>()).add(position);
+        }
+
+        documents.put(docId, new Document(articleId, language, field, text, starts, ends));
+        articleDocuments.computeIfAbsent(articleId, k -> new ArrayList<>()).add(docId);
+        termPositions.forEach((term, positions) ->
+                postings.computeIfAbsent(term, k -> new HashMap<>()).put(docId, toArray(positions)));
+    }
+
+    /**
+     * 移除文章的全部文档
+     *
+     * @param articleId 文章ID
+     */
+    public void removeArticle(int articleId) {
+        signatures.remove(articleId);
+        List<Integer> docIds = articleDocuments.remove(articleId);
+        if (docIds == null) {
+            return;
+        }
+        for (Integer docId : docIds) {
+            Document document = documents.remove(docId);
+            if (document == null) {
+                continue;
+            }
+            Set<String> terms = new HashSet<>();
+            for (SearchTokenizer.Token token : SearchTokenizer.tokenize(document.text)) {
+                terms.add(token.getTerm());
+            }
+            for (String term : terms) {
+                Map<Integer, int[]> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(docId);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    public void setSignature(int articleId, long signature) {
+        signatures.put(articleId, signature);
+    }
+
+    public Map<Integer, Long> getSignatures() {
+        return new HashMap<>(signatures);
+    }
+
+    public int getArticleCount() {
+        return articleDocuments.size();
+    }
+
+    public int getDocumentCount() {
+        return documents.size();
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * 遍历全部文档
+     */
+    public void forEachDocument(DocumentVisitor visitor) {
+        for (Document document : documents.values()) {
+            visitor.visit(document.articleId, document.language, document.field, document.text);
+        }
+    }
+
+    /**
+     * 搜索
+     * <p>
+     * 搜索词按空白拆分为多个关键词，每个关键词在文档内作为短语匹配，所有关键词都命中的文章才算命中；
+     * 关键词最后一个拉丁单词按前缀匹配；包含单个中日韩字符的关键词无法用二元索引定位，退化为逐文档扫描。
+     *
+     * @param query 搜索词
+     * @param limit 最多返回的文章数
+     * @return 按分数降序排列的命中结果
+     */
+    public List<SearchHit> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        List<Map<Integer, Match>> keywordMatches = new ArrayList<>();
+        for (String keyword : query.trim().split("\\s+")) {
+            List<SearchTokenizer.Token> tokens = SearchTokenizer.tokenize(keyword);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            Map<Integer, Match> matches = matchKeyword(keyword, tokens);
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+            keywordMatches.add(matches);
+        }
+        if (keywordMatches.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 每个关键词都需在文章的某个文档（原文或翻译的标题、内容）中命中
+        Set<Integer> articleIds = null;
+        for (Map<Integer, Match> matches : keywordMatches) {
+            Set<Integer> matchedArticles = new HashSet<>();
+            for (Integer docId : matches.keySet()) {
+                matchedArticles.add(documents.get(docId).articleId);
+            }
+            if (articleIds == null) {
+                articleIds = matchedArticles;
+            } else {
+                articleIds.retainAll(matchedArticles);
+            }
+        }
+
+        // 合并各关键词在同一文档中的命中
+        Map<Integer, Match> docMatches = new HashMap<>();
+        for (Map<Integer, Match> matches : keywordMatches) {
+            for (Map.Entry<Integer, Match> entry : matches.entrySet()) {
+                if (articleIds.contains(documents.get(entry.getKey()).articleId)) {
+                    docMatches.merge(entry.getKey(), entry.getValue(), Match::merge);
+                }
+            }
+        }
+
+        // 按文章聚合
+        Map<Integer, ArticleMatch> articleMatches = new HashMap<>();
+        for (Map.Entry<Integer, Match> entry : docMatches.entrySet()) {
+            Document document = documents.get(entry.getKey());
+            Match match = entry.getValue();
+            double score = (document.field == FIELD_TITLE ? TITLE_WEIGHT : 1) * (1 + Math.log(match.count));
+            ArticleMatch articleMatch = articleMatches.computeIfAbsent(document.articleId, k -> new ArticleMatch());
+            articleMatch.score += score;
+            if (document.field == FIELD_TITLE) {
+                articleMatch.titleMatched = true;
+            }
+            if (document.language == null) {
+                articleMatch.originalMatched = true;
+                if (document.field == FIELD_CONTENT) {
+                    articleMatch.originalContent = match;
+                }
+            } else {
+                articleMatch.languageScores.merge(document.language, score, Double::sum);
+                if (document.field == FIELD_CONTENT) {
+                    articleMatch.translationContents.put(document.language, match);
+                }
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(articleMatches.size());
+        articleMatches.forEach((articleId, articleMatch) -> hits.add(toHit(articleId, articleMatch)));
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getArticleId, Comparator.reverseOrder()));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 写入索引
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(nextDocId);
+
+        out.writeInt(signatures.size());
+        for (Map.Entry<Integer, Long> entry : signatures.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+
+        out.writeInt(documents.size());
+        for (Map.Entry<Integer, Document> entry : documents.entrySet()) {
+            Document document = entry.getValue();
+            out.writeInt(entry.getKey());
+            out.writeInt(document.articleId);
+            out.writeBoolean(document.language != null);
+            if (document.language != null) {
+                out.writeUTF(document.language);
+            }
+            out.writeByte(document.field);
+            byte[] text = document.text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+            out.writeInt(document.starts.length);
+            for (int i = 0; i < document.starts.length; i++) {
+                out.writeInt(document.starts[i]);
+                out.writeInt(document.ends[i]);
+            }
+        }
+
+        out.writeInt(postings.size());
+        for (Map.Entry<String, Map<Integer, int[]>> entry : postings.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<Integer, int[]> docEntry : entry.getValue().entrySet()) {
+                out.writeInt(docEntry.getKey());
+                int[] positions = docEntry.getValue();
+                out.writeInt(positions.length);
+                // 位置升序，写入差值便于压缩
+                int previous = 0;
+                for (int position : positions) {
+                    out.writeInt(position - previous);
+                    previous = position;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取索引
+     *
+     * @throws IOException 文件损坏或格式版本不匹配
+     */
+    public static InvertedIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+            throw new IOException("搜索索引文件格式不匹配");
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.nextDocId = in.readInt();
+
+        int signatureCount = in.readInt();
+        for (int i = 0; i < signatureCount; i++) {
+            index.signatures.put(in.readInt(), in.readLong());
+        }
+
+        int documentCount = in.readInt();
+        for (int i = 0; i < documentCount; i++) {
+            int docId = in.readInt();
+            int articleId = in.readInt();
+            String language = in.readBoolean() ? in.readUTF() : null;
+            byte field = in.readByte();
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            int tokenCount = in.readInt();
+            int[] starts = new int[tokenCount];
+            int[] ends = new int[tokenCount];
+            for (int j = 0; j < tokenCount; j++) {
+                starts[j] = in.readInt();
+                ends[j] = in.readInt();
+            }
+            index.documents.put(docId, new Document(articleId, language, field,
+                    new String(text, StandardCharsets.UTF_8), starts, ends));
+            index.articleDocuments.computeIfAbsent(articleId, k -> new ArrayList<>()).add(docId);
+        }
+
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readUTF();
+            int docCount = in.readInt();
+            Map<Integer, int[]> termPostings = new HashMap<>(docCount * 2);
+            for (int j = 0; j < docCount; j++) {
+                int docId = in.readInt();
+                int[] positions = new int[in.readInt()];
+                int previous = 0;
+                for (int k = 0; k < positions.length; k++) {
+                    previous += in.readInt();
+                    positions[k] = previous;
+                }
+                termPostings.put(docId, positions);
+            }
+            index.postings.put(term, termPostings);
+        }
+        return index;
+    }
+
+    /**
+     * 单个关键词在各文档中的短语匹配
+     */
+    private Map<Integer, Match> matchKeyword(String keyword, List<SearchTokenizer.Token> tokens) {
+        for (SearchTokenizer.Token token : tokens) {
+            if (SearchTokenizer.isSingleCjk(token.getTerm())) {
+                return scanKeyword(keyword);
+            }
+        }
+
+        List<Map<Integer, int[]>> termPostings = new ArrayList<>(tokens.size());
+        Map<Integer, int[]> smallest = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String term = tokens.get(i).getTerm();
+            boolean prefix = i == tokens.size() - 1 && !SearchTokenizer.isCjk(term.charAt(0));
+            Map<Integer, int[]> current = prefix ? prefixPostings(term) : postings.get(term);
+            if (current == null || current.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            termPostings.add(current);
+            if (smallest == null || current.size() < smallest.size()) {
+                smallest = current;
+            }
+        }
+
+        Map<Integer, Match> matches = new HashMap<>();
+        docLoop:
+        for (Integer docId : smallest.keySet()) {
+            int[][] positions = new int[termPostings.size()][];
+            for (int i = 0; i < termPostings.size(); i++) {
+                positions[i] = termPostings.get(i).get(docId);
+                if (positions[i] == null) {
+                    continue docLoop;
+                }
+            }
+
+            int count = 0;
+            int firstPosition = -1;
+            positionLoop:
+            for (int position : positions[0]) {
+                for (int i = 1; i < positions.length; i++) {
+                    if (Arrays.binarySearch(positions[i], position + i) < 0) {
+                        continue positionLoop;
+                    }
+                }
+                count++;
+                if (firstPosition < 0) {
+                    firstPosition = position;
+                }
+            }
+            if (count > 0) {
+                Document document = documents.get(docId);
+                matches.put(docId, new Match(count, document.starts[firstPosition],
+                        document.ends[firstPosition + positions.length - 1]));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 逐文档扫描匹配（不区分大小写）
+     */
+    private Map<Integer, Match> scanKeyword(String keyword) {
+        Pattern pattern = Pattern.compile(Pattern.quote(keyword), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        Map<Integer, Match> matches = new HashMap<>();
+        for (Map.Entry<Integer, Document> entry : documents.entrySet()) {
+            Matcher matcher = pattern.matcher(entry.getValue().text);
+            int count = 0;
+            int start = -1;
+            int end = -1;
+            while (matcher.find()) {
+                if (count == 0) {
+                    start = matcher.start();
+                    end = matcher.end();
+                }
+                count++;
+            }
+            if (count > 0) {
+                matches.put(entry.getKey(), new Match(count, start, end));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 合并以指定前缀开头的词元倒排表
+     */
+    private Map<Integer, int[]> prefixPostings(String prefix) {
+        SortedMap<String, Map<Integer, int[]>> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+        Map<Integer, int[]> merged = new HashMap<>();
+        int expanded = 0;
+        for (Map<Integer, int[]> termPostings : range.values()) {
+            if (++expanded > MAX_PREFIX_EXPANSION) {
+                break;
+            }
+            termPostings.forEach((docId, positions) -> merged.merge(docId, positions, InvertedIndex::union));
+        }
+        return merged;
+    }
+
+    private SearchHit toHit(Integer articleId, ArticleMatch articleMatch) {
+        SearchHit hit = new SearchHit();
+        hit.setArticleId(articleId);
+        hit.setScore(articleMatch.score);
+        hit.setTitleMatched(articleMatch.titleMatched);
+        hit.setOriginalMatched(articleMatch.originalMatched);
+
+        String language = null;
+        double best = -1;
+        for (Map.Entry<String, Double> entry : articleMatch.languageScores.entrySet()) {
+            if (entry.getValue() > best) {
+                best = entry.getValue();
+                language = entry.getKey();
+            }
+        }
+        hit.setMatchedLanguage(language);
+
+        Match contentMatch = articleMatch.originalContent;
+        String contentLanguage = null;
+        if (!articleMatch.originalMatched && language != null) {
+            // 仅翻译命中时，直接返回翻译文本供展示，无需再查询数据库
+            hit.setTranslationTitle(findText(articleId, language, FIELD_TITLE));
+            hit.setTranslationContent(findText(articleId, language, FIELD_CONTENT));
+            contentMatch = articleMatch.translationContents.get(language);
+            contentLanguage = language;
+        }
+        if (contentMatch != null) {
+            // 携带命中内容，列表截取摘要时无需再查询文章正文
+            hit.setContentText(findText(articleId, contentLanguage, FIELD_CONTENT));
+            hit.setContentStart(contentMatch.start);
+            hit.setContentEnd(contentMatch.end);
+        }
+        return hit;
+    }
+
+    private String findText(int articleId, String language, byte field) {
+        List<Integer> docIds = articleDocuments.get(articleId);
+        if (docIds == null) {
+            return null;
+        }
+        for (Integer docId : docIds) {
+            Document document = documents.get(docId);
+            if (document.field == field && Objects.equals(document.language, language)) {
+                return document.text;
+            }
+        }
+        return null;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * 文档遍历回调
+     */
+    public interface DocumentVisitor {
+
+        void visit(int articleId, String language, byte field, String text);
+    }
+
+    private static final class Document {
+
+        private final int articleId;
+
+        private final String language;
+
+        private final byte field;
+
+        private final String text;
+
+        // 各位置词元在文本中的起止偏移
+        private final int[] starts;
+
+        private final int[] ends;
+
+        private Document(int articleId, String language, byte field, String text, int[] starts, int[] ends) {
+            this.articleId = articleId;
+            this.language = language;
+            this.field = field;
+            this.text = text;
+            this.starts = starts;
+            this.ends = ends;
+        }
+    }
+
+    private static final class Match {
+
+        private final int count;
+
+        private final int start;
+
+        private final int end;
+
+        private Match(int count, int start, int end) {
+            this.count = count;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * 合并两次命中：次数相加，偏移取靠前的一次
+         */
+        private static Match merge(Match a, Match b) {
+            Match first = a.start <= b.start ? a : b;
+            return new Match(a.count + b.count, first.start, first.end);
+        }
+    }
+
+    private static final class ArticleMatch {
+
+        private double score;
+
+        private boolean titleMatched;
+
+        private boolean originalMatched;
+
+        private Match originalContent;
+
+        private final Map<String, Double> languageScores = new HashMap<>();
+
+        private final Map<String, Match> translationContents = new HashMap<>();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ld.poetry.utils.search;
+
+import java.util.regex.Pattern;
+
+/**
+ * Markdown转纯文本
+ * <p>
+ * 只去除排版标记（代码围栏、图片与链接地址、标题/引用/列表前缀、强调符号、HTML标签），
+ * 保留代码块和链接文字本身，供正则搜索在用户可见的文字上匹配，也用于生成文章列表摘录。
+ */
+public final class PlainText {
+
+    private static final Pattern CODE_FENCE_PATTERN = Pattern.compile("^\\s*(```|~~~)[^\\n]*$", Pattern.MULTILINE);
+    private static final Pattern IMAGE_PATTERN = Pattern.compile("!\\[([^\\]]*)\\]\\([^)]*\\)");
+    private static final Pattern LINK_PATTERN = Pattern.compile("\\[([^\\]]*)\\]\\([^)]*\\)");
+    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>\\n]{1,200}>");
+    private static final Pattern LINE_PREFIX_PATTERN = Pattern.compile("^[ \\t]*(#{1,6}|>+|[-*+]|\\d+\\.)[ \\t]+", Pattern.MULTILINE);
+    private static final Pattern EMPHASIS_PATTERN = Pattern.compile("[*_~`]{1,3}");
+    private static final Pattern BLANK_LINES_PATTERN = Pattern.compile("\\n{3,}");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private PlainText() {
+    }
+
+    /**
+     * 去除Markdown标记
+     *
+     * @param markdown Markdown文本
+     * @return 纯文本，入参为null时返回空字符串
+     */
+    public static String fromMarkdown(String markdown) {
+        if (markdown == null || markdown.isEmpty()) {
+            return "";
+        }
+        String text = CODE_FENCE_PATTERN.matcher(markdown).replaceAll("");
+        text = IMAGE_PATTERN.matcher(text).replaceAll("$1");
+        text = LINK_PATTERN.matcher(text).replaceAll("$1");
+        text = HTML_TAG_PATTERN.matcher(text).replaceAll("");
+        text = LINE_PREFIX_PATTERN.matcher(text).replaceAll("");
+        text = EMPHASIS_PATTERN.matcher(text).replaceAll("");
+        text = BLANK_LINES_PATTERN.matcher(text).replaceAll("\n\n");
+        return text.trim();
+    }
+
+    /**
+     * 生成列表摘录：去除Markdown标记、合并空白后截取前若干字符
+     *
+     * @param markdown  Markdown文本
+     * @param maxLength 最大字符数，超出时追加省略号
+     * @return 摘录，入参为null时返回空字符串
+     */
+    public static String excerpt(String markdown, int maxLength) {
+        String text = WHITESPACE_PATTERN.matcher(fromMarkdown(markdown)).replaceAll(" ");
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        int end = maxLength;
+        // 不在代理对中间截断
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + "...";
+    }
+}
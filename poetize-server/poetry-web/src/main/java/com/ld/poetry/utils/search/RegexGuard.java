@@ -0,0 +1,144 @@
+package com.ld.poetry.utils.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 用户正则表达式的安全执行工具
+ * <p>
+ * 编译结果放入LRU缓存，避免同一表达式被反复编译；匹配时用计步的CharSequence包装文本，
+ * 超出字符读取步数、超过截止时间或线程被中断时抛出 {@link BudgetExceededException}，
+ * 防止灾难性回溯长时间占用线程。
+ */
+public final class RegexGuard {
+
+    /**
+     * 编译缓存容量
+     */
+    private static final int PATTERN_CACHE_SIZE = 256;
+
+    /**
+     * 每读取多少个字符检查一次截止时间和中断状态
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /**
+     * 高亮等短文本匹配的默认步数预算
+     */
+    public static final long DEFAULT_STEP_BUDGET = 1_000_000L;
+
+    private static final Map<String, Pattern> PATTERN_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, Pattern>(PATTERN_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > PATTERN_CACHE_SIZE;
+                }
+            });
+
+    private RegexGuard() {
+    }
+
+    /**
+     * 编译正则表达式（不区分大小写），命中缓存时直接返回
+     *
+     * @throws PatternSyntaxException 表达式无效
+     */
+    public static Pattern compile(String regex) {
+        Pattern pattern = PATTERN_CACHE.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            PATTERN_CACHE.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * 创建受步数和截止时间约束的Matcher
+     *
+     * @param pattern       已编译的表达式
+     * @param text          文本
+     * @param stepBudget    最多读取的字符数
+     * @param deadlineNanos 截止时间（System.nanoTime），小于等于0表示不限
+     */
+    public static Matcher matcher(Pattern pattern, CharSequence text, long stepBudget, long deadlineNanos) {
+        return pattern.matcher(new BudgetedCharSequence(text, stepBudget, deadlineNanos));
+    }
+
+    /**
+     * 受默认步数预算约束的Matcher
+     */
+    public static Matcher matcher(Pattern pattern, CharSequence text) {
+        return matcher(pattern, text, DEFAULT_STEP_BUDGET, 0);
+    }
+
+    /**
+     * 超出预算时抛出的异常
+     */
+    public static class BudgetExceededException extends RuntimeException {
+
+        public BudgetExceededException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * 计步的CharSequence，子序列与父序列共享同一计数
+     */
+    private static final class BudgetedCharSequence implements CharSequence {
+
+        private final CharSequence text;
+
+        private final long[] steps;
+
+        private final long stepBudget;
+
+        private final long deadlineNanos;
+
+        private BudgetedCharSequence(CharSequence text, long stepBudget, long deadlineNanos) {
+            this(text, new long[1], stepBudget, deadlineNanos);
+        }
+
+        private BudgetedCharSequence(CharSequence text, long[] steps, long stepBudget, long deadlineNanos) {
+            this.text = text;
+            this.steps = steps;
+            this.stepBudget = stepBudget;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public char charAt(int index) {
+            long current = ++steps[0];
+            if (current > stepBudget) {
+                throw new BudgetExceededException("正则匹配超出步数预算: " + stepBudget);
+            }
+            if (current % CHECK_INTERVAL == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new BudgetExceededException("正则匹配被中断");
+                }
+                if (deadlineNanos > 0 && System.nanoTime() > deadlineNanos) {
+                    throw new BudgetExceededException("正则匹配超时");
+                }
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new BudgetedCharSequence(text.subSequence(start, end), steps, stepBudget, deadlineNanos);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
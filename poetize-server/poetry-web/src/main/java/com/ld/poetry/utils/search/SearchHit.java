@@ -0,0 +1,70 @@
+package com.ld.poetry.utils.search;
+
+import lombok.Data;
+
+/**
+ * 文章搜索命中结果
+ * <p>
+ * 一篇文章一条，包含排序分数、命中位置（原文或翻译语言）以及用于截取摘要和高亮的偏移，
+ * 偏移均指向展示文档（原文命中时为原文，否则为匹配的翻译）。
+ */
+@Data
+public class SearchHit {
+
+    /**
+     * 文章ID
+     */
+    private Integer articleId;
+
+    /**
+     * 排序分数（越高越相关）
+     */
+    private double score;
+
+    /**
+     * 标题是否命中（原文或翻译）
+     */
+    private boolean titleMatched;
+
+    /**
+     * 原文（标题或内容）是否命中
+     */
+    private boolean originalMatched;
+
+    /**
+     * 命中的翻译语言，无翻译命中时为null
+     */
+    private String matchedLanguage;
+
+    /**
+     * 命中翻译时的翻译标题（仅翻译命中、原文未命中时填充）
+     */
+    private String translationTitle;
+
+    /**
+     * 命中翻译时的翻译内容（仅翻译命中、原文未命中时填充）
+     */
+    private String translationContent;
+
+    /**
+     * 命中偏移所指向的内容文本（原文或匹配翻译的内容，正则搜索时为去除Markdown后的纯文本），未命中内容时为null
+     */
+    private String contentText;
+
+    /**
+     * 展示文档内容中首个命中的起始偏移，未命中内容时为-1
+     */
+    private int contentStart = -1;
+
+    /**
+     * 展示文档内容中首个命中的结束偏移（不包含），未命中内容时为-1
+     */
+    private int contentEnd = -1;
+
+    /**
+     * 是否有翻译命中
+     */
+    public boolean isTranslationMatched() {
+        return matchedLanguage != null;
+    }
+}
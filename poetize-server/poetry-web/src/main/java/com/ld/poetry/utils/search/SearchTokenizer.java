@@ -0,0 +1,119 @@
+package com.ld.poetry.utils.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索分词器
+ * <p>
+ * 中日韩文字按相邻两字切分（二元分词），连续长度为1时保留单字；
+ * 拉丁字母和数字按单词切分并转为小写；其余字符（空白、标点）作为分隔符。
+ * 词元在列表中的下标即为其位置，用于短语（相邻位置）匹配。
+ */
+public final class SearchTokenizer {
+
+    /**
+     * 单个拉丁单词的最大长度，超出部分截断
+     */
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 分词
+     *
+     * @param text 文本
+     * @return 按出现顺序排列的词元
+     */
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int runStart = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (i - runStart == 1) {
+                    tokens.add(new Token(String.valueOf(c), runStart, i));
+                } else {
+                    for (int j = runStart; j < i - 1; j++) {
+                        tokens.add(new Token(text.substring(j, j + 2), j, j + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int wordStart = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                int wordEnd = Math.min(i, wordStart + MAX_WORD_LENGTH);
+                tokens.add(new Token(text.substring(wordStart, wordEnd).toLowerCase(Locale.ROOT), wordStart, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 是否为按二元切分的中日韩字符
+     */
+    public static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 是否为单个中日韩字符词元（无法通过二元索引直接定位）
+     */
+    public static boolean isSingleCjk(String term) {
+        return term.length() == 1 && isCjk(term.charAt(0));
+    }
+
+    /**
+     * 词元
+     */
+    public static final class Token {
+
+        private final String term;
+
+        private final int start;
+
+        private final int end;
+
+        public Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        /**
+         * 在原文中的起始偏移（包含）
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * 在原文中的结束偏移（不包含）
+         */
+        public int getEnd() {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ld.poetry.utils.security;
+
+import com.ld.poetry.utils.visit.HyperLogLog;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 计数布隆过滤器（支持删除）
+ * <p>
+ * 每个位置是4位计数器，16个计数器打包在一个long中，通过CAS无锁增减；
+ * 计数器达到15后不再增减，避免溢出或减到0造成误判为不存在。
+ * 判断不存在时一定不存在，判断存在时有一定误判率（按预期元素数和误判率确定容量和哈希次数）。
+ * <p>
+ * 只能删除确实添加过的元素，否则会破坏其他元素的计数，调用方需自行记录已添加的元素。
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+
+    private final int counterCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预期元素数
+     * @param falsePositiveRate  预期误判率（0~1）
+     */
+    public CountingBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("invalid bloom filter parameters");
+        }
+        double ln2 = Math.log(2);
+        long counters = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        counters = Math.max(COUNTERS_PER_WORD, Math.min(counters, (long) Integer.MAX_VALUE - COUNTERS_PER_WORD));
+        this.counterCount = (int) counters;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) counters / expectedInsertions * ln2)));
+        this.words = new AtomicLongArray((counterCount + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    }
+
+    public void add(String item) {
+        long hash = HyperLogLog.hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            increment(index(h1, h2, i));
+        }
+    }
+
+    /**
+     * 删除一个确实添加过的元素
+     */
+    public void remove(String item) {
+        long hash = HyperLogLog.hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            decrement(index(h1, h2, i));
+        }
+    }
+
+    /**
+     * 是否可能包含该元素，返回false时一定不包含
+     */
+    public boolean mightContain(String item) {
+        long hash = HyperLogLog.hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(h1, h2, i);
+            long word = words.get(index / COUNTERS_PER_WORD);
+            if (((word >>> shift(index)) & COUNTER_MAX) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getCounterCount() {
+        return counterCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 双重哈希：第i个位置为 h1 + i * h2
+     */
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % counterCount;
+    }
+
+    private static int shift(int index) {
+        return (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    private void increment(int index) {
+        int wordIndex = index / COUNTERS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MAX;
+            if (counter == COUNTER_MAX) {
+                return;
+            }
+            if (words.compareAndSet(wordIndex, word, word + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(int index) {
+        int wordIndex = index / COUNTERS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long counter = (word >>> shift) & COUNTER_MAX;
+            if (counter == 0 || counter == COUNTER_MAX) {
+                return;
+            }
+            if (words.compareAndSet(wordIndex, word, word - (1L << shift))) {
+                return;
+            }
+        }
+    }
+}
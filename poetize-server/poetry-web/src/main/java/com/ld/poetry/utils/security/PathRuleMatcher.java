@@ -0,0 +1,336 @@
+package com.ld.poetry.utils.security;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 请求路径多模式匹配器（Aho-Corasick自动机）
+ * <p>
+ * 所有规则的关键字编译为一个确定性自动机，对规范化后的路径只扫描一遍即可得到命中的规则，
+ * 匹配耗时只与路径长度有关，增加规则不会增加每个请求的开销。
+ * <p>
+ * 规则写法（关键字不区分大小写）：
+ * <ul>
+ *     <li>{@code contains:关键字} 路径包含关键字，没有类型前缀时按此处理</li>
+ *     <li>{@code prefix:关键字} 路径以关键字开头</li>
+ *     <li>{@code suffix:关键字} 路径以关键字结尾</li>
+ *     <li>{@code exact:路径} 路径完全相同</li>
+ *     <li>{@code all:关键字1&关键字2} 路径同时包含所有关键字（最多32个）</li>
+ * </ul>
+ * 同一路径命中多条规则时返回编译时排在最前面的规则。实例不可变，可被多线程共享。
+ */
+public final class PathRuleMatcher {
+
+    private static final int MAX_ALL_TERMS = 32;
+
+    /**
+     * 匹配方式
+     */
+    public enum MatchType {
+        CONTAINS, PREFIX, SUFFIX, EXACT, ALL
+    }
+
+    /**
+     * 匹配规则
+     */
+    public static final class Rule {
+
+        private final String name;
+
+        private final String category;
+
+        private final MatchType type;
+
+        private final String[] terms;
+
+        public Rule(String category, MatchType type, String... terms) {
+            if (type == null || terms == null || terms.length == 0) {
+                throw new IllegalArgumentException("rule requires a type and at least one term");
+            }
+            if (type != MatchType.ALL && terms.length != 1) {
+                throw new IllegalArgumentException("only all: rules accept multiple terms");
+            }
+            if (terms.length > MAX_ALL_TERMS) {
+                throw new IllegalArgumentException("too many terms in rule");
+            }
+            String[] normalized = new String[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                String term = terms[i] == null ? "" : terms[i].trim().toLowerCase(Locale.ROOT);
+                if (term.isEmpty()) {
+                    throw new IllegalArgumentException("empty rule term");
+                }
+                normalized[i] = term;
+            }
+            this.category = category;
+            this.type = type;
+            this.terms = normalized;
+            this.name = type.name().toLowerCase(Locale.ROOT) + ":" + String.join("&", normalized);
+        }
+
+        /**
+         * 解析规则写法，如 {@code suffix:.sql}、{@code all:union&select}
+         *
+         * @throws IllegalArgumentException 规则为空或关键字为空
+         */
+        public static Rule parse(String spec, String category) {
+            if (spec == null || spec.isBlank()) {
+                throw new IllegalArgumentException("empty rule");
+            }
+            String value = spec.trim();
+            int colon = value.indexOf(':');
+            if (colon > 0) {
+                MatchType type = typeOf(value.substring(0, colon).trim());
+                if (type != null) {
+                    String body = value.substring(colon + 1);
+                    return type == MatchType.ALL
+                            ? new Rule(category, type, body.split("&", -1))
+                            : new Rule(category, type, body);
+                }
+            }
+            // 没有可识别的类型前缀（如 javascript:）时整体按包含匹配
+            return new Rule(category, MatchType.CONTAINS, value);
+        }
+
+        private static MatchType typeOf(String prefix) {
+            for (MatchType type : MatchType.values()) {
+                if (type.name().equalsIgnoreCase(prefix)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 规则名，即规范化后的规则写法
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 规则分类，用于日志中的攻击类型
+         */
+        public String getCategory() {
+            return category;
+        }
+
+        public MatchType getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Rule[] rules;
+
+    // ASCII字符到字母表下标，-1表示不在任何关键字中出现
+    private final int[] asciiClasses = new int[128];
+
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+
+    private final int alphabetSize;
+
+    // 状态转移表：state * alphabetSize + 字符下标
+    private final int[] transitions;
+
+    // 每个状态（含后缀链接）命中的关键字，三个一组：规则下标、关键字在规则中的下标、关键字长度
+    private final int[][] outputs;
+
+    public PathRuleMatcher(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+        Arrays.fill(asciiClasses, -1);
+
+        int totalLength = 0;
+        int nextClass = 0;
+        for (Rule rule : this.rules) {
+            for (String term : rule.terms) {
+                totalLength += term.length();
+                for (int i = 0; i < term.length(); i++) {
+                    char c = term.charAt(i);
+                    if (c < 128) {
+                        if (asciiClasses[c] < 0) {
+                            asciiClasses[c] = nextClass++;
+                        }
+                    } else if (!otherClasses.containsKey(c)) {
+                        otherClasses.put(c, nextClass++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = Math.max(1, nextClass);
+
+        int maxStates = totalLength + 1;
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        List<List<int[]>> hits = new ArrayList<>();
+        hits.add(new ArrayList<>());
+        int stateCount = 1;
+
+        for (int r = 0; r < this.rules.length; r++) {
+            String[] terms = this.rules[r].terms;
+            for (int t = 0; t < terms.length; t++) {
+                String term = terms[t];
+                int state = 0;
+                for (int i = 0; i < term.length(); i++) {
+                    int slot = state * alphabetSize + classOf(term.charAt(i));
+                    if (trie[slot] < 0) {
+                        trie[slot] = stateCount++;
+                        hits.add(new ArrayList<>());
+                    }
+                    state = trie[slot];
+                }
+                hits.get(state).add(new int[]{r, t, term.length()});
+            }
+        }
+
+        // 按层构建失败链接，并把缺失的转移补全为确定性自动机
+        int[] fail = new int[stateCount];
+        this.transitions = Arrays.copyOf(trie, stateCount * alphabetSize);
+        this.outputs = new int[stateCount][];
+        this.outputs[0] = flatten(hits.get(0), null);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = transitions[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = flatten(hits.get(state), outputs[fail[state]]);
+            for (int c = 0; c < alphabetSize; c++) {
+                int slot = state * alphabetSize + c;
+                int next = transitions[slot];
+                if (next < 0) {
+                    transitions[slot] = transitions[fail[state] * alphabetSize + c];
+                } else {
+                    fail[next] = transitions[fail[state] * alphabetSize + c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * 对规范化后的路径执行匹配
+     *
+     * @return 命中的规则，未命中返回null
+     */
+    public Rule match(CharSequence path) {
+        if (path == null || rules.length == 0) {
+            return null;
+        }
+        int length = path.length();
+        int best = Integer.MAX_VALUE;
+        int[] allMasks = null;
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            int cls = classOf(path.charAt(i));
+            state = cls < 0 ? 0 : transitions[state * alphabetSize + cls];
+            int[] out = outputs[state];
+            for (int k = 0; k < out.length; k += 3) {
+                int r = out[k];
+                if (r >= best) {
+                    continue;
+                }
+                Rule rule = rules[r];
+                int termLength = out[k + 2];
+                boolean atStart = i + 1 == termLength;
+                boolean atEnd = i == length - 1;
+                boolean fired;
+                switch (rule.type) {
+                    case PREFIX -> fired = atStart;
+                    case SUFFIX -> fired = atEnd;
+                    case EXACT -> fired = atStart && atEnd;
+                    case ALL -> {
+                        if (allMasks == null) {
+                            allMasks = new int[rules.length];
+                        }
+                        allMasks[r] |= 1 << out[k + 1];
+                        fired = allMasks[r] == (int) ((1L << rule.terms.length) - 1);
+                    }
+                    default -> fired = true;
+                }
+                if (fired) {
+                    best = r;
+                }
+            }
+            if (best == 0) {
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? null : rules[best];
+    }
+
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    public int getStateCount() {
+        return outputs.length;
+    }
+
+    /**
+     * 规范化请求路径：URL解码、转小写、反斜杠视为斜杠并合并连续斜杠
+     *
+     * @throws IllegalArgumentException 编码格式错误
+     */
+    public static String normalize(String uri) {
+        if (uri == null) {
+            return "";
+        }
+        String decoded = uri.indexOf('%') >= 0 || uri.indexOf('+') >= 0
+                ? URLDecoder.decode(uri, StandardCharsets.UTF_8)
+                : uri;
+        StringBuilder builder = new StringBuilder(decoded.length());
+        char previous = 0;
+        for (int i = 0; i < decoded.length(); i++) {
+            char c = decoded.charAt(i);
+            if (c == '\\') {
+                c = '/';
+            }
+            if (c == '/' && previous == '/') {
+                continue;
+            }
+            builder.append(Character.toLowerCase(c));
+            previous = c;
+        }
+        return builder.toString();
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer cls = otherClasses.get(c);
+        return cls == null ? -1 : cls;
+    }
+
+    private static int[] flatten(List<int[]> own, int[] inherited) {
+        int inheritedLength = inherited == null ? 0 : inherited.length;
+        int[] result = new int[own.size() * 3 + inheritedLength];
+        int position = 0;
+        for (int[] hit : own) {
+            result[position++] = hit[0];
+            result[position++] = hit[1];
+            result[position++] = hit[2];
+        }
+        if (inheritedLength > 0) {
+            System.arraycopy(inherited, 0, result, position, inheritedLength);
+        }
+        return result;
+    }
+}
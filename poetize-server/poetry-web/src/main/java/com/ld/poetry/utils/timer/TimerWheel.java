@@ -0,0 +1,209 @@
+package com.ld.poetry.utils.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮定时器
+ * <p>
+ * 时间轮由 2 的幂个槽组成，每个刻度前进一槽，延迟超过一圈的任务记录剩余圈数。
+ * 提交只是写入无锁队列，由唯一的工作线程在每个刻度把新任务放入对应的槽并执行到期任务，
+ * 提交和取消都是 O(1)，适合大量短延迟、多数会被取消的超时任务。
+ * 到期时间精度为一个刻度；任务在工作线程中执行，应当很快返回，耗时操作需自行转交其他线程。
+ * 取消的任务在所在槽下次被处理时移除。
+ */
+public final class TimerWheel implements AutoCloseable {
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final List<Timeout>[] buckets;
+
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+
+    // 尚未执行也未取消的任务数
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final long startNanos;
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    // 当前刻度，只由工作线程访问
+    private long tick;
+
+    /**
+     * 创建并启动时间轮
+     *
+     * @param name       工作线程名
+     * @param tickMillis 刻度（毫秒）
+     * @param wheelSize  槽数，向上取整为2的幂
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("invalid tick or wheel size");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 延迟执行任务
+     *
+     * @param delayMillis 延迟（毫秒），小于等于0时在下一个刻度执行
+     * @return 可用于取消的句柄
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("timer wheel closed");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        incoming.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * 尚未执行也未取消的任务数
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 停止工作线程，未到期的任务不再执行
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            // 在第 calculated 个刻度结束时到期，已经过去的放入当前槽
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = Math.max(0, (calculated - tick) / buckets.length);
+            buckets[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+                continue;
+            }
+            if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                pendingCount.decrementAndGet();
+                try {
+                    timeout.task.run();
+                } catch (Throwable e) {
+                    // 交给线程的未捕获异常处理器记录，不影响其他任务
+                    worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+
+        private final Runnable task;
+
+        // 相对时间轮启动时刻的到期时间
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // 剩余圈数，只由工作线程访问
+        private long remainingRounds;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务
+         *
+         * @return 任务尚未执行且本次取消成功时返回true
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                wheel.pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ld.poetry.utils.visit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁多生产者单消费者队列
+ * <p>
+ * 基于每个槽位的序号实现（Vyukov有界队列）：生产者通过CAS争抢写入位置，
+ * 消费者独占读取位置，无需加锁；队列满时 {@link #offer(Object)} 立即返回false，不阻塞调用方。
+ * {@link #drainTo(List, int)} 只能由同一个消费线程调用。
+ */
+public class MpscBoundedQueue<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    // 仅消费线程写入，volatile便于其他线程读取队列长度
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscBoundedQueue(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队
+     *
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) index & mask;
+            long diff = sequences.get(slot) - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(slot, element);
+                    // 序号发布后消费者才能读取该槽位
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * 出队，队列为空时返回null（仅消费线程调用）
+     */
+    public E poll() {
+        long index = consumerIndex;
+        int slot = (int) index & mask;
+        if (sequences.get(slot) != index + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        // 槽位留给下一圈的生产者
+        sequences.set(slot, index + mask + 1);
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    /**
+     * 批量出队（仅消费线程调用）
+     *
+     * @return 取出的元素数
+     */
+    public int drainTo(List<? super E> target, int maxElements) {
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素数（近似值）
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex;
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,239 @@
+package com.ld.poetry.utils.visit;
+
+import com.ld.poetry.utils.ip.IpAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 定长二进制访问记录
+ * <p>
+ * 每条记录固定 {@link #SIZE} 字节，可直接按偏移定位，批量记录之间无需分隔符：
+ * <pre>
+ * 0       标志位（IPv6 / 文本IP / 有用户ID）
+ * 1-3     保留
+ * 4-11    访问时间（毫秒时间戳）
+ * 12-15   用户ID
+ * 16-31   IP（IPv4占前4字节；无法解析的IP以文本截断存储）
+ * 32-63   国家（1字节长度 + 最多31字节UTF-8）
+ * 64-95   省份
+ * 96-127  城市
+ * </pre>
+ */
+public final class VisitRecord {
+
+    /**
+     * 单条记录字节数
+     */
+    public static final int SIZE = 128;
+
+    private static final int FLAG_IPV6 = 1;
+
+    private static final int FLAG_TEXT_IP = 1 << 1;
+
+    private static final int FLAG_USER = 1 << 2;
+
+    private static final int IP_OFFSET = 16;
+
+    private static final int IP_LENGTH = 16;
+
+    private static final int TEXT_FIELD_LENGTH = 32;
+
+    private static final int NATION_OFFSET = 32;
+
+    private static final int PROVINCE_OFFSET = NATION_OFFSET + TEXT_FIELD_LENGTH;
+
+    private static final int CITY_OFFSET = PROVINCE_OFFSET + TEXT_FIELD_LENGTH;
+
+    private final long timestamp;
+
+    private final Integer userId;
+
+    private final String ip;
+
+    private final String nation;
+
+    private final String province;
+
+    private final String city;
+
+    public VisitRecord(long timestamp, Integer userId, String ip, String nation, String province, String city) {
+        this.timestamp = timestamp;
+        this.userId = userId;
+        this.ip = ip;
+        this.nation = nation;
+        this.province = province;
+        this.city = city;
+    }
+
+    /**
+     * 写入到缓冲区的指定偏移处（占用 {@link #SIZE} 字节）
+     */
+    public void writeTo(byte[] buffer, int offset) {
+        java.util.Arrays.fill(buffer, offset, offset + SIZE, (byte) 0);
+        int flags = writeIp(ip, buffer, offset + IP_OFFSET);
+        if (userId != null) {
+            flags |= FLAG_USER;
+            writeInt(buffer, offset + 12, userId);
+        }
+        buffer[offset] = (byte) flags;
+        writeLong(buffer, offset + 4, timestamp);
+        writeText(nation, buffer, offset + NATION_OFFSET);
+        writeText(province, buffer, offset + PROVINCE_OFFSET);
+        writeText(city, buffer, offset + CITY_OFFSET);
+    }
+
+    /**
+     * 从缓冲区的指定偏移处读取一条记录
+     */
+    public static VisitRecord readFrom(byte[] buffer, int offset) {
+        int flags = buffer[offset];
+        long timestamp = readLong(buffer, offset + 4);
+        Integer userId = (flags & FLAG_USER) != 0 ? readInt(buffer, offset + 12) : null;
+        return new VisitRecord(timestamp, userId,
+                readIp(flags, buffer, offset + IP_OFFSET),
+                readText(buffer, offset + NATION_OFFSET),
+                readText(buffer, offset + PROVINCE_OFFSET),
+                readText(buffer, offset + CITY_OFFSET));
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getNation() {
+        return nation;
+    }
+
+    public String getProvince() {
+        return province;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * 访问时间（系统时区）
+     */
+    public LocalDateTime getCreateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+
+    private static int writeIp(String ip, byte[] buffer, int offset) {
+        if (ip == null || ip.isEmpty()) {
+            return FLAG_TEXT_IP;
+        }
+        if (parseIpv4(ip, buffer, offset)) {
+            return 0;
+        }
+        if (ip.indexOf(':') >= 0) {
+            IpAddress address = IpAddress.parse(ip);
+            if (address != null && address.isIpv6()) {
+                writeLong(buffer, offset, address.getHigh());
+                writeLong(buffer, offset + 8, address.getLow());
+                return FLAG_IPV6;
+            }
+            // IPv4映射地址等按文本存储，保持原样
+        }
+        byte[] text = ip.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(text, 0, buffer, offset, Math.min(text.length, IP_LENGTH));
+        return FLAG_TEXT_IP;
+    }
+
+    private static boolean parseIpv4(String ip, byte[] buffer, int offset) {
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return false;
+                }
+            } else if (c == '.' && value >= 0 && part < 3) {
+                buffer[offset + part++] = (byte) value;
+                value = -1;
+            } else {
+                return false;
+            }
+        }
+        if (part != 3 || value < 0) {
+            return false;
+        }
+        buffer[offset + 3] = (byte) value;
+        return true;
+    }
+
+    private static String readIp(int flags, byte[] buffer, int offset) {
+        if ((flags & FLAG_TEXT_IP) != 0) {
+            int length = 0;
+            while (length < IP_LENGTH && buffer[offset + length] != 0) {
+                length++;
+            }
+            return length == 0 ? null : new String(buffer, offset, length, StandardCharsets.US_ASCII);
+        }
+        if ((flags & FLAG_IPV6) != 0) {
+            return IpAddress.ofIpv6(readLong(buffer, offset), readLong(buffer, offset + 8)).toString();
+        }
+        return (buffer[offset] & 0xFF) + "." + (buffer[offset + 1] & 0xFF) + "."
+                + (buffer[offset + 2] & 0xFF) + "." + (buffer[offset + 3] & 0xFF);
+    }
+
+    /**
+     * 写入定长文本字段，超长时按UTF-8字符边界截断；null与空串都以长度0表示
+     */
+    private static void writeText(String text, byte[] buffer, int offset) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, TEXT_FIELD_LENGTH - 1);
+        if (length < bytes.length) {
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        buffer[offset] = (byte) length;
+        System.arraycopy(bytes, 0, buffer, offset + 1, length);
+    }
+
+    private static String readText(byte[] buffer, int offset) {
+        int length = buffer[offset] & 0xFF;
+        if (length == 0) {
+            return null;
+        }
+        return new String(buffer, offset + 1, Math.min(length, TEXT_FIELD_LENGTH - 1), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+    private static void writeLong(byte[] buffer, int offset, long value) {
+        writeInt(buffer, offset, (int) (value >>> 32));
+        writeInt(buffer, offset + 4, (int) value);
+    }
+
+    private static long readLong(byte[] buffer, int offset) {
+        return ((long) readInt(buffer, offset) << 32) | (readInt(buffer, offset + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ld.poetry.utils.visit;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 访问记录环形缓冲区
+ * <p>
+ * 预先分配 容量 × {@link VisitRecord#SIZE} 字节，写入时直接编码到槽位，不产生逐条对象。
+ * 读取端按“查看-确认”两步消费：{@link #peek(int)} 复制出最早的一批记录，
+ * 写出成功后再 {@link #skip(int)}，写出失败时记录仍留在缓冲区等待重试。
+ * 写入可多线程并发；读取端需由调用方保证同一时间只有一个。
+ */
+public class VisitRingBuffer {
+
+    private final byte[] buffer;
+
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 最早一条记录的槽位
+    private int head;
+
+    // 当前记录数
+    private int size;
+
+    public VisitRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.buffer = new byte[capacity * VisitRecord.SIZE];
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @return 缓冲区已满时返回false
+     */
+    public boolean offer(VisitRecord record) {
+        lock.lock();
+        try {
+            if (size == capacity) {
+                return false;
+            }
+            record.writeTo(buffer, ((head + size) % capacity) * VisitRecord.SIZE);
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量写入（一次加锁）
+     *
+     * @return 写入的记录数，缓冲区写满后剩余的记录不写入
+     */
+    public int offerAll(List<VisitRecord> records) {
+        lock.lock();
+        try {
+            int count = 0;
+            for (VisitRecord record : records) {
+                if (size == capacity) {
+                    break;
+                }
+                record.writeTo(buffer, ((head + size) % capacity) * VisitRecord.SIZE);
+                size++;
+                count++;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 复制最早的至多maxRecords条记录（连续的定长记录），不移除
+     *
+     * @return 记录字节，缓冲区为空时返回空数组
+     */
+    public byte[] peek(int maxRecords) {
+        lock.lock();
+        try {
+            int count = Math.min(size, maxRecords);
+            byte[] out = new byte[count * VisitRecord.SIZE];
+            int first = Math.min(count, capacity - head);
+            System.arraycopy(buffer, head * VisitRecord.SIZE, out, 0, first * VisitRecord.SIZE);
+            if (first < count) {
+                System.arraycopy(buffer, 0, out, first * VisitRecord.SIZE, (count - first) * VisitRecord.SIZE);
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除最早的count条记录（已成功写出）
+     */
+    public void skip(int count) {
+        lock.lock();
+        try {
+            int removed = Math.min(count, size);
+            head = (head + removed) % capacity;
+            size -= removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
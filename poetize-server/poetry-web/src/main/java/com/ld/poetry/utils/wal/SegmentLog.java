@@ -0,0 +1,311 @@
+package com.ld.poetry.utils.wal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 内存映射分段预写日志
+ * <p>
+ * 日志由固定大小的段文件（{@code 段号.wal}）组成，写入只是对映射内存的拷贝，由操作系统异步刷盘，
+ * 进程崩溃后数据仍在页缓存中；需要防范整机掉电时调用 {@link #force()}。
+ * 多个线程可同时追加：通过CAS在当前段中预占位置后各自写入，段写满时才加锁切换到新段。
+ * <p>
+ * 记录格式（8字节对齐）：长度(4) + CRC32C(4) + 状态(4) + 保留(4) + 内容。
+ * 长度最先写入，崩溃时写了一半的记录因校验失败被跳过，未写入长度的记录区域全为0，恢复时按对齐逐步跳过。
+ * 记录处理完成后调用 {@link #complete(Position)} 标记，段内记录全部完成且已写满时删除该段文件。
+ * 启动时 {@link #replay()} 返回上次运行中未完成的记录。标记完成前崩溃的记录会被再次返回（至少一次）。
+ */
+public final class SegmentLog {
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int ALIGNMENT = 8;
+
+    private static final int STATE_PENDING = 0;
+
+    private static final int STATE_DONE = 1;
+
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final List<Segment> previousSegments = new ArrayList<>();
+
+    private volatile Segment current;
+
+    /**
+     * 打开日志目录，已有的段文件留待 {@link #replay()} 处理，新记录写入新段
+     *
+     * @param segmentSize 段文件大小（字节）
+     */
+    public SegmentLog(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("segment size too small");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        long maxId = -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SUFFIX)) {
+                    continue;
+                }
+                long id;
+                try {
+                    id = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                previousSegments.add(Segment.map(file, id, (int) Math.min(Files.size(file), Integer.MAX_VALUE)));
+                maxId = Math.max(maxId, id);
+            }
+        }
+        previousSegments.sort((a, b) -> Long.compare(a.id, b.id));
+        this.current = openSegment(maxId + 1);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录位置，处理完成后传给 {@link #complete(Position)}
+     */
+    public Position append(byte[] payload) {
+        int size = align(HEADER_SIZE + payload.length);
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("record larger than segment: " + payload.length);
+        }
+        while (true) {
+            Segment segment = current;
+            // 先计数再预占，保证段被封存时能看到正在写入的记录
+            segment.pending.incrementAndGet();
+            int offset = segment.claim(size);
+            if (offset >= 0) {
+                segment.write(offset, payload);
+                return new Position(this, segment, offset);
+            }
+            // 段可能已被其他线程封存，此时由最后一个撤销计数的线程删除
+            if (segment.pending.decrementAndGet() == 0 && segment.sealed) {
+                delete(segment);
+            }
+            roll(segment);
+        }
+    }
+
+    /**
+     * 标记记录已处理完成
+     */
+    public void complete(Position position) {
+        Segment segment = position.segment;
+        segment.buffer.putInt(position.offset + 8, STATE_DONE);
+        if (segment.pending.decrementAndGet() == 0 && segment.sealed) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * 返回上次运行中未完成的记录（按写入顺序），只应在启动时调用一次
+     */
+    public List<Entry> replay() {
+        List<Entry> entries = new ArrayList<>();
+        for (Segment segment : previousSegments) {
+            segment.sealed = true;
+            int position = 0;
+            int limit = segment.capacity - HEADER_SIZE;
+            while (position <= limit) {
+                int length = segment.buffer.getInt(position);
+                if (length == 0) {
+                    // 未写入的区域
+                    position += ALIGNMENT;
+                    continue;
+                }
+                int size = align(HEADER_SIZE + length);
+                if (length < 0 || position + size > segment.capacity) {
+                    break;
+                }
+                int crc = segment.buffer.getInt(position + 4);
+                int state = segment.buffer.getInt(position + 8);
+                if (state == STATE_PENDING) {
+                    byte[] payload = new byte[length];
+                    segment.buffer.get(position + HEADER_SIZE, payload);
+                    if (checksum(payload) == crc) {
+                        segment.pending.incrementAndGet();
+                        entries.add(new Entry(payload, new Position(this, segment, position)));
+                    }
+                }
+                position += size;
+            }
+            if (segment.pending.get() == 0) {
+                delete(segment);
+            }
+        }
+        previousSegments.clear();
+        return entries;
+    }
+
+    /**
+     * 把当前段的修改强制写入磁盘
+     */
+    public void force() {
+        current.buffer.force();
+    }
+
+    private synchronized void roll(Segment full) {
+        if (current != full) {
+            return;
+        }
+        current = openSegment(full.id + 1);
+        full.sealed = true;
+        full.buffer.force();
+        if (full.pending.get() == 0) {
+            delete(full);
+        }
+    }
+
+    private Segment openSegment(long id) {
+        try {
+            return Segment.map(directory.resolve(String.format("%020d%s", id, SUFFIX)), id, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建日志段: " + id, e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        if (segment.deleted.compareAndSet(false, true)) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                // 删除失败时保留文件，下次启动重放时所有记录均已标记完成，不会重复处理
+            }
+        }
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 记录位置
+     */
+    public static final class Position {
+
+        private final SegmentLog log;
+
+        private final Segment segment;
+
+        private final int offset;
+
+        private Position(SegmentLog log, Segment segment, int offset) {
+            this.log = log;
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * 标记记录已处理完成，等同于 {@code log.complete(this)}
+         */
+        public void complete() {
+            log.complete(this);
+        }
+    }
+
+    /**
+     * 重放得到的记录
+     */
+    public static final class Entry {
+
+        private final byte[] payload;
+
+        private final Position position;
+
+        private Entry(byte[] payload, Position position) {
+            this.payload = payload;
+            this.position = position;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public Position getPosition() {
+            return position;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+
+        private final long id;
+
+        private final int capacity;
+
+        private final MappedByteBuffer buffer;
+
+        private final AtomicInteger writePosition = new AtomicInteger();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicBoolean deleted = new AtomicBoolean();
+
+        private volatile boolean sealed;
+
+        private Segment(Path file, long id, int capacity, MappedByteBuffer buffer) {
+            this.file = file;
+            this.id = id;
+            this.capacity = capacity;
+            this.buffer = buffer;
+        }
+
+        private static Segment map(Path file, long id, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return new Segment(file, id, capacity, buffer);
+            }
+        }
+
+        /**
+         * 预占写入位置，段已满时返回-1
+         */
+        private int claim(int size) {
+            int offset = writePosition.getAndAdd(size);
+            if (offset < 0 || offset > capacity - size) {
+                // 防止反复预占导致溢出
+                writePosition.set(capacity);
+                return -1;
+            }
+            return offset;
+        }
+
+        private void write(int offset, byte[] payload) {
+            buffer.putInt(offset, payload.length);
+            buffer.putInt(offset + 4, checksum(payload));
+            buffer.putInt(offset + 8, STATE_PENDING);
+            buffer.put(offset + HEADER_SIZE, payload);
+        }
+    }
+}
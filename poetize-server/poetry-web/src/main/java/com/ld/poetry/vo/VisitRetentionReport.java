@@ -0,0 +1,74 @@
+package com.ld.poetry.vo;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 访问明细保留期清理报告
+ * 记录一次清理处理的行数、归档和释放的空间以及耗时
+ */
+@Data
+public class VisitRetentionReport {
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private long startTime;
+
+    /**
+     * 保留期边界日期，早于该日期的明细会被清理
+     */
+    private String cutoffDate;
+
+    /**
+     * 扫描的明细行数
+     */
+    private long rowsScanned;
+
+    /**
+     * 删除的明细行数
+     */
+    private long rowsDeleted;
+
+    /**
+     * 归档的明细行数
+     */
+    private long rowsArchived;
+
+    /**
+     * 写入归档文件的字节数（压缩后）
+     */
+    private long archiveBytes;
+
+    /**
+     * 估算释放的表空间（删除行数 × 平均行长度）
+     */
+    private long bytesReclaimed;
+
+    /**
+     * 清除草图的汇总行数
+     */
+    private long sketchesCompacted;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 本次写入的归档文件
+     */
+    private List<String> archiveFiles = new ArrayList<>();
+
+    /**
+     * 是否完整执行
+     */
+    private boolean completed;
+
+    /**
+     * 未完整执行时的原因
+     */
+    private String message;
+}
@@ -1,6 +1,6 @@
 package com.ld.poetry.controller;
 
-import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.service.VisitRollupService;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +19,7 @@ import java.util.Map;
 public class DatabaseCheckTest {
 
     @Autowired
-    private HistoryInfoMapper historyInfoMapper;
+    private VisitRollupService visitRollupService;
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -42,9 +42,10 @@ public class DatabaseCheckTest {
             Integer uniqueIpCount = jdbcTemplate.queryForObject(uniqueIpSql, Integer.class);
             log.info("📊 唯一IP数量: {}", uniqueIpCount);
             
-            // 3. 通过Mapper方法检查
-            Long mapperCount = historyInfoMapper.getHistoryCount();
-            log.info("📊 Mapper方法返回的唯一访客数: {}", mapperCount);
+            // 3. 对比汇总表中的累计独立IP数（草图估算，与精确值有少量误差）
+            visitRollupService.rollup();
+            long rollupCount = visitRollupService.getUniqueVisitors(VisitRollupService.TOTAL_PERIOD);
+            log.info("📊 汇总表累计独立IP数: {}", rollupCount);
             
             // 4. 查看最近几条记录
             String recentSql = "SELECT ip, nation, province, city, create_time FROM history_info ORDER BY create_time DESC LIMIT 5";
@@ -1,7 +1,9 @@
 package com.ld.poetry.controller;
 
 import com.ld.poetry.service.CacheService;
-import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.constants.CommonConst;
+import com.ld.poetry.dao.VisitRollupMapper;
+import com.ld.poetry.service.VisitRollupService;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,7 +30,10 @@ public class WebInfoTest {
     private CacheService cacheService;
 
     @Autowired
-    private HistoryInfoMapper historyInfoMapper;
+    private VisitRollupService visitRollupService;
+
+    @Autowired
+    private VisitRollupMapper visitRollupMapper;
 
     /**
      * 测试首页获取网站信息接口
@@ -277,61 +282,35 @@ public class WebInfoTest {
             log.info("🔍 获取历史统计数据...");
             Map<String, Object> historyStats = cacheService.getCachedIpHistoryStatisticsSafely();
             
-            // 2. 检查24小时数据（IP_HISTORY_HOUR）
+            // 2. 检查昨日各用户访问次数（IP_HISTORY_HOUR）
             @SuppressWarnings("unchecked")
-            List<Map<String, Object>> ipHistoryCount = (List<Map<String, Object>>) historyStats.get("ip_history_hour");
+            List<Map<String, Object>> userVisitsYest = (List<Map<String, Object>>) historyStats.get(CommonConst.IP_HISTORY_HOUR);
             
-            log.info("📊 24小时访问数据记录数: {}", ipHistoryCount != null ? ipHistoryCount.size() : 0);
+            log.info("📊 昨日访问用户数: {}", userVisitsYest != null ? userVisitsYest.size() : 0);
             
-            if (ipHistoryCount != null && !ipHistoryCount.isEmpty()) {
-                // 3. 计算昨日访问量（模拟WebInfoController中的逻辑）
-                long yesterdayIpCount = ipHistoryCount.stream()
-                    .map(m -> m != null ? m.get("ip") : null)
-                    .filter(java.util.Objects::nonNull)
-                    .distinct()
-                    .count();
-                
-                log.info("📊 昨日访问量(ip_count_yest): {}", yesterdayIpCount);
-                
-                // 4. 显示具体的访问记录
-                log.info("📊 24小时内访问记录详情:");
-                ipHistoryCount.stream()
+            if (userVisitsYest != null && !userVisitsYest.isEmpty()) {
+                // 3. 显示具体的用户访问次数
+                log.info("📊 昨日用户访问次数详情:");
+                userVisitsYest.stream()
                     .limit(5) // 只显示前5条
                     .forEach(record -> {
-                        log.info("  IP: {}, 用户ID: {}, 省份: {}", 
-                            record.get("ip"), 
+                        log.info("  用户ID: {}, 访问次数: {}", 
                             record.get("user_id"), 
-                            record.get("province"));
+                            record.get("num"));
+                        assert record.containsKey("user_id") : "应包含用户ID";
+                        assert record.containsKey("num") : "应包含访问次数";
                     });
-                
-                // 5. 验证数据来源
-                log.info("🔍 验证昨日访问量数据来源:");
-                log.info("  数据来源: 24小时内访问记录(IP_HISTORY_HOUR)");
-                log.info("  统计方式: 对IP进行去重计数");
-                log.info("  时间范围: 当前时间往前推24小时");
-                
             } else {
-                log.info("📊 24小时内暂无访问记录");
+                log.info("📊 昨日暂无登录用户访问记录");
             }
             
-            // 6. 对比数据库中的24小时查询
-            // Assuming historyInfoMapper is available in the test context
-            // try {
-            //     log.info("🔍 对比数据库24小时查询结果...");
-            //     List<Map<String, Object>> dbHour24Data = historyInfoMapper.getHistoryBy24Hour();
-            //     log.info("📊 数据库24小时查询记录数: {}", dbHour24Data != null ? dbHour24Data.size() : 0);
-                
-            //     if (dbHour24Data != null && !dbHour24Data.isEmpty()) {
-            //         long dbYesterdayCount = dbHour24Data.stream()
-            //             .map(m -> m.get("ip"))
-            //             .filter(java.util.Objects::nonNull)
-            //             .distinct()
-            //             .count();
-            //         log.info("📊 数据库24小时去重IP数: {}", dbYesterdayCount);
-            //     }
-            // } catch (Exception e) {
-            //     log.warn("查询数据库24小时数据失败: {}", e.getMessage());
-            // }
+            // 4. 昨日访问量直接取自汇总表，不再对访问记录去重计数
+            Object yesterdayCount = historyStats.get(CommonConst.IP_HISTORY_YESTERDAY_COUNT);
+            log.info("📊 昨日访问量(ip_count_yest): {}", yesterdayCount);
+            log.info("🔍 验证昨日访问量数据来源:");
+            log.info("  数据来源: 按天汇总表(visit_rollup_daily)");
+            log.info("  统计方式: 独立IP草图估算");
+            log.info("  时间范围: 昨天00:00:00 - 昨天23:59:59");
             
             log.info("✅ 昨日访问量统计机制验证完成");
             
@@ -351,58 +330,40 @@ public class WebInfoTest {
         log.info("========== 开始测试修正后的昨日访问量统计 ==========");
         
         try {
-            // 1. 直接测试数据库昨日查询
-            log.info("🔍 测试数据库昨日访问记录查询...");
-            List<Map<String, Object>> yesterdayRecords = historyInfoMapper.getHistoryByYesterday();
-            log.info("📊 昨日访问记录数: {}", yesterdayRecords.size());
-            
-            if (!yesterdayRecords.isEmpty()) {
-                long yesterdayIpCount = yesterdayRecords.stream()
-                    .map(m -> m.get("ip"))
-                    .filter(java.util.Objects::nonNull)
-                    .distinct()
-                    .count();
-                log.info("📊 昨日去重IP数: {}", yesterdayIpCount);
-                
-                // 显示具体记录
-                yesterdayRecords.stream()
-                    .limit(5)
-                    .forEach(record -> {
-                        log.info("  昨日记录 - IP: {}, 用户ID: {}, 省份: {}", 
-                            record.get("ip"), 
-                            record.get("user_id"), 
-                            record.get("province"));
-                    });
-            }
-            
-            // 2. 测试数据库昨日访问量查询
-            log.info("🔍 测试数据库昨日访问量直接查询...");
-            Long yesterdayCount = historyInfoMapper.getYesterdayHistoryCount();
-            log.info("📊 昨日访问量(直接查询): {}", yesterdayCount != null ? yesterdayCount : 0);
-            
-            // 3. 获取刷新后的统计数据
+            // 1. 汇总位点之后的记录先计入汇总，再读取昨日各用户访问次数
+            visitRollupService.rollup();
+            String yesterday = java.time.LocalDate.now().minusDays(1).toString();
+            List<Map<String, Object>> yesterdayUsers = visitRollupMapper.listUserVisits(java.time.LocalDate.parse(yesterday));
+            log.info("📊 昨日访问用户数: {}", yesterdayUsers.size());
+            yesterdayUsers.stream()
+                .limit(5)
+                .forEach(record -> log.info("  昨日记录 - 用户ID: {}, 访问次数: {}", 
+                    record.get("user_id"), 
+                    record.get("num")));
+            
+            // 2. 测试汇总表昨日访问量查询
+            log.info("🔍 测试汇总表昨日访问量查询...");
+            long yesterdayCount = visitRollupService.getUniqueVisitors(yesterday);
+            log.info("📊 昨日访问量(汇总表): {}", yesterdayCount);
+            
+            // 3. 刷新缓存后应与汇总表一致
             log.info("🔍 获取刷新后的历史统计数据...");
             cacheService.refreshLocationStatisticsCache(); // 手动刷新缓存
             Map<String, Object> historyStats = cacheService.getCachedIpHistoryStatisticsSafely();
             
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> cachedYesterdayData = (List<Map<String, Object>>) historyStats.get("ip_history_hour");
-            
-            log.info("📊 缓存中的昨日数据记录数: {}", cachedYesterdayData != null ? cachedYesterdayData.size() : 0);
+            Object cachedYesterdayCount = historyStats.get(CommonConst.IP_HISTORY_YESTERDAY_COUNT);
+            log.info("📊 缓存中的昨日访问量: {}", cachedYesterdayCount);
+            assert cachedYesterdayCount instanceof Number && ((Number) cachedYesterdayCount).longValue() == yesterdayCount
+                : "缓存中的昨日访问量应与汇总表一致";
             
-            if (cachedYesterdayData != null && !cachedYesterdayData.isEmpty()) {
-                long cachedYesterdayIpCount = cachedYesterdayData.stream()
-                    .map(m -> m.get("ip"))
-                    .filter(java.util.Objects::nonNull)
-                    .distinct()
-                    .count();
-                log.info("📊 缓存中昨日去重IP数: {}", cachedYesterdayIpCount);
-            }
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> cachedUserVisits = (List<Map<String, Object>>) historyStats.get(CommonConst.IP_HISTORY_HOUR);
+            log.info("📊 缓存中的昨日访问用户数: {}", cachedUserVisits != null ? cachedUserVisits.size() : 0);
             
             // 4. 验证时间范围
             log.info("🔍 验证修正后的时间范围:");
-            log.info("  数据来源: 昨日访问记录(按日历天计算)");
-            log.info("  SQL查询: date(create_time) = date_sub(curdate(), interval 1 day)");
+            log.info("  数据来源: 汇总表(visit_rollup_daily / visit_rollup_user)");
+            log.info("  汇总周期: 按日历天计算");
             log.info("  时间范围: 昨天00:00:00 - 昨天23:59:59");
             
             log.info("✅ 修正后的昨日访问量统计验证完成");
@@ -1,14 +1,17 @@
 package com.ld.poetry.service;
 
-import com.ld.poetry.dao.HistoryInfoMapper;
+import com.ld.poetry.dao.VisitRollupMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * 访问统计测试类
  * 用于验证总访问量统计bug的修复效果
@@ -18,43 +21,56 @@ import java.util.Map;
 public class HistoryStatisticsTest {
 
     @Autowired
-    private HistoryInfoMapper historyInfoMapper;
+    private VisitRollupService visitRollupService;
+
+    @Autowired
+    private VisitRollupMapper visitRollupMapper;
 
     @Autowired
     private CacheService cacheService;
 
     /**
-     * 测试数据库中的总访问量查询
+     * 测试汇总表中的总访问量查询
      */
     @Test
     public void testHistoryCount() {
         try {
-            log.info("开始测试数据库总访问量查询");
+            log.info("开始测试汇总表总访问量查询");
+            
+            // 汇总位点之后的记录先计入汇总
+            int rolledUp = visitRollupService.rollup();
+            log.info("本次汇总记录数: {}, 汇总位点: {}", rolledUp, visitRollupService.getRolledUpId());
             
-            // 直接查询数据库
-            Long totalCount = historyInfoMapper.getHistoryCount();
-            log.info("数据库总访问量: {}", totalCount);
+            // 累计独立IP数
+            long totalCount = visitRollupService.getUniqueVisitors(VisitRollupService.TOTAL_PERIOD);
+            log.info("累计独立IP数: {}", totalCount);
+            assertTrue(totalCount >= 0);
             
             // 查询省份统计
-            List<Map<String, Object>> provinceStats = historyInfoMapper.getHistoryByProvince();
-            log.info("省份统计数据条数: {}", provinceStats != null ? provinceStats.size() : 0);
-            if (provinceStats != null && !provinceStats.isEmpty()) {
+            List<Map<String, Object>> provinceStats = visitRollupMapper.listTopProvinces(VisitRollupService.TOTAL_PERIOD, 10);
+            log.info("省份统计数据条数: {}", provinceStats.size());
+            assertTrue(provinceStats.size() <= 10);
+            if (!provinceStats.isEmpty()) {
                 log.info("省份统计示例: {}", provinceStats.get(0));
+                assertTrue(provinceStats.get(0).containsKey("num"));
             }
             
             // 查询IP统计
-            List<Map<String, Object>> ipStats = historyInfoMapper.getHistoryByIp();
-            log.info("IP统计数据条数: {}", ipStats != null ? ipStats.size() : 0);
-            if (ipStats != null && !ipStats.isEmpty()) {
+            List<Map<String, Object>> ipStats = visitRollupMapper.listTopIps(10);
+            log.info("IP统计数据条数: {}", ipStats.size());
+            assertTrue(ipStats.size() <= 10);
+            if (!ipStats.isEmpty()) {
                 log.info("IP统计示例: {}", ipStats.get(0));
+                assertTrue(ipStats.get(0).containsKey("ip"));
             }
             
-            // 查询24小时统计
-            List<Map<String, Object>> hourStats = historyInfoMapper.getHistoryBy24Hour();
-            log.info("24小时统计数据条数: {}", hourStats != null ? hourStats.size() : 0);
+            // 查询今日每小时统计
+            List<Map<String, Object>> hourStats = visitRollupService.getHourlyStats(LocalDate.now());
+            log.info("今日每小时统计数据条数: {}", hourStats.size());
+            assertTrue(hourStats.size() <= 24);
             
         } catch (Exception e) {
-            log.error("测试数据库访问量查询失败", e);
+            log.error("测试汇总表访问量查询失败", e);
             throw e;
         }
     }
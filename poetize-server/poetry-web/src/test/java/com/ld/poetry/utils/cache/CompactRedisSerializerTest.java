@@ -0,0 +1,132 @@
+package com.ld.poetry.utils.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis紧凑二进制序列化测试
+ * 验证实体与集合往返、Map整数键、压缩、旧格式读取以及整数保持文本格式
+ */
+public class CompactRedisSerializerTest {
+
+    /**
+     * 简化的旧格式序列化器：以"legacy:"前缀的文本表示
+     */
+    private static final RedisSerializer<Object> LEGACY = new RedisSerializer<Object>() {
+        @Override
+        public byte[] serialize(Object value) {
+            return ("legacy:" + value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(LEGACY, true, 2048);
+
+    @Test
+    public void testBeanRoundTrip() {
+        SampleArticle article = sample(7);
+        SampleArticle result = (SampleArticle) serializer.deserialize(serializer.serialize(article));
+
+        assertEquals(Integer.valueOf(7), result.id);
+        assertEquals("标题7", result.title);
+        assertEquals(Boolean.TRUE, result.visible);
+        assertEquals(LocalDateTime.of(2025, 11, 10, 12, 30, 15, 123), result.createTime);
+        assertEquals(List.of("Java", "缓存"), result.tags);
+        assertEquals(3.5, result.score);
+        assertNull(result.summary);
+    }
+
+    @Test
+    public void testMapKeepsIntegerKeysAndWritesSchemaOnce() {
+        Map<Integer, List<SampleArticle>> map = new HashMap<>();
+        map.put(1, List.of(sample(1), sample(2)));
+        map.put(2, List.of(sample(3)));
+
+        byte[] bytes = serializer.serialize(map);
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> result = (Map<Object, Object>) serializer.deserialize(bytes);
+
+        assertEquals(Set.of(1, 2), result.keySet());
+        List<?> sortOne = (List<?>) result.get(1);
+        assertEquals(2, sortOne.size());
+        assertEquals("标题2", ((SampleArticle) sortOne.get(1)).title);
+
+        // 类名和字段名只写一次
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertEquals(text.indexOf("createTime"), text.lastIndexOf("createTime"));
+    }
+
+    @Test
+    public void testLargeValueIsCompressed() {
+        List<SampleArticle> articles = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            articles.add(sample(i));
+        }
+        byte[] bytes = serializer.serialize(articles);
+
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals((byte) 1, bytes[2]);
+        List<?> result = (List<?>) serializer.deserialize(bytes);
+        assertEquals(200, result.size());
+        assertEquals("标题199", ((SampleArticle) result.get(199)).title);
+    }
+
+    @Test
+    public void testLegacyDataAndCountersUseOldFormat() {
+        assertEquals("{\"old\":true}", serializer.deserialize("{\"old\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("legacy:42", new String(serializer.serialize(42L), StandardCharsets.UTF_8));
+
+        CompactRedisSerializer jsonOnly = new CompactRedisSerializer(LEGACY, false, 2048);
+        assertEquals("legacy:文本", new String(jsonOnly.serialize("文本"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testUnsupportedObjectUsesFallback() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("locale", Locale.CHINA);
+        value.put("count", 3);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) serializer.deserialize(serializer.serialize(value));
+        assertEquals("legacy:zh_CN", result.get("locale"));
+        assertEquals(Integer.valueOf(3), result.get("count"));
+    }
+
+    private static SampleArticle sample(int id) {
+        SampleArticle article = new SampleArticle();
+        article.id = id;
+        article.title = "标题" + id;
+        article.visible = true;
+        article.createTime = LocalDateTime.of(2025, 11, 10, 12, 30, 15, 123);
+        article.tags = List.of("Java", "缓存");
+        article.score = 3.5;
+        return article;
+    }
+
+    static class SampleArticle {
+
+        private Integer id;
+
+        private String title;
+
+        private Boolean visible;
+
+        private LocalDateTime createTime;
+
+        private List<String> tags;
+
+        private double score;
+
+        private String summary;
+    }
+}
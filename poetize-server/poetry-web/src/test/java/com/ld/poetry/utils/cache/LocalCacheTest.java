@@ -0,0 +1,70 @@
+package com.ld.poetry.utils.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地缓存测试
+ * 验证容量淘汰、过期、失效代次以及返回副本不影响缓存
+ */
+public class LocalCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LocalCache<String> cache = new LocalCache<>("test", 2, 60_000, null);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testExpiredEntryIsMiss() throws InterruptedException {
+        LocalCache<String> cache = new LocalCache<>("test", 10, 1, null);
+        cache.put("a", "1");
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testPutAfterInvalidateIsDropped() {
+        LocalCache<String> cache = new LocalCache<>("test", 10, 60_000, null);
+        long mark = cache.mark();
+        // 读取Redis期间该键被修改
+        cache.invalidate("a");
+        cache.put("a", "旧值", mark);
+
+        assertNull(cache.get("a"));
+
+        cache.put("a", "新值", cache.mark());
+        assertEquals("新值", cache.get("a"));
+    }
+
+    @Test
+    public void testCopierIsolatesCachedValue() {
+        LocalCache<List<String>> cache = new LocalCache<>("test", 10, 60_000, ArrayList::new);
+        List<String> value = new ArrayList<>(List.of("x"));
+        cache.put("a", value);
+        value.add("写入后修改");
+
+        List<String> read = cache.get("a");
+        read.add("读取后修改");
+
+        assertEquals(List.of("x"), cache.get("a"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1.0, cache.getHitRate());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ld.poetry.utils.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 环形窗口测试
+ * 验证写满后覆盖最早元素、与更早元素合并时去重并补充到窗口前部
+ */
+public class RingWindowTest {
+
+    @Test
+    public void testKeepsLatestItems() {
+        RingWindow<Integer> window = new RingWindow<>(3);
+        window.add(1);
+        window.add(2);
+        assertEquals(List.of(1, 2), window.snapshot());
+
+        window.add(3);
+        window.add(4);
+        window.add(5);
+        assertEquals(List.of(3, 4, 5), window.snapshot());
+        assertEquals(3, window.size());
+    }
+
+    @Test
+    public void testMergeOlder() {
+        RingWindow<Integer> window = new RingWindow<>(4);
+        window.add(5);
+        window.add(6);
+
+        // 4、5 与窗口重复的 5 去掉，剩余 2、3、4 中最新的两个补到窗口前部
+        List<Integer> merged = window.mergeOlder(List.of(2, 3, 4, 5), Integer::equals);
+        assertEquals(List.of(2, 3, 4, 5, 6), merged);
+        assertEquals(List.of(3, 4, 5, 6), window.snapshot());
+
+        // 窗口已满时不再补充，新元素仍覆盖最早的元素
+        assertEquals(List.of(1, 3, 4, 5, 6), window.mergeOlder(List.of(1), Integer::equals));
+        window.add(7);
+        assertEquals(List.of(4, 5, 6, 7), window.snapshot());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ld.poetry.utils.cache;
+
+import com.ld.poetry.entity.Label;
+import com.ld.poetry.entity.Sort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分类标签快照测试
+ * 验证数量汇总、ID索引以及返回副本不影响快照
+ */
+public class TaxonomySnapshotTest {
+
+    private TaxonomySnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        Sort tech = new Sort();
+        tech.setId(1);
+        tech.setSortName("技术");
+        Sort life = new Sort();
+        life.setId(2);
+        life.setSortName("生活");
+
+        Label java = new Label();
+        java.setId(10);
+        java.setSortId(1);
+        java.setLabelName("Java");
+        Label travel = new Label();
+        travel.setId(20);
+        travel.setSortId(2);
+        travel.setLabelName("旅行");
+
+        Map<Integer, Integer> sortCounts = new HashMap<>();
+        sortCounts.put(1, 5);
+        Map<Integer, Integer> labelCounts = new HashMap<>();
+        labelCounts.put(10, 5);
+
+        snapshot = new TaxonomySnapshot(3L, List.of(tech, life), List.of(java, travel), sortCounts, labelCounts);
+    }
+
+    @Test
+    public void testSortInfoContainsCountsAndLabels() {
+        List<Sort> sortInfo = snapshot.copySortInfo();
+
+        assertEquals(2, sortInfo.size());
+        assertEquals(5, sortInfo.get(0).getCountOfSort());
+        assertEquals(0, sortInfo.get(1).getCountOfSort());
+        assertEquals(1, sortInfo.get(0).getLabels().size());
+        assertEquals(5, sortInfo.get(0).getLabels().get(0).getCountOfLabel());
+        assertEquals(0, sortInfo.get(1).getLabels().get(0).getCountOfLabel());
+    }
+
+    @Test
+    public void testLookupById() {
+        assertEquals("技术", snapshot.getSortName(1));
+        assertEquals("旅行", snapshot.getLabelName(20));
+        assertNull(snapshot.getSort(99));
+        assertNull(snapshot.getLabel(null));
+        assertNull(snapshot.getSort(1).getLabels());
+        assertEquals(3L, snapshot.getVersion());
+    }
+
+    @Test
+    public void testReturnedCopiesAreIsolated() {
+        snapshot.getSort(1).setSortName("已修改");
+        snapshot.copySortInfo().get(0).getLabels().get(0).setLabelName("已修改");
+
+        assertEquals("技术", snapshot.getSortName(1));
+        assertEquals("Java", snapshot.getLabelName(10));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ld.poetry.utils.ip;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IP字面量解析与CIDR前缀树测试
+ * 验证IPv4/IPv6各种写法、非法输入不回退到主机名解析，以及网段匹配
+ */
+public class IpAddressTest {
+
+    @Test
+    public void testParseIpv4() {
+        IpAddress address = IpAddress.parse(" 61.135.169.121 ");
+        assertNotNull(address);
+        assertTrue(address.isIpv4());
+        assertEquals(0x3D87A979L, address.getLow());
+        assertEquals("61.135.169.121", address.toString());
+
+        // header中逗号分隔的片段按下标解析
+        String header = "203.0.113.7, 10.0.0.1";
+        assertEquals("10.0.0.1", IpAddress.parse(header, 12, header.length()).toString());
+
+        assertNull(IpAddress.parse("256.0.0.1"));
+        assertNull(IpAddress.parse("1.2.3"));
+        assertNull(IpAddress.parse("01.2.3.4"));
+        assertNull(IpAddress.parse("localhost"));
+        assertNull(IpAddress.parse("example.com"));
+        assertNull(IpAddress.parse("unknown"));
+        assertNull(IpAddress.parse(""));
+        assertNull(IpAddress.parse(null));
+    }
+
+    @Test
+    public void testParseIpv6() {
+        assertEquals("2001:db8:0:0:0:0:0:1", IpAddress.parse("2001:db8::1").toString());
+        assertEquals("0:0:0:0:0:0:0:1", IpAddress.parse("::1").toString());
+        assertEquals("0:0:0:0:0:0:0:0", IpAddress.parse("::").toString());
+        assertEquals("fe80:0:0:0:0:0:0:0", IpAddress.parse("fe80::").toString());
+        assertEquals("fe80:0:0:0:0:0:0:1", IpAddress.parse("fe80::1%eth0").toString());
+        assertEquals("2001:db8:85a3:0:0:8a2e:370:7334", IpAddress.parse("2001:0db8:85a3:0000:0000:8A2E:0370:7334").toString());
+        assertEquals("0:0:0:0:0:0:102:304", IpAddress.parse("::1.2.3.4").toString());
+        assertEquals(IpAddress.parse("1:2:3:4:5:6:7:8"), IpAddress.parse("1:2:3:4:5:6:0.7.0.8"));
+
+        // IPv4映射地址按IPv4处理
+        IpAddress mapped = IpAddress.parse("::ffff:192.168.1.1");
+        assertTrue(mapped.isIpv4());
+        assertEquals("192.168.1.1", mapped.toString());
+
+        assertNull(IpAddress.parse("1:2:3:4:5:6:7"));
+        assertNull(IpAddress.parse("1:2:3:4:5:6:7:8:9"));
+        assertNull(IpAddress.parse("1::2::3"));
+        assertNull(IpAddress.parse(":1"));
+        assertNull(IpAddress.parse("1:"));
+        assertNull(IpAddress.parse("12345::1"));
+        assertNull(IpAddress.parse("1:2:3:4:5:6:7::8"));
+        assertNull(IpAddress.parse("::g"));
+        assertNull(IpAddress.parse("::1.2.3"));
+    }
+
+    @Test
+    public void testCidrTrie() {
+        CidrTrie trie = CidrTrie.of("10.0.0.0/8", "172.16.0.0/12", "192.168.1.7", "fc00::/7", "2001:db8::/32");
+        assertTrue(trie.contains("10.255.0.1"));
+        assertTrue(trie.contains("172.31.255.255"));
+        assertFalse(trie.contains("172.32.0.1"));
+        assertTrue(trie.contains("192.168.1.7"));
+        assertFalse(trie.contains("192.168.1.8"));
+        assertTrue(trie.contains("fd12::1"));
+        assertTrue(trie.contains("2001:db8:ffff::1"));
+        assertFalse(trie.contains("2001:db9::1"));
+        assertTrue(trie.contains("::ffff:10.1.2.3"));
+        assertFalse(trie.contains("8.8.8.8"));
+        assertFalse(trie.contains("not-an-ip"));
+        assertEquals(5, trie.size());
+
+        // 已被更短前缀覆盖的网段不计入
+        trie.add("10.1.0.0/16");
+        assertEquals(5, trie.size());
+
+        CidrTrie all = CidrTrie.of("0.0.0.0/0");
+        assertTrue(all.contains("1.2.3.4"));
+        assertFalse(all.contains("::2"));
+
+        assertThrows(IllegalArgumentException.class, () -> CidrTrie.of("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> CidrTrie.of("example.com/24"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.ld.poetry.utils.ip;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存映射 xdb 查询器测试
+ * 使用按 xdb 格式构造的小文件验证区间查找、并发查询、IPv4解析和地区解析
+ */
+public class XdbSearcherTest {
+
+    @Test
+    public void testSearch() throws Exception {
+        Path file = buildXdb();
+        try {
+            XdbSearcher searcher = XdbSearcher.open(file);
+            assertEquals("中国|0|广东省|深圳市|电信", searcher.search("1.0.0.1"));
+            assertEquals("中国|0|广东省|深圳市|电信", searcher.search("1.0.0.255"));
+            assertEquals("中国|0|福建省|福州市|电信", searcher.search("1.0.1.0"));
+            assertEquals("中国|0|福建省|福州市|电信", searcher.search("1.0.200.3"));
+            assertEquals("美国|0|0|0|Google", searcher.search("8.8.8.8"));
+            assertNull(searcher.search("8.8.9.1"));
+            assertNull(searcher.search("not-an-ip"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testConcurrentSearch() throws Exception {
+        Path file = buildXdb();
+        try {
+            XdbSearcher searcher = XdbSearcher.open(file);
+            AtomicInteger mismatches = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        String expected = (i & 1) == 0 ? "美国|0|0|0|Google" : "中国|0|福建省|福州市|电信";
+                        String ip = (i & 1) == 0 ? "8.8.8." + (i & 0xFF) : "1.0." + (1 + i % 255) + ".7";
+                        if (!expected.equals(searcher.search(ip))) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(0, mismatches.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testParseIpv4() {
+        assertEquals(0x08080808L, XdbSearcher.parseIpv4("8.8.8.8"));
+        assertEquals(0xFFFFFFFFL, XdbSearcher.parseIpv4("255.255.255.255"));
+        assertEquals(0L, XdbSearcher.parseIpv4("0.0.0.0"));
+        assertEquals(-1, XdbSearcher.parseIpv4("256.1.1.1"));
+        assertEquals(-1, XdbSearcher.parseIpv4("1.1.1"));
+        assertEquals(-1, XdbSearcher.parseIpv4("1.1.1.1.1"));
+        assertEquals(-1, XdbSearcher.parseIpv4("1..1.1"));
+        assertEquals(-1, XdbSearcher.parseIpv4("01.1.1.1"));
+        assertEquals(-1, XdbSearcher.parseIpv4("::1"));
+        assertEquals(-1, XdbSearcher.parseIpv4(null));
+    }
+
+    @Test
+    public void testParseRegion() {
+        Region region = Region.parse("中国|0|广东省|深圳市|电信");
+        assertEquals("中国", region.getCountry());
+        assertNull(region.getArea());
+        assertEquals("广东省", region.getProvince());
+        assertEquals("深圳市", region.getCity());
+        assertEquals("电信", region.getIsp());
+        assertEquals("中国|0|广东省|深圳市|电信", region.toString());
+
+        assertSame(Region.UNKNOWN, Region.parse(null));
+        assertSame(Region.UNKNOWN, Region.parse("0|0|0|0|0"));
+        assertTrue(Region.parse("0|0|0|内网IP|内网IP").getCity() != null);
+    }
+
+    /**
+     * 构造包含三个区间的 xdb 文件：1.0.0.0/24、1.0.1.0-1.0.255.255、8.8.8.0/24
+     */
+    private static Path buildXdb() throws Exception {
+        long[][] segments = {
+                {0x01000000L, 0x010000FFL},
+                {0x01000100L, 0x0100FFFFL},
+                {0x08080800L, 0x080808FFL}
+        };
+        String[] regions = {"中国|0|广东省|深圳市|电信", "中国|0|福建省|福州市|电信", "美国|0|0|0|Google"};
+
+        int vectorSize = XdbSearcher.VECTOR_INDEX_ROWS * XdbSearcher.VECTOR_INDEX_COLS * XdbSearcher.VECTOR_INDEX_SIZE;
+        int segmentStart = XdbSearcher.HEADER_INFO_LENGTH + vectorSize;
+        int dataStart = segmentStart + segments.length * XdbSearcher.SEGMENT_INDEX_SIZE;
+        byte[][] data = new byte[regions.length][];
+        int dataSize = 0;
+        for (int i = 0; i < regions.length; i++) {
+            data[i] = regions[i].getBytes(StandardCharsets.UTF_8);
+            dataSize += data[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(dataStart + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        int dataPtr = dataStart;
+        for (int i = 0; i < segments.length; i++) {
+            int p = segmentStart + i * XdbSearcher.SEGMENT_INDEX_SIZE;
+            buffer.putInt(p, (int) segments[i][0]);
+            buffer.putInt(p + 4, (int) segments[i][1]);
+            buffer.putShort(p + 8, (short) data[i].length);
+            buffer.putInt(p + 10, dataPtr);
+            buffer.put(dataPtr, data[i]);
+            dataPtr += data[i].length;
+        }
+        // 1.0.x.x 对应前两个区间，8.8.x.x 对应第三个区间
+        putVector(buffer, 1, 0, segmentStart, segmentStart + XdbSearcher.SEGMENT_INDEX_SIZE);
+        putVector(buffer, 8, 8, segmentStart + 2 * XdbSearcher.SEGMENT_INDEX_SIZE,
+                segmentStart + 2 * XdbSearcher.SEGMENT_INDEX_SIZE);
+
+        Path file = Files.createTempFile("ip2region-test", ".xdb");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    private static void putVector(ByteBuffer buffer, int il0, int il1, int sPtr, int ePtr) {
+        int idx = XdbSearcher.HEADER_INFO_LENGTH
+                + il0 * XdbSearcher.VECTOR_INDEX_COLS * XdbSearcher.VECTOR_INDEX_SIZE
+                + il1 * XdbSearcher.VECTOR_INDEX_SIZE;
+        buffer.putInt(idx, sPtr);
+        buffer.putInt(idx + 4, ePtr);
+    }
+}
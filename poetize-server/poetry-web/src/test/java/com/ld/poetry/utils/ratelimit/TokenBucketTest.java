@@ -0,0 +1,49 @@
+package com.ld.poetry.utils.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地令牌桶测试
+ * 验证容量、按时间补充、预约等待及归还令牌
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void testCapacityAndRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(3, 300, TimeUnit.MILLISECONDS);
+        assertTrue(bucket.isFull());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        // 每100毫秒补充一个令牌
+        Thread.sleep(150);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    public void testAcquireWaits() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 200, TimeUnit.MILLISECONDS);
+        assertTrue(bucket.acquire(0, TimeUnit.MILLISECONDS));
+
+        // 等待时间超过超时时间时不占用令牌
+        assertFalse(bucket.acquire(50, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertTrue(bucket.acquire(1, TimeUnit.SECONDS));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waited >= 150, "waited " + waited + "ms");
+
+        // 上一个令牌是预约的，下一个需要再等一个周期
+        assertFalse(bucket.tryAcquire());
+    }
+}
@@ -0,0 +1,88 @@
+package com.ld.poetry.utils.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文章倒排索引测试
+ * 验证中文二元短语匹配、拉丁单词前缀匹配、翻译命中、偏移以及持久化往返
+ */
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.addDocument(1, null, InvertedIndex.FIELD_TITLE, "学习Java数据库");
+        index.addDocument(1, null, InvertedIndex.FIELD_CONTENT, "本文介绍 MySQL 数据库索引，以及Spring Boot 的用法");
+        index.addDocument(2, null, InvertedIndex.FIELD_TITLE, "旅行日记");
+        index.addDocument(2, null, InvertedIndex.FIELD_CONTENT, "今天去了海边");
+        index.addDocument(2, "en", InvertedIndex.FIELD_TITLE, "Travel diary");
+        index.addDocument(2, "en", InvertedIndex.FIELD_CONTENT, "Today I went to the seaside");
+        index.setSignature(1, 11L);
+        index.setSignature(2, 22L);
+    }
+
+    @Test
+    public void testCjkPhraseMatchWithOffsets() {
+        List<SearchHit> hits = index.search("据库索引", 10);
+
+        assertEquals(1, hits.size());
+        SearchHit hit = hits.get(0);
+        assertEquals(1, hit.getArticleId());
+        assertTrue(hit.isOriginalMatched());
+        assertFalse(hit.isTitleMatched());
+        assertEquals(12, hit.getContentStart());
+        assertEquals(16, hit.getContentEnd());
+    }
+
+    @Test
+    public void testTitleMatchRanksFirstAndLatinPrefix() {
+        assertEquals(1, index.search("数据库", 10).get(0).getArticleId());
+        assertTrue(index.search("数据库", 10).get(0).isTitleMatched());
+        assertEquals(1, index.search("Jav", 10).size());
+        assertTrue(index.search("数据 海边", 10).isEmpty());
+    }
+
+    @Test
+    public void testTranslationOnlyMatchCarriesText() {
+        List<SearchHit> hits = index.search("seaside", 10);
+
+        assertEquals(1, hits.size());
+        SearchHit hit = hits.get(0);
+        assertFalse(hit.isOriginalMatched());
+        assertEquals("en", hit.getMatchedLanguage());
+        assertEquals("Travel diary", hit.getTranslationTitle());
+        assertEquals("seaside", hit.getTranslationContent().substring(hit.getContentStart(), hit.getContentEnd()));
+    }
+
+    @Test
+    public void testSingleCjkCharacterFallsBackToScan() {
+        List<SearchHit> hits = index.search("海", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).getArticleId());
+    }
+
+    @Test
+    public void testPersistRoundTripAndRemove() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        InvertedIndex loaded = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.getTermCount(), loaded.getTermCount());
+        assertEquals(22L, loaded.getSignatures().get(2));
+        assertEquals(1, loaded.search("seaside", 10).size());
+
+        loaded.removeArticle(2);
+        assertTrue(loaded.search("seaside", 10).isEmpty());
+        assertNull(loaded.getSignatures().get(2));
+        assertEquals(2, loaded.getDocumentCount());
+    }
+}
@@ -0,0 +1,55 @@
+package com.ld.poetry.utils.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 计数布隆过滤器测试
+ * 验证无漏判、误判率在预期范围内以及删除后不再命中
+ */
+public class CountingBloomFilterTest {
+
+    @Test
+    public void testNoFalseNegativesAndFalsePositiveRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("10.0." + (i >> 8) + "." + (i & 0xFF));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("10.0." + (i >> 8) + "." + (i & 0xFF)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("172.16." + (i >> 8) + "." + (i & 0xFF))) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue(rate < 0.02, "false positive rate: " + rate);
+    }
+
+    @Test
+    public void testRemove() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        assertFalse(filter.mightContain("203.0.113.7"));
+
+        filter.add("203.0.113.7");
+        filter.add("203.0.113.8");
+        assertTrue(filter.mightContain("203.0.113.7"));
+
+        filter.remove("203.0.113.7");
+        assertFalse(filter.mightContain("203.0.113.7"));
+        // 删除不影响其他元素
+        assertTrue(filter.mightContain("203.0.113.8"));
+
+        // 同一元素添加两次需要删除两次
+        filter.add("198.51.100.1");
+        filter.add("198.51.100.1");
+        filter.remove("198.51.100.1");
+        assertTrue(filter.mightContain("198.51.100.1"));
+        filter.remove("198.51.100.1");
+        assertFalse(filter.mightContain("198.51.100.1"));
+    }
+}
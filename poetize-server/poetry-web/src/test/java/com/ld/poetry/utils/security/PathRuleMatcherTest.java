@@ -0,0 +1,73 @@
+package com.ld.poetry.utils.security;
+
+import com.ld.poetry.utils.security.PathRuleMatcher.MatchType;
+import com.ld.poetry.utils.security.PathRuleMatcher.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求路径多模式匹配器测试
+ * 验证各匹配方式、重叠关键字、规则优先级以及路径规范化
+ */
+public class PathRuleMatcherTest {
+
+    private final PathRuleMatcher matcher = new PathRuleMatcher(List.of(
+            new Rule("path", MatchType.EXACT, "/.env"),
+            Rule.parse("prefix:/admin/", "pattern"),
+            Rule.parse("suffix:.sql", "pattern"),
+            Rule.parse("..", "pattern"),
+            Rule.parse("javascript:", "pattern"),
+            Rule.parse("all:union&select", "pattern"),
+            Rule.parse("contains:she", "pattern"),
+            Rule.parse("he", "pattern")
+    ));
+
+    @Test
+    public void testMatchTypes() {
+        assertEquals("exact:/.env", matcher.match("/.env").getName());
+        assertNull(matcher.match("/.env.bak"));
+        assertNull(matcher.match("/x/.env"));
+
+        assertEquals("prefix:/admin/", matcher.match("/admin/index").getName());
+        assertNull(matcher.match("/api/admin/index"));
+
+        assertEquals("suffix:.sql", matcher.match("/dump.sql").getName());
+        assertNull(matcher.match("/dump.sql/view"));
+
+        assertEquals("contains:..", matcher.match("/a/../b").getName());
+        assertEquals("contains:javascript:", matcher.match("/x?u=javascript:alert").getName());
+
+        assertEquals("all:union&select", matcher.match("/q?select=1&union=2").getName());
+        assertNull(matcher.match("/q?union=1"));
+
+        assertNull(matcher.match("/article/list"));
+        assertNull(matcher.match(""));
+    }
+
+    @Test
+    public void testOverlappingTermsAndPriority() {
+        // "she" 的后缀 "he" 通过后缀链接同时命中，返回排在前面的规则
+        assertEquals("contains:she", matcher.match("/ushers").getName());
+        assertEquals("contains:he", matcher.match("/other").getName());
+        // 同时命中多条规则时返回编译顺序最靠前的
+        assertEquals("exact:/.env", new PathRuleMatcher(List.of(
+                new Rule("path", MatchType.EXACT, "/.env"),
+                Rule.parse("env", "pattern"))).match("/.env").getName());
+        assertEquals("contains:env", new PathRuleMatcher(List.of(
+                Rule.parse("env", "pattern"),
+                new Rule("path", MatchType.EXACT, "/.env"))).match("/.env").getName());
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("/.env", PathRuleMatcher.normalize("/%2E%65NV"));
+        assertEquals("/a/b", PathRuleMatcher.normalize("//a\\\\b"));
+        assertEquals("exact:/.env", matcher.match(PathRuleMatcher.normalize("//.ENV")).getName());
+        assertThrows(IllegalArgumentException.class, () -> PathRuleMatcher.normalize("/%zz"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("all:a&", "pattern"));
+        assertThrows(IllegalArgumentException.class, () -> Rule.parse("  ", "pattern"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ld.poetry.utils.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 时间轮定时器测试
+ * 验证任务按到期时间执行、取消后不再执行及超过一圈的延迟
+ */
+public class TimerWheelTest {
+
+    @Test
+    public void testTasksRunInDeadlineOrder() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel("timer-wheel-test", 5, 64)) {
+            List<Integer> fired = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(3);
+            for (int delay : new int[]{90, 30, 60}) {
+                wheel.schedule(() -> {
+                    fired.add(delay);
+                    latch.countDown();
+                }, delay);
+            }
+
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+            assertEquals(List.of(30, 60, 90), fired);
+            assertEquals(0, wheel.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel("timer-wheel-test", 5, 64)) {
+            List<String> fired = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            TimerWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 20);
+            TimerWheel.Timeout kept = wheel.schedule(() -> {
+                fired.add("kept");
+                latch.countDown();
+            }, 60);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            assertEquals(1, wheel.getPendingCount());
+
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+            assertEquals(List.of("kept"), fired);
+            assertTrue(kept.isExpired());
+            assertFalse(kept.cancel());
+            assertTrue(cancelled.isCancelled());
+        }
+    }
+
+    @Test
+    public void testDelayLongerThanOneRound() throws InterruptedException {
+        // 8个槽、每槽5毫秒，一圈40毫秒
+        try (TimerWheel wheel = new TimerWheel("timer-wheel-test", 5, 8)) {
+            CountDownLatch latch = new CountDownLatch(1);
+            long start = System.nanoTime();
+            wheel.schedule(latch::countDown, 130);
+
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsedMillis >= 130, "提前执行: " + elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ld.poetry.utils.visit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HyperLogLog基数估计测试
+ * 验证估计误差、重复值不计数、合并等价于并集以及序列化往返
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void testCardinalityWithinError() {
+        HyperLogLog small = new HyperLogLog(12);
+        for (int i = 0; i < 100; i++) {
+            small.add("10.0.0." + i);
+            small.add("10.0.0." + i);
+        }
+        // 小基数走线性计数，基本精确
+        assertTrue(Math.abs(small.cardinality() - 100) <= 2);
+
+        HyperLogLog large = new HyperLogLog(14);
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            large.add(ip(i));
+        }
+        double error = Math.abs(large.cardinality() - n) / (double) n;
+        assertTrue(error < 0.03, "error: " + error);
+    }
+
+    @Test
+    public void testMergeAndRoundTrip() {
+        HyperLogLog a = new HyperLogLog(12);
+        HyperLogLog b = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            a.add(ip(i));
+            union.add(ip(i));
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            b.add(ip(i));
+            union.add(ip(i));
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(a.toBytes());
+        assertEquals(a.cardinality(), restored.cardinality());
+
+        restored.merge(b);
+        assertEquals(union.cardinality(), restored.cardinality());
+
+        assertThrows(IllegalArgumentException.class, () -> restored.merge(new HyperLogLog(14)));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{1, 12, 0}));
+    }
+
+    private static String ip(int i) {
+        return (i >>> 24 & 0xff) + "." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+}
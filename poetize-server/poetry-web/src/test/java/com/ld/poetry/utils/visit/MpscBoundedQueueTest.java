@@ -0,0 +1,84 @@
+package com.ld.poetry.utils.visit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界无锁队列测试
+ * 验证容量上限、先进先出以及多生产者并发写入时不丢失、不重复
+ */
+public class MpscBoundedQueueTest {
+
+    @Test
+    public void testBoundedFifo() {
+        MpscBoundedQueue<Integer> queue = new MpscBoundedQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscBoundedQueue<Integer> queue = new MpscBoundedQueue<>(1024);
+        CountDownLatch done = new CountDownLatch(producers);
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // 队列满时重试，统计被拒绝的次数
+                    while (!queue.offer(base + i)) {
+                        rejected.incrementAndGet();
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] lastOfProducer = new int[producers];
+        Arrays.fill(lastOfProducer, -1);
+        int received = 0;
+        while (received < seen.length) {
+            Integer value = queue.poll();
+            if (value == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // 不重复
+            assertFalse(seen[value]);
+            seen[value] = true;
+            // 同一生产者的元素保持入队顺序
+            int producer = value / perProducer;
+            assertTrue(value > lastOfProducer[producer]);
+            lastOfProducer[producer] = value;
+            received++;
+        }
+        done.await();
+        assertNull(queue.poll());
+    }
+}
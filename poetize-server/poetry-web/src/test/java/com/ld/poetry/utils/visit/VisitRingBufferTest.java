@@ -0,0 +1,71 @@
+package com.ld.poetry.utils.visit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问记录环形缓冲区测试
+ * 验证定长记录编解码、超长文本截断以及环形写入和“查看-确认”消费
+ */
+public class VisitRingBufferTest {
+
+    @Test
+    public void testRecordRoundTrip() {
+        byte[] buffer = new byte[VisitRecord.SIZE * 3];
+        new VisitRecord(1731200000123L, 42, "61.135.169.121", "中国", "北京", "北京市").writeTo(buffer, 0);
+        new VisitRecord(1731200000456L, null, "2001:db8::1", null, null, null).writeTo(buffer, VisitRecord.SIZE);
+        new VisitRecord(1731200000789L, null, "not-an-ip", "这是一个非常非常非常长的国家名称用于截断", "", null)
+                .writeTo(buffer, VisitRecord.SIZE * 2);
+
+        VisitRecord first = VisitRecord.readFrom(buffer, 0);
+        assertEquals(1731200000123L, first.getTimestamp());
+        assertEquals(Integer.valueOf(42), first.getUserId());
+        assertEquals("61.135.169.121", first.getIp());
+        assertEquals("中国", first.getNation());
+        assertEquals("北京", first.getProvince());
+        assertEquals("北京市", first.getCity());
+
+        VisitRecord second = VisitRecord.readFrom(buffer, VisitRecord.SIZE);
+        assertNull(second.getUserId());
+        assertEquals("2001:db8:0:0:0:0:0:1", second.getIp());
+        assertNull(second.getNation());
+
+        VisitRecord third = VisitRecord.readFrom(buffer, VisitRecord.SIZE * 2);
+        assertEquals("not-an-ip", third.getIp());
+        // 截断在字符边界上：31字节内最多10个汉字
+        assertEquals("这是一个非常非常非常", third.getNation());
+        assertNull(third.getProvince());
+    }
+
+    @Test
+    public void testWrapAroundAndPeekSkip() {
+        VisitRingBuffer ring = new VisitRingBuffer(3);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.offer(record(i)));
+        }
+        assertFalse(ring.offer(record(3)));
+
+        byte[] batch = ring.peek(2);
+        assertEquals(2 * VisitRecord.SIZE, batch.length);
+        // 查看后未确认，记录仍在缓冲区
+        assertEquals(3, ring.size());
+        ring.skip(2);
+
+        assertTrue(ring.offer(record(3)));
+        assertTrue(ring.offer(record(4)));
+
+        byte[] rest = ring.peek(10);
+        assertEquals(3, rest.length / VisitRecord.SIZE);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2 + i, VisitRecord.readFrom(rest, i * VisitRecord.SIZE).getUserId().intValue());
+        }
+        ring.skip(3);
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.peek(10).length);
+    }
+
+    private static VisitRecord record(int userId) {
+        return new VisitRecord(1731200000000L + userId, userId, "10.0.0." + userId, null, "浙江", "杭州");
+    }
+}
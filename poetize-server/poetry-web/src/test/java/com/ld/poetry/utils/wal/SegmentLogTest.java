@@ -0,0 +1,151 @@
+package com.ld.poetry.utils.wal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分段预写日志测试
+ * 验证重放未完成记录、跳过损坏记录及段文件在记录全部完成后删除（包括并发追加和切换段时）
+ */
+public class SegmentLogTest {
+
+    @Test
+    public void testReplayPendingRecords() throws IOException {
+        Path dir = Files.createTempDirectory("segment-log");
+        try {
+            SegmentLog log = new SegmentLog(dir, 4096);
+            SegmentLog.Position first = log.append(bytes("first"));
+            log.append(bytes("second"));
+            log.append(bytes("third"));
+            log.complete(first);
+
+            List<SegmentLog.Entry> entries = new SegmentLog(dir, 4096).replay();
+            assertEquals(2, entries.size());
+            assertEquals("second", text(entries.get(0)));
+            assertEquals("third", text(entries.get(1)));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    @Test
+    public void testSkipCorruptedRecord() throws IOException {
+        Path dir = Files.createTempDirectory("segment-log");
+        try {
+            SegmentLog log = new SegmentLog(dir, 4096);
+            log.append(bytes("broken"));
+            log.append(bytes("intact"));
+
+            // 破坏第一条记录的内容，校验失败后应跳过
+            Path segment = listSegments(dir).get(0);
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(16);
+                file.write('X');
+            }
+
+            List<SegmentLog.Entry> entries = new SegmentLog(dir, 4096).replay();
+            assertEquals(1, entries.size());
+            assertEquals("intact", text(entries.get(0)));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    @Test
+    public void testSegmentDeletedWhenCompleted() throws IOException {
+        Path dir = Files.createTempDirectory("segment-log");
+        try {
+            // 每段只能放下两条记录
+            SegmentLog log = new SegmentLog(dir, 64);
+            SegmentLog.Position a = log.append(bytes("aaaa"));
+            SegmentLog.Position b = log.append(bytes("bbbb"));
+            SegmentLog.Position c = log.append(bytes("cccc"));
+            assertEquals(2, listSegments(dir).size());
+
+            a.complete();
+            assertEquals(2, listSegments(dir).size());
+            b.complete();
+            assertEquals(1, listSegments(dir).size());
+
+            // 未写满的当前段不删除，重启后重放其中未完成的记录
+            List<SegmentLog.Entry> entries = new SegmentLog(dir, 64).replay();
+            assertEquals(1, entries.size());
+            assertEquals("cccc", text(entries.get(0)));
+            entries.get(0).getPosition().complete();
+            assertTrue(new SegmentLog(dir, 64).replay().isEmpty());
+
+            assertThrows(IllegalArgumentException.class, () -> log.append(new byte[64]));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    @Test
+    public void testConcurrentAppendDeletesSealedSegments() throws Exception {
+        Path dir = Files.createTempDirectory("segment-log");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // 每段只能放下两条记录，频繁切换段，预占失败与封存交错发生
+            SegmentLog log = new SegmentLog(dir, 64);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        log.append(bytes("data")).complete();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            // 记录全部完成后只保留当前段
+            assertEquals(1, listSegments(dir).size());
+            assertTrue(new SegmentLog(dir, 64).replay().isEmpty());
+        } finally {
+            executor.shutdownNow();
+            deleteRecursively(dir);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(SegmentLog.Entry entry) {
+        return new String(entry.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
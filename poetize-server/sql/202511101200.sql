@@ -0,0 +1,23 @@
+-- ============================================================
+-- 文章列表摘录字段
+-- 日期: 2025-11-10 12:00
+-- ============================================================
+-- 功能说明：
+-- 列表接口（首页、分类、后台）不再查询 article_content，
+-- 改为读取保存/更新文章时预先生成的纯文本摘录，
+-- 减少每页列表的数据库读取量、结果集内存和Redis缓存体积。
+--
+-- 变更内容：
+-- 1. article 表新增 excerpt 字段（去除Markdown标记后的前80个字符）
+-- 2. 回填已有文章的摘录（仅去除 ` # > 符号，文章再次保存时会按完整规则重新生成）
+-- ============================================================
+
+ALTER TABLE `article`
+ADD COLUMN `excerpt` varchar(255) DEFAULT NULL COMMENT '列表摘录（纯文本，保存文章时生成）' AFTER `summary`;
+
+UPDATE `article`
+SET `excerpt` = CASE
+    WHEN CHAR_LENGTH(`article_content`) > 80
+        THEN CONCAT(REPLACE(REPLACE(REPLACE(LEFT(`article_content`, 80), '`', ''), '#', ''), '>', ''), '...')
+    ELSE REPLACE(REPLACE(REPLACE(`article_content`, '`', ''), '#', ''), '>', '')
+END;
@@ -0,0 +1,21 @@
+-- ============================================================
+-- 访问日志同步位点表
+-- 日期: 2025-11-12 12:00
+-- ============================================================
+-- 功能说明：
+-- 访问记录改为定长二进制格式，先写入进程内环形缓冲区，
+-- 再批量追加到 Redis Stream（poetize:visit:log），
+-- 定时任务从已同步位点开始分块读取并批量写入 history_info。
+-- 位点与访问记录在同一事务中提交，保证每条记录只同步一次。
+--
+-- 变更内容：
+-- 1. 新增 visit_log_offset 表，记录各日志已同步到的 Stream 条目ID
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `visit_log_offset` (
+  `name` varchar(64) NOT NULL COMMENT '日志名称',
+  `last_id` varchar(32) NOT NULL COMMENT '已同步到的Stream条目ID',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问日志同步位点';
@@ -0,0 +1,64 @@
+-- ============================================================
+-- 访问统计汇总表
+-- 日期: 2025-11-13 12:00
+-- ============================================================
+-- 功能说明：
+-- 访问统计不再对 history_info 做 count(distinct ip) / group by 全表扫描，
+-- 改为按 history_info 自增ID位点增量汇总（位点记录在 visit_log_offset，名称 visit_rollup），
+-- 独立IP数使用 HyperLogLog 草图保存，可按天、按小时、按省份合并。
+-- 首次运行时会从头汇总已有的访问记录，无需手动迁移数据。
+--
+-- 变更内容：
+-- 1. 新增 visit_rollup_daily 表，按天及累计（period=total）的访问次数和独立IP草图
+-- 2. 新增 visit_rollup_hourly 表，按小时的访问次数和独立IP草图
+-- 3. 新增 visit_rollup_province 表，按天及累计的省份访问次数和独立IP草图
+-- 4. 新增 visit_rollup_ip 表，IP累计访问次数
+-- 5. 新增 visit_rollup_user 表，用户每日访问次数
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `visit_rollup_daily` (
+  `period` varchar(10) NOT NULL COMMENT '统计周期：yyyy-MM-dd 或 total（累计）',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+
+  PRIMARY KEY (`period`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按天汇总';
+
+CREATE TABLE IF NOT EXISTS `visit_rollup_hourly` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `stat_hour` tinyint NOT NULL COMMENT '小时（0-23）',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+
+  PRIMARY KEY (`stat_date`, `stat_hour`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按小时汇总';
+
+CREATE TABLE IF NOT EXISTS `visit_rollup_province` (
+  `period` varchar(10) NOT NULL COMMENT '统计周期：yyyy-MM-dd 或 total（累计）',
+  `nation` varchar(64) NOT NULL COMMENT '国家',
+  `province` varchar(64) NOT NULL COMMENT '省份',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+
+  PRIMARY KEY (`period`, `nation`, `province`),
+  KEY `idx_period_uv` (`period`, `uv`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按省份汇总';
+
+CREATE TABLE IF NOT EXISTS `visit_rollup_ip` (
+  `ip` varchar(128) NOT NULL COMMENT 'ip',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '累计访问次数',
+
+  PRIMARY KEY (`ip`),
+  KEY `idx_pv` (`pv`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-IP累计访问次数';
+
+CREATE TABLE IF NOT EXISTS `visit_rollup_user` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `user_id` int NOT NULL COMMENT '用户ID',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+
+  PRIMARY KEY (`stat_date`, `user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-用户每日访问次数';
@@ -0,0 +1,25 @@
+-- ============================================================
+-- 自定义安全规则配置
+-- 日期: 2025-11-14 12:00
+-- ============================================================
+-- 功能说明：
+-- 安全过滤器的恶意路径规则编译为多模式匹配自动机，除内置规则外，
+-- 可在 security.malicious.rules 中追加自定义规则（每行一条，# 开头为注释），
+-- 保存后立即生效，其他实例每分钟同步一次。
+--
+-- 规则写法：
+--   contains:关键字   路径包含关键字（没有类型前缀时按此处理）
+--   prefix:关键字     路径以关键字开头
+--   suffix:关键字     路径以关键字结尾
+--   exact:路径        路径完全相同
+--   all:关键字1&关键字2  路径同时包含所有关键字
+-- ============================================================
+
+INSERT INTO `sys_config` (`config_name`, `config_key`, `config_value`, `config_type`)
+SELECT '自定义安全规则（每行一条）', 'security.malicious.rules', '', '1'
+FROM DUAL
+WHERE NOT EXISTS (
+    SELECT 1 FROM `sys_config`
+    WHERE `config_key` = 'security.malicious.rules'
+    AND `config_type` = '1'
+);
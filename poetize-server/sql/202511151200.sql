@@ -0,0 +1,17 @@
+-- ============================================================
+-- 聊天记录游标分页索引
+-- 日期: 2025-11-15 12:00
+-- ============================================================
+-- 功能说明：
+-- 聊天记录改为按ID游标分页（beforeId/afterId），不再使用 OFFSET 和 COUNT。
+-- 单聊按两个方向分别在 (from_id, to_id, id) 上范围查询，群聊在 (group_id, id) 上范围查询，
+-- 翻到任意深度每页都只读取一页数据。
+-- ============================================================
+
+ALTER TABLE `im_chat_user_message`
+ADD INDEX `idx_from_to_id` (`from_id`, `to_id`, `id`)
+COMMENT '单聊记录游标分页索引';
+
+ALTER TABLE `im_chat_user_group_message`
+ADD INDEX `idx_group_id` (`group_id`, `id`)
+COMMENT '群聊记录游标分页索引';
@@ -42,6 +42,7 @@ CREATE TABLE `poetize`.`article` (
   `article_title` varchar(500) NOT NULL COMMENT '博文标题',
   `article_content` text NOT NULL COMMENT '博文内容',
   `summary` varchar(500) DEFAULT NULL COMMENT '文章摘要',
+  `excerpt` varchar(255) DEFAULT NULL COMMENT '列表摘录（纯文本，保存文章时生成）',
   `video_url` varchar(1024) DEFAULT NULL COMMENT '视频链接',
   `view_count` int NOT NULL DEFAULT 0 COMMENT '浏览量',
   `view_status` tinyint(1) NOT NULL DEFAULT 1 COMMENT '是否可见[0:否，1:是]',
@@ -218,6 +219,67 @@ CREATE TABLE `poetize`.`history_info` (
   PRIMARY KEY (`id`)
 ) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='历史信息';
 
+DROP TABLE IF EXISTS `poetize`.`visit_log_offset`;
+
+CREATE TABLE `poetize`.`visit_log_offset` (
+  `name` varchar(64) NOT NULL COMMENT '日志名称',
+  `last_id` varchar(32) NOT NULL COMMENT '已同步到的Stream条目ID',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问日志同步位点';
+
+DROP TABLE IF EXISTS `poetize`.`visit_rollup_daily`;
+
+CREATE TABLE `poetize`.`visit_rollup_daily` (
+  `period` varchar(10) NOT NULL COMMENT '统计周期：yyyy-MM-dd 或 total（累计）',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+  PRIMARY KEY (`period`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按天汇总';
+
+DROP TABLE IF EXISTS `poetize`.`visit_rollup_hourly`;
+
+CREATE TABLE `poetize`.`visit_rollup_hourly` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `stat_hour` tinyint NOT NULL COMMENT '小时（0-23）',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+  PRIMARY KEY (`stat_date`, `stat_hour`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按小时汇总';
+
+DROP TABLE IF EXISTS `poetize`.`visit_rollup_province`;
+
+CREATE TABLE `poetize`.`visit_rollup_province` (
+  `period` varchar(10) NOT NULL COMMENT '统计周期：yyyy-MM-dd 或 total（累计）',
+  `nation` varchar(64) NOT NULL COMMENT '国家',
+  `province` varchar(64) NOT NULL COMMENT '省份',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数（草图估计值）',
+  `uv_sketch` blob COMMENT '独立IP的HyperLogLog草图',
+  PRIMARY KEY (`period`, `nation`, `province`),
+  KEY `idx_period_uv` (`period`, `uv`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-按省份汇总';
+
+DROP TABLE IF EXISTS `poetize`.`visit_rollup_ip`;
+
+CREATE TABLE `poetize`.`visit_rollup_ip` (
+  `ip` varchar(128) NOT NULL COMMENT 'ip',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '累计访问次数',
+  PRIMARY KEY (`ip`),
+  KEY `idx_pv` (`pv`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-IP累计访问次数';
+
+DROP TABLE IF EXISTS `poetize`.`visit_rollup_user`;
+
+CREATE TABLE `poetize`.`visit_rollup_user` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `user_id` int NOT NULL COMMENT '用户ID',
+  `pv` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  PRIMARY KEY (`stat_date`, `user_id`)
+) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='访问统计-用户每日访问次数';
+
 DROP TABLE IF EXISTS `poetize`.`sys_config`;
 
 CREATE TABLE `poetize`.`sys_config` (
@@ -399,7 +461,8 @@ CREATE TABLE `poetize`.`im_chat_user_message` (
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
 
   PRIMARY KEY (`id`),
-  KEY `union_index` (`to_id`,`message_status`)
+  KEY `union_index` (`to_id`,`message_status`),
+  KEY `idx_from_to_id` (`from_id`,`to_id`,`id`)
 ) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='单聊记录';
 
 DROP TABLE IF EXISTS `poetize`.`im_chat_user_group_message`;
@@ -413,7 +476,8 @@ CREATE TABLE `poetize`.`im_chat_user_group_message` (
 
   `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
 
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_group_id` (`group_id`,`id`)
 ) ENGINE=RocksDB DEFAULT CHARSET=utf8mb4 COMMENT='群聊记录';
 
 DROP TABLE IF EXISTS `poetize`.`im_chat_last_read`;
@@ -816,6 +880,7 @@ INSERT INTO `poetize`.`sys_config` (`id`, `config_name`, `config_key`, `config_v
 INSERT INTO `poetize`.`sys_config` (`id`, `config_name`, `config_key`, `config_value`, `config_type`) VALUES (33, '字体Unicode范围JSON文件路径', 'font.unicode.path', '/static/assets/font_chunks/unicode_ranges.json', '2');
 INSERT INTO `poetize`.`sys_config` (`id`, `config_name`, `config_key`, `config_value`, `config_type`) VALUES (34, '腾讯位置服务Key', 'tencent.lbs.key', '', '1');
 INSERT INTO `poetize`.`sys_config` (`id`, `config_name`, `config_key`, `config_value`, `config_type`) VALUES (35, '全局评论开关', 'enableComment', 'true', '2');
+INSERT INTO `poetize`.`sys_config` (`id`, `config_name`, `config_key`, `config_value`, `config_type`) VALUES (36, '自定义安全规则（每行一条）', 'security.malicious.rules', '', '1');
 
 -- 初始化验证码配置数据
 INSERT INTO `poetize`.`sys_captcha_config` (`id`, `enable`, `login`, `register`, `comment`, `reset_password`, `screen_size_threshold`, `force_slide_for_mobile`, `slide_accuracy`, `slide_success_threshold`, `checkbox_track_sensitivity`, `checkbox_min_track_points`, `checkbox_reply_sensitivity`, `checkbox_max_retry_count`, `checkbox_retry_decrement`) VALUES (1, 1, 1, 1, 1, 1, 768, 1, 5, 0.95, 0.99, 3, 0.85, 5, 0.02);